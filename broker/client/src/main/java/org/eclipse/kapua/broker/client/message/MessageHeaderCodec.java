@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.client.message;
+
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.eclipse.kapua.commons.cache.LocalCache;
+
+import java.io.Serializable;
+import java.util.Base64;
+
+/**
+ * Codec of the object valued message headers set by the broker ({@link MessageConstants#HEADER_KAPUA_CONNECTION_ID},
+ * {@link MessageConstants#HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL} and {@link MessageConstants#HEADER_KAPUA_SESSION}).
+ * <p>
+ * The header value is the Base64 encoding of the Java serialization of the object.
+ * These objects are the same for all the messages published on a connection, so the broker encodes them once per connection
+ * and the consumers keep the decoded objects in a bounded cache keyed by the header value.
+ * The decoded objects are shared between the messages which carry the same header value, so they must not be modified.
+ * Mutable header values, like the {@link org.eclipse.kapua.commons.security.KapuaSession}, must be copied before being modified.
+ *
+ * @since 2.0.0
+ */
+public class MessageHeaderCodec {
+
+    private static final Object NULL_VALUE = new Object();
+
+    private final LocalCache<String, Object> decodedHeaders;
+
+    /**
+     * Constructor.
+     *
+     * @param cacheSize The maximum number of decoded header values to keep.
+     * @since 2.0.0
+     */
+    public MessageHeaderCodec(int cacheSize) {
+        decodedHeaders = new LocalCache<>(cacheSize, null);
+    }
+
+    /**
+     * Encodes the given object as a message header value.
+     *
+     * @param value The object to encode. It can be {@code null}.
+     * @return The encoded header value.
+     * @throws SerializationException If the object cannot be serialized.
+     * @since 2.0.0
+     */
+    public static String encode(Serializable value) {
+        return Base64.getEncoder().encodeToString(SerializationUtils.serialize(value));
+    }
+
+    /**
+     * Decodes the given message header value, looking it up in the cache first.
+     *
+     * @param headerValue The header value to decode.
+     * @param <T>         The type of the decoded object.
+     * @return The decoded object.
+     * @throws IllegalArgumentException If the header value is {@code null} or is not valid Base64.
+     * @throws SerializationException   If the object cannot be deserialized.
+     * @throws ClassCastException       If the decoded object is not of the expected type.
+     * @since 2.0.0
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T decode(String headerValue) {
+        if (headerValue == null) {
+            throw new IllegalArgumentException("The header value cannot be null");
+        }
+
+        Object decoded = decodedHeaders.get(headerValue);
+        if (decoded == null) {
+            decoded = decodeUncached(headerValue);
+            if (decoded == null) {
+                decoded = NULL_VALUE;
+            }
+            decodedHeaders.put(headerValue, decoded);
+        }
+        return decoded == NULL_VALUE ? null : (T) decoded;
+    }
+
+    /**
+     * Decodes the given message header value, returning a new object on each invocation.
+     *
+     * @param headerValue The header value to decode.
+     * @return The decoded object.
+     * @throws IllegalArgumentException If the header value is not valid Base64.
+     * @throws SerializationException   If the object cannot be deserialized.
+     * @since 2.0.0
+     */
+    private static Object decodeUncached(String headerValue) {
+        return SerializationUtils.deserialize(Base64.getDecoder().decode(headerValue));
+    }
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.client.message;
+
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.security.KapuaSession;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+import java.util.Base64;
+
+@Category(JUnitTests.class)
+public class MessageHeaderCodecTest extends Assert {
+
+    @Test
+    public void encodeIsCompatibleTest() {
+        KapuaId connectionId = new KapuaEid(BigInteger.valueOf(42));
+
+        assertEquals(Base64.getEncoder().encodeToString(SerializationUtils.serialize(connectionId)), MessageHeaderCodec.encode(connectionId));
+    }
+
+    @Test
+    public void decodeCachesTest() {
+        MessageHeaderCodec codec = new MessageHeaderCodec(10);
+        String header = MessageHeaderCodec.encode(new KapuaEid(BigInteger.valueOf(42)));
+
+        KapuaId first = codec.decode(header);
+        KapuaId second = codec.decode(header);
+        assertEquals(BigInteger.valueOf(42), first.getId());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void decodeSessionCopyTest() {
+        MessageHeaderCodec codec = new MessageHeaderCodec(10);
+        String header = MessageHeaderCodec.encode(new KapuaSession(null, KapuaId.ONE, new KapuaEid(BigInteger.valueOf(42))));
+
+        // The decoded session is shared, so it is copied before being modified
+        KapuaSession decoded = codec.decode(header);
+        KapuaSession copy = new KapuaSession(decoded);
+        copy.setUserInitiatedLogout(true);
+
+        assertSame(decoded, codec.decode(header));
+        assertFalse(decoded.isUserInitiatedLogout());
+        assertEquals(KapuaId.ONE, copy.getScopeId());
+        assertEquals(BigInteger.valueOf(42), copy.getUserId().getId());
+    }
+
+    @Test
+    public void decodeNullValueTest() {
+        MessageHeaderCodec codec = new MessageHeaderCodec(10);
+        String header = MessageHeaderCodec.encode(null);
+
+        assertNull(codec.decode(header));
+        assertNull(codec.decode(header));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeMissingHeaderTest() {
+        new MessageHeaderCodec(10).decode(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeInvalidBase64HeaderTest() {
+        new MessageHeaderCodec(10).decode("not base64!");
+    }
+
+    @Test(expected = SerializationException.class)
+    public void decodeInvalidHeaderTest() {
+        new MessageHeaderCodec(10).decode(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3}));
+    }
+}
@@ -29,6 +29,13 @@ public enum KapuaBrokerErrorCodes implements KapuaErrorCode {
     /**
      * An unexpected device status was detected
      */
-    UNEXPECTED_STATUS
+    UNEXPECTED_STATUS,
+
+    /**
+     * The login was rejected since the broker is overloaded
+     *
+     * @since 2.0.0
+     */
+    LOGIN_OVERLOADED
 
 }
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin;
+
+import org.eclipse.kapua.KapuaException;
+
+/**
+ * Broker {@link KapuaException}.
+ *
+ * @since 2.0.0
+ */
+public class KapuaBrokerException extends KapuaException {
+
+    private static final long serialVersionUID = -2164915434617932471L;
+
+    private static final String KAPUA_BROKER_ERROR_MESSAGES = "kapua-broker-error-messages";
+
+    /**
+     * Constructor.
+     *
+     * @param code      The {@link KapuaBrokerErrorCodes}.
+     * @param arguments Additional argument associated with the {@link KapuaBrokerException}.
+     * @since 2.0.0
+     */
+    public KapuaBrokerException(KapuaBrokerErrorCodes code, Object... arguments) {
+        super(code, arguments);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param code      The {@link KapuaBrokerErrorCodes}.
+     * @param cause     The root {@link Throwable} of this {@link KapuaBrokerException}.
+     * @param arguments Additional argument associated with the {@link KapuaBrokerException}.
+     * @since 2.0.0
+     */
+    public KapuaBrokerException(KapuaBrokerErrorCodes code, Throwable cause, Object... arguments) {
+        super(code, cause, arguments);
+    }
+
+    @Override
+    protected String getKapuaErrorMessagesBundle() {
+        return KAPUA_BROKER_ERROR_MESSAGES;
+    }
+}
@@ -12,9 +12,7 @@
  *******************************************************************************/
 package org.eclipse.kapua.broker.core.plugin;
 
-import org.eclipse.kapua.KapuaException;
-
-public class KapuaIllegalDeviceStateException extends KapuaException {
+public class KapuaIllegalDeviceStateException extends KapuaBrokerException {
 
     private static final long serialVersionUID = 1751650664486096457L;
 
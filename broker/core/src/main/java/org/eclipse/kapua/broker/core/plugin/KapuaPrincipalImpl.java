@@ -54,6 +54,25 @@ public class KapuaPrincipalImpl implements KapuaPrincipal {
         this.clientIp = clientIp;
     }
 
+    /**
+     * Create a KapuaPrincipal with the supplied name for a session without {@link AccessToken}.
+     *
+     * @param accountId
+     * @param userId
+     * @param username
+     * @param clientId
+     * @param clientIp
+     * @since 2.0.0
+     */
+    public KapuaPrincipalImpl(KapuaId accountId, KapuaId userId, String username, String clientId, String clientIp) {
+        name = username;
+        tokenId = null;
+        this.userId = userId;
+        this.accountId = accountId;
+        this.clientId = clientId;
+        this.clientIp = clientIp;
+    }
+
     @Override
     public String getName() {
         return name;
@@ -31,10 +31,8 @@ import org.apache.activemq.filter.DestinationMapEntry;
 import org.apache.activemq.security.AuthorizationEntry;
 import org.apache.activemq.security.DefaultAuthorizationMap;
 import org.apache.activemq.security.SecurityContext;
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.shiro.ShiroException;
-import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.util.ThreadContext;
 import org.eclipse.kapua.KapuaErrorCode;
 import org.eclipse.kapua.KapuaErrorCodes;
@@ -46,20 +44,28 @@ import org.eclipse.kapua.broker.client.setting.BrokerClientSetting;
 import org.eclipse.kapua.broker.client.setting.BrokerClientSettingKey;
 import org.eclipse.kapua.broker.core.plugin.authentication.Authenticator;
 import org.eclipse.kapua.broker.core.plugin.authentication.DefaultAuthenticator;
+import org.eclipse.kapua.broker.core.plugin.authentication.DeviceConnectionStatusUpdater;
+import org.eclipse.kapua.broker.core.plugin.authentication.VerifiedCredentialCache;
+import org.eclipse.kapua.broker.core.plugin.authentication.VerifiedCredentialCache.VerifiedCredential;
 import org.eclipse.kapua.broker.core.plugin.authorization.Authorizer;
 import org.eclipse.kapua.broker.core.plugin.authorization.Authorizer.ActionType;
 import org.eclipse.kapua.broker.core.plugin.authorization.DefaultAuthorizer;
+import org.eclipse.kapua.broker.core.plugin.authorization.DestinationAclMatcher;
 import org.eclipse.kapua.broker.core.plugin.metric.LoginMetric;
 import org.eclipse.kapua.broker.core.plugin.metric.PublishMetric;
 import org.eclipse.kapua.broker.core.plugin.metric.SubscribeMetric;
 import org.eclipse.kapua.broker.core.setting.BrokerSetting;
 import org.eclipse.kapua.broker.core.setting.BrokerSettingKey;
+import org.eclipse.kapua.commons.cache.LocalCache;
+import org.eclipse.kapua.commons.event.ServiceEventBusManager;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.commons.security.KapuaSession;
 import org.eclipse.kapua.commons.setting.system.SystemSetting;
 import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
 import org.eclipse.kapua.commons.util.ClassUtil;
 import org.eclipse.kapua.commons.util.KapuaDateUtils;
+import org.eclipse.kapua.event.ServiceEventBus;
+import org.eclipse.kapua.event.ServiceEventBusException;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.account.Account;
@@ -70,7 +76,9 @@ import org.eclipse.kapua.service.authentication.KapuaPrincipal;
 import org.eclipse.kapua.service.authentication.LoginCredentials;
 import org.eclipse.kapua.service.authentication.KapuaAuthenticationErrorCodes;
 import org.eclipse.kapua.service.authentication.shiro.KapuaAuthenticationException;
-import org.eclipse.kapua.service.authentication.token.AccessToken;
+import org.eclipse.kapua.service.authentication.shiro.session.ShiroSessionKeys;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionFactory;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,7 +87,6 @@ import javax.security.auth.login.CredentialException;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -119,6 +126,8 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
     private static final String AUTHORIZER_CLASS_NAME;
     private static final Long STEALING_LINK_INITIALIZATION_MAX_WAIT_TIME;
     private static final int DEFAULT_PUBLISHED_MESSAGE_SIZE_LOG_THRESHOLD = 100000;
+    private static final int DEFAULT_AUTHORIZATION_DESTINATION_CACHE_SIZE = 100;
+    private static final String CREDENTIAL_CACHE_SUBSCRIPTION_NAME = "%s-broker-credential-cache-%s";
 
     private static boolean stealingLinkEnabled;
     private Future<?> stealingLinkManagerFuture;
@@ -134,6 +143,24 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
      */
     private static int publishInfoMessageSizeLimit;
 
+    /**
+     * max number of destinations whose authorization is cached for each connection
+     */
+    private static int authorizationDestinationCacheSize;
+
+    private static final boolean CREDENTIAL_CACHE_ENABLED;
+    private static final int CREDENTIAL_CACHE_SIZE;
+    private static final int CREDENTIAL_CACHE_TTL;
+    private static final List<String> CREDENTIAL_CACHE_EVENT_ADDRESSES;
+
+    private static final int LOGIN_EXECUTOR_THREADS;
+    private static final int LOGIN_EXECUTOR_QUEUE_SIZE;
+    private static final long LOGIN_EXECUTOR_QUEUE_MAX_WAIT_TIME;
+    private static final int LOGIN_EXECUTOR_KNOWN_CLIENTS_SIZE;
+
+    private static final long DEVICE_CONNECTION_STATUS_FLUSH_INTERVAL;
+    private static final int DEVICE_CONNECTION_STATUS_MAX_RETRIES;
+
     static {
         BrokerSetting config = BrokerSetting.getInstance();
         BROKER_IP_RESOLVER_CLASS_NAME = config.getString(BrokerSettingKey.BROKER_IP_RESOLVER_CLASS_NAME);
@@ -145,6 +172,17 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
         STEALING_LINK_INITIALIZATION_MAX_WAIT_TIME = config.getLong(BrokerSettingKey.STEALING_LINK_INITIALIZATION_MAX_WAIT_TIME);
         stealingLinkEnabled = config.getBoolean(BrokerSettingKey.BROKER_STEALING_LINK_ENABLED);
         publishInfoMessageSizeLimit = BrokerSetting.getInstance().getInt(BrokerSettingKey.PUBLISHED_MESSAGE_SIZE_LOG_THRESHOLD, DEFAULT_PUBLISHED_MESSAGE_SIZE_LOG_THRESHOLD);
+        authorizationDestinationCacheSize = config.getInt(BrokerSettingKey.AUTHORIZATION_DESTINATION_CACHE_SIZE, DEFAULT_AUTHORIZATION_DESTINATION_CACHE_SIZE);
+        CREDENTIAL_CACHE_ENABLED = config.getBoolean(BrokerSettingKey.CREDENTIAL_CACHE_ENABLED, false);
+        CREDENTIAL_CACHE_SIZE = config.getInt(BrokerSettingKey.CREDENTIAL_CACHE_SIZE, 10000);
+        CREDENTIAL_CACHE_TTL = config.getInt(BrokerSettingKey.CREDENTIAL_CACHE_TTL, 60);
+        CREDENTIAL_CACHE_EVENT_ADDRESSES = config.getList(String.class, BrokerSettingKey.CREDENTIAL_CACHE_EVENT_ADDRESSES);
+        LOGIN_EXECUTOR_THREADS = config.getInt(BrokerSettingKey.LOGIN_EXECUTOR_THREADS, 0);
+        LOGIN_EXECUTOR_QUEUE_SIZE = config.getInt(BrokerSettingKey.LOGIN_EXECUTOR_QUEUE_SIZE, 1000);
+        LOGIN_EXECUTOR_QUEUE_MAX_WAIT_TIME = config.getLong(BrokerSettingKey.LOGIN_EXECUTOR_QUEUE_MAX_WAIT_TIME, 10000L);
+        LOGIN_EXECUTOR_KNOWN_CLIENTS_SIZE = config.getInt(BrokerSettingKey.LOGIN_EXECUTOR_KNOWN_CLIENTS_SIZE, 100000);
+        DEVICE_CONNECTION_STATUS_FLUSH_INTERVAL = config.getLong(BrokerSettingKey.DEVICE_CONNECTION_STATUS_FLUSH_INTERVAL, 0L);
+        DEVICE_CONNECTION_STATUS_MAX_RETRIES = config.getInt(BrokerSettingKey.DEVICE_CONNECTION_STATUS_MAX_RETRIES, 5);
     }
 
     protected BrokerIpResolver brokerIpResolver;
@@ -155,6 +193,10 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
     protected static final Map<String, String> CONNECTION_MAP = new ConcurrentHashMap<>();
     private Authenticator authenticator;
     private Authorizer authorizer;
+    private VerifiedCredentialCache verifiedCredentialCache;
+    private LoginExecutor loginExecutor;
+    private LocalCache<String, Boolean> knownClients;
+    private DeviceConnectionStatusUpdater deviceConnectionStatusUpdater;
 
     private AuthenticationService authenticationService = KapuaLocator.getInstance().getService(AuthenticationService.class);
     private CredentialsFactory credentialsFactory = KapuaLocator.getInstance().getFactory(CredentialsFactory.class);
@@ -180,6 +222,12 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
     public void start()
             throws Exception {
         logger.info(">>> Security broker filter: calling start...");
+        if (DEVICE_CONNECTION_STATUS_FLUSH_INTERVAL > 0) {
+            logger.info(">>> Security broker filter: calling start... Initialize device connection status updater");
+            deviceConnectionStatusUpdater = new DeviceConnectionStatusUpdater(KapuaLocator.getInstance().getService(DeviceConnectionService.class),
+                    KapuaLocator.getInstance().getFactory(DeviceConnectionFactory.class), DEVICE_CONNECTION_STATUS_FLUSH_INTERVAL, DEVICE_CONNECTION_STATUS_MAX_RETRIES);
+            options.put(Authenticator.DEVICE_CONNECTION_STATUS_UPDATER_KEY, deviceConnectionStatusUpdater);
+        }
         logger.info(">>> Security broker filter: calling start... Initialize authenticator {}", AUTHENTICATOR_CLASS_NAME);
         authenticator = ClassUtil.newInstance(AUTHENTICATOR_CLASS_NAME, DefaultAuthenticator.class, new Class<?>[] { Map.class }, new Object[] { options });
         logger.info(">>> Security broker filter: calling start... Initialize authorizer {}", AUTHORIZER_CLASS_NAME);
@@ -189,6 +237,15 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
         logger.info(">>> Security broker filter: calling start... Initialize broker id resolver");
         brokerIdResolver = ClassUtil.newInstance(BROKER_ID_RESOLVER_CLASS_NAME, DefaultBrokerIdResolver.class);
         brokerId = brokerIdResolver.getBrokerId(this);
+        if (LOGIN_EXECUTOR_THREADS > 0) {
+            logger.info(">>> Security broker filter: calling start... Initialize login executor");
+            loginExecutor = new LoginExecutor(LOGIN_EXECUTOR_THREADS, LOGIN_EXECUTOR_QUEUE_SIZE, LOGIN_EXECUTOR_QUEUE_MAX_WAIT_TIME);
+            knownClients = new LocalCache<>(LOGIN_EXECUTOR_KNOWN_CLIENTS_SIZE, null);
+        }
+        if (CREDENTIAL_CACHE_ENABLED) {
+            logger.info(">>> Security broker filter: calling start... Initialize verified credential cache");
+            registerVerifiedCredentialCache();
+        }
         // start the stealing link manager
         if (stealingLinkEnabled) {
             logger.info(">>> Security broker filter: calling start... Initialize stealing link manager...");
@@ -207,10 +264,39 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
             logger.info(">>> Security broker filter: calling stop... Unregister stealing link manager");
             unregisterStealingLinkManager();
         }
+        if (loginExecutor != null) {
+            logger.info(">>> Security broker filter: calling stop... Shutdown login executor");
+            loginExecutor.shutdown();
+        }
         super.stop();
+        if (deviceConnectionStatusUpdater != null) {
+            // after the connections have been removed, so their disconnections are written too
+            logger.info(">>> Security broker filter: calling stop... Flush device connection status updates");
+            deviceConnectionStatusUpdater.shutdown();
+        }
         logger.info(">>> Security broker filter: calling stop... DONE");
     }
 
+    /**
+     * Register the verified credential cache and subscribe it to the configured service event addresses
+     */
+    protected void registerVerifiedCredentialCache() {
+        verifiedCredentialCache = new VerifiedCredentialCache(CREDENTIAL_CACHE_SIZE, CREDENTIAL_CACHE_TTL);
+        if (CREDENTIAL_CACHE_EVENT_ADDRESSES == null) {
+            return;
+        }
+        try {
+            ServiceEventBus serviceEventBus = ServiceEventBusManager.getInstance();
+            for (String address : CREDENTIAL_CACHE_EVENT_ADDRESSES) {
+                // the subscription name must be unique for each broker, since every broker instance has its own cache to invalidate
+                serviceEventBus.subscribe(address, String.format(CREDENTIAL_CACHE_SUBSCRIPTION_NAME, address, brokerId), verifiedCredentialCache);
+            }
+        } catch (ServiceEventBusException e) {
+            logger.warn(">>> Security broker filter: calling start... Cannot subscribe the verified credential cache to the service events. The cached credentials will be invalidated only by their time to live ({}s): {}",
+                    CREDENTIAL_CACHE_TTL, e.getMessage());
+        }
+    }
+
     /**
      * Register the stealink link manager (if enabled)
      */
@@ -419,7 +505,11 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
     public void addConnection(ConnectionContext context, ConnectionInfo info)
             throws Exception {
         if (!isPassThroughConnection(context)) {
-            addExternalConnection(context, info);
+            if (loginExecutor != null) {
+                addExternalConnectionAsync(context, info);
+            } else {
+                addExternalConnection(context, info);
+            }
             loginMetric.getSuccess().inc();
         }
         else if (isInternalConnector(context)) {
@@ -437,6 +527,30 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
         super.addConnection(context, info);
     }
 
+    /**
+     * Runs the {@link #addExternalConnection(ConnectionContext, ConnectionInfo)} on the {@link LoginExecutor}.
+     * <p>
+     * The internal connectors never get here, since they don't need any login, while the clients already connected to this broker get priority over the new ones,
+     * so a reconnection storm doesn't starve the devices already known.
+     */
+    private void addExternalConnectionAsync(ConnectionContext context, ConnectionInfo info) throws Exception {
+        String knownClientKey = info.getUserName() + ":" + info.getClientId();
+        boolean knownClient = knownClients.get(knownClientKey) != null;
+        try {
+            loginExecutor.execute(() -> {
+                addExternalConnection(context, info);
+                return null;
+            }, knownClient, info.getClientId());
+        } catch (KapuaException e) {
+            if (KapuaBrokerErrorCodes.LOGIN_OVERLOADED.equals(e.getCode())) {
+                loginMetric.getFailure().inc();
+                logger.warn("Login of client id {} rejected since the broker is overloaded", info.getClientId());
+            }
+            throw e;
+        }
+        knownClients.put(knownClientKey, Boolean.TRUE);
+    }
+
     protected void addExternalConnection(ConnectionContext context, ConnectionInfo info)
             throws CredentialException, KapuaException {
         // Clean-up credentials possibly associated with the current thread by previous connection.
@@ -447,23 +561,48 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
         try {
             logger.info("User name {} - client id: {}, connection id: {}", info.getUserName(), info.getClientId(), info.getConnectionId());
             Context loginShiroLoginTimeContext = loginMetric.getShiroLoginTime().time();
-            LoginCredentials credentials = credentialsFactory.newUsernamePasswordCredentials(info.getUserName(), info.getPassword());
-            AccessToken accessToken = authenticationService.login(credentials);
-
-            final Account account = getAccount(accessToken.getScopeId());
+            VerifiedCredential verifiedCredential = verifiedCredentialCache != null ? verifiedCredentialCache.get(info.getUserName(), info.getPassword()) : null;
+            KapuaId scopeId;
+            KapuaId userId;
+            String accountName;
+            if (verifiedCredential != null) {
+                // credentials already verified by a recent login
+                loginMetric.getCredentialCacheHit().inc();
+                scopeId = verifiedCredential.getScopeId();
+                userId = verifiedCredential.getUserId();
+                accountName = verifiedCredential.getAccountName();
+                KapuaSecurityUtils.setSession(new KapuaSession(null, scopeId, userId));
+            } else {
+                // no access token is created since the broker session ends with the connection, so the login doesn't write to the database
+                LoginCredentials credentials = credentialsFactory.newUsernamePasswordCredentials(info.getUserName(), info.getPassword());
+                authenticationService.loginWithoutAccessToken(credentials);
+                KapuaSession kapuaSession = KapuaSecurityUtils.getSession();
+                scopeId = kapuaSession.getScopeId();
+                userId = kapuaSession.getUserId();
+                // set by the login, so it doesn't need another database read
+                accountName = (String) SecurityUtils.getSubject().getSession().getAttribute(ShiroSessionKeys.ACCOUNT_NAME);
+            }
 
-            KapuaPrincipal principal = new KapuaPrincipalImpl(accessToken,
+            KapuaPrincipal principal = new KapuaPrincipalImpl(scopeId,
+                    userId,
                     info.getUserName(),
                     info.getClientId(),
                     info.getClientIp());
             kapuaSecurityContext = new KapuaSecurityContext(principal, brokerIdResolver.getBrokerId(this), brokerIpResolver.getBrokerIpOrHostName(),
-                    account.getName(), info, (((TransportConnector) context.getConnector()).getName()));
+                    accountName, info, (((TransportConnector) context.getConnector()).getName()));
             kapuaSecurityContext.updateOldConnectionId(CONNECTION_MAP.get(kapuaSecurityContext.getFullClientId()));
+            if (verifiedCredential != null) {
+                kapuaSecurityContext.updatePermissions(verifiedCredential.getPermissions());
+            }
             loginShiroLoginTimeContext.stop();
 
             CONNECTION_MAP.put(kapuaSecurityContext.getFullClientId(), info.getConnectionId().getValue());
 
             buildAuthorization(kapuaSecurityContext, authenticator.connect(kapuaSecurityContext));
+            kapuaSecurityContext.updateMessageHeaders();
+            if (verifiedCredentialCache != null && verifiedCredential == null) {
+                verifiedCredentialCache.put(info.getUserName(), info.getPassword(), new VerifiedCredential(scopeId, userId, accountName, kapuaSecurityContext.getHasPermissions()));
+            }
             context.setSecurityContext(kapuaSecurityContext);
 
             // multiple account stealing link fix
@@ -556,19 +695,6 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
         }
     }
 
-    private Account getAccount(KapuaId scopeId) {
-        final Account account;
-        try {
-            account = KapuaSecurityUtils.doPrivileged(() -> accountService.find(scopeId));
-        } catch (AuthenticationException e) {
-            // to preserve the original exception message (if possible)
-            throw e;
-        } catch (Exception e) {
-            throw new ShiroException("Error while find account!", e);
-        }
-        return account;
-    }
-
     // ------------------------------------------------------------------
     //
     // Destinations
@@ -629,11 +755,10 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
                 kapuaSecurityContext.setMissing();
             }
             // FIX #164
-            messageSend.setProperty(MessageConstants.HEADER_KAPUA_CONNECTION_ID, Base64.getEncoder().encodeToString(SerializationUtils.serialize(kapuaSecurityContext.getKapuaConnectionId())));
+            messageSend.setProperty(MessageConstants.HEADER_KAPUA_CONNECTION_ID, kapuaSecurityContext.getKapuaConnectionIdHeader());
             messageSend.setProperty(MessageConstants.HEADER_KAPUA_CLIENT_ID, kapuaPrincipal.getClientId());
-            messageSend.setProperty(MessageConstants.HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL,
-                    Base64.getEncoder().encodeToString(SerializationUtils.serialize(kapuaSecurityContext.getConnectorDescriptor())));
-            messageSend.setProperty(MessageConstants.HEADER_KAPUA_SESSION, Base64.getEncoder().encodeToString(SerializationUtils.serialize(kapuaSecurityContext.getKapuaSession())));
+            messageSend.setProperty(MessageConstants.HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL, kapuaSecurityContext.getConnectorDescriptorHeader());
+            messageSend.setProperty(MessageConstants.HEADER_KAPUA_SESSION, kapuaSecurityContext.getKapuaSessionHeader());
             messageSend.setProperty(MessageConstants.HEADER_KAPUA_BROKER_CONTEXT, false);
             if (publishInfoMessageSizeLimit < messageSize) {
                 logger.info("Published message size over threshold. size: {} - destination: {} - account id: {} - username: {} - clientId: {}",
@@ -723,17 +848,27 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
     protected void buildAuthorization(KapuaSecurityContext kapuaSecurityContext, List<org.eclipse.kapua.broker.core.plugin.authentication.AuthorizationEntry> authorizationEntries) {
         @SuppressWarnings("rawtypes")
         List<DestinationMapEntry> entries = new ArrayList<>();
+        DestinationAclMatcher destinationAclMatcher = new DestinationAclMatcher(authorizationDestinationCacheSize);
         for (org.eclipse.kapua.broker.core.plugin.authentication.AuthorizationEntry entry : authorizationEntries) {
-            entries.add(createAuthorizationEntry(kapuaSecurityContext, entry.getAcl(), entry.getAddress()));
+            addAuthorizationEntry(entries, destinationAclMatcher, kapuaSecurityContext, createAuthorizationEntry(kapuaSecurityContext, entry.getAcl(), entry.getAddress()));
             // added to support the vt topic name space for durable subscriptions
             if (entry.getAcl().isRead()) {
-                entries.add(createAuthorizationEntry(kapuaSecurityContext, entry.getAcl(), MessageFormat.format(VT_DURABLE_PREFIX.get(0), kapuaSecurityContext.getFullClientId(), entry.getAddress())));
+                addAuthorizationEntry(entries, destinationAclMatcher, kapuaSecurityContext,
+                        createAuthorizationEntry(kapuaSecurityContext, entry.getAcl(), MessageFormat.format(VT_DURABLE_PREFIX.get(0), kapuaSecurityContext.getFullClientId(), entry.getAddress())));
                 // logger.info("pattern {} - clientid {} - topic {} - evaluated {}", new Object[]{JmsConstants.ACL_VT_DURABLE_PREFIX[1], clientId, topic,
                 // MessageFormat.format(JmsConstants.ACL_VT_DURABLE_PREFIX[1], fullClientId, topic)});
-                entries.add(createAuthorizationEntry(kapuaSecurityContext, entry.getAcl(), MessageFormat.format(VT_DURABLE_PREFIX.get(1), kapuaSecurityContext.getFullClientId(), entry.getAddress())));
+                addAuthorizationEntry(entries, destinationAclMatcher, kapuaSecurityContext,
+                        createAuthorizationEntry(kapuaSecurityContext, entry.getAcl(), MessageFormat.format(VT_DURABLE_PREFIX.get(1), kapuaSecurityContext.getFullClientId(), entry.getAddress())));
             }
         }
         kapuaSecurityContext.setAuthorizationMap(new DefaultAuthorizationMap(entries));
+        kapuaSecurityContext.setDestinationAclMatcher(destinationAclMatcher);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void addAuthorizationEntry(List<DestinationMapEntry> entries, DestinationAclMatcher destinationAclMatcher, KapuaSecurityContext kapuaSecurityContext, AuthorizationEntry authorizationEntry) {
+        entries.add(authorizationEntry);
+        destinationAclMatcher.add(authorizationEntry, kapuaSecurityContext);
     }
 
     protected AuthorizationEntry createAuthorizationEntry(KapuaSecurityContext kapuaSecurityContext, Acl acl, String address) {
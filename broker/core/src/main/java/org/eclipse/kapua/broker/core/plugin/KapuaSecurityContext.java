@@ -26,8 +26,10 @@ import org.apache.activemq.command.ConnectionInfo;
 import org.apache.activemq.security.AuthorizationMap;
 import org.apache.activemq.security.SecurityContext;
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.broker.client.message.MessageHeaderCodec;
 import org.eclipse.kapua.broker.client.protocol.ProtocolDescriptor;
 import org.eclipse.kapua.broker.client.protocol.ProtocolDescriptorProviders;
+import org.eclipse.kapua.broker.core.plugin.authorization.DestinationAclMatcher;
 import org.eclipse.kapua.commons.model.id.KapuaEid;
 import org.eclipse.kapua.commons.security.KapuaSession;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -62,6 +64,7 @@ public class KapuaSecurityContext extends SecurityContext {
     private ProtocolDescriptor connectorDescriptor;
 
     private AuthorizationMap authorizationMap;
+    private DestinationAclMatcher destinationAclMatcher;
 
     private String brokerId;
     private KapuaId scopeId;
@@ -75,6 +78,11 @@ public class KapuaSecurityContext extends SecurityContext {
     private String brokerIpOrHostName;
     private Certificate[] clientCertificates;
 
+    // message headers encoded once per connection
+    private String kapuaConnectionIdHeader;
+    private String connectorDescriptorHeader;
+    private String kapuaSessionHeader;
+
     private Map<String, Object> properties = new HashMap<>();
 
     // use to track the allowed destinations for debug purpose
@@ -139,6 +147,14 @@ public class KapuaSecurityContext extends SecurityContext {
         return authorizationMap;
     }
 
+    public void setDestinationAclMatcher(DestinationAclMatcher destinationAclMatcher) {
+        this.destinationAclMatcher = destinationAclMatcher;
+    }
+
+    public DestinationAclMatcher getDestinationAclMatcher() {
+        return destinationAclMatcher;
+    }
+
     public KapuaId getKapuaConnectionId() {
         return kapuaConnectionId;
     }
@@ -155,6 +171,18 @@ public class KapuaSecurityContext extends SecurityContext {
         return kapuaSession;
     }
 
+    public String getKapuaConnectionIdHeader() {
+        return kapuaConnectionIdHeader;
+    }
+
+    public String getConnectorDescriptorHeader() {
+        return connectorDescriptorHeader;
+    }
+
+    public String getKapuaSessionHeader() {
+        return kapuaSessionHeader;
+    }
+
     public void setMissing() {
         setProperty(PARAM_KEY_STATUS_MISSING, Boolean.TRUE);
     }
@@ -171,6 +199,19 @@ public class KapuaSecurityContext extends SecurityContext {
         kapuaConnectionId = deviceConnection != null ? deviceConnection.getId() : null;
     }
 
+    /**
+     * Encodes the connection values set on every published message ({@link KapuaId} of the connection, {@link ProtocolDescriptor} and {@link KapuaSession}).
+     * <p>
+     * They don't change for the whole connection lifetime, so they are encoded once, when the connection is added.
+     *
+     * @since 2.0.0
+     */
+    public void updateMessageHeaders() {
+        kapuaConnectionIdHeader = MessageHeaderCodec.encode(kapuaConnectionId);
+        connectorDescriptorHeader = MessageHeaderCodec.encode(connectorDescriptor);
+        kapuaSessionHeader = MessageHeaderCodec.encode(kapuaSession);
+    }
+
     public void updateOldConnectionId(String oldConnectionId) {
         this.oldConnectionId = oldConnectionId;
     }
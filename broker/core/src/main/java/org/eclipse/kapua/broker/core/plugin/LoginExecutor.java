@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.eclipse.kapua.broker.core.plugin.metric.LoginMetric;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded worker pool running the logins of the broker connections.
+ * <p>
+ * It limits the number of logins running at the same time, so a slow database doesn't block all the transport threads,
+ * and admits a bounded number of queued logins: when the queue is full, or a login waited in the queue longer than the configured time,
+ * the login fails fast with a {@link KapuaBrokerErrorCodes#LOGIN_OVERLOADED} error, which the client sees as a retryable "server unavailable" refusal.
+ * <p>
+ * The priority logins (i.e. the clients already known by this broker) are run before the others, which are run in arrival order.
+ *
+ * @since 2.0.0
+ */
+public class LoginExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int maxQueueSize;
+    private final long maxQueueWaitTime;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private LoginMetric loginMetric = LoginMetric.getInstance();
+
+    /**
+     * Constructor.
+     *
+     * @param threads          The number of logins run at the same time.
+     * @param maxQueueSize     The maximum number of logins waiting to be run.
+     * @param maxQueueWaitTime The maximum time a login waits to be run (in milliseconds).
+     * @since 2.0.0
+     */
+    public LoginExecutor(int threads, int maxQueueSize, long maxQueueWaitTime) {
+        this.maxQueueSize = maxQueueSize;
+        this.maxQueueWaitTime = maxQueueWaitTime;
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("kapua-broker-login-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Runs the given login and waits for its result.
+     *
+     * @param login    The login to run.
+     * @param priority Whether the login is run before the non priority ones.
+     * @param clientId The client id of the connection (used for the error message).
+     * @param <T>      The login result type.
+     * @return The login result.
+     * @throws KapuaBrokerException If the login is rejected because the executor is overloaded or shut down.
+     * @throws Exception           The exception thrown by the login.
+     * @since 2.0.0
+     */
+    public <T> T execute(Callable<T> login, boolean priority, String clientId) throws Exception {
+        if (loginMetric.getLoginQueueDepth().incrementAndGet() > maxQueueSize) {
+            loginMetric.getLoginQueueDepth().decrementAndGet();
+            loginMetric.getLoginQueueRejected().inc();
+            throw new KapuaBrokerException(KapuaBrokerErrorCodes.LOGIN_OVERLOADED, clientId);
+        }
+
+        long queuedOn = System.currentTimeMillis();
+        AtomicBoolean dequeued = new AtomicBoolean();
+        LoginTask<T> loginTask = new LoginTask<>(() -> {
+            if (dequeued.compareAndSet(false, true)) {
+                loginMetric.getLoginQueueDepth().decrementAndGet();
+            }
+            long waitTime = System.currentTimeMillis() - queuedOn;
+            loginMetric.getLoginQueueWaitTime().set(waitTime);
+            if (waitTime > maxQueueWaitTime) {
+                // the client has likely given up already, so don't spend a database round trip on it
+                loginMetric.getLoginQueueRejected().inc();
+                throw new KapuaBrokerException(KapuaBrokerErrorCodes.LOGIN_OVERLOADED, clientId);
+            }
+            return login.call();
+        }, priority, sequence.getAndIncrement());
+        try {
+            executor.execute(loginTask);
+        } catch (RejectedExecutionException e) {
+            // the executor is shutting down
+            if (dequeued.compareAndSet(false, true)) {
+                loginMetric.getLoginQueueDepth().decrementAndGet();
+            }
+            loginMetric.getLoginQueueRejected().inc();
+            throw new KapuaBrokerException(KapuaBrokerErrorCodes.LOGIN_OVERLOADED, e, clientId);
+        }
+
+        try {
+            return loginTask.get();
+        } catch (InterruptedException e) {
+            // a login still queued is never run, since nobody is waiting for it anymore
+            loginTask.cancel(false);
+            if (dequeued.compareAndSet(false, true)) {
+                loginMetric.getLoginQueueDepth().decrementAndGet();
+            }
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the executor, cancelling the queued logins.
+     *
+     * @since 2.0.0
+     */
+    public void shutdown() {
+        for (Runnable loginTask : executor.shutdownNow()) {
+            // release the transport threads waiting for the discarded logins
+            ((LoginTask<?>) loginTask).cancel(false);
+            loginMetric.getLoginQueueDepth().decrementAndGet();
+        }
+    }
+
+    private static class LoginTask<T> extends FutureTask<T> implements Comparable<LoginTask<?>> {
+
+        private final boolean priority;
+        private final long sequence;
+
+        LoginTask(Callable<T> callable, boolean priority, long sequence) {
+            super(callable);
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(LoginTask<?> other) {
+            if (priority != other.priority) {
+                return priority ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
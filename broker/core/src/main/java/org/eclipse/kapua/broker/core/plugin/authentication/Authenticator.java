@@ -30,6 +30,7 @@ public interface Authenticator {
     String ADDRESS_PREFIX_KEY = "address_prefix";
     String ADDRESS_CONNECT_PATTERN_KEY = "address_connect_pattern";
     String ADDRESS_DISCONNECT_PATTERN_KEY = "address_disconnect_pattern";
+    String DEVICE_CONNECTION_STATUS_UPDATER_KEY = "device_connection_status_updater";
 
     /**
      * Execute the connect logic returning the authorization list (ACL)
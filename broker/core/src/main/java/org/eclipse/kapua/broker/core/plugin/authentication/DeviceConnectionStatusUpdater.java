@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin.authentication;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.broker.core.plugin.metric.LoginMetric;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnection;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionFactory;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind updater of the {@link DeviceConnection}s changed by the broker connects and disconnects.
+ * <p>
+ * The updates are kept in memory and written by a background thread at a fixed interval. Updates of the same {@link DeviceConnection}
+ * received within the same interval are coalesced and only the latest one is written, so a flapping device costs one write per interval.
+ * <p>
+ * The {@link DeviceConnection}s not written yet are returned by {@link #findByClientId(KapuaId, String)}, so the connect and disconnect logic
+ * (i.e. the stealing link and the missing status checks) always sees the latest status set by this broker.
+ * The queued {@link DeviceConnection}s are copies, never shared with the callers, so they can be changed by the callers while they are waiting to be written.
+ * <p>
+ * A failed write (i.e. an optimistic lock conflict with the write of another broker node) is queued again with the current optlock,
+ * unless the {@link DeviceConnection} has been deleted or is now owned by another broker node.
+ * The writes of the same {@link DeviceConnection} failed in a row are retried up to a maximum number of times, then the update is dropped,
+ * so an update which can never be written (i.e. an invalid one) is not retried forever.
+ *
+ * @since 2.0.0
+ */
+public class DeviceConnectionStatusUpdater {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceConnectionStatusUpdater.class);
+
+    private final DeviceConnectionService deviceConnectionService;
+    private final DeviceConnectionFactory deviceConnectionFactory;
+    private final int maxRetries;
+    private final ScheduledExecutorService flushExecutor;
+
+    private final Map<String, DeviceConnection> pendingUpdates = new ConcurrentHashMap<>();
+    private final Map<String, DeviceConnection> inFlightUpdates = new ConcurrentHashMap<>();
+    // written by the flush only, under its lock
+    private final Map<String, Integer> failedWrites = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param deviceConnectionService The {@link DeviceConnectionService} used to read and write the {@link DeviceConnection}s.
+     * @param deviceConnectionFactory The {@link DeviceConnectionFactory} used to copy the {@link DeviceConnection}s.
+     * @param flushInterval           The interval between the writes of the pending updates (in milliseconds).
+     * @param maxRetries              The maximum number of times the failed write of a {@link DeviceConnection} is retried before dropping its update.
+     * @since 2.0.0
+     */
+    public DeviceConnectionStatusUpdater(DeviceConnectionService deviceConnectionService, DeviceConnectionFactory deviceConnectionFactory, long flushInterval, int maxRetries) {
+        this.deviceConnectionService = deviceConnectionService;
+        this.deviceConnectionFactory = deviceConnectionFactory;
+        this.maxRetries = maxRetries;
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("kapua-broker-device-connection-updater").setDaemon(true).build());
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Finds the {@link DeviceConnection} of the given client id, including the updates not written yet.
+     *
+     * @param scopeId  The scope {@link KapuaId}.
+     * @param clientId The client id.
+     * @return The {@link DeviceConnection}, or {@code null} if it doesn't exist.
+     * @throws KapuaException
+     * @since 2.0.0
+     */
+    public DeviceConnection findByClientId(KapuaId scopeId, String clientId) throws KapuaException {
+        String key = toKey(scopeId, clientId);
+        DeviceConnection deviceConnection = pendingUpdates.get(key);
+        if (deviceConnection == null) {
+            deviceConnection = inFlightUpdates.get(key);
+        }
+        if (deviceConnection == null) {
+            return KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.findByClientId(scopeId, clientId));
+        }
+        return deviceConnectionFactory.clone(deviceConnection);
+    }
+
+    /**
+     * Queues the update of a copy of the given {@link DeviceConnection}, replacing the pending update of the same {@link DeviceConnection} (if any).
+     *
+     * @param deviceConnection The {@link DeviceConnection} to update.
+     * @since 2.0.0
+     */
+    public void update(DeviceConnection deviceConnection) {
+        pendingUpdates.put(toKey(deviceConnection.getScopeId(), deviceConnection.getClientId()), deviceConnectionFactory.clone(deviceConnection));
+    }
+
+    /**
+     * Writes all the pending updates.
+     *
+     * @since 2.0.0
+     */
+    public synchronized void flush() {
+        for (String key : pendingUpdates.keySet()) {
+            DeviceConnection deviceConnection = pendingUpdates.remove(key);
+            if (deviceConnection == null) {
+                continue;
+            }
+            inFlightUpdates.put(key, deviceConnection);
+            try {
+                DeviceConnection updatedDeviceConnection = KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.update(deviceConnection));
+                failedWrites.remove(key);
+                // an update queued meanwhile from the version just written must be written with the new optlock
+                pendingUpdates.computeIfPresent(key, (pendingKey, pendingDeviceConnection) -> {
+                    if (pendingDeviceConnection.getOptlock() != deviceConnection.getOptlock()) {
+                        return pendingDeviceConnection;
+                    }
+                    DeviceConnection rebasedDeviceConnection = deviceConnectionFactory.clone(pendingDeviceConnection);
+                    rebasedDeviceConnection.setOptlock(updatedDeviceConnection.getOptlock());
+                    return rebasedDeviceConnection;
+                });
+            } catch (Exception e) {
+                logger.warn("Cannot update the device connection status for client id {} - account id {}: {}", deviceConnection.getClientId(), deviceConnection.getScopeId(), e.getMessage(), e);
+                int failures = failedWrites.merge(key, 1, Integer::sum);
+                if (failures > maxRetries) {
+                    logger.warn("Discarding the device connection status update for client id {} - account id {} since it failed {} times in a row",
+                            deviceConnection.getClientId(), deviceConnection.getScopeId(), failures);
+                    drop(key);
+                } else {
+                    retry(key, deviceConnection);
+                }
+            } finally {
+                inFlightUpdates.remove(key, deviceConnection);
+            }
+        }
+    }
+
+    /**
+     * Queues again a failed update with the current optlock, unless a newer update is already queued.
+     * <p>
+     * The update is discarded if the {@link DeviceConnection} has been deleted or is now connected to another broker node, whose status wins.
+     *
+     * @param key              The key of the {@link DeviceConnection}.
+     * @param deviceConnection The {@link DeviceConnection} whose update failed.
+     */
+    private void retry(String key, DeviceConnection deviceConnection) {
+        DeviceConnection currentDeviceConnection;
+        try {
+            currentDeviceConnection = KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.findByClientId(deviceConnection.getScopeId(), deviceConnection.getClientId()));
+        } catch (Exception e) {
+            logger.warn("Cannot reload the device connection for client id {} - account id {}: {}", deviceConnection.getClientId(), deviceConnection.getScopeId(), e.getMessage(), e);
+            pendingUpdates.putIfAbsent(key, deviceConnection);
+            return;
+        }
+
+        if (currentDeviceConnection == null) {
+            logger.warn("Discarding the device connection status update for client id {} - account id {} since the device connection has been deleted",
+                    deviceConnection.getClientId(), deviceConnection.getScopeId());
+            drop(key);
+        } else if (!Objects.equals(currentDeviceConnection.getServerIp(), deviceConnection.getServerIp())) {
+            logger.warn("Discarding the device connection status update for client id {} - account id {} since the device is connected to another node",
+                    deviceConnection.getClientId(), deviceConnection.getScopeId());
+            drop(key);
+        } else {
+            DeviceConnection retriedDeviceConnection = deviceConnectionFactory.clone(deviceConnection);
+            retriedDeviceConnection.setOptlock(currentDeviceConnection.getOptlock());
+            pendingUpdates.putIfAbsent(key, retriedDeviceConnection);
+        }
+    }
+
+    /**
+     * Drops the failed update of the given key, counting it in {@link LoginMetric#getDeviceConnectionUpdateDropped()}.
+     * <p>
+     * A newer update queued meanwhile is kept.
+     *
+     * @param key The key of the {@link DeviceConnection}.
+     */
+    private void drop(String key) {
+        failedWrites.remove(key);
+        LoginMetric.getInstance().getDeviceConnectionUpdateDropped().inc();
+    }
+
+    /**
+     * Stops the background writes and writes the pending updates.
+     *
+     * @since 2.0.0
+     */
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Device connection status updater not terminated after a while!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private static String toKey(KapuaId scopeId, String clientId) {
+        return scopeId.getId() + ":" + clientId;
+    }
+}
@@ -45,6 +45,8 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
     protected String aclDataAccCli;
     protected String aclCtrlAccNotify;
 
+    protected DeviceConnectionStatusUpdater deviceConnectionStatusUpdater;
+
     /**
      * Default constructor
      *
@@ -62,6 +64,7 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
         aclDataAcc = addressPrefix + "{0}.>";
         aclDataAccCli = addressPrefix + "{0}.{1}.>";
         aclCtrlAccNotify = addressPrefix + addressClassifier + ".{0}.*.*.NOTIFY.{1}.>";
+        deviceConnectionStatusUpdater = (DeviceConnectionStatusUpdater) options.get(Authenticator.DEVICE_CONNECTION_STATUS_UPDATER_KEY);
     }
 
     @Override
@@ -73,7 +76,7 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
         loginCheckAccessTimeContext.stop();
 
         Context loginFindDeviceConnectionTimeContext = loginMetric.getFindDeviceConnectionTime().time();
-        DeviceConnection deviceConnection = KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.findByClientId(kapuaSecurityContext.getScopeId(), kapuaSecurityContext.getClientId()));
+        DeviceConnection deviceConnection = findDeviceConnection(kapuaSecurityContext);
         loginFindDeviceConnectionTimeContext.stop();
 
         // enforce the user-device bound
@@ -113,7 +116,7 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
             // update device connection (if the disconnection wasn't caused by a stealing link)
             DeviceConnection deviceConnection;
             try {
-                deviceConnection = KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.findByClientId(kapuaSecurityContext.getScopeId(), kapuaSecurityContext.getClientId()));
+                deviceConnection = findDeviceConnection(kapuaSecurityContext);
             } catch (Exception e) {
                 throw new ShiroException("Error while looking for device connection on updating the device status!", e);
             }
@@ -140,7 +143,7 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
                     else {
                         deviceConnection.setStatus(error == null && !kapuaSecurityContext.isMissing() ? DeviceConnectionStatus.DISCONNECTED : DeviceConnectionStatus.MISSING);
                         try {
-                            KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.update(deviceConnection));
+                            updateDeviceConnection(deviceConnection);
                         } catch (Exception e) {
                             throw new ShiroException("Error while updating the device connection status!", e);
                         }
@@ -183,6 +186,11 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
     }
 
     protected void updatePermissions(KapuaSecurityContext kapuaSecurityContext) throws KapuaException {
+        if (kapuaSecurityContext.getHasPermissions() != null) {
+            // permissions already resolved by a recent login with the same credentials
+            checkBrokerConnect(kapuaSecurityContext);
+            return;
+        }
         List<Permission> permissions = new ArrayList<>();
         permissions.add(permissionFactory.newPermission(BROKER_DOMAIN, Actions.connect, kapuaSecurityContext.getScopeId()));
         permissions.add(permissionFactory.newPermission(DEVICE_MANAGEMENT_DOMAIN, Actions.read, kapuaSecurityContext.getScopeId()));
@@ -190,7 +198,10 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
         permissions.add(permissionFactory.newPermission(DATASTORE_DOMAIN, Actions.read, kapuaSecurityContext.getScopeId()));
         permissions.add(permissionFactory.newPermission(DATASTORE_DOMAIN, Actions.write, kapuaSecurityContext.getScopeId()));
         kapuaSecurityContext.updatePermissions(authorizationService.isPermitted(permissions));
+        checkBrokerConnect(kapuaSecurityContext);
+    }
 
+    private void checkBrokerConnect(KapuaSecurityContext kapuaSecurityContext) throws KapuaIllegalAccessException {
         if (!kapuaSecurityContext.isBrokerConnect()) {
             throw new KapuaIllegalAccessException(permissionFactory.newPermission(BROKER_DOMAIN, Actions.connect, kapuaSecurityContext.getScopeId()).toString());
         }
@@ -224,8 +235,7 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
             deviceConnection.setServerIp(kapuaSecurityContext.getBrokerIpOrHostName());
             deviceConnection.setUserId(kapuaSecurityContext.getUserId());
             deviceConnection.setAllowUserChange(false);
-            DeviceConnection deviceConnectionToUpdate = deviceConnection;
-            KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.update(deviceConnectionToUpdate));
+            updateDeviceConnection(deviceConnection);
             // TODO implement the banned status
             // if (DeviceStatus.DISABLED.equals(device.getStatus())) {
             // throw new KapuaIllegalAccessException("clientId - This client ID is disabled and cannot connect");
@@ -248,4 +258,32 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
         return deviceConnection;
     }
 
+    /**
+     * Finds the {@link DeviceConnection} of the current connection, including the status updates not written yet (if the {@link DeviceConnectionStatusUpdater} is enabled).
+     *
+     * @param kapuaSecurityContext The {@link KapuaSecurityContext} of the current connection
+     * @return The {@link DeviceConnection}, or null if it doesn't exist
+     * @throws KapuaException
+     */
+    protected DeviceConnection findDeviceConnection(KapuaSecurityContext kapuaSecurityContext) throws KapuaException {
+        if (deviceConnectionStatusUpdater != null) {
+            return deviceConnectionStatusUpdater.findByClientId(kapuaSecurityContext.getScopeId(), kapuaSecurityContext.getClientId());
+        }
+        return KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.findByClientId(kapuaSecurityContext.getScopeId(), kapuaSecurityContext.getClientId()));
+    }
+
+    /**
+     * Updates the {@link DeviceConnection}, in background if the {@link DeviceConnectionStatusUpdater} is enabled.
+     *
+     * @param deviceConnection The {@link DeviceConnection} to update
+     * @throws KapuaException
+     */
+    protected void updateDeviceConnection(DeviceConnection deviceConnection) throws KapuaException {
+        if (deviceConnectionStatusUpdater != null) {
+            deviceConnectionStatusUpdater.update(deviceConnection);
+        } else {
+            KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.update(deviceConnection));
+        }
+    }
+
 }
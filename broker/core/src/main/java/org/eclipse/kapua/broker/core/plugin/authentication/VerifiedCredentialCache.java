@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin.authentication;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.KapuaRuntimeException;
+import org.eclipse.kapua.commons.cache.LocalCache;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEventBusListener;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.account.AccountService;
+import org.eclipse.kapua.service.authentication.credential.CredentialService;
+import org.eclipse.kapua.service.user.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Cache of the recently verified username and password credentials of the broker connections.
+ * <p>
+ * A device reconnecting with the same credentials reuses the user, the account name and the permissions resolved by its previous login,
+ * skipping the password hash check and the user, account and permission lookups.
+ * <p>
+ * The password is never stored: the entries are keyed by the username and an HMAC of the password computed with a random key generated for each cache instance.
+ * The entries expire after the configured time to live and are invalidated by the {@link ServiceEvent}s received as {@link ServiceEventBusListener}:
+ * <ul>
+ *     <li>the {@link UserService} events invalidate the entries of that user</li>
+ *     <li>the {@link CredentialService} events invalidate the entries of the scope of that credential, since the event doesn't carry the owner of the credential</li>
+ *     <li>all the other events ({@link AccountService} events, roles, access info) invalidate the whole cache, since an account change can affect its child accounts too</li>
+ * </ul>
+ * <p>
+ * A login served from the cache skips the checks of the full login: credential lockout and expiration, user and account status and expiration.
+ * A change which is not notified by a {@link ServiceEvent} (i.e. an expiration date which is reached, or an event bus which is not available)
+ * is applied to the cached credentials only when they expire, so the time to live bounds this window and must be kept short.
+ *
+ * @since 2.0.0
+ */
+public class VerifiedCredentialCache implements ServiceEventBusListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedCredentialCache.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int HMAC_KEY_LENGTH = 32;
+    private static final String USER_SERVICE = UserService.class.getName();
+    private static final String CREDENTIAL_SERVICE = CredentialService.class.getName();
+
+    private final LocalCache<String, VerifiedCredential> cache;
+    private final SecretKeySpec hmacKey;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize    The maximum number of cached credentials.
+     * @param timeToLive The time to live of the cached credentials (in seconds).
+     * @since 2.0.0
+     */
+    public VerifiedCredentialCache(int maxSize, int timeToLive) {
+        cache = new LocalCache<>(maxSize, timeToLive, null);
+
+        byte[] key = new byte[HMAC_KEY_LENGTH];
+        new SecureRandom().nextBytes(key);
+        hmacKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    /**
+     * Gets the {@link VerifiedCredential} cached for the given username and password.
+     *
+     * @param username The username.
+     * @param password The password.
+     * @return The cached {@link VerifiedCredential}, or {@code null} if the credentials have not been verified recently.
+     * @since 2.0.0
+     */
+    public VerifiedCredential get(String username, String password) {
+        if (username == null || password == null) {
+            return null;
+        }
+        return cache.get(toKey(username, password));
+    }
+
+    /**
+     * Caches the {@link VerifiedCredential} of the given username and password, which have just been verified.
+     *
+     * @param username           The username.
+     * @param password           The password.
+     * @param verifiedCredential The {@link VerifiedCredential} to cache.
+     * @since 2.0.0
+     */
+    public void put(String username, String password, VerifiedCredential verifiedCredential) {
+        if (username == null || password == null) {
+            return;
+        }
+        cache.put(toKey(username, password), verifiedCredential);
+    }
+
+    /**
+     * Invalidates the cached credentials of the given user.
+     *
+     * @param userId The {@link KapuaId} of the user.
+     * @since 2.0.0
+     */
+    public void invalidateUser(KapuaId userId) {
+        for (String key : cache.getAllKeys()) {
+            VerifiedCredential verifiedCredential = cache.get(key);
+            if (verifiedCredential != null && verifiedCredential.getUserId().equals(userId)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Invalidates the cached credentials of the users of the given scope.
+     *
+     * @param scopeId The {@link KapuaId} of the scope of the users.
+     * @since 2.0.0
+     */
+    public void invalidateScope(KapuaId scopeId) {
+        for (String key : cache.getAllKeys()) {
+            VerifiedCredential verifiedCredential = cache.get(key);
+            if (verifiedCredential != null && verifiedCredential.getScopeId().equals(scopeId)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Invalidates all the cached credentials.
+     *
+     * @since 2.0.0
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onKapuaEvent(ServiceEvent kapuaEvent) throws KapuaException {
+        if (kapuaEvent == null) {
+            return;
+        }
+        logger.debug("Verified credential cache: received kapua event from {}, operation {}", kapuaEvent.getService(), kapuaEvent.getOperation());
+        if (USER_SERVICE.equals(kapuaEvent.getService()) && kapuaEvent.getEntityId() != null) {
+            invalidateUser(kapuaEvent.getEntityId());
+        } else if (CREDENTIAL_SERVICE.equals(kapuaEvent.getService()) && kapuaEvent.getEntityScopeId() != null) {
+            invalidateScope(kapuaEvent.getEntityScopeId());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    private String toKey(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            return username + ":" + Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw KapuaRuntimeException.internalError(e, "Cannot compute the verified credential key");
+        }
+    }
+
+    /**
+     * The result of a successful login cached by the {@link VerifiedCredentialCache}.
+     *
+     * @since 2.0.0
+     */
+    public static class VerifiedCredential {
+
+        private final KapuaId scopeId;
+        private final KapuaId userId;
+        private final String accountName;
+        private final boolean[] permissions;
+
+        /**
+         * Constructor.
+         *
+         * @param scopeId     The {@link KapuaId} of the account of the user.
+         * @param userId      The {@link KapuaId} of the user.
+         * @param accountName The name of the account of the user.
+         * @param permissions The broker permissions of the user, or {@code null} if they are not checked for the user.
+         * @since 2.0.0
+         */
+        public VerifiedCredential(KapuaId scopeId, KapuaId userId, String accountName, boolean[] permissions) {
+            this.scopeId = scopeId;
+            this.userId = userId;
+            this.accountName = accountName;
+            this.permissions = permissions != null ? permissions.clone() : null;
+        }
+
+        public KapuaId getScopeId() {
+            return scopeId;
+        }
+
+        public KapuaId getUserId() {
+            return userId;
+        }
+
+        public String getAccountName() {
+            return accountName;
+        }
+
+        /**
+         * Gets a copy of the broker permissions of the user.
+         *
+         * @return The broker permissions of the user, or {@code null} if they are not checked for the user.
+         * @since 2.0.0
+         */
+        public boolean[] getPermissions() {
+            return permissions != null ? permissions.clone() : null;
+        }
+    }
+}
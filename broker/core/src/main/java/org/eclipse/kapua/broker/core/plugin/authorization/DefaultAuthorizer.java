@@ -19,13 +19,22 @@ import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.broker.core.plugin.KapuaSecurityContext;
 
 /**
- * Default authorizer implementation.
+ * Default authorizer implementation.<br>
+ * Destinations handled by the {@link DestinationAclMatcher} compiled at connection time are checked against it,
+ * all the others against the connection {@link org.apache.activemq.security.AuthorizationMap}.
  *
  */
 public class DefaultAuthorizer implements Authorizer {
 
     @Override
     public boolean isAllowed(ActionType actionType, KapuaSecurityContext kapuaSecurityContext, ActiveMQDestination destination) throws KapuaException {
+        DestinationAclMatcher destinationAclMatcher = kapuaSecurityContext.getDestinationAclMatcher();
+        if (destinationAclMatcher != null && destination != null) {
+            int allowedActions = destinationAclMatcher.getAllowedActions(destination);
+            if (allowedActions != DestinationAclMatcher.UNSUPPORTED) {
+                return DestinationAclMatcher.isAllowed(actionType, allowedActions);
+            }
+        }
         switch (actionType) {
         case READ:
             return isConsumeAllowed(kapuaSecurityContext, destination);
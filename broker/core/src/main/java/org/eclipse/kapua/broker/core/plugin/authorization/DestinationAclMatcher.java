@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin.authorization;
+
+import org.apache.activemq.command.ActiveMQDestination;
+import org.apache.activemq.security.AuthorizationEntry;
+import org.apache.activemq.security.AuthorizationMap;
+import org.apache.activemq.security.SecurityContext;
+import org.eclipse.kapua.broker.core.plugin.authorization.Authorizer.ActionType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Destination ACL of a connection compiled into a trie of destination path segments.
+ * <p>
+ * It answers the same as the {@link AuthorizationMap} built from the same {@link AuthorizationEntry}s for the non temporary topics without wildcards,
+ * which are the destinations the devices publish to, following the {@link org.apache.activemq.filter.DestinationMap} matching rules:
+ * an entry segment {@code *} matches one destination segment and an entry segment {@code >} matches all the remaining ones, none included.
+ * <p>
+ * The allowed actions of the recently checked destinations are kept in a bounded cache, so checking a repeated destination is a single lookup.
+ * All the other destinations (temporary, composite, queues and destinations with wildcards) are not handled
+ * and {@link #getAllowedActions(ActiveMQDestination)} returns {@link #UNSUPPORTED}.
+ *
+ * @since 2.0.0
+ */
+public class DestinationAclMatcher {
+
+    /**
+     * The allowed actions returned for a destination not handled by this matcher.
+     *
+     * @since 2.0.0
+     */
+    public static final int UNSUPPORTED = -1;
+
+    private static final String ANY_CHILD = "*";
+    private static final String ANY_DESCENDANT = ">";
+
+    private final Node root = new Node();
+
+    private final int cacheSize;
+    private final Map<ActiveMQDestination, Integer> allowedActionsCache = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param cacheSize The maximum number of destinations whose allowed actions are cached ({@code 0} to disable the cache).
+     * @since 2.0.0
+     */
+    public DestinationAclMatcher(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Adds the given {@link AuthorizationEntry} to the compiled ACL.
+     * <p>
+     * An action is allowed by the entry if the given {@link SecurityContext} is in its ACL, as the {@link AuthorizationMap} check does.
+     *
+     * @param authorizationEntry The {@link AuthorizationEntry} to add.
+     * @param securityContext    The {@link SecurityContext} of the connection.
+     * @since 2.0.0
+     */
+    public void add(AuthorizationEntry authorizationEntry, SecurityContext securityContext) {
+        int actions = 0;
+        if (securityContext.isInOneOf(authorizationEntry.getReadACLs())) {
+            actions |= toAction(ActionType.READ);
+        }
+        if (securityContext.isInOneOf(authorizationEntry.getWriteACLs())) {
+            actions |= toAction(ActionType.WRITE);
+        }
+        if (securityContext.isInOneOf(authorizationEntry.getAdminACLs())) {
+            actions |= toAction(ActionType.ADMIN);
+        }
+        add(authorizationEntry.getDestination(), actions);
+    }
+
+    private void add(ActiveMQDestination destination, int actions) {
+        if (destination.isComposite()) {
+            for (ActiveMQDestination compositeDestination : destination.getCompositeDestinations()) {
+                add(compositeDestination, actions);
+            }
+            return;
+        }
+        if (!destination.isTopic() || destination.isTemporary()) {
+            // never matched by the handled destinations
+            return;
+        }
+
+        Node node = root;
+        node.subtreeActions |= actions;
+        for (String path : destination.getDestinationPaths()) {
+            node = node.children.computeIfAbsent(path, key -> new Node());
+            node.subtreeActions |= actions;
+        }
+        node.actions |= actions;
+        allowedActionsCache.clear();
+    }
+
+    /**
+     * Checks whether the given {@link ActionType} is among the given allowed actions.
+     *
+     * @param actionType     The {@link ActionType} to check.
+     * @param allowedActions The allowed actions, as returned by {@link #getAllowedActions(ActiveMQDestination)}.
+     * @return {@code true} if it is allowed, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    public static boolean isAllowed(ActionType actionType, int allowedActions) {
+        return (allowedActions & toAction(actionType)) != 0;
+    }
+
+    /**
+     * Gets the actions allowed on the given destination.
+     *
+     * @param destination The destination.
+     * @return The allowed actions, to be checked with {@link #isAllowed(ActionType, int)}, or {@link #UNSUPPORTED} if the destination is not handled by this matcher.
+     * @since 2.0.0
+     */
+    public int getAllowedActions(ActiveMQDestination destination) {
+        Integer allowedActions = allowedActionsCache.get(destination);
+        if (allowedActions == null) {
+            allowedActions = isSupported(destination) ? match(root, destination.getDestinationPaths(), 0) : UNSUPPORTED;
+
+            if (cacheSize > 0) {
+                if (allowedActionsCache.size() >= cacheSize) {
+                    allowedActionsCache.clear();
+                }
+                allowedActionsCache.put(destination, allowedActions);
+            }
+        }
+        return allowedActions;
+    }
+
+    private static boolean isSupported(ActiveMQDestination destination) {
+        if (!destination.isTopic() || destination.isTemporary() || destination.isComposite()) {
+            return false;
+        }
+        for (String path : destination.getDestinationPaths()) {
+            if (ANY_CHILD.equals(path) || ANY_DESCENDANT.equals(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int match(Node node, String[] paths, int startIndex) {
+        int actions = 0;
+        for (int i = startIndex; i < paths.length && node != null; i++) {
+            Node anyChild = node.children.get(ANY_CHILD);
+            if (anyChild != null) {
+                actions |= match(anyChild, paths, i + 1);
+            }
+            Node anyDescendant = node.children.get(ANY_DESCENDANT);
+            if (anyDescendant != null) {
+                actions |= anyDescendant.subtreeActions;
+            }
+            node = node.children.get(paths[i]);
+        }
+        if (node != null) {
+            actions |= node.actions;
+            Node anyDescendant = node.children.get(ANY_DESCENDANT);
+            if (anyDescendant != null) {
+                actions |= anyDescendant.actions;
+            }
+        }
+        return actions;
+    }
+
+    private static int toAction(ActionType actionType) {
+        return 1 << actionType.ordinal();
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private int actions;
+        private int subtreeActions;
+    }
+}
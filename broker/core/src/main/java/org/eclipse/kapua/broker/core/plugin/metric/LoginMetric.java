@@ -14,11 +14,19 @@ package org.eclipse.kapua.broker.core.plugin.metric;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Timer;
+import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.commons.metric.MetricServiceFactory;
 import org.eclipse.kapua.commons.metric.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class LoginMetric {
 
+    private static final Logger logger = LoggerFactory.getLogger(LoginMetric.class);
+
     private static final LoginMetric LOGIN_METRIC = new LoginMetric();
 
     private Counter success;
@@ -35,6 +43,11 @@ public class LoginMetric {
     private Counter remoteStealingLinkDisconnect;
     private Counter internalConnectorDisconnected;
     private Counter illegalStateDisconnect;
+    private Counter credentialCacheHit;
+    private Counter loginQueueRejected;
+    private Counter deviceConnectionUpdateDropped;
+    private final AtomicInteger loginQueueDepth = new AtomicInteger();
+    private final AtomicLong loginQueueWaitTime = new AtomicLong();
     private Timer addConnectionTime;
     private Timer normalUserTime;
     private Timer shiroLoginTime;
@@ -66,6 +79,16 @@ public class LoginMetric {
         adminStealingLinkDisconnect = metricsService.getCounter(SecurityMetrics.METRIC_MODULE_NAME, SecurityMetrics.METRIC_COMPONENT_LOGIN, SecurityMetrics.METRIC_ADMIN_STEALING_LINK, SecurityMetrics.METRIC_DISCONNECT, SecurityMetrics.METRIC_COUNT);
         remoteStealingLinkDisconnect = metricsService.getCounter(SecurityMetrics.METRIC_MODULE_NAME, SecurityMetrics.METRIC_COMPONENT_LOGIN, SecurityMetrics.METRIC_REMOTE_STEALING_LINK, SecurityMetrics.METRIC_DISCONNECT, SecurityMetrics.METRIC_COUNT);
         illegalStateDisconnect = metricsService.getCounter(SecurityMetrics.METRIC_MODULE_NAME, SecurityMetrics.METRIC_COMPONENT_LOGIN, SecurityMetrics.METRIC_ILLEGAL_STATE, SecurityMetrics.METRIC_DISCONNECT, SecurityMetrics.METRIC_COUNT);
+        credentialCacheHit = metricsService.getCounter(SecurityMetrics.METRIC_MODULE_NAME, SecurityMetrics.METRIC_COMPONENT_LOGIN, SecurityMetrics.METRIC_CREDENTIAL_CACHE, SecurityMetrics.METRIC_HIT, SecurityMetrics.METRIC_COUNT);
+        // login queue
+        loginQueueRejected = metricsService.getCounter(SecurityMetrics.METRIC_MODULE_NAME, SecurityMetrics.METRIC_COMPONENT_LOGIN, SecurityMetrics.METRIC_QUEUE, SecurityMetrics.METRIC_REJECTED, SecurityMetrics.METRIC_COUNT);
+        deviceConnectionUpdateDropped = metricsService.getCounter(SecurityMetrics.METRIC_MODULE_NAME, SecurityMetrics.METRIC_COMPONENT_LOGIN, SecurityMetrics.METRIC_UPDATE_DEVICE_CONNECTION, SecurityMetrics.METRIC_DROPPED, SecurityMetrics.METRIC_COUNT);
+        try {
+            metricsService.registerGauge(loginQueueDepth::get, SecurityMetrics.METRIC_MODULE_NAME, SecurityMetrics.METRIC_COMPONENT_LOGIN, SecurityMetrics.METRIC_QUEUE, SecurityMetrics.METRIC_DEPTH);
+            metricsService.registerGauge(loginQueueWaitTime::get, SecurityMetrics.METRIC_MODULE_NAME, SecurityMetrics.METRIC_COMPONENT_LOGIN, SecurityMetrics.METRIC_QUEUE, SecurityMetrics.METRIC_WAIT, SecurityMetrics.METRIC_TIME, SecurityMetrics.METRIC_MS);
+        } catch (KapuaException e) {
+            logger.error("Error registering login queue metrics! Error: {}", e.getMessage(), e);
+        }
         // login time
         addConnectionTime = metricsService.getTimer(SecurityMetrics.METRIC_MODULE_NAME, SecurityMetrics.METRIC_COMPONENT_LOGIN, SecurityMetrics.METRIC_ADD_CONNECTION, SecurityMetrics.METRIC_TIME, SecurityMetrics.METRIC_S);
         normalUserTime = metricsService.getTimer(SecurityMetrics.METRIC_MODULE_NAME, SecurityMetrics.METRIC_COMPONENT_LOGIN, SecurityMetrics.METRIC_USER, SecurityMetrics.METRIC_TIME, SecurityMetrics.METRIC_S);
@@ -126,6 +149,44 @@ public class LoginMetric {
         return illegalStateDisconnect;
     }
 
+    public Counter getCredentialCacheHit() {
+        return credentialCacheHit;
+    }
+
+    public Counter getLoginQueueRejected() {
+        return loginQueueRejected;
+    }
+
+    /**
+     * Gets the number of device connection status updates dropped without being written.
+     *
+     * @return The number of dropped device connection status updates.
+     * @since 2.0.0
+     */
+    public Counter getDeviceConnectionUpdateDropped() {
+        return deviceConnectionUpdateDropped;
+    }
+
+    /**
+     * Gets the number of logins waiting to be run, exposed as gauge.
+     *
+     * @return The number of logins waiting to be run.
+     * @since 2.0.0
+     */
+    public AtomicInteger getLoginQueueDepth() {
+        return loginQueueDepth;
+    }
+
+    /**
+     * Gets the time the last started login waited to be run (in milliseconds), exposed as gauge.
+     *
+     * @return The time the last started login waited to be run.
+     * @since 2.0.0
+     */
+    public AtomicLong getLoginQueueWaitTime() {
+        return loginQueueWaitTime;
+    }
+
     public Counter getInternalConnectorConnected() {
         return internalConnectorConnected;
     }
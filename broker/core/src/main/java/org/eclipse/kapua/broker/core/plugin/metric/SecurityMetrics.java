@@ -47,6 +47,13 @@ public class SecurityMetrics {
     public static final String METRIC_LOGOUT = "logout";
     public static final String METRIC_SEND_LOGIN_UPDATE = "send_login_update";
     public static final String METRIC_REMOVE_CONNECTION = "remove_connection";
+    public static final String METRIC_CREDENTIAL_CACHE = "credential_cache";
+    public static final String METRIC_HIT = "hit";
+    public static final String METRIC_QUEUE = "queue";
+    public static final String METRIC_DEPTH = "depth";
+    public static final String METRIC_WAIT = "wait";
+    public static final String METRIC_REJECTED = "rejected";
+    public static final String METRIC_DROPPED = "dropped";
     public static final String METRIC_ALLOWED = "allowed";
     public static final String METRIC_NOT_ALLOWED = "not_" + METRIC_ALLOWED;
     public static final String METRIC_MESSAGES = "messages";
@@ -56,5 +63,6 @@ public class SecurityMetrics {
     public static final String METRIC_COUNT = "count";
     public static final String METRIC_TIME = "time";
     public static final String METRIC_S = "s";
+    public static final String METRIC_MS = "ms";
 
 }
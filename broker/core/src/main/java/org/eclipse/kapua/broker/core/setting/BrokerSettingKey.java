@@ -62,6 +62,50 @@ public enum BrokerSettingKey implements SettingKey {
      * Publish message info if the message size is over the specified threshold
      */
     PUBLISHED_MESSAGE_SIZE_LOG_THRESHOLD("broker.security.published.message_size.log_threshold"),
+    /**
+     * Maximum number of destinations whose authorization is cached per connection
+     */
+    AUTHORIZATION_DESTINATION_CACHE_SIZE("broker.security.authorization.destination_cache_size"),
+    /**
+     * Enable/disable the cache of the recently verified connection credentials
+     */
+    CREDENTIAL_CACHE_ENABLED("broker.security.credential_cache.enabled"),
+    /**
+     * Maximum number of cached connection credentials
+     */
+    CREDENTIAL_CACHE_SIZE("broker.security.credential_cache.size"),
+    /**
+     * Time to live of the cached connection credentials (in seconds)
+     */
+    CREDENTIAL_CACHE_TTL("broker.security.credential_cache.ttl"),
+    /**
+     * Service event addresses whose events invalidate the cached connection credentials
+     */
+    CREDENTIAL_CACHE_EVENT_ADDRESSES("broker.security.credential_cache.event_addresses"),
+    /**
+     * Number of connection logins run at the same time (0 to run the logins on the transport threads)
+     */
+    LOGIN_EXECUTOR_THREADS("broker.security.login_executor.threads"),
+    /**
+     * Maximum number of connection logins waiting to be run
+     */
+    LOGIN_EXECUTOR_QUEUE_SIZE("broker.security.login_executor.queue_size"),
+    /**
+     * Maximum time a connection login waits to be run (in milliseconds)
+     */
+    LOGIN_EXECUTOR_QUEUE_MAX_WAIT_TIME("broker.security.login_executor.queue_max_wait_time"),
+    /**
+     * Maximum number of known clients whose logins are run with priority
+     */
+    LOGIN_EXECUTOR_KNOWN_CLIENTS_SIZE("broker.security.login_executor.known_clients_size"),
+    /**
+     * Interval between the background writes of the device connection status updates (in milliseconds, 0 to write them on connect and disconnect)
+     */
+    DEVICE_CONNECTION_STATUS_FLUSH_INTERVAL("broker.security.device_connection_status.flush_interval"),
+    /**
+     * Maximum number of times a failed background write of a device connection status is retried before dropping the update
+     */
+    DEVICE_CONNECTION_STATUS_MAX_RETRIES("broker.security.device_connection_status.max_retries"),
     /**
      * Jaxb context provider class name
      */
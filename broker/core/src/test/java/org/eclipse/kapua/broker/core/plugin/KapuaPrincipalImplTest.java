@@ -63,6 +63,17 @@ public class KapuaPrincipalImplTest {
         }
     }
 
+    @Test
+    public void kapuaPrincipalImplWithoutTokenTest() {
+        KapuaPrincipalImpl kapuaPrincipal = new KapuaPrincipalImpl(KapuaId.ONE, KapuaId.ANY, "username", "clientId", "192.168.1.1");
+        Assert.assertEquals("Expected and actual values should be the same.", "username", kapuaPrincipal.getName());
+        Assert.assertNull("Null expected.", kapuaPrincipal.getTokenId());
+        Assert.assertEquals("Expected and actual values should be the same.", KapuaId.ANY, kapuaPrincipal.getUserId());
+        Assert.assertEquals("Expected and actual values should be the same.", KapuaId.ONE, kapuaPrincipal.getAccountId());
+        Assert.assertEquals("Expected and actual values should be the same.", "clientId", kapuaPrincipal.getClientId());
+        Assert.assertEquals("Expected and actual values should be the same.", "192.168.1.1", kapuaPrincipal.getClientIp());
+    }
+
     @Test(expected = NullPointerException.class)
     public void kapuaPrincipalImplNullTokenTest() {
         for (String name : username) {
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin;
+
+import org.apache.activemq.command.ConnectionId;
+import org.apache.activemq.command.ConnectionInfo;
+import org.eclipse.kapua.broker.client.message.MessageHeaderCodec;
+import org.eclipse.kapua.broker.client.protocol.ProtocolDescriptor;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.security.KapuaSession;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnection;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.math.BigInteger;
+
+@Category(JUnitTests.class)
+public class KapuaSecurityContextTest extends Assert {
+
+    private static final KapuaId USER_ID = new KapuaEid(BigInteger.valueOf(42));
+
+    private KapuaSecurityContext kapuaSecurityContext;
+
+    @Before
+    public void setUp() {
+        KapuaSecurityUtils.setSession(new KapuaSession(null, KapuaId.ONE, USER_ID));
+        try {
+            ConnectionInfo connectionInfo = new ConnectionInfo(new ConnectionId("connection-1"));
+            connectionInfo.setClientId("client-1");
+            connectionInfo.setClientIp("127.0.0.1");
+
+            KapuaPrincipalImpl principal = new KapuaPrincipalImpl(KapuaId.ONE, USER_ID, "username", "client-1", "127.0.0.1");
+            kapuaSecurityContext = new KapuaSecurityContext(principal, "broker-1", "localhost", "account", connectionInfo, "mqtt");
+        } finally {
+            KapuaSecurityUtils.clearSession();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        KapuaSecurityUtils.clearSession();
+    }
+
+    @Test
+    public void updateMessageHeadersTest() {
+        assertNull(kapuaSecurityContext.getKapuaSessionHeader());
+
+        kapuaSecurityContext.updateMessageHeaders();
+
+        // The headers are encoded once and then set as they are on each message of the connection
+        String kapuaSessionHeader = kapuaSecurityContext.getKapuaSessionHeader();
+        assertSame(kapuaSessionHeader, kapuaSecurityContext.getKapuaSessionHeader());
+        assertSame(kapuaSecurityContext.getKapuaConnectionIdHeader(), kapuaSecurityContext.getKapuaConnectionIdHeader());
+
+        MessageHeaderCodec codec = new MessageHeaderCodec(10);
+        KapuaSession kapuaSession = codec.decode(kapuaSessionHeader);
+        assertEquals(KapuaId.ONE, kapuaSession.getScopeId());
+        assertEquals(USER_ID, kapuaSession.getUserId());
+        assertTrue(kapuaSession.isTrustedMode());
+        assertNull(codec.decode(kapuaSecurityContext.getKapuaConnectionIdHeader()));
+        assertTrue(codec.decode(kapuaSecurityContext.getConnectorDescriptorHeader()) instanceof ProtocolDescriptor);
+    }
+
+    @Test
+    public void updateMessageHeadersAfterConnectionIdTest() {
+        kapuaSecurityContext.updateMessageHeaders();
+        String kapuaConnectionIdHeader = kapuaSecurityContext.getKapuaConnectionIdHeader();
+
+        DeviceConnection deviceConnection = Mockito.mock(DeviceConnection.class);
+        Mockito.doReturn(new KapuaEid(BigInteger.valueOf(7))).when(deviceConnection).getId();
+        kapuaSecurityContext.updateKapuaConnectionId(deviceConnection);
+
+        // The headers are encoded again only when updated
+        assertSame(kapuaConnectionIdHeader, kapuaSecurityContext.getKapuaConnectionIdHeader());
+        kapuaSecurityContext.updateMessageHeaders();
+
+        KapuaId kapuaConnectionId = new MessageHeaderCodec(10).decode(kapuaSecurityContext.getKapuaConnectionIdHeader());
+        assertEquals(BigInteger.valueOf(7), kapuaConnectionId.getId());
+    }
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.broker.core.plugin.metric.LoginMetric;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.security.auth.login.CredentialException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@Category(JUnitTests.class)
+public class LoginExecutorTest extends Assert {
+
+    private final ExecutorService transportThreads = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        transportThreads.shutdownNow();
+    }
+
+    @Test
+    public void executeTest() throws Exception {
+        LoginExecutor loginExecutor = new LoginExecutor(1, 10, 10000);
+
+        assertEquals("connected", loginExecutor.execute(() -> "connected", false, "client-1"));
+        loginExecutor.shutdown();
+    }
+
+    @Test(expected = CredentialException.class)
+    public void executeThrowsLoginExceptionTest() throws Exception {
+        LoginExecutor loginExecutor = new LoginExecutor(1, 10, 10000);
+        try {
+            loginExecutor.execute(() -> {
+                throw new CredentialException("Invalid username and/or password");
+            }, false, "client-1");
+        } finally {
+            loginExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void priorityTest() throws Exception {
+        LoginExecutor loginExecutor = new LoginExecutor(1, 10, 10000);
+        CountDownLatch blocking = new CountDownLatch(1);
+        List<String> logins = new CopyOnWriteArrayList<>();
+
+        Future<?> blocked = submit(loginExecutor, "blocked", false, blocking, logins);
+        waitForLogins(logins, 1);
+        Future<?> unknown = submit(loginExecutor, "unknown", false, null, logins);
+        waitForQueueDepth(1);
+        Future<?> known = submit(loginExecutor, "known", true, null, logins);
+        waitForQueueDepth(2);
+
+        blocking.countDown();
+        blocked.get(10, TimeUnit.SECONDS);
+        unknown.get(10, TimeUnit.SECONDS);
+        known.get(10, TimeUnit.SECONDS);
+
+        assertEquals("blocked", logins.get(0));
+        assertEquals("known", logins.get(1));
+        assertEquals("unknown", logins.get(2));
+        loginExecutor.shutdown();
+    }
+
+    @Test
+    public void queueFullTest() throws Exception {
+        LoginExecutor loginExecutor = new LoginExecutor(1, 1, 10000);
+        CountDownLatch blocking = new CountDownLatch(1);
+        List<String> logins = new CopyOnWriteArrayList<>();
+
+        Future<?> blocked = submit(loginExecutor, "blocked", false, blocking, logins);
+        waitForLogins(logins, 1);
+        Future<?> queued = submit(loginExecutor, "queued", false, null, logins);
+        waitForQueueDepth(1);
+
+        try {
+            loginExecutor.execute(() -> "rejected", true, "client-1");
+            fail("The login should be rejected");
+        } catch (KapuaException e) {
+            assertEquals(KapuaBrokerErrorCodes.LOGIN_OVERLOADED, e.getCode());
+        }
+
+        blocking.countDown();
+        blocked.get(10, TimeUnit.SECONDS);
+        queued.get(10, TimeUnit.SECONDS);
+        assertEquals(2, logins.size());
+        loginExecutor.shutdown();
+    }
+
+    @Test
+    public void queueMaxWaitTimeTest() throws Exception {
+        LoginExecutor loginExecutor = new LoginExecutor(1, 10, 50);
+        CountDownLatch blocking = new CountDownLatch(1);
+        List<String> logins = new CopyOnWriteArrayList<>();
+
+        Future<?> blocked = submit(loginExecutor, "blocked", false, blocking, logins);
+        waitForLogins(logins, 1);
+        Future<?> expired = submit(loginExecutor, "expired", false, null, logins);
+        waitForQueueDepth(1);
+
+        Thread.sleep(100);
+        blocking.countDown();
+        blocked.get(10, TimeUnit.SECONDS);
+        try {
+            expired.get(10, TimeUnit.SECONDS);
+            fail("The login should be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof KapuaException);
+            assertEquals(KapuaBrokerErrorCodes.LOGIN_OVERLOADED, ((KapuaException) e.getCause()).getCode());
+        }
+        assertEquals(1, logins.size());
+        loginExecutor.shutdown();
+    }
+
+    @Test
+    public void executeAfterShutdownTest() throws Exception {
+        LoginExecutor loginExecutor = new LoginExecutor(1, 10, 10000);
+        loginExecutor.shutdown();
+        long queueDepth = LoginMetric.getInstance().getLoginQueueDepth().get();
+
+        try {
+            loginExecutor.execute(() -> "rejected", false, "client-1");
+            fail("The login should be rejected");
+        } catch (KapuaException e) {
+            assertEquals(KapuaBrokerErrorCodes.LOGIN_OVERLOADED, e.getCode());
+        }
+        assertEquals(queueDepth, LoginMetric.getInstance().getLoginQueueDepth().get());
+    }
+
+    @Test
+    public void loginOverloadedMessageTest() {
+        KapuaException kapuaException = new KapuaBrokerException(KapuaBrokerErrorCodes.LOGIN_OVERLOADED, "client-1");
+
+        assertEquals("The login of client id client-1 was rejected since the broker is overloaded", kapuaException.getMessage());
+    }
+
+    private Future<?> submit(LoginExecutor loginExecutor, String name, boolean priority, CountDownLatch blocking, List<String> logins) {
+        return transportThreads.submit(() -> loginExecutor.execute(() -> {
+            logins.add(name);
+            if (blocking != null) {
+                blocking.await();
+            }
+            return name;
+        }, priority, name));
+    }
+
+    private static void waitForLogins(List<String> logins, int count) throws InterruptedException {
+        for (int i = 0; i < 1000 && logins.size() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, logins.size());
+    }
+
+    private static void waitForQueueDepth(int queueDepth) throws InterruptedException {
+        for (int i = 0; i < 1000 && LoginMetric.getInstance().getLoginQueueDepth().get() != queueDepth; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(queueDepth, LoginMetric.getInstance().getLoginQueueDepth().get());
+    }
+}
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin.authentication;
+
+import org.eclipse.kapua.KapuaErrorCodes;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.broker.core.plugin.metric.LoginMetric;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnection;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionFactory;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionService;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionStatus;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Category(JUnitTests.class)
+public class DeviceConnectionStatusUpdaterTest extends Assert {
+
+    private static final String SERVER_IP = "10.0.0.1";
+
+    private final List<String> writes = new CopyOnWriteArrayList<>();
+
+    private DeviceConnectionService deviceConnectionService;
+    private DeviceConnectionStatusUpdater deviceConnectionStatusUpdater;
+
+    @Before
+    public void setUp() throws Exception {
+        deviceConnectionService = Mockito.mock(DeviceConnectionService.class);
+        Mockito.when(deviceConnectionService.update(Mockito.any(DeviceConnection.class))).thenAnswer(this::write);
+        DeviceConnectionFactory deviceConnectionFactory = Mockito.mock(DeviceConnectionFactory.class);
+        Mockito.when(deviceConnectionFactory.clone(Mockito.any(DeviceConnection.class))).thenAnswer(invocation -> {
+            DeviceConnection deviceConnection = (DeviceConnection) invocation.getArguments()[0];
+            return newDeviceConnection(deviceConnection.getClientId(), deviceConnection.getStatus(), deviceConnection.getServerIp(), deviceConnection.getOptlock());
+        });
+        // flushed by the tests
+        deviceConnectionStatusUpdater = new DeviceConnectionStatusUpdater(deviceConnectionService, deviceConnectionFactory, 3600000, 2);
+    }
+
+    @After
+    public void tearDown() {
+        deviceConnectionStatusUpdater.shutdown();
+    }
+
+    @Test
+    public void findPendingUpdateTest() throws Exception {
+        DeviceConnection deviceConnection = newDeviceConnection("device-1", DeviceConnectionStatus.DISCONNECTED, SERVER_IP, 1);
+        deviceConnectionStatusUpdater.update(deviceConnection);
+
+        DeviceConnection pendingDeviceConnection = deviceConnectionStatusUpdater.findByClientId(KapuaId.ONE, "device-1");
+        assertNotSame(deviceConnection, pendingDeviceConnection);
+        assertEquals(DeviceConnectionStatus.DISCONNECTED, pendingDeviceConnection.getStatus());
+        Mockito.verify(deviceConnectionService, Mockito.never()).findByClientId(Mockito.any(KapuaId.class), Mockito.anyString());
+    }
+
+    @Test
+    public void pendingUpdateIsCopiedTest() throws Exception {
+        DeviceConnection deviceConnection = newDeviceConnection("device-1", DeviceConnectionStatus.DISCONNECTED, SERVER_IP, 1);
+        deviceConnectionStatusUpdater.update(deviceConnection);
+        deviceConnection.setStatus(DeviceConnectionStatus.CONNECTED);
+        deviceConnectionStatusUpdater.findByClientId(KapuaId.ONE, "device-1").setStatus(DeviceConnectionStatus.MISSING);
+
+        deviceConnectionStatusUpdater.flush();
+
+        assertEquals(Collections.singletonList("device-1:DISCONNECTED:1"), writes);
+    }
+
+    @Test
+    public void findWithoutPendingUpdateTest() throws Exception {
+        DeviceConnection deviceConnection = newDeviceConnection("device-1", DeviceConnectionStatus.CONNECTED, SERVER_IP, 1);
+        Mockito.when(deviceConnectionService.findByClientId(KapuaId.ONE, "device-1")).thenReturn(deviceConnection);
+
+        assertSame(deviceConnection, deviceConnectionStatusUpdater.findByClientId(KapuaId.ONE, "device-1"));
+        assertNull(deviceConnectionStatusUpdater.findByClientId(KapuaId.ONE, "device-2"));
+    }
+
+    @Test
+    public void flushLatestUpdateTest() throws Exception {
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.DISCONNECTED, SERVER_IP, 1));
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.CONNECTED, SERVER_IP, 1));
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-2", DeviceConnectionStatus.MISSING, SERVER_IP, 3));
+
+        deviceConnectionStatusUpdater.flush();
+
+        assertEquals(2, writes.size());
+        assertTrue(writes.containsAll(Arrays.asList("device-1:CONNECTED:1", "device-2:MISSING:3")));
+
+        deviceConnectionStatusUpdater.findByClientId(KapuaId.ONE, "device-1");
+        Mockito.verify(deviceConnectionService).findByClientId(KapuaId.ONE, "device-1");
+    }
+
+    @Test
+    public void flushRebasesPendingUpdateTest() throws Exception {
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.CONNECTED, SERVER_IP, 1));
+        Mockito.doAnswer(invocation -> {
+            if (writes.isEmpty()) {
+                // a disconnect reads the version being written
+                DeviceConnection inFlightDeviceConnection = deviceConnectionStatusUpdater.findByClientId(KapuaId.ONE, "device-1");
+                inFlightDeviceConnection.setStatus(DeviceConnectionStatus.DISCONNECTED);
+                deviceConnectionStatusUpdater.update(inFlightDeviceConnection);
+            }
+            return write(invocation);
+        }).when(deviceConnectionService).update(Mockito.any(DeviceConnection.class));
+
+        deviceConnectionStatusUpdater.flush();
+        deviceConnectionStatusUpdater.flush();
+
+        assertEquals(Arrays.asList("device-1:CONNECTED:1", "device-1:DISCONNECTED:2"), writes);
+    }
+
+    @Test
+    public void flushFailureRequeuesTest() throws Exception {
+        Mockito.doThrow(new KapuaException(KapuaErrorCodes.OPTIMISTIC_LOCKING)).doAnswer(this::write)
+                .when(deviceConnectionService).update(Mockito.any(DeviceConnection.class));
+        DeviceConnection currentDeviceConnection = newDeviceConnection("device-1", DeviceConnectionStatus.CONNECTED, SERVER_IP, 5);
+        Mockito.when(deviceConnectionService.findByClientId(KapuaId.ONE, "device-1")).thenReturn(currentDeviceConnection);
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.DISCONNECTED, SERVER_IP, 1));
+
+        deviceConnectionStatusUpdater.flush();
+        assertEquals(DeviceConnectionStatus.DISCONNECTED, deviceConnectionStatusUpdater.findByClientId(KapuaId.ONE, "device-1").getStatus());
+        deviceConnectionStatusUpdater.flush();
+
+        assertEquals(Collections.singletonList("device-1:DISCONNECTED:5"), writes);
+    }
+
+    @Test
+    public void flushFailureKeepsNewerUpdateTest() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            // a connect is queued while the update is failing
+            deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.CONNECTED, SERVER_IP, 5));
+            throw new KapuaException(KapuaErrorCodes.OPTIMISTIC_LOCKING);
+        }).doAnswer(this::write).when(deviceConnectionService).update(Mockito.any(DeviceConnection.class));
+        DeviceConnection currentDeviceConnection = newDeviceConnection("device-1", DeviceConnectionStatus.CONNECTED, SERVER_IP, 5);
+        Mockito.when(deviceConnectionService.findByClientId(KapuaId.ONE, "device-1")).thenReturn(currentDeviceConnection);
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.DISCONNECTED, SERVER_IP, 1));
+
+        deviceConnectionStatusUpdater.flush();
+        deviceConnectionStatusUpdater.flush();
+
+        assertEquals(Collections.singletonList("device-1:CONNECTED:5"), writes);
+    }
+
+    @Test
+    public void flushFailureOtherNodeTest() throws Exception {
+        Mockito.doThrow(new KapuaException(KapuaErrorCodes.OPTIMISTIC_LOCKING)).when(deviceConnectionService).update(Mockito.any(DeviceConnection.class));
+        DeviceConnection otherNodeDeviceConnection = newDeviceConnection("device-1", DeviceConnectionStatus.CONNECTED, "10.0.0.2", 5);
+        Mockito.when(deviceConnectionService.findByClientId(KapuaId.ONE, "device-1")).thenReturn(otherNodeDeviceConnection);
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.DISCONNECTED, SERVER_IP, 1));
+        long dropped = LoginMetric.getInstance().getDeviceConnectionUpdateDropped().getCount();
+
+        deviceConnectionStatusUpdater.flush();
+        deviceConnectionStatusUpdater.flush();
+
+        Mockito.verify(deviceConnectionService, Mockito.times(1)).update(Mockito.any(DeviceConnection.class));
+        assertEquals(dropped + 1, LoginMetric.getInstance().getDeviceConnectionUpdateDropped().getCount());
+    }
+
+    @Test
+    public void flushFailureRetriesAtMostTest() throws Exception {
+        Mockito.doThrow(new KapuaException(KapuaErrorCodes.INTERNAL_ERROR)).when(deviceConnectionService).update(Mockito.any(DeviceConnection.class));
+        DeviceConnection currentDeviceConnection = newDeviceConnection("device-1", DeviceConnectionStatus.CONNECTED, SERVER_IP, 5);
+        Mockito.when(deviceConnectionService.findByClientId(KapuaId.ONE, "device-1")).thenReturn(currentDeviceConnection);
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.DISCONNECTED, SERVER_IP, 1));
+        long dropped = LoginMetric.getInstance().getDeviceConnectionUpdateDropped().getCount();
+
+        for (int i = 0; i < 5; i++) {
+            deviceConnectionStatusUpdater.flush();
+        }
+
+        // the first write and 2 retries, then the update is dropped
+        Mockito.verify(deviceConnectionService, Mockito.times(3)).update(Mockito.any(DeviceConnection.class));
+        assertEquals(dropped + 1, LoginMetric.getInstance().getDeviceConnectionUpdateDropped().getCount());
+        assertSame(currentDeviceConnection, deviceConnectionStatusUpdater.findByClientId(KapuaId.ONE, "device-1"));
+    }
+
+    @Test
+    public void flushSuccessResetsRetriesTest() throws Exception {
+        KapuaException optimisticLockingException = new KapuaException(KapuaErrorCodes.OPTIMISTIC_LOCKING);
+        Mockito.doThrow(optimisticLockingException).doThrow(optimisticLockingException).doAnswer(this::write)
+                .doThrow(optimisticLockingException).doThrow(optimisticLockingException).doAnswer(this::write)
+                .when(deviceConnectionService).update(Mockito.any(DeviceConnection.class));
+        DeviceConnection currentDeviceConnection = newDeviceConnection("device-1", DeviceConnectionStatus.CONNECTED, SERVER_IP, 5);
+        Mockito.when(deviceConnectionService.findByClientId(KapuaId.ONE, "device-1")).thenReturn(currentDeviceConnection);
+
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.DISCONNECTED, SERVER_IP, 1));
+        for (int i = 0; i < 3; i++) {
+            deviceConnectionStatusUpdater.flush();
+        }
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.CONNECTED, SERVER_IP, 6));
+        for (int i = 0; i < 3; i++) {
+            deviceConnectionStatusUpdater.flush();
+        }
+
+        assertEquals(Arrays.asList("device-1:DISCONNECTED:5", "device-1:CONNECTED:5"), writes);
+    }
+
+    @Test
+    public void flushOnShutdownTest() throws Exception {
+        deviceConnectionStatusUpdater.update(newDeviceConnection("device-1", DeviceConnectionStatus.DISCONNECTED, SERVER_IP, 1));
+
+        deviceConnectionStatusUpdater.shutdown();
+
+        assertEquals(Collections.singletonList("device-1:DISCONNECTED:1"), writes);
+    }
+
+    private DeviceConnection write(InvocationOnMock invocation) {
+        DeviceConnection deviceConnection = (DeviceConnection) invocation.getArguments()[0];
+        writes.add(deviceConnection.getClientId() + ":" + deviceConnection.getStatus() + ":" + deviceConnection.getOptlock());
+        return newDeviceConnection(deviceConnection.getClientId(), deviceConnection.getStatus(), deviceConnection.getServerIp(), deviceConnection.getOptlock() + 1);
+    }
+
+    private static DeviceConnection newDeviceConnection(String clientId, DeviceConnectionStatus status, String serverIp, int optlock) {
+        AtomicReference<DeviceConnectionStatus> statusValue = new AtomicReference<>(status);
+        AtomicInteger optlockValue = new AtomicInteger(optlock);
+        DeviceConnection deviceConnection = Mockito.mock(DeviceConnection.class);
+        Mockito.when(deviceConnection.getScopeId()).thenReturn(KapuaId.ONE);
+        Mockito.when(deviceConnection.getClientId()).thenReturn(clientId);
+        Mockito.when(deviceConnection.getServerIp()).thenReturn(serverIp);
+        Mockito.when(deviceConnection.getStatus()).thenAnswer(invocation -> statusValue.get());
+        Mockito.doAnswer(invocation -> {
+            statusValue.set((DeviceConnectionStatus) invocation.getArguments()[0]);
+            return null;
+        }).when(deviceConnection).setStatus(Mockito.any(DeviceConnectionStatus.class));
+        Mockito.when(deviceConnection.getOptlock()).thenAnswer(invocation -> optlockValue.get());
+        Mockito.doAnswer(invocation -> {
+            optlockValue.set((Integer) invocation.getArguments()[0]);
+            return null;
+        }).when(deviceConnection).setOptlock(Mockito.anyInt());
+        return deviceConnection;
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin.authentication;
+
+import org.eclipse.kapua.broker.core.plugin.authentication.VerifiedCredentialCache.VerifiedCredential;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.account.AccountService;
+import org.eclipse.kapua.service.authentication.credential.CredentialService;
+import org.eclipse.kapua.service.user.UserService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+
+@Category(JUnitTests.class)
+public class VerifiedCredentialCacheTest extends Assert {
+
+    private static final KapuaId USER_ID_1 = new KapuaEid(BigInteger.valueOf(10));
+    private static final KapuaId USER_ID_2 = new KapuaEid(BigInteger.valueOf(20));
+    private static final KapuaId USER_ID_3 = new KapuaEid(BigInteger.valueOf(40));
+    private static final KapuaId SCOPE_ID_2 = new KapuaEid(BigInteger.valueOf(2));
+
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    @Before
+    public void setUp() {
+        verifiedCredentialCache = new VerifiedCredentialCache(10, 60);
+        verifiedCredentialCache.put("device-1", "secret-1", newVerifiedCredential(KapuaId.ONE, USER_ID_1));
+        verifiedCredentialCache.put("device-2", "secret-2", newVerifiedCredential(KapuaId.ONE, USER_ID_2));
+        verifiedCredentialCache.put("device-3", "secret-3", newVerifiedCredential(SCOPE_ID_2, USER_ID_3));
+    }
+
+    @Test
+    public void getTest() {
+        VerifiedCredential verifiedCredential = verifiedCredentialCache.get("device-1", "secret-1");
+
+        assertNotNull(verifiedCredential);
+        assertEquals(USER_ID_1, verifiedCredential.getUserId());
+        assertEquals("acme", verifiedCredential.getAccountName());
+        assertArrayEquals(new boolean[]{true, false, false, true, false}, verifiedCredential.getPermissions());
+    }
+
+    @Test
+    public void getWrongCredentialsTest() {
+        assertNull(verifiedCredentialCache.get("device-1", "secret-2"));
+        assertNull(verifiedCredentialCache.get("device-2", "secret-1"));
+        assertNull(verifiedCredentialCache.get("device-1", null));
+        assertNull(verifiedCredentialCache.get(null, "secret-1"));
+    }
+
+    @Test
+    public void permissionsAreCopiedTest() {
+        verifiedCredentialCache.get("device-1", "secret-1").getPermissions()[0] = false;
+
+        assertTrue(verifiedCredentialCache.get("device-1", "secret-1").getPermissions()[0]);
+    }
+
+    @Test
+    public void userEventInvalidatesUserTest() throws Exception {
+        verifiedCredentialCache.onKapuaEvent(newServiceEvent(UserService.class.getName(), USER_ID_1, KapuaId.ONE));
+
+        assertNull(verifiedCredentialCache.get("device-1", "secret-1"));
+        assertNotNull(verifiedCredentialCache.get("device-2", "secret-2"));
+        assertNotNull(verifiedCredentialCache.get("device-3", "secret-3"));
+    }
+
+    @Test
+    public void credentialEventInvalidatesScopeTest() throws Exception {
+        verifiedCredentialCache.onKapuaEvent(newServiceEvent(CredentialService.class.getName(), new KapuaEid(BigInteger.valueOf(30)), KapuaId.ONE));
+
+        assertNull(verifiedCredentialCache.get("device-1", "secret-1"));
+        assertNull(verifiedCredentialCache.get("device-2", "secret-2"));
+        assertNotNull(verifiedCredentialCache.get("device-3", "secret-3"));
+    }
+
+    @Test
+    public void credentialEventWithoutScopeInvalidatesAllTest() throws Exception {
+        verifiedCredentialCache.onKapuaEvent(newServiceEvent(CredentialService.class.getName(), new KapuaEid(BigInteger.valueOf(30)), null));
+
+        assertNull(verifiedCredentialCache.get("device-1", "secret-1"));
+        assertNull(verifiedCredentialCache.get("device-2", "secret-2"));
+        assertNull(verifiedCredentialCache.get("device-3", "secret-3"));
+    }
+
+    @Test
+    public void accountEventInvalidatesAllTest() throws Exception {
+        verifiedCredentialCache.onKapuaEvent(newServiceEvent(AccountService.class.getName(), SCOPE_ID_2, KapuaId.ONE));
+
+        assertNull(verifiedCredentialCache.get("device-1", "secret-1"));
+        assertNull(verifiedCredentialCache.get("device-2", "secret-2"));
+        assertNull(verifiedCredentialCache.get("device-3", "secret-3"));
+    }
+
+    @Test
+    public void otherEventInvalidatesAllTest() throws Exception {
+        verifiedCredentialCache.onKapuaEvent(newServiceEvent("authorization", new KapuaEid(BigInteger.valueOf(30)), KapuaId.ONE));
+
+        assertNull(verifiedCredentialCache.get("device-1", "secret-1"));
+        assertNull(verifiedCredentialCache.get("device-2", "secret-2"));
+        assertNull(verifiedCredentialCache.get("device-3", "secret-3"));
+    }
+
+    @Test
+    public void invalidateScopeTest() {
+        verifiedCredentialCache.invalidateScope(SCOPE_ID_2);
+
+        assertNotNull(verifiedCredentialCache.get("device-1", "secret-1"));
+        assertNotNull(verifiedCredentialCache.get("device-2", "secret-2"));
+        assertNull(verifiedCredentialCache.get("device-3", "secret-3"));
+    }
+
+    private static VerifiedCredential newVerifiedCredential(KapuaId scopeId, KapuaId userId) {
+        return new VerifiedCredential(scopeId, userId, "acme", new boolean[]{true, false, false, true, false});
+    }
+
+    private static ServiceEvent newServiceEvent(String service, KapuaId entityId, KapuaId entityScopeId) {
+        ServiceEvent serviceEvent = new ServiceEvent();
+        serviceEvent.setService(service);
+        serviceEvent.setEntityId(entityId);
+        serviceEvent.setEntityScopeId(entityScopeId);
+        return serviceEvent;
+    }
+}
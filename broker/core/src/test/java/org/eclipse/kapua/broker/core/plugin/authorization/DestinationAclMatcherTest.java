@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin.authorization;
+
+import org.apache.activemq.command.ActiveMQDestination;
+import org.apache.activemq.filter.DestinationMapEntry;
+import org.apache.activemq.security.AuthorizationEntry;
+import org.apache.activemq.security.AuthorizationMap;
+import org.apache.activemq.security.DefaultAuthorizationMap;
+import org.apache.activemq.security.SecurityContext;
+import org.eclipse.kapua.broker.core.plugin.authorization.Authorizer.ActionType;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Category(JUnitTests.class)
+public class DestinationAclMatcherTest extends Assert {
+
+    private static final Principal PRINCIPAL = () -> "kapua-user";
+
+    private static final SecurityContext SECURITY_CONTEXT = new SecurityContext(PRINCIPAL.getName()) {
+
+        @Override
+        public Set<Principal> getPrincipals() {
+            return Collections.singleton(PRINCIPAL);
+        }
+    };
+
+    private static final String[] TOPICS = {
+            "acme",
+            "acme.device-1",
+            "acme.device-1.heater",
+            "acme.device-1.heater.data",
+            "acme.device-2.heater.data",
+            "$EDC.acme.device-1.CMD-V1.EXEC.cmd",
+            "$EDC.acme.device-1.MQTT.BIRTH",
+            "$EDC.acme.device-2.MQTT.BIRTH",
+            "$EDC.acme.device-1",
+            "$EDC.other.device-1.MQTT.BIRTH",
+            "other.device-1.heater.data",
+            "ActiveMQ.Advisory.Connection",
+            "ActiveMQ.Advisory.Consumer.Topic.acme",
+            "Consumer.1:device-1:AT_LEAST_ONCE.acme.device-1.heater",
+            "a.x",
+            "a.x.b",
+            "a.x.c",
+            "a",
+            "b.c.d.e"
+    };
+
+    private AuthorizationMap authorizationMap;
+    private DestinationAclMatcher destinationAclMatcher;
+
+    @Before
+    public void setUp() {
+        @SuppressWarnings("rawtypes")
+        List<DestinationMapEntry> entries = new ArrayList<>();
+        destinationAclMatcher = new DestinationAclMatcher(4);
+
+        addEntry(entries, "acme.>", true, true, true);
+        addEntry(entries, "$EDC.acme.*.MQTT.BIRTH", false, true, false);
+        addEntry(entries, "$EDC.acme.device-1.>", true, false, false);
+        addEntry(entries, "ActiveMQ.Advisory.*", true, false, false);
+        addEntry(entries, "Consumer.1:device-1:AT_LEAST_ONCE.acme.>", true, false, true);
+        addEntry(entries, "a.>.b", false, true, false);
+        addEntry(entries, "*.*.d.>", false, false, true);
+        addEntry(entries, "other.>,queue://other.>", false, true, false);
+
+        authorizationMap = new DefaultAuthorizationMap(entries);
+    }
+
+    @Test
+    public void matchesAuthorizationMapTest() {
+        for (String topic : TOPICS) {
+            ActiveMQDestination destination = ActiveMQDestination.createDestination(topic, ActiveMQDestination.TOPIC_TYPE);
+            int allowedActions = destinationAclMatcher.getAllowedActions(destination);
+            assertNotEquals(topic, DestinationAclMatcher.UNSUPPORTED, allowedActions);
+
+            assertEquals(topic + " READ", SECURITY_CONTEXT.isInOneOf(authorizationMap.getReadACLs(destination)), DestinationAclMatcher.isAllowed(ActionType.READ, allowedActions));
+            assertEquals(topic + " WRITE", SECURITY_CONTEXT.isInOneOf(authorizationMap.getWriteACLs(destination)), DestinationAclMatcher.isAllowed(ActionType.WRITE, allowedActions));
+            assertEquals(topic + " ADMIN", SECURITY_CONTEXT.isInOneOf(authorizationMap.getAdminACLs(destination)), DestinationAclMatcher.isAllowed(ActionType.ADMIN, allowedActions));
+        }
+    }
+
+    @Test
+    public void cachedTest() {
+        ActiveMQDestination destination = ActiveMQDestination.createDestination("acme.device-1.heater.data", ActiveMQDestination.TOPIC_TYPE);
+        int allowedActions = destinationAclMatcher.getAllowedActions(destination);
+
+        for (String topic : TOPICS) {
+            destinationAclMatcher.getAllowedActions(ActiveMQDestination.createDestination(topic, ActiveMQDestination.TOPIC_TYPE));
+        }
+        assertEquals(allowedActions, destinationAclMatcher.getAllowedActions(destination));
+        assertEquals(allowedActions, destinationAclMatcher.getAllowedActions(destination));
+    }
+
+    @Test
+    public void unsupportedDestinationsTest() {
+        assertEquals(DestinationAclMatcher.UNSUPPORTED, destinationAclMatcher.getAllowedActions(ActiveMQDestination.createDestination("acme.*.heater", ActiveMQDestination.TOPIC_TYPE)));
+        assertEquals(DestinationAclMatcher.UNSUPPORTED, destinationAclMatcher.getAllowedActions(ActiveMQDestination.createDestination("acme.>", ActiveMQDestination.TOPIC_TYPE)));
+        assertEquals(DestinationAclMatcher.UNSUPPORTED, destinationAclMatcher.getAllowedActions(ActiveMQDestination.createDestination("other.device-1", ActiveMQDestination.QUEUE_TYPE)));
+        assertEquals(DestinationAclMatcher.UNSUPPORTED, destinationAclMatcher.getAllowedActions(ActiveMQDestination.createDestination("acme.a,acme.b", ActiveMQDestination.TOPIC_TYPE)));
+        assertEquals(DestinationAclMatcher.UNSUPPORTED, destinationAclMatcher.getAllowedActions(ActiveMQDestination.createDestination("acme.a", ActiveMQDestination.TEMP_TOPIC_TYPE)));
+    }
+
+    private void addEntry(@SuppressWarnings("rawtypes") List<DestinationMapEntry> entries, String address, boolean read, boolean write, boolean admin) {
+        AuthorizationEntry authorizationEntry = new AuthorizationEntry();
+        authorizationEntry.setDestination(ActiveMQDestination.createDestination(address, ActiveMQDestination.TOPIC_TYPE));
+        authorizationEntry.setReadACLs(toAcl(read));
+        authorizationEntry.setWriteACLs(toAcl(write));
+        authorizationEntry.setAdminACLs(toAcl(admin));
+
+        entries.add(authorizationEntry);
+        destinationAclMatcher.add(authorizationEntry, SECURITY_CONTEXT);
+    }
+
+    private static Set<Object> toAcl(boolean allowed) {
+        Set<Object> acl = new HashSet<>();
+        if (allowed) {
+            acl.add(PRINCIPAL);
+        }
+        return acl;
+    }
+}
@@ -113,6 +113,36 @@ public class LocalCache<K, V> implements Cache<K, V> {
         }
     }
 
+    /**
+     * Put the provided value only if no value is present for the key
+     *
+     * @param k
+     *            the key
+     * @param v
+     *            the value
+     * @return the value already present for the key, or {@code null} if the provided value has been put
+     * @since 2.0.0
+     */
+    public V putIfAbsent(K k, V v) {
+        return cache.asMap().putIfAbsent(k, v);
+    }
+
+    /**
+     * Replace the value of the key only if it is currently the expected one
+     *
+     * @param k
+     *            the key
+     * @param expectedValue
+     *            the value expected to be present for the key
+     * @param newValue
+     *            the new value
+     * @return {@code true} if the value has been replaced
+     * @since 2.0.0
+     */
+    public boolean replace(K k, V expectedValue, V newValue) {
+        return cache.asMap().replace(k, expectedValue, newValue);
+    }
+
     @Override
     public void remove(K k) {
         if (cache != null) {
@@ -0,0 +1,341 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.cache;
+
+import com.codahale.metrics.Counter;
+
+import java.util.Arrays;
+
+/**
+ * Compact local cache which only remembers whether a key is present.
+ * <p>
+ * Instead of the keys, only a 64 bit fingerprint of each key is stored, in open addressing tables of primitives,
+ * so that each entry costs about 16 bytes regardless of the key length.
+ * The drawback is that two different keys with the same fingerprint are seen as the same key,
+ * which is negligible for the size this cache is meant for but must be acceptable for the use case.
+ * <p>
+ * When the cache is full, entries are evicted with the CLOCK algorithm: an entry read since the last sweep gets a second chance,
+ * so keys which are not read again after being cached are the first ones to be evicted.
+ * Like {@link LocalCache#LocalCache(int, int, Object)} entries also expire after the given time from their write.
+ * <p>
+ * The tables are split into segments, each guarded by its own lock and holding an equal share of the max size:
+ * since keys are not spread evenly between segments, evictions may start a little before the max size is reached.
+ *
+ * @since 2.0.0
+ */
+public class LocalFingerprintCache implements Cache<String, Boolean> {
+
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MIN_SEGMENT_ENTRIES = 16;
+    private static final double LOAD_FACTOR = 0.75;
+
+    private static final long EMPTY = 0L;
+    private static final int REFERENCED = 1 << 31;
+
+    private final Segment[] segments;
+    private final long segmentShift;
+    private final int expireAfter;
+    private final long baseTime = System.currentTimeMillis();
+
+    private final Counter hitCount;
+    private final Counter missCount;
+    private final Counter evictionCount;
+
+    private String namespace;
+
+    /**
+     * Construct the cache setting the provided max size and expire time
+     *
+     * @param sizeMax     max cache size
+     * @param expireAfter values ttl, in seconds. Values less or equal to 0 disable the time based expiration
+     * @since 2.0.0
+     */
+    public LocalFingerprintCache(int sizeMax, int expireAfter) {
+        this(sizeMax, expireAfter, new Counter(), new Counter(), new Counter());
+    }
+
+    /**
+     * Construct the cache setting the provided max size and expire time, and the {@link Counter}s to update on cache operations
+     *
+     * @param sizeMax       max cache size
+     * @param expireAfter   values ttl, in seconds. Values less or equal to 0 disable the time based expiration
+     * @param hitCount      the {@link Counter} of the lookups which found the key
+     * @param missCount     the {@link Counter} of the lookups which did not find the key
+     * @param evictionCount the {@link Counter} of the keys evicted to make room for new ones
+     * @since 2.0.0
+     */
+    public LocalFingerprintCache(int sizeMax, int expireAfter, Counter hitCount, Counter missCount, Counter evictionCount) {
+        if (sizeMax < 0) {
+            throw new IllegalArgumentException("maximum size must not be negative");
+        }
+        this.expireAfter = expireAfter;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, sizeMax / MIN_SEGMENT_ENTRIES))));
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(sizeMax / segmentCount + (i < sizeMax % segmentCount ? 1 : 0));
+        }
+        segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    @Override
+    public String getNamespace() {
+        return namespace;
+    }
+
+    @Override
+    public void setNamespace(String namespace) {
+        this.namespace = namespace;
+    }
+
+    /**
+     * Return whether the given key is cached
+     *
+     * @param key the key to look for
+     * @return {@link Boolean#TRUE} if the key is cached, {@link Boolean#FALSE} otherwise
+     */
+    @Override
+    public Boolean get(String key) {
+        long fingerprint = fingerprintOf(key);
+        if (segmentFor(fingerprint).contains(fingerprint, now())) {
+            hitCount.inc();
+            return Boolean.TRUE;
+        }
+        missCount.inc();
+        return Boolean.FALSE;
+    }
+
+    /**
+     * Cache the given key if the value is {@link Boolean#TRUE}, remove it otherwise
+     *
+     * @param key   the key
+     * @param value whether the key is present
+     */
+    @Override
+    public void put(String key, Boolean value) {
+        long fingerprint = fingerprintOf(key);
+        if (Boolean.TRUE.equals(value)) {
+            segmentFor(fingerprint).add(fingerprint, now());
+        } else {
+            segmentFor(fingerprint).remove(fingerprint);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        long fingerprint = fingerprintOf(key);
+        segmentFor(fingerprint).remove(fingerprint);
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Gets the number of cached keys
+     *
+     * @return the number of cached keys, including the expired ones not evicted yet
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(long fingerprint) {
+        return segmentShift == 64 ? segments[0] : segments[(int) (fingerprint >>> segmentShift)];
+    }
+
+    private int now() {
+        return expireAfter > 0 ? (int) ((System.currentTimeMillis() - baseTime) / 1000) : 0;
+    }
+
+    private boolean isExpired(int stamp, int now) {
+        return expireAfter > 0 && now - (stamp & ~REFERENCED) >= expireAfter;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the key characters, finalized with the MurmurHash3 mix to spread the bits.
+     */
+    private static long fingerprintOf(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != EMPTY ? hash : 1L;
+    }
+
+    /**
+     * A linear probing table of fingerprints, with the write time and the CLOCK reference bit of each entry in a parallel array.
+     */
+    private final class Segment {
+
+        private final long[] fingerprints;
+        private final int[] stamps;
+        private final int maxEntries;
+
+        private int size;
+        private int clockHand;
+
+        private Segment(int maxEntries) {
+            this.maxEntries = maxEntries;
+            int capacity = Math.max(1, (int) Math.ceil(maxEntries / LOAD_FACTOR) + 1);
+            fingerprints = new long[capacity];
+            stamps = new int[capacity];
+        }
+
+        private synchronized boolean contains(long fingerprint, int now) {
+            int slot = find(fingerprint);
+            if (slot < 0) {
+                return false;
+            }
+            if (isExpired(stamps[slot], now)) {
+                delete(slot);
+                return false;
+            }
+            stamps[slot] |= REFERENCED;
+            return true;
+        }
+
+        private synchronized void add(long fingerprint, int now) {
+            if (maxEntries == 0) {
+                return;
+            }
+
+            int slot = find(fingerprint);
+            if (slot >= 0) {
+                stamps[slot] = now | (stamps[slot] & REFERENCED);
+                return;
+            }
+
+            if (size >= maxEntries) {
+                evict(now);
+            }
+
+            slot = home(fingerprint);
+            while (fingerprints[slot] != EMPTY) {
+                slot = next(slot);
+            }
+            fingerprints[slot] = fingerprint;
+            stamps[slot] = now;
+            size++;
+        }
+
+        private synchronized void remove(long fingerprint) {
+            int slot = find(fingerprint);
+            if (slot >= 0) {
+                delete(slot);
+            }
+        }
+
+        private synchronized void clear() {
+            Arrays.fill(fingerprints, EMPTY);
+            Arrays.fill(stamps, 0);
+            size = 0;
+            clockHand = 0;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private int find(long fingerprint) {
+            int slot = home(fingerprint);
+            long slotFingerprint;
+            while ((slotFingerprint = fingerprints[slot]) != EMPTY) {
+                if (slotFingerprint == fingerprint) {
+                    return slot;
+                }
+                slot = next(slot);
+            }
+            return -1;
+        }
+
+        /**
+         * Sweeps the entries from the clock hand, clearing the reference bit of the referenced ones,
+         * until an unreferenced or expired entry is found and evicted.
+         */
+        private void evict(int now) {
+            while (true) {
+                int slot = clockHand;
+                clockHand = next(clockHand);
+
+                if (fingerprints[slot] == EMPTY) {
+                    continue;
+                }
+
+                int stamp = stamps[slot];
+                if ((stamp & REFERENCED) != 0 && !isExpired(stamp, now)) {
+                    stamps[slot] = stamp & ~REFERENCED;
+                    continue;
+                }
+
+                delete(slot);
+                evictionCount.inc();
+                return;
+            }
+        }
+
+        /**
+         * Deletes the entry in the given slot, shifting back the following entries of the same probe sequence
+         * so that no tombstone is needed.
+         */
+        private void delete(int slot) {
+            int hole = slot;
+            int current = slot;
+            while (true) {
+                current = next(current);
+                long currentFingerprint = fingerprints[current];
+                if (currentFingerprint == EMPTY) {
+                    break;
+                }
+
+                int currentHome = home(currentFingerprint);
+                boolean homeInRange = hole <= current ?
+                        hole < currentHome && currentHome <= current :
+                        hole < currentHome || currentHome <= current;
+                if (!homeInRange) {
+                    fingerprints[hole] = currentFingerprint;
+                    stamps[hole] = stamps[current];
+                    hole = current;
+                }
+            }
+            fingerprints[hole] = EMPTY;
+            stamps[hole] = 0;
+            size--;
+        }
+
+        private int home(long fingerprint) {
+            // Maps the lower 32 bits to [0, capacity) without a division
+            return (int) (((fingerprint & 0xffffffffL) * fingerprints.length) >>> 32);
+        }
+
+        private int next(int slot) {
+            return slot + 1 == fingerprints.length ? 0 : slot + 1;
+        }
+    }
+}
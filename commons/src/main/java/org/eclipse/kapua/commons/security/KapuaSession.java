@@ -183,6 +183,20 @@ public class KapuaSession implements Serializable {
         userId = principal.getUserId();
     }
 
+    /**
+     * Constructs a copy of the given {@link KapuaSession}, trusted mode included.
+     * <p>
+     * The copy can be modified without affecting the given {@link KapuaSession}, which can then be shared.
+     *
+     * @param session The {@link KapuaSession} to copy.
+     * @since 2.0.0
+     */
+    public KapuaSession(KapuaSession session) {
+        this(session.getAccessToken(), session.getScopeId(), session.getUserId(), session.getOpenIDidToken());
+        trustedMode = session.isTrustedMode();
+        userInitiatedLogout = session.isUserInitiatedLogout();
+    }
+
     /**
      * Get the access token
      *
@@ -194,6 +194,27 @@ public class XmlUtil {
         marshal(object, writer, jsonProperties);
     }
 
+    /**
+     * Marshals the given XML {@link Object} into the given {@link Writer} as JSON representation on a single line.
+     * <p>
+     * Useful to write newline delimited JSON, where each line is a JSON document.
+     *
+     * @param object The {@link Object} to marshall.
+     * @param writer The {@link Writer} to use.
+     * @throws JAXBException See {@link Marshaller#marshal(Object, Writer)}
+     * @since 2.0.0
+     */
+    public static void marshalJsonLine(@NotNull Object object, @NotNull Writer writer)
+            throws JAXBException {
+
+        Map<String, Object> jsonProperties = new HashMap<>();
+        jsonProperties.put(MarshallerProperties.JSON_INCLUDE_ROOT, false);
+        jsonProperties.put(MarshallerProperties.MEDIA_TYPE, "application/json");
+        jsonProperties.put(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+
+        marshal(object, writer, jsonProperties);
+    }
+
     /**
      * Marshals the given {@link Object} into the given {@link Writer}, configuring the
      * {@link Marshaller} with the given additional {@link Properties}.
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.cache;
+
+import com.codahale.metrics.Counter;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class LocalFingerprintCacheTest extends Assert {
+
+    @Test
+    public void putGetRemoveTest() {
+        LocalFingerprintCache cache = new LocalFingerprintCache(1000, 0);
+
+        assertFalse(cache.get("key-1"));
+        cache.put("key-1", true);
+        assertTrue(cache.get("key-1"));
+        assertFalse(cache.get("key-2"));
+
+        cache.put("key-1", false);
+        assertFalse(cache.get("key-1"));
+
+        cache.put("key-2", true);
+        cache.remove("key-2");
+        assertFalse(cache.get("key-2"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidateAllTest() {
+        LocalFingerprintCache cache = new LocalFingerprintCache(10_000, 0);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key-" + i, true);
+        }
+        assertEquals(1000, cache.size());
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(cache.get("key-" + i));
+        }
+    }
+
+    @Test
+    public void evictionTest() {
+        Counter evictionCount = new Counter();
+        LocalFingerprintCache cache = new LocalFingerprintCache(1000, 0, new Counter(), new Counter(), evictionCount);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("key-" + i, true);
+        }
+
+        assertTrue(cache.size() <= 1000);
+        assertEquals(10_000 - cache.size(), evictionCount.getCount());
+        assertTrue(cache.get("key-9999"));
+    }
+
+    @Test
+    public void referencedKeysSurviveEvictionTest() {
+        LocalFingerprintCache cache = new LocalFingerprintCache(16, 0);
+        for (int i = 0; i < 16; i++) {
+            cache.put("key-" + i, true);
+        }
+
+        // Reading a key gives it a second chance
+        assertTrue(cache.get("key-0"));
+        cache.put("key-16", true);
+
+        assertEquals(16, cache.size());
+        assertTrue(cache.get("key-0"));
+        assertTrue(cache.get("key-16"));
+    }
+
+    @Test
+    public void deletedKeysDoNotBreakProbingTest() {
+        LocalFingerprintCache cache = new LocalFingerprintCache(16, 0);
+        for (int i = 0; i < 16; i++) {
+            cache.put("key-" + i, true);
+        }
+        for (int i = 0; i < 16; i += 2) {
+            cache.remove("key-" + i);
+        }
+
+        for (int i = 0; i < 16; i++) {
+            assertEquals("key-" + i, i % 2 != 0, cache.get("key-" + i));
+        }
+    }
+
+    @Test
+    public void hitAndMissCountersTest() {
+        Counter hitCount = new Counter();
+        Counter missCount = new Counter();
+        LocalFingerprintCache cache = new LocalFingerprintCache(10, 0, hitCount, missCount, new Counter());
+
+        cache.get("key");
+        cache.put("key", true);
+        cache.get("key");
+        cache.get("key");
+
+        assertEquals(2, hitCount.getCount());
+        assertEquals(1, missCount.getCount());
+    }
+
+    @Test
+    public void zeroSizeTest() {
+        LocalFingerprintCache cache = new LocalFingerprintCache(0, 0);
+        cache.put("key", true);
+        assertFalse(cache.get("key"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeSizeTest() {
+        new LocalFingerprintCache(-1, 0);
+    }
+}
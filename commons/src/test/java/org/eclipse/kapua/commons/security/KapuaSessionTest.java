@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *      Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.security;
+
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class KapuaSessionTest extends Assert {
+
+    @Test
+    public void copyTest() {
+        KapuaSession session = new KapuaSession(null, KapuaId.ONE, KapuaId.ANY, "id-token");
+        session.setTrustedMode(true);
+        session.setUserInitiatedLogout(true);
+
+        KapuaSession copy = new KapuaSession(session);
+        assertNotSame(session, copy);
+        assertNull(copy.getAccessToken());
+        assertEquals(KapuaId.ONE, copy.getScopeId());
+        assertEquals(KapuaId.ANY, copy.getUserId());
+        assertEquals("id-token", copy.getOpenIDidToken());
+        assertTrue(copy.isTrustedMode());
+        assertTrue(copy.isUserInitiatedLogout());
+
+        // The copy is independent of the original session
+        copy.setTrustedMode(false);
+        copy.setUserInitiatedLogout(false);
+        assertTrue(session.isTrustedMode());
+        assertTrue(session.isUserInitiatedLogout());
+    }
+}
@@ -18,16 +18,18 @@ import org.apache.camel.Converter;
 import org.apache.camel.Exchange;
 import org.apache.camel.component.jms.JmsMessage;
 import org.apache.camel.support.DefaultMessage;
-import org.apache.commons.lang3.SerializationUtils;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.broker.client.message.CamelKapuaMessage;
 import org.eclipse.kapua.broker.client.message.JmsUtil;
 import org.eclipse.kapua.broker.client.message.MessageConstants;
+import org.eclipse.kapua.broker.client.message.MessageHeaderCodec;
 import org.eclipse.kapua.broker.client.message.MessageType;
 import org.eclipse.kapua.broker.client.protocol.ProtocolDescriptor;
 import org.eclipse.kapua.consumer.commons.CommonMetrics;
 import org.eclipse.kapua.consumer.commons.camel.CamelUtil;
 import org.eclipse.kapua.consumer.commons.listener.CamelConstants;
+import org.eclipse.kapua.consumer.commons.setting.ConsumerSetting;
+import org.eclipse.kapua.consumer.commons.setting.ConsumerSettingKey;
 import org.eclipse.kapua.commons.metric.MetricServiceFactory;
 import org.eclipse.kapua.commons.metric.MetricsService;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -37,7 +39,6 @@ import org.slf4j.LoggerFactory;
 import javax.jms.BytesMessage;
 import javax.jms.JMSException;
 import javax.jms.Message;
-import java.util.Base64;
 import java.util.Date;
 
 /**
@@ -51,6 +52,9 @@ public abstract class AbstractKapuaConverter {
 
     protected static final MetricsService METRICS_SERVICE = MetricServiceFactory.getInstance();
 
+    // shared with KapuaCamelFilter, to decode each header value once
+    static final MessageHeaderCodec HEADER_CODEC = new MessageHeaderCodec(ConsumerSetting.getInstance().getInt(ConsumerSettingKey.HEADER_DECODE_CACHE_SIZE, 10000));
+
     private final Counter metricConverterJmsMessage;
     private final Counter metricConverterJmsErrorMessage;
     private final Counter metricConverterErrorMessage;
@@ -101,10 +105,9 @@ public abstract class AbstractKapuaConverter {
                 try {
                     // FIX #164
                     Date queuedOn = new Date(message.getHeader(CamelConstants.JMS_HEADER_TIMESTAMP, Long.class));
-                    KapuaId connectionId = SerializationUtils.deserialize(Base64.getDecoder().decode(message.getHeader(MessageConstants.HEADER_KAPUA_CONNECTION_ID, String.class)));
+                    KapuaId connectionId = HEADER_CODEC.decode(message.getHeader(MessageConstants.HEADER_KAPUA_CONNECTION_ID, String.class));
                     String clientId = message.getHeader(MessageConstants.HEADER_KAPUA_CLIENT_ID, String.class);
-                    ProtocolDescriptor connectorDescriptor = (ProtocolDescriptor) SerializationUtils
-                            .deserialize(Base64.getDecoder().decode(message.getHeader(MessageConstants.HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL, String.class)));
+                    ProtocolDescriptor connectorDescriptor = HEADER_CODEC.decode(message.getHeader(MessageConstants.HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL, String.class));
                     return JmsUtil.convertToCamelKapuaMessage(connectorDescriptor, messageType, messageContent, CamelUtil.getTopic(message), queuedOn, connectionId, clientId);
                 } catch (JMSException e) {
                     metricConverterErrorMessage.inc();
@@ -13,7 +13,7 @@
 package org.eclipse.kapua.consumer.commons.converter;
 
 import org.apache.camel.Exchange;
-import org.apache.commons.lang.SerializationException;
+import org.apache.commons.lang3.SerializationException;
 import org.apache.commons.lang3.SerializationUtils;
 import org.apache.shiro.util.ThreadContext;
 import org.eclipse.kapua.KapuaException;
@@ -49,9 +49,10 @@ public class KapuaCamelFilter extends AbstractListener {
         if (Boolean.FALSE.equals(exchange.getIn().getHeader(MessageConstants.HEADER_KAPUA_BROKER_CONTEXT, boolean.class))) {
             try {
                 // FIX #164
-                KapuaSecurityUtils
-                        .setSession((KapuaSession) SerializationUtils.deserialize(Base64.getDecoder().decode(exchange.getIn().getHeader(MessageConstants.HEADER_KAPUA_SESSION, String.class))));
-            } catch (IllegalArgumentException | SerializationException e) {
+                // the decoded session is shared by the messages of the connection, while the one bound to the thread is mutable, so each message gets its own copy
+                KapuaSession session = AbstractKapuaConverter.HEADER_CODEC.decode(exchange.getIn().getHeader(MessageConstants.HEADER_KAPUA_SESSION, String.class));
+                KapuaSecurityUtils.setSession(session != null ? new KapuaSession(session) : null);
+            } catch (IllegalArgumentException | SerializationException | ClassCastException e) {
                 // continue without session
                 logger.debug("Cannot restore Kapua session: {}", e.getMessage(), e);
             }
@@ -21,7 +21,12 @@ public enum ConsumerSettingKey implements SettingKey {
     /**
      * Jaxb context provider class name
      */
-    JAXB_CONTEXT_CLASS_NAME("consumer.jaxb_context_class_name");
+    JAXB_CONTEXT_CLASS_NAME("consumer.jaxb_context_class_name"),
+
+    /**
+     * Maximum number of decoded message header values (connection id, device protocol and session) kept in cache
+     */
+    HEADER_DECODE_CACHE_SIZE("consumer.header_decode_cache.size");
 
     private String key;
 
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.consumer.telemetry.listener;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import org.apache.camel.spi.UriEndpoint;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.broker.client.message.CamelKapuaMessage;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.commons.metric.MetricsService;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.security.KapuaSession;
+import org.eclipse.kapua.consumer.commons.listener.AbstractProcessor;
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.message.KapuaMessage;
+import org.eclipse.kapua.service.datastore.MessageStoreService;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreCommunicationException;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Data storage message processor which stores the data messages in batches.
+ * <p>
+ * The messages received concurrently by the route consumers are grouped (by session) up to {@link #setBatchSize(int)} messages
+ * or for at most {@link #setBatchDelay(long)} milliseconds, then they are stored with a single {@link MessageStoreService#storeBatch(List, List)}.
+ * <p>
+ * Each exchange waits for the outcome of its own message, so that acknowledgement and error handling are still per message:
+ * only the messages that failed to be stored are handled by the route error handler.
+ *
+ * @since 2.0.0
+ */
+@UriEndpoint(title = "Data storage batch message processor", syntax = "bean:dataStorageBatchProcessor", scheme = "bean")
+public class DataStorageBatchProcessor extends AbstractProcessor<CamelKapuaMessage<?>> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataStorageBatchProcessor.class);
+
+    private final MessageStoreService messageStoreService;
+
+    private final Counter metricBatchCount;
+    private final Histogram metricBatchSize;
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "data-storage-batch-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Batch> pendingBatches = new HashMap<>();
+
+    private int batchSize = 20;
+    private long batchDelay = 20;
+    private long storeTimeout = 60000;
+
+    public DataStorageBatchProcessor() {
+        this(KapuaLocator.getInstance().getService(MessageStoreService.class));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param messageStoreService The {@link MessageStoreService} used to store the batches.
+     * @since 2.0.0
+     */
+    public DataStorageBatchProcessor(MessageStoreService messageStoreService) {
+        super("DataStorageBatch");
+        this.messageStoreService = messageStoreService;
+
+        MetricsService metricService = MetricServiceFactory.getInstance();
+
+        metricBatchCount = metricService.getCounter(DataStoreMetrics.METRIC_MODULE_NAME, DataStoreMetrics.METRIC_COMPONENT_NAME, DataStoreMetrics.METRIC_STORE, DataStoreMetrics.METRIC_BATCH, DataStoreMetrics.METRIC_COUNT);
+        metricBatchSize = metricService.getHistogram(DataStoreMetrics.METRIC_MODULE_NAME, DataStoreMetrics.METRIC_COMPONENT_NAME, DataStoreMetrics.METRIC_STORE, DataStoreMetrics.METRIC_BATCH, DataStoreMetrics.METRIC_SIZE);
+    }
+
+    /**
+     * Sets the maximum number of messages stored with a single batch.
+     *
+     * @param batchSize The maximum number of messages stored with a single batch.
+     * @since 2.0.0
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, a message waits for its batch to be filled.
+     *
+     * @param batchDelay The maximum time, in milliseconds, a message waits for its batch to be filled.
+     * @since 2.0.0
+     */
+    public void setBatchDelay(long batchDelay) {
+        this.batchDelay = batchDelay;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, a message waits for its batch to be stored.
+     *
+     * @param storeTimeout The maximum time, in milliseconds, a message waits for its batch to be stored.
+     * @since 2.0.0
+     */
+    public void setStoreTimeout(long storeTimeout) {
+        this.storeTimeout = storeTimeout;
+    }
+
+    /**
+     * Process a data message, storing it with the other messages of the same batch.
+     *
+     * @throws KapuaException if the message cannot be stored.
+     */
+    @Override
+    public void processMessage(CamelKapuaMessage<?> message) throws KapuaException {
+        LOG.debug("Received data message from device channel: client id '{}' - {}", message.getMessage().getClientId(), message.getMessage().getChannel());
+
+        CompletableFuture<MessageStoreResult> futureResult = new CompletableFuture<>();
+        Batch batchToFlush = null;
+
+        KapuaSession session = KapuaSecurityUtils.getSession();
+        String batchKey = session != null ? session.getScopeId() + "/" + session.getUserId() : "";
+        synchronized (pendingBatches) {
+            Batch batch = pendingBatches.get(batchKey);
+            if (batch == null) {
+                batch = new Batch(session);
+                pendingBatches.put(batchKey, batch);
+
+                Batch scheduledBatch = batch;
+                flushExecutor.schedule(() -> flushIfPending(batchKey, scheduledBatch), batchDelay, TimeUnit.MILLISECONDS);
+            }
+            batch.add(message, futureResult);
+
+            if (batch.size() >= batchSize) {
+                pendingBatches.remove(batchKey);
+                batchToFlush = batch;
+            }
+        }
+
+        if (batchToFlush != null) {
+            flush(batchToFlush);
+        }
+
+        MessageStoreResult result;
+        try {
+            result = futureResult.get(storeTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KapuaException.internalError(e, "Interrupted while waiting the message to be stored");
+        } catch (ExecutionException e) {
+            throw KapuaException.internalError(e.getCause(), "Error while storing the message batch");
+        } catch (TimeoutException e) {
+            throw KapuaException.internalError(e, "Timeout while waiting the message to be stored");
+        }
+
+        if (!result.isSuccess()) {
+            if (result.getException() instanceof DatastoreCommunicationException) {
+                message.setDatastoreId(((DatastoreCommunicationException) result.getException()).getUuid());
+            }
+            throw result.getException();
+        }
+    }
+
+    /**
+     * Flushes all the pending batches and stops the flush scheduler.
+     *
+     * @since 2.0.0
+     */
+    public void close() {
+        List<Batch> batchesToFlush;
+        synchronized (pendingBatches) {
+            batchesToFlush = new ArrayList<>(pendingBatches.values());
+            pendingBatches.clear();
+        }
+        for (Batch batch : batchesToFlush) {
+            flushWithSession(batch);
+        }
+        flushExecutor.shutdown();
+    }
+
+    private void flushIfPending(String batchKey, Batch batch) {
+        synchronized (pendingBatches) {
+            // The batch may have already been flushed because it got full
+            if (pendingBatches.get(batchKey) != batch) {
+                return;
+            }
+            pendingBatches.remove(batchKey);
+        }
+        flushWithSession(batch);
+    }
+
+    private void flushWithSession(Batch batch) {
+        KapuaSecurityUtils.setSession(batch.session);
+        try {
+            flush(batch);
+        } finally {
+            KapuaSecurityUtils.clearSession();
+        }
+    }
+
+    private void flush(Batch batch) {
+        metricBatchCount.inc();
+        metricBatchSize.update(batch.size());
+        try {
+            List<MessageStoreResult> results = messageStoreService.storeBatch(batch.messages, batch.datastoreIds);
+            for (int i = 0; i < results.size(); i++) {
+                batch.futureResults.get(i).complete(results.get(i));
+            }
+            // Never leave a message waiting for a result missing from the response
+            for (int i = results.size(); i < batch.size(); i++) {
+                batch.futureResults.get(i).completeExceptionally(KapuaException.internalError("No store result returned for the message"));
+            }
+        } catch (KapuaException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.futureResults.get(i).complete(new MessageStoreResult(batch.datastoreIds.get(i), e));
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Error while storing the message batch", e);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.futureResults.get(i).complete(new MessageStoreResult(batch.datastoreIds.get(i), KapuaException.internalError(e)));
+            }
+        }
+    }
+
+    /**
+     * The messages waiting to be stored together.
+     */
+    private static class Batch {
+
+        private final KapuaSession session;
+        private final List<KapuaMessage<?, ?>> messages = new ArrayList<>();
+        private final List<String> datastoreIds = new ArrayList<>();
+        private final List<CompletableFuture<MessageStoreResult>> futureResults = new ArrayList<>();
+
+        private Batch(KapuaSession session) {
+            this.session = session;
+        }
+
+        private void add(CamelKapuaMessage<?> message, CompletableFuture<MessageStoreResult> futureResult) {
+            messages.add(message.getMessage());
+            datastoreIds.add(message.getDatastoreId());
+            futureResults.add(futureResult);
+        }
+
+        private int size() {
+            return messages.size();
+        }
+    }
+}
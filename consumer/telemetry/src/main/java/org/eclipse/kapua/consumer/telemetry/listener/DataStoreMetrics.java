@@ -22,11 +22,13 @@ public class DataStoreMetrics {
 
     public static final String METRIC_STORE = "store";
     public static final String METRIC_QUEUE = "queue";
+    public static final String METRIC_BATCH = "batch";
     public static final String METRIC_COMMUNICATION = "communication";
     public static final String METRIC_CONFIGURATION = "configuration";
     public static final String METRIC_GENERIC = "generic";
 
     public static final String METRIC_ERROR = "error";
     public static final String METRIC_COUNT = "count";
+    public static final String METRIC_SIZE = "size";
 
 }
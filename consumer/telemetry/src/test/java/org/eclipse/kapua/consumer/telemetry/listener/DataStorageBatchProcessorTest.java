@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.consumer.telemetry.listener;
+
+import org.eclipse.kapua.KapuaErrorCodes;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.broker.client.message.CamelKapuaMessage;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.security.KapuaSession;
+import org.eclipse.kapua.message.KapuaMessage;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.MessageStoreService;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreCommunicationException;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.storable.model.id.StorableId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@Category(JUnitTests.class)
+public class DataStorageBatchProcessorTest extends Assert {
+
+    private static final KapuaSession SESSION_A = new KapuaSession(null, new KapuaEid(BigInteger.ONE), new KapuaEid(BigInteger.valueOf(10)));
+    private static final KapuaSession SESSION_B = new KapuaSession(null, new KapuaEid(BigInteger.valueOf(2)), new KapuaEid(BigInteger.valueOf(20)));
+
+    private MessageStoreService messageStoreService;
+    private DataStorageBatchProcessor processor;
+    private ExecutorService executor;
+
+    private final List<Thread> processingThreads = Collections.synchronizedList(new ArrayList<>());
+    private final List<List<KapuaMessage<?, ?>>> storedBatches = Collections.synchronizedList(new ArrayList<>());
+    private final Map<KapuaMessage<?, ?>, KapuaSession> storeSessions = Collections.synchronizedMap(new HashMap<>());
+
+    @Before
+    public void initialize() throws KapuaException {
+        messageStoreService = Mockito.mock(MessageStoreService.class);
+        Mockito.when(messageStoreService.storeBatch(Mockito.anyList(), Mockito.anyList())).thenAnswer(this::storeBatch);
+
+        processor = new DataStorageBatchProcessor(messageStoreService);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable);
+            processingThreads.add(thread);
+            return thread;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        processor.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void flushOnBatchSizeTest() throws Exception {
+        processor.setBatchSize(3);
+        processor.setBatchDelay(60000);
+
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(process(newMessage(), SESSION_A));
+        }
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals("One batch expected", 1, storedBatches.size());
+        assertEquals("All the messages expected in the batch", 3, storedBatches.get(0).size());
+    }
+
+    @Test
+    public void flushOnBatchDelayTest() throws Exception {
+        processor.setBatchSize(100);
+        processor.setBatchDelay(20);
+
+        CamelKapuaMessage<?> message = newMessage();
+        process(message, SESSION_A).get(5, TimeUnit.SECONDS);
+
+        assertEquals("One batch expected", 1, storedBatches.size());
+        assertEquals(Collections.singletonList(message.getMessage()), storedBatches.get(0));
+        assertSame("The batch should be stored with the session of its messages", SESSION_A, storeSessions.get(message.getMessage()));
+    }
+
+    @Test
+    public void batchBySessionTest() throws Exception {
+        processor.setBatchSize(2);
+        processor.setBatchDelay(60000);
+
+        Map<KapuaMessage<?, ?>, KapuaSession> sessions = new HashMap<>();
+        List<Future<?>> results = new ArrayList<>();
+        for (KapuaSession session : new KapuaSession[] { SESSION_A, SESSION_B, SESSION_A, SESSION_B }) {
+            CamelKapuaMessage<?> message = newMessage();
+            sessions.put(message.getMessage(), session);
+            results.add(process(message, session));
+        }
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals("One batch per scope and user expected", 2, storedBatches.size());
+        for (List<KapuaMessage<?, ?>> batch : storedBatches) {
+            assertEquals(2, batch.size());
+            assertSame("The messages of a batch should belong to the same session", sessions.get(batch.get(0)), sessions.get(batch.get(1)));
+        }
+        assertEquals("Each batch should be stored with the session of its messages", sessions, storeSessions);
+    }
+
+    @Test
+    public void closeFlushesPendingBatchesTest() throws Exception {
+        processor.setBatchSize(100);
+        processor.setBatchDelay(60000);
+
+        Future<?> result = process(newMessage(), SESSION_A);
+        // Wait the message to be pending in its batch
+        while (!processingThreadsWaiting()) {
+            Thread.sleep(1);
+        }
+        processor.close();
+        result.get(5, TimeUnit.SECONDS);
+
+        assertEquals("The pending batch should be stored on close", 1, storedBatches.size());
+    }
+
+    @Test
+    public void storeTimeoutTest() throws Exception {
+        CountDownLatch storeLatch = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            storeLatch.await(5, TimeUnit.SECONDS);
+            return storeBatch(invocation);
+        }).when(messageStoreService).storeBatch(Mockito.anyList(), Mockito.anyList());
+
+        // The batch is flushed by the flush scheduler, the message waits for it at most the store timeout
+        processor.setBatchSize(100);
+        processor.setBatchDelay(1);
+        processor.setStoreTimeout(50);
+
+        try {
+            assertProcessFails(KapuaErrorCodes.INTERNAL_ERROR, process(newMessage(), SESSION_A));
+        } finally {
+            storeLatch.countDown();
+        }
+    }
+
+    @Test
+    public void missingStoreResultTest() throws Exception {
+        Mockito.doReturn(Collections.emptyList()).when(messageStoreService).storeBatch(Mockito.anyList(), Mockito.anyList());
+
+        processor.setBatchSize(1);
+
+        assertProcessFails(KapuaErrorCodes.INTERNAL_ERROR, process(newMessage(), SESSION_A));
+    }
+
+    @Test
+    public void failedStoreResultTest() throws Exception {
+        DatastoreCommunicationException exception = new DatastoreCommunicationException("datastore-id", new RuntimeException());
+        Mockito.doAnswer(invocation -> {
+            List<String> datastoreIds = (List<String>) invocation.getArguments()[1];
+            return Collections.singletonList(new MessageStoreResult(datastoreIds.get(0), exception));
+        }).when(messageStoreService).storeBatch(Mockito.anyList(), Mockito.anyList());
+
+        processor.setBatchSize(1);
+
+        CamelKapuaMessage<?> message = newMessage();
+        try {
+            process(message, SESSION_A).get(5, TimeUnit.SECONDS);
+            fail("The store failure should be thrown");
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertEquals("The datastore id should be kept for the retry", exception.getUuid(), message.getDatastoreId());
+    }
+
+    @Test
+    public void storeBatchExceptionTest() throws Exception {
+        KapuaException exception = KapuaException.internalError("Store failure");
+        Mockito.doThrow(exception).when(messageStoreService).storeBatch(Mockito.anyList(), Mockito.anyList());
+
+        processor.setBatchSize(2);
+        processor.setBatchDelay(60000);
+
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(process(newMessage(), SESSION_A));
+        }
+        for (Future<?> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("The store failure should be thrown for each message of the batch");
+            } catch (ExecutionException e) {
+                assertSame(exception, e.getCause());
+            }
+        }
+    }
+
+    private List<MessageStoreResult> storeBatch(InvocationOnMock invocation) {
+        List<KapuaMessage<?, ?>> messages = new ArrayList<>((List<KapuaMessage<?, ?>>) invocation.getArguments()[0]);
+        List<String> datastoreIds = (List<String>) invocation.getArguments()[1];
+
+        storedBatches.add(messages);
+        List<MessageStoreResult> results = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            storeSessions.put(messages.get(i), KapuaSecurityUtils.getSession());
+            results.add(new MessageStoreResult(datastoreIds.get(i), (StorableId) null));
+        }
+        return results;
+    }
+
+    private Future<?> process(CamelKapuaMessage<?> message, KapuaSession session) {
+        return executor.submit(() -> {
+            KapuaSecurityUtils.setSession(session);
+            try {
+                processor.processMessage(message);
+            } finally {
+                KapuaSecurityUtils.clearSession();
+            }
+            return null;
+        });
+    }
+
+    private boolean processingThreadsWaiting() {
+        synchronized (processingThreads) {
+            return !processingThreads.isEmpty() && processingThreads.stream().allMatch(thread -> thread.getState() == Thread.State.TIMED_WAITING);
+        }
+    }
+
+    private void assertProcessFails(KapuaErrorCodes expectedCode, Future<?> result) throws Exception {
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("The message processing should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof KapuaException);
+            assertEquals(expectedCode, ((KapuaException) e.getCause()).getCode());
+        }
+    }
+
+    private static CamelKapuaMessage<?> newMessage() {
+        return new CamelKapuaMessage<>(Mockito.mock(KapuaMessage.class), null, null);
+    }
+}
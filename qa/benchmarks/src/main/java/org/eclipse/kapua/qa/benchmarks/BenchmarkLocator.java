@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.qa.benchmarks;
+
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.message.KapuaMessageFactory;
+import org.eclipse.kapua.message.device.data.KapuaDataMessageFactory;
+import org.eclipse.kapua.message.internal.KapuaMessageFactoryImpl;
+import org.eclipse.kapua.message.internal.device.data.KapuaDataMessageFactoryImpl;
+import org.eclipse.kapua.model.KapuaObjectFactory;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.KapuaService;
+import org.eclipse.kapua.service.account.Account;
+import org.eclipse.kapua.service.account.AccountService;
+import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
+import org.eclipse.kapua.service.storable.model.id.StorableIdFactory;
+import org.eclipse.kapua.service.storable.model.id.StorableIdFactoryImpl;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link KapuaLocator} for the benchmarks.
+ * <p>
+ * It provides the actual factories used along the telemetry ingest path, and stubs of the services which would otherwise need a database:
+ * the {@link AccountService} always finds the account of {@link KapuaId#ONE}, the {@link DeviceRegistryService} never finds the device.
+ * The stubs answer in constant time, so that the benchmarks measure the ingest path and not the lookups.
+ * <p>
+ * The benchmarks select it with {@link #LOCATOR_JVM_ARG}, since the {@link KapuaLocator} is instantiated once, when first used.
+ *
+ * @since 2.0.0
+ */
+public class BenchmarkLocator extends KapuaLocator {
+
+    /**
+     * The JVM argument which selects the {@link BenchmarkLocator}, for the forked benchmark JVMs.
+     *
+     * @since 2.0.0
+     */
+    public static final String LOCATOR_JVM_ARG = "-D" + LOCATOR_CLASS_NAME_SYSTEM_PROPERTY + "=org.eclipse.kapua.qa.benchmarks.BenchmarkLocator";
+
+    private final Map<Class<?>, KapuaService> services = new HashMap<>();
+    private final Map<Class<?>, KapuaObjectFactory> factories = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @since 2.0.0
+     */
+    public BenchmarkLocator() {
+        Account account = stub(Account.class, "getId", KapuaId.ONE);
+        services.put(AccountService.class, stub(AccountService.class, "findByName", account));
+        services.put(DeviceRegistryService.class, stub(DeviceRegistryService.class, "findByClientId", null));
+
+        factories.put(KapuaMessageFactory.class, new KapuaMessageFactoryImpl());
+        factories.put(KapuaDataMessageFactory.class, new KapuaDataMessageFactoryImpl());
+        factories.put(StorableIdFactory.class, new StorableIdFactoryImpl());
+    }
+
+    @Override
+    public <S extends KapuaService> S getService(Class<S> serviceClass) {
+        return serviceClass.cast(services.get(serviceClass));
+    }
+
+    @Override
+    public <F extends KapuaObjectFactory> F getFactory(Class<F> factoryClass) {
+        return factoryClass.cast(factories.get(factoryClass));
+    }
+
+    @Override
+    public List<KapuaService> getServices() {
+        return new ArrayList<>(services.values());
+    }
+
+    /**
+     * Creates a stub of the given interface which answers the given method with the given result, and any other method with {@code null}.
+     *
+     * @param stubbedInterface The interface to stub.
+     * @param methodName       The name of the answered method.
+     * @param result           The result of the answered method.
+     * @param <T>              The type of the interface.
+     * @return The stub.
+     * @since 2.0.0
+     */
+    private static <T> T stub(Class<T> stubbedInterface, String methodName, Object result) {
+        return stubbedInterface.cast(Proxy.newProxyInstance(
+                BenchmarkLocator.class.getClassLoader(),
+                new Class<?>[]{stubbedInterface},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Stub of " + stubbedInterface.getName();
+                        default:
+                            return methodName.equals(method.getName()) ? result : null;
+                    }
+                }));
+    }
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.qa.benchmarks;
+
+import org.eclipse.kapua.message.device.data.KapuaDataMessage;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.translator.kura.kapua.TranslatorDataKuraKapua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per-metric work that the datastore does for each stored message with {@link DatastoreUtils}:
+ * metric name normalization, value qualifiers and the hash based ids of the client, channel and metric registries.
+ *
+ * @since 2.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkLocator.LOCATOR_JVM_ARG)
+public class DatastoreUtilsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int metricCount;
+
+    private DatastoreMessage datastoreMessage;
+
+    @Setup
+    public void setUp() throws Exception {
+        KapuaDataMessage kapuaDataMessage = new TranslatorDataKuraKapua().translate(TelemetryPayloads.newMessage(TelemetryPayloads.newPayload(metricCount)));
+        datastoreMessage = TelemetryPayloads.toDatastoreMessage(kapuaDataMessage, "benchmark-message-1");
+    }
+
+    @Benchmark
+    public void deriveRegistryIds(Blackhole blackhole) {
+        TelemetryPayloads.deriveRegistryIds(datastoreMessage, blackhole);
+    }
+}
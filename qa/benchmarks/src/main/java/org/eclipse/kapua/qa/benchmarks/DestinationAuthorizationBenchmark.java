@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.qa.benchmarks;
+
+import org.apache.activemq.command.ActiveMQDestination;
+import org.apache.activemq.filter.DestinationMapEntry;
+import org.apache.activemq.security.AuthorizationEntry;
+import org.apache.activemq.security.AuthorizationMap;
+import org.apache.activemq.security.DefaultAuthorizationMap;
+import org.apache.activemq.security.SecurityContext;
+import org.eclipse.kapua.broker.core.plugin.authorization.Authorizer.ActionType;
+import org.eclipse.kapua.broker.core.plugin.authorization.DestinationAclMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the authorization of a device publish against the ACL of its connection,
+ * with the ActiveMQ {@link AuthorizationMap} and with the compiled {@link DestinationAclMatcher}.
+ * <p>
+ * The ACL is the one of a device user, with the telemetry of the device granted either through a {@code #} wildcard ({@code >} on the broker)
+ * or through {@code +} wildcards ({@code *} on the broker).
+ *
+ * @since 2.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DestinationAuthorizationBenchmark {
+
+    private static final Principal PRINCIPAL = () -> "kapua-device";
+
+    @Param({"#", "+"})
+    private String wildcard;
+
+    private SecurityContext securityContext;
+    private AuthorizationMap authorizationMap;
+    private DestinationAclMatcher uncachedDestinationAclMatcher;
+    private DestinationAclMatcher destinationAclMatcher;
+
+    private ActiveMQDestination destination;
+
+    @Setup
+    public void setUp() {
+        securityContext = new SecurityContext(PRINCIPAL.getName()) {
+
+            @Override
+            public Set<Principal> getPrincipals() {
+                return Collections.singleton(PRINCIPAL);
+            }
+        };
+
+        String telemetryAddress = "#".equals(wildcard) ? "acme.device-1.>" : "acme.*.heater.*";
+
+        @SuppressWarnings("rawtypes")
+        List<DestinationMapEntry> entries = new ArrayList<>();
+        uncachedDestinationAclMatcher = new DestinationAclMatcher(0);
+        destinationAclMatcher = new DestinationAclMatcher(100);
+        addEntry(entries, "$EDC.acme.device-1.>", true, true, true);
+        addEntry(entries, telemetryAddress, true, true, true);
+        addEntry(entries, "$EDC.acme.*.MQTT.BIRTH", false, true, false);
+        addEntry(entries, "ActiveMQ.Advisory.>", true, true, true);
+        addEntry(entries, "Consumer.1:device-1:AT_LEAST_ONCE.acme.device-1.>", true, false, true);
+        addEntry(entries, "Consumer.1:device-1:EXACTLY_ONCE.acme.device-1.>", true, false, true);
+        authorizationMap = new DefaultAuthorizationMap(entries);
+
+        destination = ActiveMQDestination.createDestination("acme.device-1.heater.data", ActiveMQDestination.TOPIC_TYPE);
+    }
+
+    @Benchmark
+    public boolean authorizationMap() {
+        return securityContext.isInOneOf(authorizationMap.getWriteACLs(destination));
+    }
+
+    @Benchmark
+    public boolean destinationAclMatcherFirstPublish() {
+        return DestinationAclMatcher.isAllowed(ActionType.WRITE, uncachedDestinationAclMatcher.getAllowedActions(destination));
+    }
+
+    @Benchmark
+    public boolean destinationAclMatcherRepeatedPublish() {
+        return DestinationAclMatcher.isAllowed(ActionType.WRITE, destinationAclMatcher.getAllowedActions(destination));
+    }
+
+    private void addEntry(@SuppressWarnings("rawtypes") List<DestinationMapEntry> entries, String address, boolean read, boolean write, boolean admin) {
+        AuthorizationEntry authorizationEntry = new AuthorizationEntry();
+        authorizationEntry.setDestination(ActiveMQDestination.createDestination(address, ActiveMQDestination.TOPIC_TYPE));
+        authorizationEntry.setReadACLs(toAcl(read));
+        authorizationEntry.setWriteACLs(toAcl(write));
+        authorizationEntry.setAdminACLs(toAcl(admin));
+
+        entries.add(authorizationEntry);
+        uncachedDestinationAclMatcher.add(authorizationEntry, securityContext);
+        destinationAclMatcher.add(authorizationEntry, securityContext);
+    }
+
+    private static Set<Object> toAcl(boolean allowed) {
+        Set<Object> acl = new HashSet<>();
+        if (allowed) {
+            acl.add(PRINCIPAL);
+        }
+        return acl;
+    }
+}
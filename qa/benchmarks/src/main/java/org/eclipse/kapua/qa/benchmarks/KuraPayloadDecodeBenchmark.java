@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.qa.benchmarks;
+
+import org.eclipse.kapua.service.device.call.message.kura.data.KuraDataPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the decoding of the protobuf {@link KuraDataPayload} published by the devices, plain and gzip compressed.
+ *
+ * @since 2.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkLocator.LOCATOR_JVM_ARG)
+public class KuraPayloadDecodeBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int metricCount;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private byte[] encodedPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        encodedPayload = TelemetryPayloads.encode(TelemetryPayloads.newPayload(metricCount), gzip);
+    }
+
+    @Benchmark
+    public KuraDataPayload decode() throws Exception {
+        KuraDataPayload payload = new KuraDataPayload();
+        payload.readFromByteArray(encodedPayload);
+        return payload;
+    }
+}
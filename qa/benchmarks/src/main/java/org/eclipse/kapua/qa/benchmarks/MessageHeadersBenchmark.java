@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.qa.benchmarks;
+
+import org.apache.activemq.command.ActiveMQMessage;
+import org.apache.commons.lang3.SerializationUtils;
+import org.eclipse.kapua.broker.client.message.MessageConstants;
+import org.eclipse.kapua.broker.client.message.MessageHeaderCodec;
+import org.eclipse.kapua.broker.client.protocol.ProtocolDescriptor;
+import org.eclipse.kapua.broker.client.protocol.ProtocolDescriptorProviders;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.security.KapuaSession;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the connection headers which the broker sets on every published message, and which the consumers read back.
+ * <p>
+ * The {@code perPublish} benchmarks encode and decode the connection id, the {@link ProtocolDescriptor} and the {@link KapuaSession} for each message,
+ * the {@code perConnection} ones set the values encoded once per connection and decode them through the {@link MessageHeaderCodec} cache.
+ *
+ * @since 2.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageHeadersBenchmark {
+
+    private KapuaId connectionId;
+    private ProtocolDescriptor connectorDescriptor;
+    private KapuaSession kapuaSession;
+
+    private String connectionIdHeader;
+    private String connectorDescriptorHeader;
+    private String kapuaSessionHeader;
+
+    private MessageHeaderCodec headerCodec;
+
+    @Setup
+    public void setUp() {
+        KapuaId scopeId = new KapuaEid(BigInteger.valueOf(1));
+        connectionId = new KapuaEid(new BigInteger(64, new Random(1)));
+        connectorDescriptor = ProtocolDescriptorProviders.getDescriptor("mqtt");
+        kapuaSession = new KapuaSession(null, scopeId, new KapuaEid(BigInteger.valueOf(2)));
+
+        connectionIdHeader = MessageHeaderCodec.encode(connectionId);
+        connectorDescriptorHeader = MessageHeaderCodec.encode(connectorDescriptor);
+        kapuaSessionHeader = MessageHeaderCodec.encode(kapuaSession);
+
+        headerCodec = new MessageHeaderCodec(10000);
+    }
+
+    @Benchmark
+    public ActiveMQMessage publishPerPublish() throws IOException {
+        ActiveMQMessage message = new ActiveMQMessage();
+        message.setProperty(MessageConstants.HEADER_KAPUA_CONNECTION_ID, Base64.getEncoder().encodeToString(SerializationUtils.serialize(connectionId)));
+        message.setProperty(MessageConstants.HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL, Base64.getEncoder().encodeToString(SerializationUtils.serialize(connectorDescriptor)));
+        message.setProperty(MessageConstants.HEADER_KAPUA_SESSION, Base64.getEncoder().encodeToString(SerializationUtils.serialize(kapuaSession)));
+        return message;
+    }
+
+    @Benchmark
+    public ActiveMQMessage publishPerConnection() throws IOException {
+        ActiveMQMessage message = new ActiveMQMessage();
+        message.setProperty(MessageConstants.HEADER_KAPUA_CONNECTION_ID, connectionIdHeader);
+        message.setProperty(MessageConstants.HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL, connectorDescriptorHeader);
+        message.setProperty(MessageConstants.HEADER_KAPUA_SESSION, kapuaSessionHeader);
+        return message;
+    }
+
+    @Benchmark
+    public void consumePerPublish(Blackhole blackhole) {
+        blackhole.consume(SerializationUtils.deserialize(Base64.getDecoder().decode(connectionIdHeader)));
+        blackhole.consume(SerializationUtils.deserialize(Base64.getDecoder().decode(connectorDescriptorHeader)));
+        blackhole.consume(SerializationUtils.deserialize(Base64.getDecoder().decode(kapuaSessionHeader)));
+    }
+
+    @Benchmark
+    public void consumePerConnection(Blackhole blackhole) {
+        blackhole.consume(headerCodec.decode(connectionIdHeader));
+        blackhole.consume(headerCodec.decode(connectorDescriptorHeader));
+        blackhole.consume(headerCodec.decode(kapuaSessionHeader));
+    }
+}
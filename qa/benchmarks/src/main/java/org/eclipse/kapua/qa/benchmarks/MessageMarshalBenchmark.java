@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.qa.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.kapua.message.device.data.KapuaDataMessage;
+import org.eclipse.kapua.service.datastore.internal.converter.ModelContextImpl;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
+import org.eclipse.kapua.service.elasticsearch.client.rest.utils.PooledJsonEntityBuffer;
+import org.eclipse.kapua.translator.kura.kapua.TranslatorDataKuraKapua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the marshalling of a {@link DatastoreMessage} by the {@link ModelContextImpl} as one item of the bulk insert body,
+ * streamed into a {@link PooledJsonEntityBuffer} like the REST client does.
+ * <p>
+ * The {@link #marshalMapBased()} baseline converts the {@link DatastoreMessage} to a {@link Map} and then serializes it:
+ * run with {@code -prof gc} to compare the allocation rate of the two.
+ *
+ * @since 2.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkLocator.LOCATOR_JVM_ARG)
+public class MessageMarshalBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Param({"10", "100", "1000"})
+    private int metricCount;
+
+    private ModelContext modelContext;
+    private DatastoreMessage datastoreMessage;
+
+    @Setup
+    public void setUp() throws Exception {
+        modelContext = new ModelContextImpl();
+
+        KapuaDataMessage kapuaDataMessage = new TranslatorDataKuraKapua().translate(TelemetryPayloads.newMessage(TelemetryPayloads.newPayload(metricCount)));
+        datastoreMessage = TelemetryPayloads.toDatastoreMessage(kapuaDataMessage, "benchmark-message-1");
+    }
+
+    @Benchmark
+    public int marshal() throws Exception {
+        PooledJsonEntityBuffer entityBuffer = PooledJsonEntityBuffer.acquire();
+        try {
+            try (JsonGenerator jsonGenerator = TelemetryPayloads.newBulkGenerator(entityBuffer)) {
+                TelemetryPayloads.writeBulkItem(jsonGenerator, modelContext, TelemetryPayloads.DATA_INDEX_NAME, datastoreMessage.getDatastoreId().toString(), datastoreMessage);
+            }
+            return entityBuffer.size();
+        } finally {
+            entityBuffer.release();
+        }
+    }
+
+    @Benchmark
+    public int marshalMapBased() throws Exception {
+        return OBJECT_MAPPER.writeValueAsBytes(modelContext.marshal(datastoreMessage)).length;
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.qa.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.eclipse.kapua.message.device.data.KapuaDataMessage;
+import org.eclipse.kapua.service.datastore.internal.converter.ModelContextImpl;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.device.call.message.kura.data.KuraDataMessage;
+import org.eclipse.kapua.service.device.call.message.kura.data.KuraDataPayload;
+import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
+import org.eclipse.kapua.service.elasticsearch.client.rest.utils.PooledJsonEntityBuffer;
+import org.eclipse.kapua.translator.kura.kapua.TranslatorDataKuraKapua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the whole telemetry ingest path of a single message, from the bytes published by the device to the bulk insert body:
+ * <ol>
+ *     <li>decoding of the {@link KuraDataPayload}</li>
+ *     <li>translation to the {@link KapuaDataMessage}</li>
+ *     <li>conversion to the {@link DatastoreMessage}</li>
+ *     <li>derivation of the registry ids and metric mappings</li>
+ *     <li>marshalling into the bulk insert body</li>
+ * </ol>
+ * Comparing it with the benchmarks of the single steps shows where the time goes.
+ *
+ * @since 2.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkLocator.LOCATOR_JVM_ARG)
+public class TelemetryIngestBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int metricCount;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private TranslatorDataKuraKapua translator;
+    private ModelContext modelContext;
+    private byte[] encodedPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        translator = new TranslatorDataKuraKapua();
+        modelContext = new ModelContextImpl();
+        encodedPayload = TelemetryPayloads.encode(TelemetryPayloads.newPayload(metricCount), gzip);
+    }
+
+    @Benchmark
+    public int ingest(Blackhole blackhole) throws Exception {
+        KuraDataPayload kuraDataPayload = new KuraDataPayload();
+        kuraDataPayload.readFromByteArray(encodedPayload);
+        KuraDataMessage kuraDataMessage = TelemetryPayloads.newMessage(kuraDataPayload);
+
+        KapuaDataMessage kapuaDataMessage = translator.translate(kuraDataMessage);
+
+        DatastoreMessage datastoreMessage = TelemetryPayloads.toDatastoreMessage(kapuaDataMessage, UUID.randomUUID().toString());
+        TelemetryPayloads.deriveRegistryIds(datastoreMessage, blackhole);
+
+        PooledJsonEntityBuffer entityBuffer = PooledJsonEntityBuffer.acquire();
+        try {
+            try (JsonGenerator jsonGenerator = TelemetryPayloads.newBulkGenerator(entityBuffer)) {
+                TelemetryPayloads.writeBulkItem(jsonGenerator, modelContext, TelemetryPayloads.DATA_INDEX_NAME, datastoreMessage.getDatastoreId().toString(), datastoreMessage);
+            }
+            return entityBuffer.size();
+        } finally {
+            entityBuffer.release();
+        }
+    }
+}
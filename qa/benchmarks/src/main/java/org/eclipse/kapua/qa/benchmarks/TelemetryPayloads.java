@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.qa.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.message.KapuaMessage;
+import org.eclipse.kapua.message.device.data.KapuaDataChannel;
+import org.eclipse.kapua.message.internal.device.data.KapuaDataChannelImpl;
+import org.eclipse.kapua.service.datastore.internal.mediator.ChannelInfoField;
+import org.eclipse.kapua.service.datastore.internal.mediator.ClientInfoField;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.mediator.MetricInfoField;
+import org.eclipse.kapua.service.datastore.internal.model.ChannelInfoImpl;
+import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricInfoImpl;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.device.call.message.kura.KuraPosition;
+import org.eclipse.kapua.service.device.call.message.kura.data.KuraDataChannel;
+import org.eclipse.kapua.service.device.call.message.kura.data.KuraDataMessage;
+import org.eclipse.kapua.service.device.call.message.kura.data.KuraDataPayload;
+import org.eclipse.kapua.service.device.call.message.kura.utils.GZIPUtils;
+import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
+import org.eclipse.kapua.service.elasticsearch.client.exception.DatamodelMappingException;
+import org.eclipse.kapua.service.storable.model.id.StorableIdFactory;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixtures and steps of the telemetry ingest path shared by the benchmarks.
+ * <p>
+ * The steps which in the datastore are private ({@code MessageStoreFacade#convertTo}, the id derivation of {@code DatastoreMediator#onAfterMessageStore}
+ * and the bulk body of {@code RestElasticsearchClient}) are reproduced here with the same public building blocks.
+ * Keep them aligned when changing the originals.
+ *
+ * @since 2.0.0
+ */
+public class TelemetryPayloads {
+
+    /**
+     * The name of the account which publishes the telemetry.
+     *
+     * @since 2.0.0
+     */
+    public static final String ACCOUNT_NAME = "kapua-sys";
+
+    /**
+     * The client id of the device which publishes the telemetry.
+     *
+     * @since 2.0.0
+     */
+    public static final String CLIENT_ID = "benchmark-device-1";
+
+    /**
+     * The semantic parts of the channel on which the telemetry is published.
+     *
+     * @since 2.0.0
+     */
+    public static final List<String> SEMANTIC_PARTS = Arrays.asList("heater", "data");
+
+    /**
+     * The name of the data index on which the telemetry is stored.
+     *
+     * @since 2.0.0
+     */
+    public static final String DATA_INDEX_NAME = "1-data-message-2022-01";
+
+    private static final StorableIdFactory STORABLE_ID_FACTORY = KapuaLocator.getInstance().getFactory(StorableIdFactory.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory(new ObjectMapper());
+
+    static {
+        JSON_FACTORY.setRootValueSeparator(null);
+    }
+
+    private TelemetryPayloads() {
+    }
+
+    /**
+     * Creates a {@link KuraDataPayload} with a timestamp, a position and the given number of metrics.
+     * <p>
+     * Metrics cycle across the types supported by the Kura protobuf, and one every ten has a dotted name, which needs normalization.
+     *
+     * @param metricCount The number of metrics.
+     * @return The new {@link KuraDataPayload}.
+     * @since 2.0.0
+     */
+    public static KuraDataPayload newPayload(int metricCount) {
+        KuraPosition position = new KuraPosition();
+        position.setLatitude(45.4642);
+        position.setLongitude(9.1900);
+        position.setAltitude(120.0);
+        position.setSatellites(8);
+        position.setTimestamp(new Date(1640995200000L));
+
+        KuraDataPayload payload = new KuraDataPayload();
+        payload.setTimestamp(new Date(1640995200000L));
+        payload.setPosition(position);
+
+        for (int i = 0; i < metricCount; i++) {
+            String name = i % 10 == 0 ? "sensor." + i + ".value" : "metric_" + i;
+            switch (i % 6) {
+                case 0:
+                    payload.addMetric(name, 20.5 + i);
+                    break;
+                case 1:
+                    payload.addMetric(name, 1640995200000L + i);
+                    break;
+                case 2:
+                    payload.addMetric(name, i);
+                    break;
+                case 3:
+                    payload.addMetric(name, 0.5f * i);
+                    break;
+                case 4:
+                    payload.addMetric(name, i % 4 == 0);
+                    break;
+                default:
+                    payload.addMetric(name, "value-" + i);
+                    break;
+            }
+        }
+
+        return payload;
+    }
+
+    /**
+     * Encodes the given {@link KuraDataPayload} as it is published by the device.
+     *
+     * @param payload The {@link KuraDataPayload} to encode.
+     * @param gzip    Whether to compress the encoded payload.
+     * @return The encoded payload.
+     * @throws IOException If compression fails.
+     * @since 2.0.0
+     */
+    public static byte[] encode(KuraDataPayload payload, boolean gzip) throws IOException {
+        byte[] bytes = payload.toByteArray();
+        return gzip ? GZIPUtils.compress(bytes) : bytes;
+    }
+
+    /**
+     * Creates the {@link KuraDataMessage} received from the device, with the given {@link KuraDataPayload}.
+     *
+     * @param payload The {@link KuraDataPayload}.
+     * @return The new {@link KuraDataMessage}.
+     * @since 2.0.0
+     */
+    public static KuraDataMessage newMessage(KuraDataPayload payload) {
+        KuraDataChannel channel = new KuraDataChannel(ACCOUNT_NAME, CLIENT_ID);
+        channel.setSemanticParts(SEMANTIC_PARTS);
+
+        return new KuraDataMessage(channel, new Date(1640995201000L), payload);
+    }
+
+    /**
+     * Converts the given {@link KapuaMessage} to the {@link DatastoreMessage} to store, like {@code MessageStoreFacade#convertTo} does.
+     *
+     * @param message   The {@link KapuaMessage} to convert.
+     * @param messageId The datastore id of the message.
+     * @return The {@link DatastoreMessage} to store.
+     * @since 2.0.0
+     */
+    public static DatastoreMessage toDatastoreMessage(KapuaMessage<?, ?> message, String messageId) {
+        KapuaDataChannel datastoreChannel = new KapuaDataChannelImpl();
+        datastoreChannel.setSemanticParts(message.getChannel().getSemanticParts());
+
+        DatastoreMessage datastoreMessage = new DatastoreMessageImpl();
+        datastoreMessage.setCapturedOn(message.getCapturedOn());
+        datastoreMessage.setChannel(datastoreChannel);
+        datastoreMessage.setClientId(message.getClientId());
+        datastoreMessage.setDeviceId(message.getDeviceId());
+        datastoreMessage.setId(message.getId());
+        datastoreMessage.setPayload(message.getPayload());
+        datastoreMessage.setPosition(message.getPosition());
+        datastoreMessage.setReceivedOn(message.getReceivedOn());
+        datastoreMessage.setScopeId(message.getScopeId());
+        datastoreMessage.setSentOn(message.getSentOn());
+        datastoreMessage.setDatastoreId(STORABLE_ID_FACTORY.newStorableId(messageId));
+        datastoreMessage.setTimestamp(message.getReceivedOn());
+        return datastoreMessage;
+    }
+
+    /**
+     * Derives the ids of the client, channel and metric registry entries of the given {@link DatastoreMessage},
+     * and the mapped names of its metrics, like the datastore does after storing a message.
+     *
+     * @param message   The stored {@link DatastoreMessage}.
+     * @param blackhole The {@link Blackhole} which consumes the results.
+     * @since 2.0.0
+     */
+    public static void deriveRegistryIds(DatastoreMessage message, Blackhole blackhole) {
+        String semanticChannel = message.getChannel().toString();
+
+        blackhole.consume(ClientInfoField.getOrDeriveId(null, message.getScopeId(), message.getClientId()));
+
+        ChannelInfoImpl channelInfo = new ChannelInfoImpl(message.getScopeId());
+        channelInfo.setClientId(message.getClientId());
+        channelInfo.setName(semanticChannel);
+        blackhole.consume(ChannelInfoField.getOrDeriveId(null, channelInfo));
+
+        Map<String, Object> metrics = message.getPayload().getMetrics();
+        for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+            MetricInfoImpl metricInfo = new MetricInfoImpl(message.getScopeId());
+            metricInfo.setClientId(message.getClientId());
+            metricInfo.setChannel(semanticChannel);
+            metricInfo.setName(metric.getKey());
+            metricInfo.setMetricType(metric.getValue().getClass());
+            blackhole.consume(MetricInfoField.getOrDeriveId(null, metricInfo));
+
+            String metricName = DatastoreUtils.normalizeMetricName(metric.getKey());
+            String clientMetricType = DatastoreUtils.getClientMetricFromType(metric.getValue().getClass());
+            blackhole.consume(DatastoreUtils.getMetricValueQualifier(metricName, clientMetricType));
+        }
+    }
+
+    /**
+     * Creates a {@link JsonGenerator} configured like the one which writes the bulk body of {@code RestElasticsearchClient}.
+     *
+     * @param buffer The buffer to write to.
+     * @return The new {@link JsonGenerator}.
+     * @throws IOException If the {@link JsonGenerator} cannot be created.
+     * @since 2.0.0
+     */
+    public static JsonGenerator newBulkGenerator(OutputStream buffer) throws IOException {
+        return JSON_FACTORY.createGenerator(buffer);
+    }
+
+    /**
+     * Writes one item of the bulk insert body, the action line and the document line, like {@code RestElasticsearchClient} does.
+     *
+     * @param jsonGenerator The {@link JsonGenerator} to write with.
+     * @param modelContext  The {@link ModelContext} which marshals the document.
+     * @param indexName     The name of the target index.
+     * @param id            The id of the document.
+     * @param document      The document.
+     * @throws IOException               If writing fails.
+     * @throws DatamodelMappingException If marshalling fails.
+     * @since 2.0.0
+     */
+    public static void writeBulkItem(JsonGenerator jsonGenerator, ModelContext modelContext, String indexName, String id, Object document) throws IOException, DatamodelMappingException {
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeObjectFieldStart("index");
+        jsonGenerator.writeStringField("_index", indexName);
+        jsonGenerator.writeStringField("_id", id);
+        jsonGenerator.writeEndObject();
+        jsonGenerator.writeEndObject();
+        jsonGenerator.writeRaw('\n');
+
+        modelContext.marshal(document, jsonGenerator);
+        jsonGenerator.writeRaw('\n');
+    }
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.qa.benchmarks;
+
+import org.eclipse.kapua.message.device.data.KapuaDataMessage;
+import org.eclipse.kapua.service.device.call.message.kura.data.KuraDataMessage;
+import org.eclipse.kapua.translator.kura.kapua.TranslatorDataKuraKapua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link TranslatorDataKuraKapua} from the decoded {@link KuraDataMessage} to the {@link KapuaDataMessage}.
+ * <p>
+ * The account and device lookups are answered by the {@link BenchmarkLocator} stubs.
+ *
+ * @since 2.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkLocator.LOCATOR_JVM_ARG)
+public class TranslatorDataKuraKapuaBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int metricCount;
+
+    private TranslatorDataKuraKapua translator;
+    private KuraDataMessage kuraDataMessage;
+
+    @Setup
+    public void setUp() {
+        translator = new TranslatorDataKuraKapua();
+        kuraDataMessage = TelemetryPayloads.newMessage(TelemetryPayloads.newPayload(metricCount));
+    }
+
+    @Benchmark
+    public KapuaDataMessage translate() throws Exception {
+        return translator.translate(kuraDataMessage);
+    }
+}
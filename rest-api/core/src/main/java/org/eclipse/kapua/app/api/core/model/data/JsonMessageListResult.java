@@ -36,7 +36,7 @@ public class JsonMessageListResult extends AbstractStorableListResult<JsonDatast
      * @since 1.0.0
      */
     public JsonMessageListResult(ResultList<JsonDatastoreMessage> resultList) {
-        super(resultList.getResult(), resultList.getTotalCount());
+        super(resultList.getResult(), resultList.getTotalCount(), resultList.isTotalCountLowerBound());
     }
 
 }
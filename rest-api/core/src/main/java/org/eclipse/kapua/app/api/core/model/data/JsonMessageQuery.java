@@ -49,6 +49,10 @@ public class JsonMessageQuery {
     private List<XmlAdaptedSortField> sortFields;
     private StorableFetchStyle fetchStyle;
     private List<String> fetchAttributes;
+    private List<String> includedFields;
+    private List<String> excludedFields;
+    private List<String> includedMetrics;
+    private List<String> excludedMetrics;
 
     /**
      * Default constructor
@@ -144,6 +148,46 @@ public class JsonMessageQuery {
         fetchAttributes = fetchAttributeNames;
     }
 
+    @XmlElementWrapper(name = "includedFields")
+    @XmlElement(name = "field")
+    public List<String> getIncludedFields() {
+        return includedFields;
+    }
+
+    public void setIncludedFields(List<String> includedFields) {
+        this.includedFields = includedFields;
+    }
+
+    @XmlElementWrapper(name = "excludedFields")
+    @XmlElement(name = "field")
+    public List<String> getExcludedFields() {
+        return excludedFields;
+    }
+
+    public void setExcludedFields(List<String> excludedFields) {
+        this.excludedFields = excludedFields;
+    }
+
+    @XmlElementWrapper(name = "includedMetrics")
+    @XmlElement(name = "metric")
+    public List<String> getIncludedMetrics() {
+        return includedMetrics;
+    }
+
+    public void setIncludedMetrics(List<String> includedMetrics) {
+        this.includedMetrics = includedMetrics;
+    }
+
+    @XmlElementWrapper(name = "excludedMetrics")
+    @XmlElement(name = "metric")
+    public List<String> getExcludedMetrics() {
+        return excludedMetrics;
+    }
+
+    public void setExcludedMetrics(List<String> excludedMetrics) {
+        this.excludedMetrics = excludedMetrics;
+    }
+
     @XmlElementWrapper(name = "sortFields")
     @XmlElement(name = "sortField")
     public List<XmlAdaptedSortField> getSortFields() {
@@ -20,18 +20,27 @@ import org.eclipse.kapua.app.api.core.model.DateParam;
 import org.eclipse.kapua.app.api.core.model.MetricType;
 import org.eclipse.kapua.app.api.core.model.ScopeId;
 import org.eclipse.kapua.app.api.core.model.StorableEntityId;
+import org.eclipse.kapua.commons.util.xml.XmlUtil;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.device.data.KapuaDataMessage;
+import org.eclipse.kapua.model.domain.Actions;
 import org.eclipse.kapua.model.type.ObjectValueConverter;
 import org.eclipse.kapua.service.KapuaService;
+import org.eclipse.kapua.service.authorization.AuthorizationService;
+import org.eclipse.kapua.service.authorization.permission.PermissionFactory;
+import org.eclipse.kapua.service.datastore.DatastoreDomains;
 import org.eclipse.kapua.service.datastore.MessageStoreFactory;
 import org.eclipse.kapua.service.datastore.MessageStoreService;
 import org.eclipse.kapua.service.datastore.internal.mediator.ChannelInfoField;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
 import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
 import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationGroupBy;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
 import org.eclipse.kapua.service.datastore.model.query.predicate.DatastorePredicateFactory;
 import org.eclipse.kapua.service.elasticsearch.client.model.InsertResponse;
 import org.eclipse.kapua.service.storable.model.query.SortDirection;
@@ -52,6 +61,13 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.JAXBException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -63,6 +79,10 @@ public class DataMessages extends AbstractKapuaResource {
     private static final MessageStoreService MESSAGE_STORE_SERVICE = LOCATOR.getService(MessageStoreService.class);
     private static final MessageStoreFactory MESSAGE_STORE_FACTORY = LOCATOR.getFactory(MessageStoreFactory.class);
     private static final DatastorePredicateFactory DATASTORE_PREDICATE_FACTORY = LOCATOR.getFactory(DatastorePredicateFactory.class);
+    private static final AuthorizationService AUTHORIZATION_SERVICE = LOCATOR.getService(AuthorizationService.class);
+    private static final PermissionFactory PERMISSION_FACTORY = LOCATOR.getFactory(PermissionFactory.class);
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
 
     /**
      * Gets the {@link DatastoreMessage} list in the scope.
@@ -96,22 +116,7 @@ public class DataMessages extends AbstractKapuaResource {
                                                                    @QueryParam("limit") @DefaultValue("50") int limit)
             throws KapuaException {
 
-        AndPredicate andPredicate = DATASTORE_PREDICATE_FACTORY.newAndPredicate();
-        if (!Strings.isNullOrEmpty(clientId)) {
-            TermPredicate clientIdPredicate = DATASTORE_PREDICATE_FACTORY.newTermPredicate(MessageField.CLIENT_ID, clientId);
-            andPredicate.getPredicates().add(clientIdPredicate);
-        }
-
-        if (!Strings.isNullOrEmpty(channel)) {
-            andPredicate.getPredicates().add(getChannelPredicate(channel, strictChannel));
-        }
-
-        Date startDate = startDateParam != null ? startDateParam.getDate() : null;
-        Date endDate = endDateParam != null ? endDateParam.getDate() : null;
-        if (startDate != null || endDate != null) {
-            RangePredicate timestampPredicate = DATASTORE_PREDICATE_FACTORY.newRangePredicate(ChannelInfoField.TIMESTAMP, startDate, endDate);
-            andPredicate.getPredicates().add(timestampPredicate);
-        }
+        AndPredicate andPredicate = getMessagePredicate(clientId, channel, strictChannel, startDateParam, endDateParam);
 
         if (!Strings.isNullOrEmpty(metricName)) {
             andPredicate.getPredicates().add(getMetricPredicate(metricName, metricType, metricMinValue, metricMaxValue));
@@ -129,6 +134,56 @@ public class DataMessages extends AbstractKapuaResource {
         return query(scopeId, query);
     }
 
+    /**
+     * Aggregates the metrics of the {@link DatastoreMessage}s in the scope.
+     * <p>
+     * The {@link DatastoreMessage}s are split in time buckets of the given interval and, optionally, grouped by client id or channel.
+     * For each bucket the count, minimum, maximum, average and sum of each metric are computed by the datastore.
+     * Between the start and the end date there can be at most as many buckets (times the groups, if grouped) as allowed by the datastore settings.
+     *
+     * @param scopeId        The {@link ScopeId} in which to search results.
+     * @param clientId       The client id to filter results.
+     * @param channel        The channel id to filter results. It allows '#' wildcard in last channel level.
+     * @param strictChannel  Restrict the search only to this channel ignoring its children. Only meaningful if channel is set.
+     * @param startDateParam The start date to filter the results. Must come before endDate parameter.
+     * @param endDateParam   The end date to filter the results. Must come after startDate parameter
+     * @param metricNames    The names of the metrics to aggregate.
+     * @param metricType     The type of the metrics to aggregate.
+     * @param interval       The size of the time buckets, in milliseconds.
+     * @param groupBy        The field by which the time buckets are grouped.
+     * @param limit          The maximum number of groups.
+     * @return The {@link MetricAggregationResult} of the datastoreMessages associated to the current selected scope.
+     * @throws KapuaException Whenever something bad happens. See specific {@link KapuaService} exceptions.
+     * @since 2.0.0
+     */
+    @GET
+    @Path("_aggregate")
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    public <V extends Comparable<V>> MetricAggregationResult aggregate(@PathParam("scopeId") ScopeId scopeId,
+                                                                       @QueryParam("clientId") String clientId,
+                                                                       @QueryParam("channel") String channel,
+                                                                       @QueryParam("strictChannel") boolean strictChannel,
+                                                                       @QueryParam("startDate") DateParam startDateParam,
+                                                                       @QueryParam("endDate") DateParam endDateParam,
+                                                                       @QueryParam("metricName") List<String> metricNames,
+                                                                       @QueryParam("metricType") @DefaultValue("double") MetricType<V> metricType,
+                                                                       @QueryParam("interval") @DefaultValue("3600000") long interval,
+                                                                       @QueryParam("groupBy") MetricAggregationGroupBy groupBy,
+                                                                       @QueryParam("limit") @DefaultValue("10") int limit)
+            throws KapuaException {
+        MetricAggregationQuery query = MESSAGE_STORE_FACTORY.newMetricAggregationQuery(scopeId);
+        query.setPredicate(getMessagePredicate(clientId, channel, strictChannel, startDateParam, endDateParam));
+        for (String metricName : metricNames) {
+            query.addMetric(metricName, metricType.getType());
+        }
+        query.setInterval(interval);
+        query.setGroupBy(groupBy);
+        query.setLimit(limit);
+        DatastoreUtils.checkAggregationBucketCount(query);
+
+        return MESSAGE_STORE_SERVICE.aggregate(query);
+    }
+
     /**
      * Stores a new Message under the account of the currently connected user.
      * In this case, the provided message will only be stored in the back-end
@@ -192,6 +247,51 @@ public class DataMessages extends AbstractKapuaResource {
         return new CountResult(MESSAGE_STORE_SERVICE.count(query));
     }
 
+    /**
+     * Exports all the results matching the given {@link MessageQuery} parameter as newline delimited JSON.
+     * <p>
+     * Each line of the response is a {@link DatastoreMessage}, in the order of the {@link MessageQuery#getSortFields()}.
+     * The response is written while the {@link DatastoreMessage}s are read from the datastore, so any number of them can be exported.
+     * The {@link MessageQuery#getOffset()} and the {@link MessageQuery#getLimit()} are ignored.
+     *
+     * @param scopeId The {@link ScopeId} in which to search results.
+     * @param query   The {@link MessageQuery} to used to filter results.
+     * @return The {@link Response} streaming the {@link DatastoreMessage}s matching the given {@link MessageQuery} parameter.
+     * @throws KapuaException Whenever something bad happens. See specific {@link KapuaService} exceptions.
+     * @since 2.0.0
+     */
+    @POST
+    @Path("_export")
+    @Consumes({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    @Produces({APPLICATION_NDJSON})
+    public Response export(@PathParam("scopeId") ScopeId scopeId,
+                           MessageQuery query)
+            throws KapuaException {
+        query.setScopeId(scopeId);
+
+        // Checked here since errors raised while streaming cannot change the response status anymore
+        AUTHORIZATION_SERVICE.checkPermission(PERMISSION_FACTORY.newPermission(DatastoreDomains.DATASTORE_DOMAIN, Actions.read, scopeId));
+
+        StreamingOutput messagesOutput = output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            try {
+                MESSAGE_STORE_SERVICE.stream(query, datastoreMessage -> {
+                    try {
+                        XmlUtil.marshalJsonLine(datastoreMessage, writer);
+                        writer.write('\n');
+                    } catch (JAXBException | IOException e) {
+                        throw new IllegalStateException("Cannot write message " + datastoreMessage.getDatastoreId(), e);
+                    }
+                });
+            } catch (KapuaException e) {
+                throw new IOException("Cannot export messages", e);
+            }
+            writer.flush();
+        };
+
+        return Response.ok(messagesOutput).build();
+    }
+
     /**
      * Returns the DatastoreMessage specified by the "datastoreMessageId" path parameter.
      *
@@ -211,6 +311,26 @@ public class DataMessages extends AbstractKapuaResource {
         return returnNotNullEntity(datastoreMessage);
     }
 
+    private AndPredicate getMessagePredicate(String clientId, String channel, boolean strictChannel, DateParam startDateParam, DateParam endDateParam) {
+        AndPredicate andPredicate = DATASTORE_PREDICATE_FACTORY.newAndPredicate();
+        if (!Strings.isNullOrEmpty(clientId)) {
+            TermPredicate clientIdPredicate = DATASTORE_PREDICATE_FACTORY.newTermPredicate(MessageField.CLIENT_ID, clientId);
+            andPredicate.getPredicates().add(clientIdPredicate);
+        }
+
+        if (!Strings.isNullOrEmpty(channel)) {
+            andPredicate.getPredicates().add(getChannelPredicate(channel, strictChannel));
+        }
+
+        Date startDate = startDateParam != null ? startDateParam.getDate() : null;
+        Date endDate = endDateParam != null ? endDateParam.getDate() : null;
+        if (startDate != null || endDate != null) {
+            RangePredicate timestampPredicate = DATASTORE_PREDICATE_FACTORY.newRangePredicate(ChannelInfoField.TIMESTAMP, startDate, endDate);
+            andPredicate.getPredicates().add(timestampPredicate);
+        }
+        return andPredicate;
+    }
+
     private StorablePredicate getChannelPredicate(String channel, boolean strictChannel) {
         StorablePredicate channelPredicate;
         if (strictChannel) {
@@ -117,6 +117,7 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
         JsonMessageListResult jsonResult = new JsonMessageListResult();
         jsonResult.addItems(jsonDatastoreMessages);
         jsonResult.setTotalCount(result.getTotalCount());
+        jsonResult.setTotalCountLowerBound(result.isTotalCountLowerBound());
         jsonResult.setLimitExceeded(result.isLimitExceeded());
         return jsonResult;
     }
@@ -196,6 +197,7 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
         jsonResult.addItems(jsonDatastoreMessages);
         jsonResult.setLimitExceeded(result.isLimitExceeded());
         jsonResult.setTotalCount(result.getTotalCount());
+        jsonResult.setTotalCountLowerBound(result.isTotalCountLowerBound());
         return jsonResult;
     }
 
@@ -225,6 +227,10 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
         messageQuery.setAskTotalCount(query.isAskTotalCount());
         messageQuery.setFetchAttributes(query.getFetchAttributes());
         messageQuery.setFetchStyle(query.getFetchStyle());
+        messageQuery.setIncludedFields(query.getIncludedFields());
+        messageQuery.setExcludedFields(query.getExcludedFields());
+        messageQuery.setIncludedMetrics(query.getIncludedMetrics());
+        messageQuery.setExcludedMetrics(query.getExcludedMetrics());
         messageQuery.setLimit(query.getLimit());
         messageQuery.setOffset(query.getOffset());
         messageQuery.setPredicate(query.getPredicate());
@@ -141,6 +141,7 @@ import org.eclipse.kapua.service.datastore.model.ClientInfo;
 import org.eclipse.kapua.service.datastore.model.ClientInfoListResult;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
 import org.eclipse.kapua.service.datastore.model.MetricInfoListResult;
 import org.eclipse.kapua.service.datastore.model.query.ChannelInfoQuery;
@@ -427,6 +428,7 @@ public class JaxbContextResolver implements ContextResolver<JAXBContext> {
 
                     DatastoreMessage.class,
                     DatastoreMessageXmlRegistry.class,
+                    MetricAggregationResult.class,
                     StorableEntityId.class,
                     StorableId.class,
                     SortField.class,
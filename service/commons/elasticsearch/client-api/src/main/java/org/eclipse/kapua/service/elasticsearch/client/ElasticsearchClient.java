@@ -18,6 +18,8 @@ import org.eclipse.kapua.service.elasticsearch.client.configuration.Elasticsearc
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientException;
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientInitializationException;
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientUnavailableException;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertResponse;
 import org.eclipse.kapua.service.elasticsearch.client.model.BulkUpdateRequest;
 import org.eclipse.kapua.service.elasticsearch.client.model.BulkUpdateResponse;
 import org.eclipse.kapua.service.elasticsearch.client.model.IndexRequest;
@@ -30,6 +32,8 @@ import org.eclipse.kapua.service.elasticsearch.client.model.UpdateRequest;
 import org.eclipse.kapua.service.elasticsearch.client.model.UpdateResponse;
 
 import java.io.Closeable;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 /**
  * Elasticsearch client definition.
@@ -134,6 +138,20 @@ public interface ElasticsearchClient<C extends Closeable> {
      */
     InsertResponse insert(InsertRequest insertRequest) throws ClientException;
 
+    /**
+     * Bulk inserts.
+     * <p>
+     * The whole {@link BulkInsertRequest} is sent with a single request. The outcome of each {@link InsertRequest}
+     * is reported in the {@link BulkInsertResponse} in the same order of the {@link BulkInsertRequest#getRequest()},
+     * so that failures of single documents do not fail the whole batch.
+     *
+     * @param bulkInsertRequest The {@link BulkInsertRequest} to perform.
+     * @return The {@link BulkInsertResponse} from Elasticsearch.
+     * @throws ClientException if error occurs while performing the whole request.
+     * @since 2.0.0
+     */
+    BulkInsertResponse insert(BulkInsertRequest bulkInsertRequest) throws ClientException;
+
     /**
      * Upserts a document.
      *
@@ -182,6 +200,9 @@ public interface ElasticsearchClient<C extends Closeable> {
 
     /**
      * Counts by query.
+     * <p>
+     * When the query caps the tracking of the total hits, each shard stops counting at the cap,
+     * so a number equal to or greater than the cap is a lower bound of the matching results.
      *
      * @param typeDescriptor The {@link TypeDescriptor} to look for.
      * @param query          The query to perform.
@@ -211,6 +232,95 @@ public interface ElasticsearchClient<C extends Closeable> {
      */
     void deleteByQuery(TypeDescriptor typeDescriptor, Object query) throws ClientException;
 
+    /**
+     * Streams all the results that match the query.
+     * <p>
+     * Results are read one page at a time with {@code search_after}, following the sort of the query with the given tie breaker field as last sort field.
+     * Unlike paging with the offset, the cost of reading a page does not depend on how deep the page is, and only one page at a time is kept in memory.
+     * The offset and the limit of the query are ignored.
+     *
+     * @param typeDescriptor  The {@link TypeDescriptor} to look for.
+     * @param query           The query to perform.
+     * @param tieBreakerField The field with a unique value for each result, used as last sort field.
+     * @param clazz           The expected {@link Object#getClass()}
+     * @param consumer        The {@link Consumer} of the results, invoked in the order of the query sort.
+     * @return The number of results given to the {@link Consumer}.
+     * @throws ClientException if error occurs while querying.
+     * @since 2.0.0
+     */
+    <T> long stream(TypeDescriptor typeDescriptor, Object query, String tieBreakerField, Class<T> clazz, Consumer<T> consumer) throws ClientException;
+
+    /**
+     * Aggregates by query.
+     * <p>
+     * The aggregations defined by the converted query are computed by Elasticsearch, and no matching result is returned.
+     *
+     * @param typeDescriptor The {@link TypeDescriptor} to look for.
+     * @param query          The query to perform, which must define the aggregations.
+     * @return The {@code aggregations} object of the Elasticsearch response, or an empty object if there is nothing to aggregate.
+     * @throws ClientException if error occurs while aggregating.
+     * @since 2.0.0
+     */
+    JsonNode aggregate(TypeDescriptor typeDescriptor, Object query) throws ClientException;
+
+    //
+    // Asynchronous section
+    //
+
+    /**
+     * Inserts a document without waiting for Elasticsearch to answer.
+     * <p>
+     * The returned {@link CompletionStage} completes with the {@link InsertResponse},
+     * or exceptionally with a {@link ClientException} if the document cannot be inserted.
+     *
+     * @param insertRequest The {@link InsertRequest} to perform.
+     * @return The {@link CompletionStage} of the {@link InsertResponse} from Elasticsearch.
+     * @see #insert(InsertRequest)
+     * @since 2.0.0
+     */
+    CompletionStage<InsertResponse> insertAsync(InsertRequest insertRequest);
+
+    /**
+     * Upserts a document without waiting for Elasticsearch to answer.
+     * <p>
+     * The returned {@link CompletionStage} completes with the {@link UpdateResponse},
+     * or exceptionally with a {@link ClientException} if the document cannot be upserted.
+     *
+     * @param updateRequest The {@link UpdateRequest} to perform.
+     * @return The {@link CompletionStage} of the {@link UpdateResponse} from Elasticsearch.
+     * @see #upsert(UpdateRequest)
+     * @since 2.0.0
+     */
+    CompletionStage<UpdateResponse> upsertAsync(UpdateRequest updateRequest);
+
+    /**
+     * Bulk inserts without waiting for Elasticsearch to answer.
+     * <p>
+     * The returned {@link CompletionStage} completes with the {@link BulkInsertResponse},
+     * or exceptionally with a {@link ClientException} if the whole request fails.
+     *
+     * @param bulkInsertRequest The {@link BulkInsertRequest} to perform.
+     * @return The {@link CompletionStage} of the {@link BulkInsertResponse} from Elasticsearch.
+     * @see #insert(BulkInsertRequest)
+     * @since 2.0.0
+     */
+    CompletionStage<BulkInsertResponse> bulkAsync(BulkInsertRequest bulkInsertRequest);
+
+    /**
+     * Finds by query without waiting for Elasticsearch to answer.
+     * <p>
+     * The returned {@link CompletionStage} completes with the {@link ResultList},
+     * or exceptionally with a {@link ClientException} if the query fails.
+     *
+     * @param typeDescriptor The {@link TypeDescriptor} to look for.
+     * @param query          The query to perform.
+     * @param clazz          The expected {@link Object#getClass()}
+     * @return The {@link CompletionStage} of the {@link ResultList} that matches the query.
+     * @see #query(TypeDescriptor, Object, Class)
+     * @since 2.0.0
+     */
+    <T> CompletionStage<ResultList<T>> queryAsync(TypeDescriptor typeDescriptor, Object query, Class<T> clazz);
+
     //
     // Indexes / mappings section
     //
@@ -255,6 +365,16 @@ public interface ElasticsearchClient<C extends Closeable> {
      */
     void putMapping(TypeDescriptor typeDescriptor, JsonNode mapping) throws ClientException;
 
+    /**
+     * Gets the mapping, with all the mappings put so far merged.
+     *
+     * @param typeDescriptor The {@link TypeDescriptor} to get.
+     * @return The mapping, with the same structure of {@link #putMapping(TypeDescriptor, JsonNode)}, or a missing node if the index has no mapping.
+     * @throws ClientException if error occurs while getting.
+     * @since 2.0.0
+     */
+    JsonNode getMapping(TypeDescriptor typeDescriptor) throws ClientException;
+
     /**
      * Forces the Elasticsearch to refresh the indexes.
      *
@@ -12,8 +12,10 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.elasticsearch.client;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.eclipse.kapua.service.elasticsearch.client.exception.DatamodelMappingException;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -53,6 +55,27 @@ public interface ModelContext {
      */
     Map<String, Object> marshal(Object object) throws DatamodelMappingException;
 
+    /**
+     * Converts the Elasticsearch object to the client object, writing it directly to the given {@link JsonGenerator}.
+     * <p>
+     * This avoids building the intermediate {@link Map} and {@link String} representations of the object.
+     * The default implementation writes the result of {@link #marshal(Object)}, so implementations are encouraged
+     * to override it with a streaming one.
+     *
+     * @param object        The object to convert.
+     * @param jsonGenerator The {@link JsonGenerator} to write to. It must have an {@link com.fasterxml.jackson.core.ObjectCodec} set.
+     * @throws DatamodelMappingException if there are error in resource mapping.
+     * @since 2.0.0
+     */
+    default void marshal(Object object, JsonGenerator jsonGenerator) throws DatamodelMappingException {
+        Map<String, Object> marshalledObject = marshal(object);
+        try {
+            jsonGenerator.writeObject(marshalledObject);
+        } catch (IOException e) {
+            throw new DatamodelMappingException(e, "Cannot write the object");
+        }
+    }
+
     /**
      * Gets the key name of the id field.
      *
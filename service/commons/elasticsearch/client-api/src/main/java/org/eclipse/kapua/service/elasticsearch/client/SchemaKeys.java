@@ -58,6 +58,138 @@ public class SchemaKeys {
      * @since 1.0.0
      */
     public static final String KEY_SIZE = "size";
+    /**
+     * Search after key (used by queries to read the page of results following the given sort values)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_SEARCH_AFTER = "search_after";
+    /**
+     * Track total hits key (used by queries to control the counting of the matching results)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_TRACK_TOTAL_HITS = "track_total_hits";
+    /**
+     * Terminate after key (used by count queries to stop counting on each shard after the given number of matching results)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_TERMINATE_AFTER = "terminate_after";
+    /**
+     * Aggregations key (used by queries to define the aggregations and by responses to report their results)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_AGGREGATIONS = "aggregations";
+    /**
+     * Date histogram aggregation key
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_DATE_HISTOGRAM = "date_histogram";
+    /**
+     * Fixed interval key (used by date histogram aggregations to set the bucket size)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_FIXED_INTERVAL = "fixed_interval";
+    /**
+     * Minimum document count key (used by bucket aggregations to skip the empty buckets)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_MIN_DOC_COUNT = "min_doc_count";
+    /**
+     * Terms aggregation key
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_TERMS = "terms";
+    /**
+     * Stats aggregation key
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_STATS = "stats";
+    /**
+     * Field key (used by aggregations to set the aggregated field)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_FIELD = "field";
+    /**
+     * Buckets key (used by bucket aggregation results)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_BUCKETS = "buckets";
+    /**
+     * Key key (used by bucket aggregation results to report the key of a bucket)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_KEY = "key";
+    /**
+     * Document count key (used by bucket aggregation results to report the number of documents of a bucket)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_DOC_COUNT = "doc_count";
+    /**
+     * Composite aggregation key
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_COMPOSITE = "composite";
+    /**
+     * Sources key (used by composite aggregations to set the fields of the bucket keys)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_SOURCES = "sources";
+    /**
+     * After key (used by composite aggregations to request the buckets after the given bucket key)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_AFTER = "after";
+    /**
+     * After key key (used by composite aggregation results to report the key of the last bucket)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_AFTER_KEY = "after_key";
+    /**
+     * Filter aggregation key
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_FILTER = "filter";
+    /**
+     * Min aggregation key
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_MIN = "min";
+    /**
+     * Max aggregation key
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_MAX = "max";
+    /**
+     * Sum aggregation key
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_SUM = "sum";
+    /**
+     * Value key (used by single value aggregation results to report the value)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_VALUE = "value";
 
     /**
      * Query ascending sort key
@@ -113,6 +245,30 @@ public class SchemaKeys {
      * @since 1.0.0
      */
     public static final String KEY_DYNAMIC = "dynamic";
+    /**
+     * Dynamic templates key
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_DYNAMIC_TEMPLATES = "dynamic_templates";
+    /**
+     * Path match key (used by dynamic templates to match the full path of the fields)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_PATH_MATCH = "path_match";
+    /**
+     * Match mapping type key (used by dynamic templates to match the detected type of the fields)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_MATCH_MAPPING_TYPE = "match_mapping_type";
+    /**
+     * Mapping key (used by dynamic templates to set the mapping of the matched fields)
+     *
+     * @since 2.0.0
+     */
+    public static final String KEY_MAPPING = "mapping";
     /**
      * Object binary type
      *
@@ -143,6 +299,12 @@ public class SchemaKeys {
      * @since 1.0.0
      */
     public static final String TYPE_INTEGER = "integer";
+    /**
+     * Object long type
+     *
+     * @since 2.0.0
+     */
+    public static final String TYPE_LONG = "long";
     /**
      * Object ip address type
      *
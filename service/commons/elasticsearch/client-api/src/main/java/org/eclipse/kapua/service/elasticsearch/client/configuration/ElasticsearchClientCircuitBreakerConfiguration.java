@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.configuration;
+
+/**
+ * The {@link ElasticsearchClientCircuitBreakerConfiguration} definition.
+ * <p>
+ * It contains values for configuring the circuit breaker which rejects requests while the Elasticsearch cluster is not responding.
+ * It contains default values to ease the usage of the class.
+ *
+ * @since 2.0.0
+ */
+public class ElasticsearchClientCircuitBreakerConfiguration {
+
+    private boolean enabled = true;
+    private int failureThreshold = 5;
+    private int openDuration = 30000;
+
+    /**
+     * Gets whether the circuit breaker is enabled.
+     * <p>
+     * Default value: {@code true}
+     *
+     * @return {@code true} if the circuit breaker is enabled, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the circuit breaker is enabled.
+     *
+     * @param enabled {@code true} to enable the circuit breaker, {@code false} otherwise.
+     * @return This {@link ElasticsearchClientCircuitBreakerConfiguration} to chain method invocation.
+     * @since 2.0.0
+     */
+    public ElasticsearchClientCircuitBreakerConfiguration setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * Gets the number of consecutive failed requests which opens the circuit breaker.
+     * <p>
+     * Default value: 5
+     *
+     * @return The number of consecutive failed requests which opens the circuit breaker.
+     * @since 2.0.0
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive failed requests which opens the circuit breaker.
+     *
+     * @param failureThreshold The number of consecutive failed requests which opens the circuit breaker.
+     * @return This {@link ElasticsearchClientCircuitBreakerConfiguration} to chain method invocation.
+     * @since 2.0.0
+     */
+    public ElasticsearchClientCircuitBreakerConfiguration setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+        return this;
+    }
+
+    /**
+     * Gets how long the circuit breaker stays open before letting a trial request through.
+     * <p>
+     * Default value: 30000
+     *
+     * @return How long the circuit breaker stays open, in milliseconds.
+     * @since 2.0.0
+     */
+    public int getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * Sets how long the circuit breaker stays open before letting a trial request through.
+     *
+     * @param openDuration How long the circuit breaker stays open, in milliseconds.
+     * @return This {@link ElasticsearchClientCircuitBreakerConfiguration} to chain method invocation.
+     * @since 2.0.0
+     */
+    public ElasticsearchClientCircuitBreakerConfiguration setOpenDuration(int openDuration) {
+        this.openDuration = openDuration;
+        return this;
+    }
+}
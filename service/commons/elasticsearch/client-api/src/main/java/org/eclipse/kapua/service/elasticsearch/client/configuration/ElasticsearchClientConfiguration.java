@@ -35,6 +35,7 @@ public class ElasticsearchClientConfiguration {
     private ElasticsearchClientReconnectConfiguration reconnectConfiguration;
     private ElasticsearchClientRequestConfiguration requestConfiguration;
     private ElasticsearchClientSslConfiguration sslConfiguration;
+    private ElasticsearchClientCircuitBreakerConfiguration circuitBreakerConfiguration;
 
     /**
      * Gets the module name which is managing the {@link ElasticsearchClient} instance.
@@ -269,4 +270,30 @@ public class ElasticsearchClientConfiguration {
         this.sslConfiguration = sslConfiguration;
         return this;
     }
+
+    /**
+     * Gets the {@link ElasticsearchClientCircuitBreakerConfiguration}
+     *
+     * @return The {@link ElasticsearchClientCircuitBreakerConfiguration}
+     * @since 2.0.0
+     */
+    public ElasticsearchClientCircuitBreakerConfiguration getCircuitBreakerConfiguration() {
+        if (circuitBreakerConfiguration == null) {
+            circuitBreakerConfiguration = new ElasticsearchClientCircuitBreakerConfiguration();
+        }
+
+        return circuitBreakerConfiguration;
+    }
+
+    /**
+     * Sets the {@link ElasticsearchClientCircuitBreakerConfiguration}
+     *
+     * @param circuitBreakerConfiguration The {@link ElasticsearchClientCircuitBreakerConfiguration}
+     * @return This {@link ElasticsearchClientConfiguration} to chain method invocation.
+     * @since 2.0.0
+     */
+    public ElasticsearchClientConfiguration setCircuitBreakerConfiguration(ElasticsearchClientCircuitBreakerConfiguration circuitBreakerConfiguration) {
+        this.circuitBreakerConfiguration = circuitBreakerConfiguration;
+        return this;
+    }
 }
@@ -24,10 +24,18 @@ public class ElasticsearchClientRequestConfiguration {
 
     private int requestRetryAttemptMax = 3;
     private int requestRetryAttemptWait = 2500;
+    private int requestRetryAttemptWaitMax = 30000;
 
     private int queryTimeout = 15000;
     private int scrollTimeout = 60000;
 
+    private int maxInFlightRequests = 128;
+    private int inFlightRequestWait = 15000;
+
+    private int streamPageSize = 1000;
+
+    private int simulatedLatency;
+
     /**
      * Gets the number of maximum attempts to retry a {@link Request}.
      * <p>
@@ -76,6 +84,32 @@ public class ElasticsearchClientRequestConfiguration {
         return this;
     }
 
+    /**
+     * Gets the maximum wait time between {@link Request} retries.
+     * <p>
+     * The wait time starts from {@link #getRequestRetryAttemptWait()} and doubles at each retry, up to this value.
+     * <p>
+     * Default value: 30000
+     *
+     * @return The maximum wait time between {@link Request} retries.
+     * @since 2.0.0
+     */
+    public int getRequestRetryAttemptWaitMax() {
+        return requestRetryAttemptWaitMax;
+    }
+
+    /**
+     * Sets the maximum wait time between {@link Request} retries.
+     *
+     * @param requestRetryAttemptWaitMax The maximum wait time between {@link Request} retries.
+     * @return This {@link ElasticsearchClientRequestConfiguration} to chain method invocation.
+     * @since 2.0.0
+     */
+    public ElasticsearchClientRequestConfiguration setRequestRetryAttemptWaitMax(int requestRetryAttemptWaitMax) {
+        this.requestRetryAttemptWaitMax = requestRetryAttemptWaitMax;
+        return this;
+    }
+
     /**
      * Gets the query {@link Request} timeout.
      * <p>
@@ -123,4 +157,102 @@ public class ElasticsearchClientRequestConfiguration {
         this.scrollTimeout = scrollTimeout;
         return this;
     }
+
+    /**
+     * Gets the maximum number of asynchronous {@link Request}s which can be in flight at the same time.
+     * <p>
+     * Callers which submit an asynchronous {@link Request} when the limit is reached wait for one of the in flight {@link Request}s to complete.
+     * <p>
+     * Default value: 128
+     *
+     * @return The maximum number of asynchronous {@link Request}s which can be in flight at the same time.
+     * @since 2.0.0
+     */
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * Sets the maximum number of asynchronous {@link Request}s which can be in flight at the same time.
+     *
+     * @param maxInFlightRequests The maximum number of asynchronous {@link Request}s which can be in flight at the same time.
+     * @return This {@link ElasticsearchClientRequestConfiguration} to chain method invocation.
+     * @since 2.0.0
+     */
+    public ElasticsearchClientRequestConfiguration setMaxInFlightRequests(int maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+        return this;
+    }
+
+    /**
+     * Gets the maximum time to wait for an in flight slot when submitting an asynchronous {@link Request}.
+     * <p>
+     * Default value: 15000
+     *
+     * @return The maximum time to wait for an in flight slot, in milliseconds.
+     * @since 2.0.0
+     */
+    public int getInFlightRequestWait() {
+        return inFlightRequestWait;
+    }
+
+    /**
+     * Sets the maximum time to wait for an in flight slot when submitting an asynchronous {@link Request}.
+     *
+     * @param inFlightRequestWait The maximum time to wait for an in flight slot, in milliseconds.
+     * @return This {@link ElasticsearchClientRequestConfiguration} to chain method invocation.
+     * @since 2.0.0
+     */
+    public ElasticsearchClientRequestConfiguration setInFlightRequestWait(int inFlightRequestWait) {
+        this.inFlightRequestWait = inFlightRequestWait;
+        return this;
+    }
+
+    /**
+     * Gets the number of results read with each {@link Request} when streaming the results of a query.
+     * <p>
+     * Default value: 1000
+     *
+     * @return The number of results read with each {@link Request} when streaming the results of a query.
+     * @since 2.0.0
+     */
+    public int getStreamPageSize() {
+        return streamPageSize;
+    }
+
+    /**
+     * Sets the number of results read with each {@link Request} when streaming the results of a query.
+     *
+     * @param streamPageSize The number of results read with each {@link Request} when streaming the results of a query.
+     * @return This {@link ElasticsearchClientRequestConfiguration} to chain method invocation.
+     * @since 2.0.0
+     */
+    public ElasticsearchClientRequestConfiguration setStreamPageSize(int streamPageSize) {
+        this.streamPageSize = streamPageSize;
+        return this;
+    }
+
+    /**
+     * Gets the latency added to each {@link Request} by the clients which do not talk to an Elasticsearch cluster, like the in-memory one.
+     * <p>
+     * Default value: 0
+     *
+     * @return The latency added to each {@link Request}, in milliseconds.
+     * @since 2.0.0
+     */
+    public int getSimulatedLatency() {
+        return simulatedLatency;
+    }
+
+    /**
+     * Sets the latency added to each {@link Request} by the clients which do not talk to an Elasticsearch cluster, like the in-memory one.
+     *
+     * @param simulatedLatency The latency added to each {@link Request}, in milliseconds.
+     * @return This {@link ElasticsearchClientRequestConfiguration} to chain method invocation.
+     * @since 2.0.0
+     */
+    public ElasticsearchClientRequestConfiguration setSimulatedLatency(int simulatedLatency) {
+        this.simulatedLatency = simulatedLatency;
+        return this;
+    }
 }
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.exception;
+
+/**
+ * {@link ClientCommunicationException} to {@code throw} when a request is rejected without being sent
+ * because the Elasticsearch cluster has recently failed too many requests in a row.
+ *
+ * @since 2.0.0
+ */
+public class ClientCircuitBreakerOpenException extends ClientCommunicationException {
+
+    private static final long serialVersionUID = -3416524866211735432L;
+
+    private final String clusterName;
+
+    /**
+     * Constructor.
+     *
+     * @param clusterName The name of the Elasticsearch cluster.
+     * @since 2.0.0
+     */
+    public ClientCircuitBreakerOpenException(String clusterName) {
+        super(ClientErrorCodes.CIRCUIT_BREAKER_OPEN, clusterName);
+
+        this.clusterName = clusterName;
+    }
+
+    /**
+     * Gets the name of the Elasticsearch cluster.
+     *
+     * @return The name of the Elasticsearch cluster.
+     * @since 2.0.0
+     */
+    public String getClusterName() {
+        return clusterName;
+    }
+}
@@ -29,4 +29,25 @@ public class ClientCommunicationException extends ClientException {
     public ClientCommunicationException() {
         super(ClientErrorCodes.CLIENT_COMMUNICATION_ERROR);
     }
+
+    /**
+     * Constructor.
+     *
+     * @param cause The root {@link Throwable} of this {@link ClientCommunicationException}.
+     * @since 2.0.0
+     */
+    public ClientCommunicationException(Throwable cause) {
+        super(ClientErrorCodes.CLIENT_COMMUNICATION_ERROR, cause);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param code      The {@link ClientErrorCodes}.
+     * @param arguments Additional argument associated with the {@link ClientCommunicationException}.
+     * @since 2.0.0
+     */
+    protected ClientCommunicationException(ClientErrorCodes code, Object... arguments) {
+        super(code, arguments);
+    }
 }
@@ -89,5 +89,12 @@ public enum ClientErrorCodes implements KapuaErrorCode {
      *
      * @since 1.3.0
      */
-    ACTION_RESPONSE_ERROR
+    ACTION_RESPONSE_ERROR,
+
+    /**
+     * See {@link ClientCircuitBreakerOpenException}
+     *
+     * @since 2.0.0
+     */
+    CIRCUIT_BREAKER_OPEN
 }
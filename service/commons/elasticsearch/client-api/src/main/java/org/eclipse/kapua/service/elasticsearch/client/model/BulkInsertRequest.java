@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link BulkInsertRequest} definition.
+ * <p>
+ * It bundles a {@link List} of {@link InsertRequest}
+ *
+ * @since 2.0.0
+ */
+public class BulkInsertRequest {
+
+    List<InsertRequest> requestList;
+
+    /**
+     * Adds an {@link InsertRequest} to the {@link List}.
+     *
+     * @param insertRequest The {@link InsertRequest} to add.
+     * @since 2.0.0
+     */
+    public void add(InsertRequest insertRequest) {
+        getRequest().add(insertRequest);
+    }
+
+    /**
+     * Gets the {@link List} of {@link InsertRequest}s.
+     *
+     * @return The {@link List} of {@link InsertRequest}s.
+     * @since 2.0.0
+     */
+    public List<InsertRequest> getRequest() {
+        if (requestList == null) {
+            requestList = new ArrayList<>();
+        }
+
+        return requestList;
+    }
+
+    /**
+     * Sets the {@link List} of {@link InsertRequest}s.
+     *
+     * @param requestList The {@link List} of {@link InsertRequest}s.
+     * @since 2.0.0
+     */
+    public void setRequest(List<InsertRequest> requestList) {
+        this.requestList = requestList;
+    }
+
+}
@@ -25,6 +25,7 @@ public class ResultList<T> {
 
     private final List<T> result;
     private final long totalCount;
+    private final boolean totalCountLowerBound;
 
     /**
      * Constructor.
@@ -33,9 +34,21 @@ public class ResultList<T> {
      * @since 1.0.0
      */
     public ResultList(long totalCount) {
+        this(totalCount, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param totalCount           The total count of matched objects.
+     * @param totalCountLowerBound Whether or not the total count is a lower bound of the matched objects.
+     * @since 2.0.0
+     */
+    public ResultList(long totalCount, boolean totalCountLowerBound) {
         result = new ArrayList<>();
 
         this.totalCount = totalCount;
+        this.totalCountLowerBound = totalCountLowerBound;
     }
 
     /**
@@ -68,4 +81,16 @@ public class ResultList<T> {
         return totalCount;
     }
 
+    /**
+     * Gets whether or not the total count is a lower bound of the matched objects.
+     * <p>
+     * This happens when the query does not count all the matched objects.
+     *
+     * @return {@code true} if the total count is a lower bound, {@code false} if it is exact.
+     * @since 2.0.0
+     */
+    public boolean isTotalCountLowerBound() {
+        return totalCountLowerBound;
+    }
+
 }
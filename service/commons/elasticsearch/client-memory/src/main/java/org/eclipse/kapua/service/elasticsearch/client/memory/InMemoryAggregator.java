@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.memory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.kapua.service.elasticsearch.client.SchemaKeys;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientException;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientInternalError;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the aggregations of a converted query over the matching {@link InMemoryDocument}s, with the same response format of Elasticsearch.
+ * <p>
+ * Supports the aggregations emitted by the {@link org.eclipse.kapua.service.elasticsearch.client.QueryConverter}s:
+ * {@code terms}, {@code date_histogram} (with {@code fixed_interval}), {@code composite} (with {@code terms} and {@code date_histogram} sources),
+ * {@code stats}, {@code min}, {@code max}, {@code sum}, {@code avg} and {@code value_count}, with their sub-aggregations.
+ *
+ * @since 2.0.0
+ */
+public class InMemoryAggregator {
+
+    private static final JsonNodeFactory JSON_NODE_FACTORY = JsonNodeFactory.instance;
+
+    private static final String KEY_AGGS = "aggs";
+    private static final String KEY_AVG = "avg";
+    private static final String KEY_COUNT = "count";
+    private static final String KEY_KEY_AS_STRING = "key_as_string";
+    private static final String KEY_VALUE_COUNT = "value_count";
+    private static final String KEY_DOC_COUNT_ERROR_UPPER_BOUND = "doc_count_error_upper_bound";
+    private static final String KEY_SUM_OTHER_DOC_COUNT = "sum_other_doc_count";
+
+    private static final int DEFAULT_SIZE = 10;
+
+    private static final Comparator<List<JsonNode>> COMPOSITE_KEY_COMPARATOR = (key, otherKey) -> {
+        for (int i = 0; i < key.size(); i++) {
+            int comparison = InMemoryDocumentValues.compare(key.get(i), otherKey.get(i));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    };
+
+    private InMemoryAggregator() {
+    }
+
+    /**
+     * Computes the given aggregations.
+     *
+     * @param aggregationsNode The aggregations of the converted query.
+     * @param documents        The matching {@link InMemoryDocument}s.
+     * @return The aggregations results, by aggregation name.
+     * @throws ClientException if an aggregation is not supported.
+     * @since 2.0.0
+     */
+    public static ObjectNode aggregate(JsonNode aggregationsNode, List<InMemoryDocument> documents) throws ClientException {
+        ObjectNode resultsNode = JSON_NODE_FACTORY.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> aggregations = aggregationsNode.fields();
+        while (aggregations.hasNext()) {
+            Map.Entry<String, JsonNode> aggregation = aggregations.next();
+            resultsNode.set(aggregation.getKey(), aggregateOne(aggregation.getValue(), documents));
+        }
+        return resultsNode;
+    }
+
+    private static ObjectNode aggregateOne(JsonNode aggregationNode, List<InMemoryDocument> documents) throws ClientException {
+        JsonNode subAggregationsNode = aggregationNode.has(SchemaKeys.KEY_AGGREGATIONS) ? aggregationNode.get(SchemaKeys.KEY_AGGREGATIONS) : aggregationNode.path(KEY_AGGS);
+
+        Iterator<Map.Entry<String, JsonNode>> fields = aggregationNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode definitionNode = field.getValue();
+            switch (field.getKey()) {
+                case SchemaKeys.KEY_AGGREGATIONS:
+                case KEY_AGGS:
+                    continue;
+                case SchemaKeys.KEY_TERMS:
+                    return terms(definitionNode, subAggregationsNode, documents);
+                case SchemaKeys.KEY_DATE_HISTOGRAM:
+                    return dateHistogram(definitionNode, subAggregationsNode, documents);
+                case SchemaKeys.KEY_COMPOSITE:
+                    return composite(definitionNode, subAggregationsNode, documents);
+                case SchemaKeys.KEY_STATS:
+                    return stats(getNumericValues(definitionNode, documents));
+                case SchemaKeys.KEY_MIN:
+                    return valueNode(getNumericValues(definitionNode, documents).stream().mapToDouble(Double::doubleValue).min());
+                case SchemaKeys.KEY_MAX:
+                    return valueNode(getNumericValues(definitionNode, documents).stream().mapToDouble(Double::doubleValue).max());
+                case KEY_AVG:
+                    return valueNode(getNumericValues(definitionNode, documents).stream().mapToDouble(Double::doubleValue).average());
+                case SchemaKeys.KEY_SUM:
+                    return JSON_NODE_FACTORY.objectNode().put(SchemaKeys.KEY_VALUE, getNumericValues(definitionNode, documents).stream().mapToDouble(Double::doubleValue).sum());
+                case KEY_VALUE_COUNT:
+                    return JSON_NODE_FACTORY.objectNode().put(SchemaKeys.KEY_VALUE, getNumericValues(definitionNode, documents).size());
+                default:
+                    throw new ClientInternalError("Unsupported aggregation: " + field.getKey());
+            }
+        }
+        throw new ClientInternalError("Aggregation without a type: " + aggregationNode);
+    }
+
+    //
+    // Bucket aggregations
+    //
+
+    private static ObjectNode terms(JsonNode termsNode, JsonNode subAggregationsNode, List<InMemoryDocument> documents) throws ClientException {
+        String field = termsNode.path(SchemaKeys.KEY_FIELD).asText();
+        Map<JsonNode, List<InMemoryDocument>> documentsByTerm = new TreeMap<>(InMemoryDocumentValues::compare);
+        for (InMemoryDocument document : documents) {
+            for (JsonNode value : InMemoryDocumentValues.getValues(document.getSource(), field)) {
+                documentsByTerm.computeIfAbsent(value, term -> new ArrayList<>()).add(document);
+            }
+        }
+
+        // Most frequent terms first, then by term
+        List<Map.Entry<JsonNode, List<InMemoryDocument>>> termBuckets = new ArrayList<>(documentsByTerm.entrySet());
+        termBuckets.sort((bucket, otherBucket) -> Integer.compare(otherBucket.getValue().size(), bucket.getValue().size()));
+
+        int size = termsNode.path(SchemaKeys.KEY_SIZE).asInt(DEFAULT_SIZE);
+        ObjectNode resultNode = JSON_NODE_FACTORY.objectNode();
+        ArrayNode bucketsNode = JSON_NODE_FACTORY.arrayNode();
+        long otherDocCount = 0;
+        for (int i = 0; i < termBuckets.size(); i++) {
+            Map.Entry<JsonNode, List<InMemoryDocument>> termBucket = termBuckets.get(i);
+            if (i < size) {
+                bucketsNode.add(bucket(termBucket.getKey(), termBucket.getValue(), subAggregationsNode));
+            } else {
+                otherDocCount += termBucket.getValue().size();
+            }
+        }
+        resultNode.put(KEY_DOC_COUNT_ERROR_UPPER_BOUND, 0);
+        resultNode.put(KEY_SUM_OTHER_DOC_COUNT, otherDocCount);
+        resultNode.set(SchemaKeys.KEY_BUCKETS, bucketsNode);
+        return resultNode;
+    }
+
+    private static ObjectNode dateHistogram(JsonNode dateHistogramNode, JsonNode subAggregationsNode, List<InMemoryDocument> documents) throws ClientException {
+        String field = dateHistogramNode.path(SchemaKeys.KEY_FIELD).asText();
+        long interval = parseInterval(dateHistogramNode.path(SchemaKeys.KEY_FIXED_INTERVAL).asText());
+
+        TreeMap<Long, List<InMemoryDocument>> documentsByBucket = new TreeMap<>();
+        for (InMemoryDocument document : documents) {
+            for (JsonNode value : InMemoryDocumentValues.getValues(document.getSource(), field)) {
+                Long bucketKey = toBucketKey(value, interval);
+                if (bucketKey != null) {
+                    documentsByBucket.computeIfAbsent(bucketKey, key -> new ArrayList<>()).add(document);
+                }
+            }
+        }
+
+        // Empty buckets between the first and the last one are returned only with a min_doc_count of 0
+        if (dateHistogramNode.path(SchemaKeys.KEY_MIN_DOC_COUNT).asInt(1) == 0 && !documentsByBucket.isEmpty()) {
+            for (long bucketKey = documentsByBucket.firstKey(); bucketKey < documentsByBucket.lastKey(); bucketKey += interval) {
+                documentsByBucket.putIfAbsent(bucketKey, new ArrayList<>());
+            }
+        }
+
+        ArrayNode bucketsNode = JSON_NODE_FACTORY.arrayNode();
+        for (Map.Entry<Long, List<InMemoryDocument>> dateBucket : documentsByBucket.entrySet()) {
+            ObjectNode bucketNode = bucket(JSON_NODE_FACTORY.numberNode(dateBucket.getKey()), dateBucket.getValue(), subAggregationsNode);
+            bucketNode.put(KEY_KEY_AS_STRING, Instant.ofEpochMilli(dateBucket.getKey()).toString());
+            bucketsNode.add(bucketNode);
+        }
+        ObjectNode resultNode = JSON_NODE_FACTORY.objectNode();
+        resultNode.set(SchemaKeys.KEY_BUCKETS, bucketsNode);
+        return resultNode;
+    }
+
+    private static ObjectNode composite(JsonNode compositeNode, JsonNode subAggregationsNode, List<InMemoryDocument> documents) throws ClientException {
+        List<String> sourceNames = new ArrayList<>();
+        List<JsonNode> sourceNodes = new ArrayList<>();
+        for (JsonNode sourceNode : compositeNode.path(SchemaKeys.KEY_SOURCES)) {
+            Map.Entry<String, JsonNode> source = sourceNode.fields().next();
+            sourceNames.add(source.getKey());
+            sourceNodes.add(source.getValue());
+        }
+
+        TreeMap<List<JsonNode>, List<InMemoryDocument>> documentsByKey = new TreeMap<>(COMPOSITE_KEY_COMPARATOR);
+        for (InMemoryDocument document : documents) {
+            List<List<JsonNode>> sourcesValues = new ArrayList<>();
+            for (JsonNode sourceNode : sourceNodes) {
+                sourcesValues.add(getSourceValues(sourceNode, document));
+            }
+            addCompositeKeys(sourcesValues, new ArrayList<>(), document, documentsByKey);
+        }
+
+        List<JsonNode> afterKey = null;
+        if (compositeNode.has(SchemaKeys.KEY_AFTER)) {
+            afterKey = new ArrayList<>();
+            for (String sourceName : sourceNames) {
+                afterKey.add(compositeNode.get(SchemaKeys.KEY_AFTER).path(sourceName));
+            }
+        }
+        Map<List<JsonNode>, List<InMemoryDocument>> pageDocumentsByKey = afterKey != null ? documentsByKey.tailMap(afterKey, false) : documentsByKey;
+
+        int size = compositeNode.path(SchemaKeys.KEY_SIZE).asInt(DEFAULT_SIZE);
+        ArrayNode bucketsNode = JSON_NODE_FACTORY.arrayNode();
+        ObjectNode lastKeyNode = null;
+        for (Map.Entry<List<JsonNode>, List<InMemoryDocument>> compositeBucket : pageDocumentsByKey.entrySet()) {
+            if (bucketsNode.size() >= size) {
+                break;
+            }
+            ObjectNode keyNode = JSON_NODE_FACTORY.objectNode();
+            for (int i = 0; i < sourceNames.size(); i++) {
+                keyNode.set(sourceNames.get(i), compositeBucket.getKey().get(i));
+            }
+            bucketsNode.add(bucket(keyNode, compositeBucket.getValue(), subAggregationsNode));
+            lastKeyNode = keyNode;
+        }
+
+        ObjectNode resultNode = JSON_NODE_FACTORY.objectNode();
+        if (lastKeyNode != null) {
+            resultNode.set(SchemaKeys.KEY_AFTER_KEY, lastKeyNode.deepCopy());
+        }
+        resultNode.set(SchemaKeys.KEY_BUCKETS, bucketsNode);
+        return resultNode;
+    }
+
+    private static List<JsonNode> getSourceValues(JsonNode sourceNode, InMemoryDocument document) throws ClientException {
+        List<JsonNode> sourceValues = new ArrayList<>();
+        if (sourceNode.has(SchemaKeys.KEY_TERMS)) {
+            sourceValues.addAll(InMemoryDocumentValues.getValues(document.getSource(), sourceNode.get(SchemaKeys.KEY_TERMS).path(SchemaKeys.KEY_FIELD).asText()));
+        } else if (sourceNode.has(SchemaKeys.KEY_DATE_HISTOGRAM)) {
+            JsonNode dateHistogramNode = sourceNode.get(SchemaKeys.KEY_DATE_HISTOGRAM);
+            long interval = parseInterval(dateHistogramNode.path(SchemaKeys.KEY_FIXED_INTERVAL).asText());
+            for (JsonNode value : InMemoryDocumentValues.getValues(document.getSource(), dateHistogramNode.path(SchemaKeys.KEY_FIELD).asText())) {
+                Long bucketKey = toBucketKey(value, interval);
+                if (bucketKey != null) {
+                    sourceValues.add(JSON_NODE_FACTORY.numberNode(bucketKey));
+                }
+            }
+        } else {
+            throw new ClientInternalError("Unsupported composite source: " + sourceNode);
+        }
+        return sourceValues;
+    }
+
+    /**
+     * Adds the {@link InMemoryDocument} to the buckets of all the combinations of its source values.
+     * Documents missing a source value are not part of any bucket.
+     */
+    private static void addCompositeKeys(List<List<JsonNode>> sourcesValues, List<JsonNode> key, InMemoryDocument document, Map<List<JsonNode>, List<InMemoryDocument>> documentsByKey) {
+        if (key.size() == sourcesValues.size()) {
+            documentsByKey.computeIfAbsent(new ArrayList<>(key), compositeKey -> new ArrayList<>()).add(document);
+            return;
+        }
+        for (JsonNode sourceValue : sourcesValues.get(key.size())) {
+            key.add(sourceValue);
+            addCompositeKeys(sourcesValues, key, document, documentsByKey);
+            key.remove(key.size() - 1);
+        }
+    }
+
+    private static ObjectNode bucket(JsonNode keyNode, List<InMemoryDocument> documents, JsonNode subAggregationsNode) throws ClientException {
+        ObjectNode bucketNode = JSON_NODE_FACTORY.objectNode();
+        bucketNode.set(SchemaKeys.KEY_KEY, keyNode);
+        bucketNode.put(SchemaKeys.KEY_DOC_COUNT, documents.size());
+        if (!subAggregationsNode.isMissingNode()) {
+            bucketNode.setAll(aggregate(subAggregationsNode, documents));
+        }
+        return bucketNode;
+    }
+
+    //
+    // Metric aggregations
+    //
+
+    private static List<Double> getNumericValues(JsonNode metricNode, List<InMemoryDocument> documents) {
+        String field = metricNode.path(SchemaKeys.KEY_FIELD).asText();
+        List<Double> numericValues = new ArrayList<>();
+        for (InMemoryDocument document : documents) {
+            for (JsonNode value : InMemoryDocumentValues.getValues(document.getSource(), field)) {
+                if (value.isNumber()) {
+                    numericValues.add(value.asDouble());
+                } else {
+                    // As in Elasticsearch, dates are aggregated as epoch milliseconds
+                    Long epochMillis = InMemoryDocumentValues.toEpochMillis(value);
+                    if (epochMillis != null) {
+                        numericValues.add(epochMillis.doubleValue());
+                    }
+                }
+            }
+        }
+        return numericValues;
+    }
+
+    private static ObjectNode stats(List<Double> values) {
+        ObjectNode statsNode = JSON_NODE_FACTORY.objectNode();
+        statsNode.put(KEY_COUNT, values.size());
+        if (values.isEmpty()) {
+            statsNode.putNull(SchemaKeys.KEY_MIN);
+            statsNode.putNull(SchemaKeys.KEY_MAX);
+            statsNode.putNull(KEY_AVG);
+            statsNode.put(SchemaKeys.KEY_SUM, 0.0);
+            return statsNode;
+        }
+
+        double sum = values.stream().mapToDouble(Double::doubleValue).sum();
+        statsNode.put(SchemaKeys.KEY_MIN, values.stream().mapToDouble(Double::doubleValue).min().getAsDouble());
+        statsNode.put(SchemaKeys.KEY_MAX, values.stream().mapToDouble(Double::doubleValue).max().getAsDouble());
+        statsNode.put(KEY_AVG, sum / values.size());
+        statsNode.put(SchemaKeys.KEY_SUM, sum);
+        return statsNode;
+    }
+
+    private static ObjectNode valueNode(OptionalDouble value) {
+        ObjectNode valueNode = JSON_NODE_FACTORY.objectNode();
+        if (value.isPresent()) {
+            valueNode.put(SchemaKeys.KEY_VALUE, value.getAsDouble());
+        } else {
+            valueNode.putNull(SchemaKeys.KEY_VALUE);
+        }
+        return valueNode;
+    }
+
+    //
+    // Intervals
+    //
+
+    private static Long toBucketKey(JsonNode value, long interval) {
+        Long epochMillis = InMemoryDocumentValues.toEpochMillis(value);
+        return epochMillis != null ? Math.floorDiv(epochMillis, interval) * interval : null;
+    }
+
+    /**
+     * Parses a fixed interval, like {@code 60000ms}, {@code 30s}, {@code 5m}, {@code 1h} or {@code 1d}, to milliseconds.
+     */
+    private static long parseInterval(String fixedInterval) throws ClientException {
+        int unitIndex = 0;
+        while (unitIndex < fixedInterval.length() && Character.isDigit(fixedInterval.charAt(unitIndex))) {
+            unitIndex++;
+        }
+        if (unitIndex == 0) {
+            throw new ClientInternalError("Unsupported fixed interval: " + fixedInterval);
+        }
+
+        long amount = Long.parseLong(fixedInterval.substring(0, unitIndex));
+        long interval;
+        switch (fixedInterval.substring(unitIndex)) {
+            case "ms":
+                interval = amount;
+                break;
+            case "s":
+                interval = TimeUnit.SECONDS.toMillis(amount);
+                break;
+            case "m":
+                interval = TimeUnit.MINUTES.toMillis(amount);
+                break;
+            case "h":
+                interval = TimeUnit.HOURS.toMillis(amount);
+                break;
+            case "d":
+                interval = TimeUnit.DAYS.toMillis(amount);
+                break;
+            default:
+                throw new ClientInternalError("Unsupported fixed interval: " + fixedInterval);
+        }
+        if (interval <= 0) {
+            throw new ClientInternalError("Unsupported fixed interval: " + fixedInterval);
+        }
+        return interval;
+    }
+}
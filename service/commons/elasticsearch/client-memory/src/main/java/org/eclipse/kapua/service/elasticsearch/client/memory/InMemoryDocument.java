@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.memory;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A document stored by the {@link InMemoryDocumentStore}.
+ * <p>
+ * Its source is never modified once stored: updates replace the whole {@link InMemoryDocument}.
+ *
+ * @since 2.0.0
+ */
+public class InMemoryDocument {
+
+    private final String index;
+    private final String type;
+    private final String id;
+    private final ObjectNode source;
+
+    /**
+     * Constructor.
+     *
+     * @param index  The index name.
+     * @param type   The type name.
+     * @param id     The document identifier.
+     * @param source The document source.
+     * @since 2.0.0
+     */
+    public InMemoryDocument(String index, String type, String id, ObjectNode source) {
+        this.index = index;
+        this.type = type;
+        this.id = id;
+        this.source = source;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ObjectNode getSource() {
+        return source;
+    }
+}
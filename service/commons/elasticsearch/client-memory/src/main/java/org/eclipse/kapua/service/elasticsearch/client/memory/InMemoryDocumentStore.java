@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.memory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * The in-memory store of the {@link InMemoryIndex}es.
+ * <p>
+ * Index names are resolved as Elasticsearch does: a comma separated list of names, each of which can contain {@code *} wildcards.
+ * Missing indexes are ignored, as the REST client ignores the not found responses.
+ *
+ * @since 2.0.0
+ */
+public class InMemoryDocumentStore implements Closeable {
+
+    private final Map<String, InMemoryIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the {@link InMemoryIndex} with the given name, creating it if missing.
+     *
+     * @param indexName The index name.
+     * @return The {@link InMemoryIndex}.
+     * @since 2.0.0
+     */
+    public InMemoryIndex getOrCreateIndex(String indexName) {
+        return indexes.computeIfAbsent(indexName, InMemoryIndex::new);
+    }
+
+    /**
+     * Gets the {@link InMemoryIndex}es matching the given index names.
+     *
+     * @param indexNames The comma separated index names, which can contain {@code *} wildcards.
+     * @return The matching {@link InMemoryIndex}es, sorted by name.
+     * @since 2.0.0
+     */
+    public List<InMemoryIndex> findIndexes(String indexNames) {
+        Map<String, InMemoryIndex> matchingIndexes = new TreeMap<>();
+        for (String indexName : indexNames.split(",")) {
+            String trimmedIndexName = indexName.trim();
+            if (trimmedIndexName.contains("*")) {
+                Pattern indexPattern = InMemoryDocumentValues.toPattern(trimmedIndexName);
+                indexes.forEach((name, index) -> {
+                    if (indexPattern.matcher(name).matches()) {
+                        matchingIndexes.put(name, index);
+                    }
+                });
+            } else if ("_all".equals(trimmedIndexName)) {
+                matchingIndexes.putAll(indexes);
+            } else {
+                InMemoryIndex index = indexes.get(trimmedIndexName);
+                if (index != null) {
+                    matchingIndexes.put(trimmedIndexName, index);
+                }
+            }
+        }
+        return new ArrayList<>(matchingIndexes.values());
+    }
+
+    /**
+     * Gets the {@link InMemoryDocument}s stored in the {@link InMemoryIndex}es matching the given index names.
+     * <p>
+     * As in Elasticsearch 7, the type of the documents is not taken into account.
+     *
+     * @param indexNames The comma separated index names, which can contain {@code *} wildcards.
+     * @return The {@link InMemoryDocument}s.
+     * @since 2.0.0
+     */
+    public List<InMemoryDocument> findDocuments(String indexNames) {
+        List<InMemoryDocument> documents = new ArrayList<>();
+        for (InMemoryIndex index : findIndexes(indexNames)) {
+            documents.addAll(index.getDocuments().values());
+        }
+        return documents;
+    }
+
+    /**
+     * Deletes the {@link InMemoryIndex}es matching the given index names.
+     *
+     * @param indexNames The comma separated index names, which can contain {@code *} wildcards.
+     * @since 2.0.0
+     */
+    public void deleteIndexes(String indexNames) {
+        for (InMemoryIndex index : findIndexes(indexNames)) {
+            indexes.remove(index.getName());
+        }
+    }
+
+    /**
+     * Deletes all the {@link InMemoryIndex}es.
+     *
+     * @since 2.0.0
+     */
+    @Override
+    public void close() {
+        indexes.clear();
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.memory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Reads and compares the values of the fields of the {@link InMemoryDocument}s.
+ * <p>
+ * Since the mappings are not taken into account, values are compared by their JSON representation:
+ * numbers as numbers, dates (epoch milliseconds or ISO-8601 text) as dates and anything else as text.
+ *
+ * @since 2.0.0
+ */
+public class InMemoryDocumentValues {
+
+    private InMemoryDocumentValues() {
+    }
+
+    /**
+     * Gets the values of the given field.
+     * <p>
+     * The field is a dot separated path, whose parts can be either nested objects or dotted keys. Arrays are flattened.
+     *
+     * @param source The document source.
+     * @param field  The field path.
+     * @return The non-null values of the field.
+     * @since 2.0.0
+     */
+    public static List<JsonNode> getValues(JsonNode source, String field) {
+        List<JsonNode> values = new ArrayList<>();
+        collectValues(source, field, values);
+        return values;
+    }
+
+    /**
+     * Gets the first value of the given field.
+     *
+     * @param source The document source.
+     * @param field  The field path.
+     * @return The first non-null value of the field, or {@code null} if missing.
+     * @since 2.0.0
+     */
+    public static JsonNode getValue(JsonNode source, String field) {
+        List<JsonNode> values = getValues(source, field);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    private static void collectValues(JsonNode node, String path, List<JsonNode> values) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return;
+        }
+        if (node.isArray()) {
+            for (JsonNode element : node) {
+                collectValues(element, path, values);
+            }
+            return;
+        }
+        if (path.isEmpty()) {
+            values.add(node);
+            return;
+        }
+        if (!node.isObject()) {
+            return;
+        }
+
+        if (node.has(path)) {
+            collectValues(node.get(path), "", values);
+        }
+        for (int dotIndex = path.indexOf('.'); dotIndex > 0; dotIndex = path.indexOf('.', dotIndex + 1)) {
+            JsonNode child = node.get(path.substring(0, dotIndex));
+            if (child != null) {
+                collectValues(child, path.substring(dotIndex + 1), values);
+            }
+        }
+    }
+
+    /**
+     * Compares two values.
+     *
+     * @param value      The value.
+     * @param otherValue The other value.
+     * @return A negative number, zero or a positive number as the value is less than, equal to or greater than the other value.
+     * @since 2.0.0
+     */
+    public static int compare(JsonNode value, JsonNode otherValue) {
+        if (value.isNumber() && otherValue.isNumber()) {
+            return Double.compare(value.asDouble(), otherValue.asDouble());
+        }
+
+        Long epochMillis = toEpochMillis(value);
+        Long otherEpochMillis = toEpochMillis(otherValue);
+        if (epochMillis != null && otherEpochMillis != null) {
+            return Long.compare(epochMillis, otherEpochMillis);
+        }
+
+        return value.asText().compareTo(otherValue.asText());
+    }
+
+    /**
+     * Converts a value to epoch milliseconds.
+     *
+     * @param value The value, either a number of epoch milliseconds or an ISO-8601 text.
+     * @return The epoch milliseconds, or {@code null} if the value is not a date.
+     * @since 2.0.0
+     */
+    public static Long toEpochMillis(JsonNode value) {
+        if (value.isIntegralNumber()) {
+            return value.asLong();
+        }
+        if (!value.isTextual()) {
+            return null;
+        }
+
+        try {
+            return Instant.parse(value.asText()).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            try {
+                return OffsetDateTime.parse(value.asText()).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e1) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Converts an expression with {@code *} wildcards to a {@link Pattern}.
+     *
+     * @param expression The expression with {@code *} wildcards.
+     * @return The {@link Pattern}.
+     * @since 2.0.0
+     */
+    public static Pattern toPattern(String expression) {
+        StringBuilder regex = new StringBuilder();
+        String[] parts = expression.split("\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(parts[i]));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
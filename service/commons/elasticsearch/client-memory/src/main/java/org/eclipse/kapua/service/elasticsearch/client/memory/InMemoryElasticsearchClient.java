@@ -0,0 +1,724 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.memory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.eclipse.kapua.service.elasticsearch.client.AbstractElasticsearchClient;
+import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
+import org.eclipse.kapua.service.elasticsearch.client.QueryConverter;
+import org.eclipse.kapua.service.elasticsearch.client.SchemaKeys;
+import org.eclipse.kapua.service.elasticsearch.client.configuration.ElasticsearchClientRequestConfiguration;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientErrorCodes;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientException;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientInitializationException;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientInternalError;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientUnavailableException;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkUpdateRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkUpdateResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.IndexRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.IndexResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.ResultList;
+import org.eclipse.kapua.service.elasticsearch.client.model.TypeDescriptor;
+import org.eclipse.kapua.service.elasticsearch.client.model.UpdateRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.UpdateResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Client to execute the Elasticsearch operations against an {@link InMemoryDocumentStore}.
+ * <p>
+ * It is meant for tests and local development, where a running Elasticsearch cluster is not available or too slow to set up.
+ * The documents are converted with the same {@link ModelContext} and the queries with the same {@link QueryConverter} used for Elasticsearch,
+ * so the whole datastore stack is exercised. Differences from Elasticsearch:
+ * <ul>
+ *     <li>mappings are stored but not enforced: values are compared by their JSON type (see {@link InMemoryDocumentValues})</li>
+ *     <li>documents are visible as soon as they are stored, so {@link #refreshAllIndexes()} has nothing to do</li>
+ *     <li>the order of the results of a query without sort is not specified</li>
+ * </ul>
+ * The latency of a remote cluster can be simulated with {@link ElasticsearchClientRequestConfiguration#getSimulatedLatency()}.
+ *
+ * @since 2.0.0
+ */
+public class InMemoryElasticsearchClient extends AbstractElasticsearchClient<InMemoryDocumentStore> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryElasticsearchClient.class);
+
+    private static final String QUERY_CONVERTED_QUERY = "Query - converted query: '{}'";
+    private static final String COUNT_CONVERTED_QUERY = "Count - converted query: '{}'";
+    private static final String STREAM_CONVERTED_QUERY = "Stream - converted query: '{}'";
+    private static final String AGGREGATE_CONVERTED_QUERY = "Aggregate - converted query: '{}'";
+
+    private static final String KEY_ORDER = "order";
+    private static final String INDEX_ALL = "_all";
+
+    /**
+     * The default of Elasticsearch for {@link SchemaKeys#KEY_TRACK_TOTAL_HITS}.
+     */
+    private static final int DEFAULT_TRACK_TOTAL_HITS = 10000;
+    private static final int DEFAULT_SIZE = 10;
+
+    private final ObjectMapper objectMapper;
+
+    private ScheduledExecutorService asyncExecutor;
+
+    /**
+     * Constructor.
+     *
+     * @since 2.0.0
+     */
+    public InMemoryElasticsearchClient() {
+        super("memory");
+
+        objectMapper = new ObjectMapper();
+        objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+    }
+
+    @Override
+    public void init() throws ClientInitializationException {
+        if (getClientConfiguration() == null) {
+            throw new ClientInitializationException("Client configuration not defined");
+        }
+        if (getModelContext() == null) {
+            throw new ClientInitializationException("Missing model context");
+        }
+        if (getModelConverter() == null) {
+            throw new ClientInitializationException("Missing model converter");
+        }
+        if (getClient() == null) {
+            throw new ClientInitializationException("Missing document store");
+        }
+
+        asyncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "elasticsearch-client-memory-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void close() {
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdownNow();
+            asyncExecutor = null;
+        }
+    }
+
+    @Override
+    public InsertResponse insert(InsertRequest insertRequest) throws ClientException {
+        simulateLatency();
+
+        return insertDocument(insertRequest);
+    }
+
+    @Override
+    public BulkInsertResponse insert(BulkInsertRequest bulkInsertRequest) throws ClientException {
+        simulateLatency();
+
+        return insertDocuments(bulkInsertRequest);
+    }
+
+    @Override
+    public UpdateResponse upsert(UpdateRequest updateRequest) throws ClientException {
+        simulateLatency();
+
+        return upsertDocument(updateRequest);
+    }
+
+    @Override
+    public BulkUpdateResponse upsert(BulkUpdateRequest bulkUpdateRequest) throws ClientException {
+        simulateLatency();
+
+        BulkUpdateResponse bulkResponse = new BulkUpdateResponse();
+        for (UpdateRequest updateRequest : bulkUpdateRequest.getRequest()) {
+            bulkResponse.add(upsertDocument(updateRequest));
+        }
+        return bulkResponse;
+    }
+
+    @Override
+    public <T> T find(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) throws ClientException {
+        ResultList<T> result = query(typeDescriptor, query, clazz);
+
+        return result.getResult().isEmpty() ? null : result.getResult().get(0);
+    }
+
+    @Override
+    public <T> ResultList<T> query(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) throws ClientException {
+        simulateLatency();
+
+        return queryDocuments(typeDescriptor, query, clazz);
+    }
+
+    @Override
+    public long count(TypeDescriptor typeDescriptor, Object query) throws ClientException {
+        JsonNode queryJsonNode = convertQuery(query);
+        LOG.debug(COUNT_CONVERTED_QUERY, queryJsonNode);
+
+        simulateLatency();
+
+        long totalCount = search(typeDescriptor, queryJsonNode).size();
+
+        // Capped count
+        JsonNode trackTotalHitsNode = queryJsonNode.get(SchemaKeys.KEY_TRACK_TOTAL_HITS);
+        if (trackTotalHitsNode != null && trackTotalHitsNode.isInt()) {
+            totalCount = Math.min(totalCount, trackTotalHitsNode.asInt());
+        }
+        return totalCount;
+    }
+
+    @Override
+    public void delete(TypeDescriptor typeDescriptor, String id) throws ClientException {
+        LOG.debug("Delete - id: '{}'", id);
+        simulateLatency();
+
+        for (InMemoryIndex index : getClient().findIndexes(typeDescriptor.getIndex())) {
+            index.getDocuments().remove(id);
+        }
+    }
+
+    @Override
+    public void deleteByQuery(TypeDescriptor typeDescriptor, Object query) throws ClientException {
+        JsonNode queryJsonNode = convertQuery(query);
+        LOG.debug(QUERY_CONVERTED_QUERY, queryJsonNode);
+
+        simulateLatency();
+
+        for (InMemoryIndex index : getClient().findIndexes(typeDescriptor.getIndex())) {
+            for (InMemoryDocument document : index.getDocuments().values()) {
+                if (InMemoryQueryMatcher.matches(queryJsonNode.get(SchemaKeys.KEY_QUERY), document)) {
+                    index.getDocuments().remove(document.getId(), document);
+                }
+            }
+        }
+    }
+
+    @Override
+    public <T> long stream(TypeDescriptor typeDescriptor, Object query, String tieBreakerField, Class<T> clazz, Consumer<T> consumer) throws ClientException {
+        JsonNode queryJsonNode = convertQuery(query);
+        LOG.debug(STREAM_CONVERTED_QUERY, queryJsonNode);
+
+        ObjectNode streamQueryJsonNode = (ObjectNode) queryJsonNode;
+        streamQueryJsonNode.withArray(SchemaKeys.KEY_SORT).addObject().put(tieBreakerField, SchemaKeys.SORT_ASCENDING_VALUE);
+
+        simulateLatency();
+
+        // The matching documents are read once, but handed over in pages so that the simulated latency is paid for each of them
+        int pageSize = getClientConfiguration().getRequestConfiguration().getStreamPageSize();
+        Object queryFetchStyle = getModelConverter().getFetchStyle(query);
+        List<InMemoryDocument> documents = search(typeDescriptor, streamQueryJsonNode);
+        long streamedCount = 0;
+        for (InMemoryDocument document : documents) {
+            if (streamedCount > 0 && streamedCount % pageSize == 0) {
+                simulateLatency();
+            }
+            consumer.accept(readHit(document, streamQueryJsonNode.get(SchemaKeys.KEY_SOURCE), clazz, queryFetchStyle));
+            streamedCount++;
+        }
+        return streamedCount;
+    }
+
+    @Override
+    public JsonNode aggregate(TypeDescriptor typeDescriptor, Object query) throws ClientException {
+        JsonNode queryJsonNode = convertQuery(query);
+        LOG.debug(AGGREGATE_CONVERTED_QUERY, queryJsonNode);
+
+        simulateLatency();
+
+        JsonNode aggregationsNode = queryJsonNode.get(SchemaKeys.KEY_AGGREGATIONS);
+        if (aggregationsNode == null) {
+            return objectMapper.createObjectNode();
+        }
+        return InMemoryAggregator.aggregate(aggregationsNode, search(typeDescriptor, queryJsonNode));
+    }
+
+    @Override
+    public IndexResponse isIndexExists(IndexRequest indexRequest) throws ClientException {
+        LOG.debug("Index exists - index name: '{}'", indexRequest.getIndex());
+        simulateLatency();
+
+        return new IndexResponse(!getClient().findIndexes(indexRequest.getIndex()).isEmpty());
+    }
+
+    @Override
+    public IndexResponse findIndexes(IndexRequest indexRequest) throws ClientException {
+        LOG.debug("Find indexes - index prefix: '{}'", indexRequest.getIndex());
+        simulateLatency();
+
+        return new IndexResponse(getClient().findIndexes(indexRequest.getIndex()).stream().map(InMemoryIndex::getName).toArray(String[]::new));
+    }
+
+    /**
+     * Creates the index.
+     * <p>
+     * Unlike Elasticsearch, creating an index which already exists is not an error. The index settings are ignored.
+     */
+    @Override
+    public void createIndex(String indexName, ObjectNode indexSettings) throws ClientException {
+        LOG.debug("Create index - object: '{}'", indexSettings);
+        simulateLatency();
+
+        getClient().getOrCreateIndex(indexName);
+    }
+
+    @Override
+    public boolean isMappingExists(TypeDescriptor typeDescriptor) throws ClientException {
+        LOG.debug("Mapping exists - mapping name: '{} - {}'", typeDescriptor.getIndex(), typeDescriptor.getType());
+        simulateLatency();
+
+        return getClient().findIndexes(typeDescriptor.getIndex()).stream().anyMatch(index -> !index.getMappings().isEmpty());
+    }
+
+    @Override
+    public void putMapping(TypeDescriptor typeDescriptor, JsonNode mapping) throws ClientException {
+        LOG.debug("Create mapping - object: '{}, index: {}, type: {}'", mapping, typeDescriptor.getIndex(), typeDescriptor.getType());
+        simulateLatency();
+
+        List<InMemoryIndex> indexes = getClient().findIndexes(typeDescriptor.getIndex());
+        if (indexes.isEmpty()) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, "Create mapping", "no such index [" + typeDescriptor.getIndex() + "]");
+        }
+        for (InMemoryIndex index : indexes) {
+            // Mappings put later add their fields to the existing ones, as Elasticsearch does
+            index.getMappings().merge(typeDescriptor.getType(), mapping.deepCopy(), (storedMapping, newMapping) -> {
+                if (!storedMapping.isObject() || !newMapping.isObject()) {
+                    return newMapping;
+                }
+                ObjectNode mergedMapping = ((ObjectNode) storedMapping).deepCopy();
+                merge(mergedMapping, (ObjectNode) newMapping);
+                return mergedMapping;
+            });
+        }
+    }
+
+    @Override
+    public JsonNode getMapping(TypeDescriptor typeDescriptor) throws ClientException {
+        LOG.debug("Get mapping - index: {}, type: {}", typeDescriptor.getIndex(), typeDescriptor.getType());
+        simulateLatency();
+
+        for (InMemoryIndex index : getClient().findIndexes(typeDescriptor.getIndex())) {
+            JsonNode mapping = index.getMappings().get(typeDescriptor.getType());
+            if (mapping != null) {
+                return mapping.deepCopy();
+            }
+        }
+        return MissingNode.getInstance();
+    }
+
+    @Override
+    public void refreshAllIndexes() throws ClientException {
+        LOG.debug("Refresh all indexes");
+        simulateLatency();
+    }
+
+    @Override
+    public void deleteAllIndexes() throws ClientException {
+        LOG.debug("Delete all indexes");
+        simulateLatency();
+
+        getClient().deleteIndexes(INDEX_ALL);
+    }
+
+    @Override
+    public void deleteIndexes(String... indexes) throws ClientException {
+        LOG.debug("Delete indexes");
+        simulateLatency();
+
+        for (String index : indexes) {
+            LOG.debug("Delete index: {}", index);
+            getClient().deleteIndexes(index);
+        }
+    }
+
+    //
+    // Asynchronous section
+    //
+
+    @Override
+    public CompletionStage<InsertResponse> insertAsync(InsertRequest insertRequest) {
+        return performAsync(() -> insertDocument(insertRequest));
+    }
+
+    @Override
+    public CompletionStage<UpdateResponse> upsertAsync(UpdateRequest updateRequest) {
+        return performAsync(() -> upsertDocument(updateRequest));
+    }
+
+    @Override
+    public CompletionStage<BulkInsertResponse> bulkAsync(BulkInsertRequest bulkInsertRequest) {
+        if (bulkInsertRequest.getRequest().isEmpty()) {
+            return CompletableFuture.completedFuture(new BulkInsertResponse());
+        }
+
+        return performAsync(() -> insertDocuments(bulkInsertRequest));
+    }
+
+    @Override
+    public <T> CompletionStage<ResultList<T>> queryAsync(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) {
+        return performAsync(() -> queryDocuments(typeDescriptor, query, clazz));
+    }
+
+    /**
+     * Performs the given operation without blocking the caller.
+     * <p>
+     * The operation is delayed by the simulated latency, so that callers observe the same timing of a remote cluster.
+     *
+     * @param operation The {@link ClientOperation} to perform.
+     * @param <T>       The type of the result.
+     * @return The {@link CompletionStage} of the result.
+     * @since 2.0.0
+     */
+    private <T> CompletionStage<T> performAsync(ClientOperation<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ScheduledExecutorService executor = asyncExecutor;
+        if (executor == null) {
+            result.completeExceptionally(new ClientUnavailableException("Elasticsearch in-memory client is closed"));
+            return result;
+        }
+
+        try {
+            executor.schedule(() -> {
+                try {
+                    result.complete(operation.perform());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }, getSimulatedLatency(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new ClientUnavailableException(e, "Elasticsearch in-memory client is closed"));
+        }
+        return result;
+    }
+
+    //
+    // Operations
+    //
+
+    private InsertResponse insertDocument(InsertRequest insertRequest) throws ClientException {
+        TypeDescriptor typeDescriptor = insertRequest.getTypeDescriptor();
+        String id = insertRequest.getId() != null ? insertRequest.getId() : UUID.randomUUID().toString();
+        ObjectNode source = toSource(insertRequest.getStorable());
+        LOG.debug("Insert - converted object: '{}'", source);
+
+        getClient().getOrCreateIndex(typeDescriptor.getIndex()).getDocuments().put(id, new InMemoryDocument(typeDescriptor.getIndex(), typeDescriptor.getType(), id, source));
+        return new InsertResponse(id, typeDescriptor);
+    }
+
+    private BulkInsertResponse insertDocuments(BulkInsertRequest bulkInsertRequest) throws ClientException {
+        BulkInsertResponse bulkResponse = new BulkInsertResponse();
+        for (InsertRequest insertRequest : bulkInsertRequest.getRequest()) {
+            bulkResponse.add(insertDocument(insertRequest));
+        }
+        LOG.debug("Insert bulk - documents: {}", bulkInsertRequest.getRequest().size());
+        return bulkResponse;
+    }
+
+    /**
+     * Upserts the document of the given {@link UpdateRequest}, with the semantic of {@code doc_as_upsert}: the document is merged into the stored one, if any.
+     */
+    private UpdateResponse upsertDocument(UpdateRequest updateRequest) throws ClientException {
+        TypeDescriptor typeDescriptor = updateRequest.getTypeDescriptor();
+        ObjectNode source = toSource(updateRequest.getStorable());
+        LOG.debug("Upsert - converted object: '{}'", source);
+
+        getClient().getOrCreateIndex(typeDescriptor.getIndex()).getDocuments().compute(updateRequest.getId(), (id, storedDocument) -> {
+            ObjectNode mergedSource = source;
+            if (storedDocument != null) {
+                mergedSource = storedDocument.getSource().deepCopy();
+                merge(mergedSource, source);
+            }
+            return new InMemoryDocument(typeDescriptor.getIndex(), typeDescriptor.getType(), id, mergedSource);
+        });
+        return new UpdateResponse(updateRequest.getId(), typeDescriptor);
+    }
+
+    private <T> ResultList<T> queryDocuments(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) throws ClientException {
+        JsonNode queryJsonNode = convertQuery(query);
+        LOG.debug(QUERY_CONVERTED_QUERY, queryJsonNode);
+
+        List<InMemoryDocument> documents = search(typeDescriptor, queryJsonNode);
+
+        // The total is missing when hits are not tracked, and is a lower bound when their tracking stopped before counting all of them
+        long totalCount = documents.size();
+        boolean totalCountLowerBound = false;
+        JsonNode trackTotalHitsNode = queryJsonNode.path(SchemaKeys.KEY_TRACK_TOTAL_HITS);
+        if (trackTotalHitsNode.isBoolean() && !trackTotalHitsNode.asBoolean()) {
+            totalCount = 0;
+            totalCountLowerBound = true;
+        } else if (!trackTotalHitsNode.isBoolean()) {
+            int trackTotalHits = trackTotalHitsNode.asInt(DEFAULT_TRACK_TOTAL_HITS);
+            if (totalCount > trackTotalHits) {
+                totalCount = trackTotalHits;
+                totalCountLowerBound = true;
+            }
+        }
+
+        ResultList<T> resultList = new ResultList<>(totalCount, totalCountLowerBound);
+        Object queryFetchStyle = getModelConverter().getFetchStyle(query);
+        int from = Math.min(queryJsonNode.path(SchemaKeys.KEY_FROM).asInt(0), documents.size());
+        int to = Math.min(from + queryJsonNode.path(SchemaKeys.KEY_SIZE).asInt(DEFAULT_SIZE), documents.size());
+        for (InMemoryDocument document : documents.subList(from, to)) {
+            resultList.add(readHit(document, queryJsonNode.get(SchemaKeys.KEY_SOURCE), clazz, queryFetchStyle));
+        }
+        return resultList;
+    }
+
+    /**
+     * Searches the {@link InMemoryDocument}s matching the query of the given converted query, sorted as per its sort.
+     *
+     * @param typeDescriptor The {@link TypeDescriptor} of the indexes to search.
+     * @param queryJsonNode  The converted query.
+     * @return The matching {@link InMemoryDocument}s.
+     * @throws ClientException if the query cannot be evaluated.
+     * @since 2.0.0
+     */
+    private List<InMemoryDocument> search(TypeDescriptor typeDescriptor, JsonNode queryJsonNode) throws ClientException {
+        JsonNode queryNode = queryJsonNode.get(SchemaKeys.KEY_QUERY);
+
+        List<InMemoryDocument> documents = new ArrayList<>();
+        for (InMemoryDocument document : getClient().findDocuments(typeDescriptor.getIndex())) {
+            if (InMemoryQueryMatcher.matches(queryNode, document)) {
+                documents.add(document);
+            }
+        }
+
+        JsonNode sortNode = queryJsonNode.get(SchemaKeys.KEY_SORT);
+        if (sortNode != null && sortNode.size() > 0) {
+            documents.sort(buildComparator(sortNode));
+        }
+        return documents;
+    }
+
+    /**
+     * Builds the {@link Comparator} of the given sort. As in Elasticsearch, documents missing the sort field come last.
+     */
+    private static Comparator<InMemoryDocument> buildComparator(JsonNode sortNode) {
+        Comparator<InMemoryDocument> comparator = (document, otherDocument) -> 0;
+        for (JsonNode sortFieldNode : sortNode) {
+            Map.Entry<String, JsonNode> sortField = sortFieldNode.fields().next();
+            JsonNode orderNode = sortField.getValue().isObject() ? sortField.getValue().path(KEY_ORDER) : sortField.getValue();
+            boolean descending = SchemaKeys.SORT_DESCENDING_VALUE.equalsIgnoreCase(orderNode.asText());
+            String field = sortField.getKey();
+
+            comparator = comparator.thenComparing((document, otherDocument) -> {
+                JsonNode value = InMemoryDocumentValues.getValue(document.getSource(), field);
+                JsonNode otherValue = InMemoryDocumentValues.getValue(otherDocument.getSource(), field);
+                if (value == null || otherValue == null) {
+                    return value == otherValue ? 0 : (value == null ? 1 : -1);
+                }
+                int comparison = InMemoryDocumentValues.compare(value, otherValue);
+                return descending ? -comparison : comparison;
+            });
+        }
+        return comparator;
+    }
+
+    //
+    // Conversions
+    //
+
+    private JsonNode convertQuery(Object query) throws ClientException {
+        JsonNode queryJsonNode = getModelConverter().convertQuery(query);
+        if (!queryJsonNode.isObject()) {
+            throw new ClientInternalError("Converted query is not a JSON object");
+        }
+        return queryJsonNode;
+    }
+
+    /**
+     * Converts the given storable to the source of an {@link InMemoryDocument}, the same way it is written to Elasticsearch.
+     */
+    private ObjectNode toSource(Object storable) throws ClientException {
+        TokenBuffer tokenBuffer = new TokenBuffer(objectMapper, false);
+        getModelContext().marshal(storable, tokenBuffer);
+
+        try {
+            JsonNode sourceNode = objectMapper.readTree(tokenBuffer.asParser());
+            if (sourceNode == null || !sourceNode.isObject()) {
+                throw new ClientInternalError("Converted document is not a JSON object");
+            }
+            return (ObjectNode) sourceNode;
+        } catch (IOException e) {
+            throw new ClientInternalError(e, "Cannot read the converted document");
+        }
+    }
+
+    /**
+     * Reads an {@link InMemoryDocument} as the given {@link Class}, like a search hit.
+     *
+     * @param document        The {@link InMemoryDocument}.
+     * @param sourceNode      The {@link SchemaKeys#KEY_SOURCE} of the converted query.
+     * @param clazz           The expected {@link Object#getClass()}.
+     * @param queryFetchStyle The fetch style of the query.
+     * @return The read object.
+     * @throws ClientException if the {@link InMemoryDocument} cannot be converted.
+     * @since 2.0.0
+     */
+    private <T> T readHit(InMemoryDocument document, JsonNode sourceNode, Class<T> clazz, Object queryFetchStyle) throws ClientException {
+        Map<String, Object> object = objectMapper.convertValue(filterSource(document.getSource(), sourceNode), Map.class);
+
+        object.put(ModelContext.TYPE_DESCRIPTOR_KEY, new TypeDescriptor(document.getIndex(), document.getType()));
+        object.put(getModelContext().getIdKeyName(), document.getId());
+        object.put(QueryConverter.QUERY_FETCH_STYLE_KEY, queryFetchStyle);
+
+        return getModelContext().unmarshal(clazz, object);
+    }
+
+    /**
+     * Filters the source as per the {@link SchemaKeys#KEY_INCLUDES} and {@link SchemaKeys#KEY_EXCLUDES} of the converted query.
+     */
+    private static ObjectNode filterSource(ObjectNode source, JsonNode sourceNode) {
+        if (sourceNode == null || sourceNode.isNull()) {
+            return source;
+        }
+        if (sourceNode.isBoolean()) {
+            return sourceNode.asBoolean() ? source : source.objectNode();
+        }
+
+        List<Pattern> includes = toPatterns(sourceNode.isArray() ? sourceNode : sourceNode.path(SchemaKeys.KEY_INCLUDES));
+        List<Pattern> excludes = toPatterns(sourceNode.path(SchemaKeys.KEY_EXCLUDES));
+        if (includes.isEmpty() && excludes.isEmpty()) {
+            return source;
+        }
+        return filterObject(source, "", includes, excludes);
+    }
+
+    private static ObjectNode filterObject(ObjectNode objectNode, String path, List<Pattern> includes, List<Pattern> excludes) {
+        ObjectNode filteredNode = objectNode.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String fieldPath = path.isEmpty() ? field.getKey() : path + "." + field.getKey();
+            if (matchesAny(excludes, fieldPath)) {
+                continue;
+            }
+
+            // Once a field is included, all its children are included too
+            boolean included = includes.isEmpty() || matchesAny(includes, fieldPath);
+            JsonNode value = field.getValue();
+            if (value.isObject()) {
+                ObjectNode filteredValue = filterObject((ObjectNode) value, fieldPath, included ? new ArrayList<>() : includes, excludes);
+                if (included || filteredValue.size() > 0) {
+                    filteredNode.set(field.getKey(), filteredValue);
+                }
+            } else if (included) {
+                filteredNode.set(field.getKey(), value);
+            }
+        }
+        return filteredNode;
+    }
+
+    private static List<Pattern> toPatterns(JsonNode expressionsNode) {
+        List<Pattern> patterns = new ArrayList<>();
+        if (expressionsNode.isTextual()) {
+            patterns.add(InMemoryDocumentValues.toPattern(expressionsNode.asText()));
+        }
+        for (JsonNode expressionNode : expressionsNode) {
+            if (!expressionNode.asText().isEmpty()) {
+                patterns.add(InMemoryDocumentValues.toPattern(expressionNode.asText()));
+            }
+        }
+        return patterns;
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String fieldPath) {
+        return patterns.stream().anyMatch(pattern -> pattern.matcher(fieldPath).matches());
+    }
+
+    /**
+     * Merges the given update into the given target, recursively merging the objects, as a partial document update does.
+     */
+    private static void merge(ObjectNode target, ObjectNode update) {
+        Iterator<Map.Entry<String, JsonNode>> fields = update.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode targetValue = target.get(field.getKey());
+            if (targetValue != null && targetValue.isObject() && field.getValue().isObject()) {
+                merge((ObjectNode) targetValue, (ObjectNode) field.getValue());
+            } else {
+                target.set(field.getKey(), field.getValue());
+            }
+        }
+    }
+
+    //
+    // Simulated latency
+    //
+
+    private int getSimulatedLatency() {
+        return getClientConfiguration().getRequestConfiguration().getSimulatedLatency();
+    }
+
+    /**
+     * Blocks the caller for the simulated latency, if any.
+     *
+     * @throws ClientUnavailableException if interrupted while waiting.
+     * @since 2.0.0
+     */
+    private void simulateLatency() throws ClientUnavailableException {
+        int simulatedLatency = getSimulatedLatency();
+        if (simulatedLatency <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(simulatedLatency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientUnavailableException(e, "Interrupted while simulating the request latency");
+        }
+    }
+
+    /**
+     * An operation on the {@link InMemoryDocumentStore}.
+     *
+     * @param <T> The type of the result.
+     * @since 2.0.0
+     */
+    @FunctionalInterface
+    private interface ClientOperation<T> {
+
+        /**
+         * Performs the operation.
+         *
+         * @return The result.
+         * @throws ClientException if the operation fails.
+         * @since 2.0.0
+         */
+        T perform() throws ClientException;
+    }
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.memory;
+
+import org.eclipse.kapua.commons.util.log.ConfigurationPrinter;
+import org.eclipse.kapua.service.elasticsearch.client.ElasticsearchClientProvider;
+import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
+import org.eclipse.kapua.service.elasticsearch.client.QueryConverter;
+import org.eclipse.kapua.service.elasticsearch.client.configuration.ElasticsearchClientConfiguration;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientProviderInitException;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ElasticsearchClientProvider} for the {@link InMemoryElasticsearchClient}.
+ * <p>
+ * The documents are kept in an {@link InMemoryDocumentStore}, which lives as long as the {@link InMemoryElasticsearchClientProvider}:
+ * {@link #close()} discards all of them.
+ *
+ * @since 2.0.0
+ */
+public class InMemoryElasticsearchClientProvider implements ElasticsearchClientProvider<InMemoryElasticsearchClient> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryElasticsearchClientProvider.class);
+
+    private InMemoryElasticsearchClient inMemoryElasticsearchClient;
+    private InMemoryDocumentStore documentStore;
+
+    private ElasticsearchClientConfiguration elasticsearchClientConfiguration;
+    private ModelContext modelContext;
+    private QueryConverter modelConverter;
+
+    @Override
+    public InMemoryElasticsearchClientProvider init() throws ClientProviderInitException {
+        synchronized (InMemoryElasticsearchClientProvider.class) {
+            if (elasticsearchClientConfiguration == null) {
+                throw new ClientProviderInitException("Client configuration not defined");
+            }
+            if (modelContext == null) {
+                throw new ClientProviderInitException("Model context not defined");
+            }
+            if (modelConverter == null) {
+                throw new ClientProviderInitException("Model converter not defined");
+            }
+
+            // Print Configurations
+            ConfigurationPrinter
+                    .create()
+                    .withLogger(LOG)
+                    .withLogLevel(ConfigurationPrinter.LogLevel.INFO)
+                    .withTitle("Elasticsearch In-Memory Provider Configuration")
+                    .addParameter("Module Name", elasticsearchClientConfiguration.getModuleName())
+                    .addParameter("Simulated Latency", elasticsearchClientConfiguration.getRequestConfiguration().getSimulatedLatency())
+                    .addParameter("Model Context", modelContext)
+                    .addParameter("Model Converter", modelConverter)
+                    .printLog();
+
+            // Close the current client if already initialized.
+            close();
+
+            // Init Kapua Elasticsearch Client
+            try {
+                documentStore = new InMemoryDocumentStore();
+
+                InMemoryElasticsearchClient client = new InMemoryElasticsearchClient();
+                client
+                        .withClientConfiguration(elasticsearchClientConfiguration)
+                        .withModelContext(modelContext)
+                        .withModelConverter(modelConverter)
+                        .withClient(documentStore);
+                client.init();
+
+                inMemoryElasticsearchClient = client;
+            } catch (Exception e) {
+                throw new ClientProviderInitException(e, "Cannot init ElasticsearchClient");
+            }
+
+            return this;
+        }
+    }
+
+    /**
+     * Closes the {@link InMemoryElasticsearchClientProvider}.
+     * <p>
+     * It takes care of closing the {@link InMemoryElasticsearchClient} and discarding the {@link InMemoryDocumentStore}.
+     *
+     * @since 2.0.0
+     */
+    @Override
+    public void close() {
+        synchronized (InMemoryElasticsearchClientProvider.class) {
+            if (inMemoryElasticsearchClient != null) {
+                inMemoryElasticsearchClient.close();
+                inMemoryElasticsearchClient = null;
+            }
+
+            if (documentStore != null) {
+                documentStore.close();
+                documentStore = null;
+            }
+        }
+    }
+
+    @Override
+    public InMemoryElasticsearchClientProvider withClientConfiguration(ElasticsearchClientConfiguration elasticsearchClientConfiguration) {
+        this.elasticsearchClientConfiguration = elasticsearchClientConfiguration;
+        return this;
+    }
+
+    @Override
+    public InMemoryElasticsearchClientProvider withModelContext(ModelContext modelContext) {
+        this.modelContext = modelContext;
+        return this;
+    }
+
+    @Override
+    public InMemoryElasticsearchClientProvider withModelConverter(QueryConverter modelConverter) {
+        this.modelConverter = modelConverter;
+        return this;
+    }
+
+    @Override
+    public InMemoryElasticsearchClient getElasticsearchClient() throws ClientUnavailableException {
+        if (inMemoryElasticsearchClient == null) {
+            throw new ClientUnavailableException("Client not initialized");
+        }
+
+        return inMemoryElasticsearchClient;
+    }
+}
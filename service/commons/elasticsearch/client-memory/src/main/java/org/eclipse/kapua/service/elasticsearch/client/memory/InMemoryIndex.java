@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.memory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of the {@link InMemoryDocumentStore}.
+ * <p>
+ * Mappings are only kept to be read back, merged as Elasticsearch does: documents are not validated nor converted against them.
+ *
+ * @since 2.0.0
+ */
+public class InMemoryIndex {
+
+    private final String name;
+    private final Map<String, JsonNode> mappings = new ConcurrentHashMap<>();
+    private final Map<String, InMemoryDocument> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param name The index name.
+     * @since 2.0.0
+     */
+    public InMemoryIndex(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the mappings, by type name.
+     *
+     * @return The mappings, by type name.
+     * @since 2.0.0
+     */
+    public Map<String, JsonNode> getMappings() {
+        return mappings;
+    }
+
+    /**
+     * Gets the {@link InMemoryDocument}s, by identifier.
+     *
+     * @return The {@link InMemoryDocument}s, by identifier.
+     * @since 2.0.0
+     */
+    public Map<String, InMemoryDocument> getDocuments() {
+        return documents;
+    }
+}
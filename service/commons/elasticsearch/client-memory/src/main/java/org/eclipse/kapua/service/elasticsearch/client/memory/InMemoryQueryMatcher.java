@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.memory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientException;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientInternalError;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches the {@link InMemoryDocument}s against the query of a converted query.
+ * <p>
+ * Supports the clauses emitted by the {@link org.eclipse.kapua.service.elasticsearch.client.QueryConverter}s:
+ * {@code bool} ({@code must}, {@code filter}, {@code should} and {@code must_not}), {@code term}, {@code terms}, {@code range},
+ * {@code prefix}, {@code exists}, {@code ids} and {@code match_all}.
+ *
+ * @since 2.0.0
+ */
+public class InMemoryQueryMatcher {
+
+    private static final String KEY_BOOL = "bool";
+    private static final String KEY_MUST = "must";
+    private static final String KEY_FILTER = "filter";
+    private static final String KEY_SHOULD = "should";
+    private static final String KEY_MUST_NOT = "must_not";
+    private static final String KEY_TERM = "term";
+    private static final String KEY_TERMS = "terms";
+    private static final String KEY_RANGE = "range";
+    private static final String KEY_PREFIX = "prefix";
+    private static final String KEY_EXISTS = "exists";
+    private static final String KEY_IDS = "ids";
+    private static final String KEY_MATCH_ALL = "match_all";
+    private static final String KEY_FIELD = "field";
+    private static final String KEY_VALUE = "value";
+    private static final String KEY_VALUES = "values";
+    private static final String KEY_GT = "gt";
+    private static final String KEY_GTE = "gte";
+    private static final String KEY_LT = "lt";
+    private static final String KEY_LTE = "lte";
+
+    private InMemoryQueryMatcher() {
+    }
+
+    /**
+     * Checks whether the given {@link InMemoryDocument} matches the given query.
+     *
+     * @param queryNode The query, or {@code null} to match all the {@link InMemoryDocument}s.
+     * @param document  The {@link InMemoryDocument}.
+     * @return {@code true} if the {@link InMemoryDocument} matches, {@code false} otherwise.
+     * @throws ClientException if the query contains an unsupported clause.
+     * @since 2.0.0
+     */
+    public static boolean matches(JsonNode queryNode, InMemoryDocument document) throws ClientException {
+        if (queryNode == null || queryNode.isNull() || queryNode.isMissingNode() || queryNode.size() == 0) {
+            return true;
+        }
+
+        Iterator<Map.Entry<String, JsonNode>> clauses = queryNode.fields();
+        while (clauses.hasNext()) {
+            Map.Entry<String, JsonNode> clause = clauses.next();
+            if (!matchesClause(clause.getKey(), clause.getValue(), document)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesClause(String clauseName, JsonNode clauseNode, InMemoryDocument document) throws ClientException {
+        switch (clauseName) {
+            case KEY_MATCH_ALL:
+                return true;
+            case KEY_BOOL:
+                return matchesBool(clauseNode, document);
+            case KEY_IDS:
+                for (JsonNode idNode : clauseNode.path(KEY_VALUES)) {
+                    if (idNode.asText().equals(document.getId())) {
+                        return true;
+                    }
+                }
+                return false;
+            case KEY_EXISTS:
+                return !InMemoryDocumentValues.getValues(document.getSource(), clauseNode.path(KEY_FIELD).asText()).isEmpty();
+            default:
+                break;
+        }
+
+        Map.Entry<String, JsonNode> fieldCondition = clauseNode.fields().hasNext() ? clauseNode.fields().next() : null;
+        if (fieldCondition == null) {
+            throw new ClientInternalError("Unsupported query clause: " + clauseName);
+        }
+        List<JsonNode> values = InMemoryDocumentValues.getValues(document.getSource(), fieldCondition.getKey());
+        JsonNode conditionNode = fieldCondition.getValue();
+
+        switch (clauseName) {
+            case KEY_TERM:
+                JsonNode termNode = conditionNode.isObject() ? conditionNode.path(KEY_VALUE) : conditionNode;
+                return values.stream().anyMatch(value -> InMemoryDocumentValues.compare(value, termNode) == 0);
+            case KEY_TERMS:
+                for (JsonNode termsNode : conditionNode) {
+                    if (values.stream().anyMatch(value -> InMemoryDocumentValues.compare(value, termsNode) == 0)) {
+                        return true;
+                    }
+                }
+                return false;
+            case KEY_PREFIX:
+                String prefix = conditionNode.isObject() ? conditionNode.path(KEY_VALUE).asText() : conditionNode.asText();
+                return values.stream().anyMatch(value -> value.asText().startsWith(prefix));
+            case KEY_RANGE:
+                return values.stream().anyMatch(value -> isInRange(value, conditionNode));
+            default:
+                throw new ClientInternalError("Unsupported query clause: " + clauseName);
+        }
+    }
+
+    private static boolean matchesBool(JsonNode boolNode, InMemoryDocument document) throws ClientException {
+        for (JsonNode mustNode : asClauses(boolNode.path(KEY_MUST))) {
+            if (!matches(mustNode, document)) {
+                return false;
+            }
+        }
+        for (JsonNode filterNode : asClauses(boolNode.path(KEY_FILTER))) {
+            if (!matches(filterNode, document)) {
+                return false;
+            }
+        }
+        for (JsonNode mustNotNode : asClauses(boolNode.path(KEY_MUST_NOT))) {
+            if (matches(mustNotNode, document)) {
+                return false;
+            }
+        }
+
+        // As in Elasticsearch, should clauses are optional when there are must or filter clauses
+        JsonNode shouldNode = boolNode.path(KEY_SHOULD);
+        if (shouldNode.size() == 0 || boolNode.has(KEY_MUST) || boolNode.has(KEY_FILTER)) {
+            return true;
+        }
+        for (JsonNode shouldClauseNode : asClauses(shouldNode)) {
+            if (matches(shouldClauseNode, document)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Iterable<JsonNode> asClauses(JsonNode clausesNode) {
+        if (clausesNode.isObject()) {
+            return Collections.singletonList(clausesNode);
+        }
+        return clausesNode;
+    }
+
+    private static boolean isInRange(JsonNode value, JsonNode rangeNode) {
+        if (rangeNode.has(KEY_GT) && InMemoryDocumentValues.compare(value, rangeNode.get(KEY_GT)) <= 0) {
+            return false;
+        }
+        if (rangeNode.has(KEY_GTE) && InMemoryDocumentValues.compare(value, rangeNode.get(KEY_GTE)) < 0) {
+            return false;
+        }
+        if (rangeNode.has(KEY_LT) && InMemoryDocumentValues.compare(value, rangeNode.get(KEY_LT)) >= 0) {
+            return false;
+        }
+        return !rangeNode.has(KEY_LTE) || InMemoryDocumentValues.compare(value, rangeNode.get(KEY_LTE)) <= 0;
+    }
+}
@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.memory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
+import org.eclipse.kapua.service.elasticsearch.client.QueryConverter;
+import org.eclipse.kapua.service.elasticsearch.client.configuration.ElasticsearchClientConfiguration;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientUnavailableException;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkUpdateRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkUpdateResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.IndexRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.ResultList;
+import org.eclipse.kapua.service.elasticsearch.client.model.TypeDescriptor;
+import org.eclipse.kapua.service.elasticsearch.client.model.UpdateRequest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Category(JUnitTests.class)
+public class InMemoryElasticsearchClientTest extends Assert {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeDescriptor TYPE_DESCRIPTOR = new TypeDescriptor("index-1", "_doc");
+
+    private InMemoryElasticsearchClientProvider provider;
+    private InMemoryElasticsearchClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        ElasticsearchClientConfiguration clientConfiguration = new ElasticsearchClientConfiguration();
+        clientConfiguration.setModuleName("memory-test");
+
+        provider = new InMemoryElasticsearchClientProvider();
+        provider.withClientConfiguration(clientConfiguration)
+                .withModelContext(new MapModelContext())
+                .withModelConverter(new JsonNodeQueryConverter())
+                .init();
+        client = provider.getElasticsearchClient();
+
+        BulkInsertRequest bulkInsertRequest = new BulkInsertRequest();
+        bulkInsertRequest.add(new InsertRequest("1", TYPE_DESCRIPTOR, document("client-1", "2022-01-01T10:00:00.000Z", 10)));
+        bulkInsertRequest.add(new InsertRequest("2", TYPE_DESCRIPTOR, document("client-1", "2022-01-01T10:30:00.000Z", 20)));
+        bulkInsertRequest.add(new InsertRequest("3", TYPE_DESCRIPTOR, document("client-2", "2022-01-01T11:15:00.000Z", 30)));
+        client.insert(bulkInsertRequest);
+    }
+
+    @After
+    public void tearDown() {
+        provider.close();
+    }
+
+    @Test
+    public void queryFiltersSortsAndPagesTest() throws Exception {
+        ObjectNode query = OBJECT_MAPPER.createObjectNode();
+        query.putObject("query").putObject("bool").putArray("must")
+                .addObject().putObject("range").putObject("timestamp").put("gte", "2022-01-01T10:15:00.000Z");
+        query.putArray("sort").addObject().put("timestamp", "DESC");
+        query.putObject("_source").putArray("excludes").add("metrics");
+        query.put("size", 1);
+
+        ResultList<Map> result = client.query(TYPE_DESCRIPTOR, query, Map.class);
+        assertEquals(2, result.getTotalCount());
+        assertFalse(result.isTotalCountLowerBound());
+        assertEquals(1, result.getResult().size());
+        assertEquals("3", result.getResult().get(0).get("id"));
+        assertEquals("client-2", result.getResult().get(0).get("client_id"));
+        assertFalse(result.getResult().get(0).containsKey("metrics"));
+    }
+
+    @Test
+    public void cappedCountTest() throws Exception {
+        ObjectNode query = OBJECT_MAPPER.createObjectNode();
+        query.putObject("query").putObject("term").put("client_id", "client-1");
+        assertEquals(2, client.count(TYPE_DESCRIPTOR, query));
+
+        query.put("track_total_hits", 1);
+        assertEquals(1, client.count(TYPE_DESCRIPTOR, query));
+    }
+
+    @Test
+    public void aggregateTest() throws Exception {
+        ObjectNode query = OBJECT_MAPPER.createObjectNode();
+        ObjectNode byClient = query.putObject("aggregations").putObject("by_client");
+        byClient.putObject("terms").put("field", "client_id");
+        ObjectNode byHour = byClient.putObject("aggregations").putObject("by_hour");
+        byHour.putObject("date_histogram").put("field", "timestamp").put("fixed_interval", "3600000ms");
+        byHour.putObject("aggregations").putObject("value_stats").putObject("stats").put("field", "metrics.value");
+
+        JsonNode buckets = client.aggregate(TYPE_DESCRIPTOR, query).path("by_client").path("buckets");
+        assertEquals(2, buckets.size());
+        assertEquals("client-1", buckets.get(0).path("key").asText());
+        assertEquals(2, buckets.get(0).path("doc_count").asInt());
+
+        JsonNode hourBucket = buckets.get(0).path("by_hour").path("buckets").get(0);
+        assertEquals("2022-01-01T10:00:00Z", hourBucket.path("key_as_string").asText());
+        assertEquals(2, hourBucket.path("value_stats").path("count").asInt());
+        assertEquals(15.0, hourBucket.path("value_stats").path("avg").asDouble(), 0.0);
+    }
+
+    @Test
+    public void upsertAndDeleteByQueryTest() throws Exception {
+        Map<String, Object> update = new HashMap<>();
+        update.put("metrics", new HashMap<>(Collections.singletonMap("other", 5)));
+        client.upsert(new UpdateRequest("1", TYPE_DESCRIPTOR, update));
+
+        Map<?, ?> upserted = client.find(TYPE_DESCRIPTOR, idsQuery("1"), Map.class);
+        assertEquals("client-1", upserted.get("client_id"));
+        assertEquals(10, ((Map<?, ?>) upserted.get("metrics")).get("value"));
+        assertEquals(5, ((Map<?, ?>) upserted.get("metrics")).get("other"));
+
+        ObjectNode deleteQuery = OBJECT_MAPPER.createObjectNode();
+        deleteQuery.putObject("query").putObject("prefix").put("client_id", "client-2");
+        client.deleteByQuery(TYPE_DESCRIPTOR, deleteQuery);
+        assertEquals(2, client.count(TYPE_DESCRIPTOR, OBJECT_MAPPER.createObjectNode()));
+
+        client.deleteIndexes("index-*");
+        assertFalse(client.isIndexExists(new IndexRequest("index-1")).isIndexExists());
+    }
+
+    @Test
+    public void bulkInsertAndUpsertTest() throws Exception {
+        BulkInsertRequest bulkInsertRequest = new BulkInsertRequest();
+        bulkInsertRequest.add(new InsertRequest("4", TYPE_DESCRIPTOR, document("client-3", "2022-01-01T12:00:00.000Z", 40)));
+        bulkInsertRequest.add(new InsertRequest(null, TYPE_DESCRIPTOR, document("client-3", "2022-01-01T12:30:00.000Z", 50)));
+
+        BulkInsertResponse bulkInsertResponse = client.insert(bulkInsertRequest);
+        assertEquals(2, bulkInsertResponse.getResponse().size());
+        assertEquals("4", bulkInsertResponse.getResponse().get(0).getId());
+        // Documents without id get a generated one
+        assertNotNull(bulkInsertResponse.getResponse().get(1).getId());
+        for (InsertResponse insertResponse : bulkInsertResponse.getResponse()) {
+            assertTrue(insertResponse.isResult());
+        }
+        assertEquals(5, client.count(TYPE_DESCRIPTOR, OBJECT_MAPPER.createObjectNode()));
+
+        BulkUpdateRequest bulkUpdateRequest = new BulkUpdateRequest();
+        bulkUpdateRequest.add(new UpdateRequest("4", TYPE_DESCRIPTOR, Collections.singletonMap("channel", "heater/data")));
+        bulkUpdateRequest.add(new UpdateRequest("5", TYPE_DESCRIPTOR, document("client-4", "2022-01-01T13:00:00.000Z", 60)));
+
+        BulkUpdateResponse bulkUpdateResponse = client.upsert(bulkUpdateRequest);
+        assertEquals(2, bulkUpdateResponse.getResponse().size());
+        assertEquals(6, client.count(TYPE_DESCRIPTOR, OBJECT_MAPPER.createObjectNode()));
+
+        Map<?, ?> merged = client.find(TYPE_DESCRIPTOR, idsQuery("4"), Map.class);
+        assertEquals("client-3", merged.get("client_id"));
+        assertEquals("heater/data", merged.get("channel"));
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+        BulkInsertRequest bulkInsertRequest = new BulkInsertRequest();
+        for (int i = 4; i <= 10; i++) {
+            bulkInsertRequest.add(new InsertRequest(String.valueOf(i), TYPE_DESCRIPTOR, document("client-3", "2022-01-01T12:00:00.000Z", i)));
+        }
+        client.insert(bulkInsertRequest);
+        client.getClientConfiguration().getRequestConfiguration().setStreamPageSize(3);
+
+        ObjectNode query = OBJECT_MAPPER.createObjectNode();
+        query.putObject("query").putObject("term").put("client_id", "client-3");
+
+        // The documents are streamed in order of the tie breaker field, across the pages
+        List<Object> streamedValues = new ArrayList<>();
+        long streamedCount = client.stream(TYPE_DESCRIPTOR, query, "metrics.value", Map.class, document -> streamedValues.add(((Map<?, ?>) document.get("metrics")).get("value")));
+
+        assertEquals(7, streamedCount);
+        assertEquals(Arrays.asList(4, 5, 6, 7, 8, 9, 10), streamedValues);
+    }
+
+    @Test
+    public void asyncOperationsTest() throws Exception {
+        InsertResponse insertResponse = client.insertAsync(new InsertRequest("4", TYPE_DESCRIPTOR, document("client-3", "2022-01-01T12:00:00.000Z", 40)))
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertEquals("4", insertResponse.getId());
+
+        BulkInsertRequest bulkInsertRequest = new BulkInsertRequest();
+        bulkInsertRequest.add(new InsertRequest("5", TYPE_DESCRIPTOR, document("client-3", "2022-01-01T12:30:00.000Z", 50)));
+        bulkInsertRequest.add(new InsertRequest("6", TYPE_DESCRIPTOR, document("client-3", "2022-01-01T13:00:00.000Z", 60)));
+        assertEquals(2, client.bulkAsync(bulkInsertRequest).toCompletableFuture().get(10, TimeUnit.SECONDS).getResponse().size());
+
+        client.upsertAsync(new UpdateRequest("4", TYPE_DESCRIPTOR, Collections.singletonMap("channel", "heater/data")))
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        ObjectNode query = OBJECT_MAPPER.createObjectNode();
+        query.putObject("query").putObject("term").put("client_id", "client-3");
+        ResultList<Map> result = client.queryAsync(TYPE_DESCRIPTOR, query, Map.class).toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertEquals(3, result.getTotalCount());
+        assertEquals("heater/data", client.find(TYPE_DESCRIPTOR, idsQuery("4"), Map.class).get("channel"));
+    }
+
+    @Test
+    public void asyncOperationOnClosedClientTest() throws Exception {
+        provider.close();
+
+        try {
+            client.insertAsync(new InsertRequest("4", TYPE_DESCRIPTOR, document("client-3", "2022-01-01T12:00:00.000Z", 40)))
+                    .toCompletableFuture().get(10, TimeUnit.SECONDS);
+            fail("The operation should fail on a closed client");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ClientUnavailableException);
+        }
+    }
+
+    @Test
+    public void simulatedLatencyTest() throws Exception {
+        client.getClientConfiguration().getRequestConfiguration().setSimulatedLatency(100);
+
+        long start = System.nanoTime();
+        client.count(TYPE_DESCRIPTOR, OBJECT_MAPPER.createObjectNode());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+
+        // The asynchronous operations do not block the caller, but complete after the latency
+        start = System.nanoTime();
+        CompletableFuture<InsertResponse> insertFuture = client.insertAsync(new InsertRequest("4", TYPE_DESCRIPTOR, document("client-3", "2022-01-01T12:00:00.000Z", 40)))
+                .toCompletableFuture();
+        assertFalse(insertFuture.isDone());
+        insertFuture.get(10, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+    }
+
+    @Test
+    public void putMappingMergesMappingsTest() throws Exception {
+        assertTrue(client.getMapping(TYPE_DESCRIPTOR).isMissingNode());
+
+        client.putMapping(TYPE_DESCRIPTOR, OBJECT_MAPPER.readTree("{\"properties\":{\"metrics\":{\"properties\":{\"temperature\":{\"type\":\"double\"}}}}}"));
+        client.putMapping(TYPE_DESCRIPTOR, OBJECT_MAPPER.readTree("{\"properties\":{\"metrics\":{\"properties\":{\"pressure\":{\"type\":\"double\"}}}}}"));
+
+        // The fields of both the mappings are kept
+        JsonNode metricsProperties = client.getMapping(TYPE_DESCRIPTOR).path("properties").path("metrics").path("properties");
+        assertEquals("double", metricsProperties.path("temperature").path("type").asText());
+        assertEquals("double", metricsProperties.path("pressure").path("type").asText());
+        assertTrue(client.getMapping(new TypeDescriptor("index-2", "_doc")).isMissingNode());
+    }
+
+    private static ObjectNode idsQuery(String id) {
+        ObjectNode idQuery = OBJECT_MAPPER.createObjectNode();
+        idQuery.putObject("query").putObject("ids").putArray("values").add(id);
+        return idQuery;
+    }
+
+    private static Map<String, Object> document(String clientId, String timestamp, int value) {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("value", value);
+
+        Map<String, Object> document = new HashMap<>();
+        document.put("client_id", clientId);
+        document.put("timestamp", timestamp);
+        document.put("metrics", metrics);
+        return document;
+    }
+
+    private static class MapModelContext implements ModelContext {
+
+        @Override
+        public <T> T unmarshal(Class<T> clazz, Map<String, Object> serializedObject) {
+            return clazz.cast(serializedObject);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<String, Object> marshal(Object object) {
+            return (Map<String, Object>) object;
+        }
+
+        @Override
+        public String getIdKeyName() {
+            return "id";
+        }
+    }
+
+    private static class JsonNodeQueryConverter implements QueryConverter {
+
+        @Override
+        public JsonNode convertQuery(Object query) {
+            return (JsonNode) query;
+        }
+
+        @Override
+        public Object getFetchStyle(Object query) {
+            return null;
+        }
+    }
+}
@@ -22,5 +22,12 @@ public class DatastoreRestClientMetrics {
     public static final String METRIC_RUNTIME_EXEC = "runtime_exc";
     public static final String METRIC_TIMEOUT_RETRY = "timeout_retry";
     public static final String TIMEOUT_RETRY_LIMIT_REACHED = "timeout_retry_limit_reached";
+    public static final String METRIC_ASYNC = "async";
+    public static final String METRIC_LATENCY = "latency";
+    public static final String METRIC_IN_FLIGHT = "in_flight";
+    public static final String METRIC_WAITING = "waiting";
+    public static final String METRIC_REJECTED = "rejected";
+    public static final String METRIC_CIRCUIT_BREAKER = "circuit_breaker";
+    public static final String METRIC_OPEN = "open";
     public static final String METRIC_COUNT = "count";
 }
@@ -31,11 +31,17 @@ public class ElasticsearchKeywords {
     static final String KEY_DOC_INDEX = "_index";
     static final String KEY_DOC_TYPE = "_type";
 
+    static final String KEY_INDEX = "index";
     static final String KEY_ITEMS = "items";
+    static final String KEY_MAPPINGS = "mappings";
     static final String KEY_RESULT = "result";
     static final String KEY_STATUS = "status";
     static final String KEY_UPDATE = "update";
     static final String KEY_HITS = "hits";
     static final String KEY_TOTAL = "total";
     static final String KEY_VALUE = "value";
+    static final String KEY_RELATION = "relation";
+    static final String KEY_TERMINATED_EARLY = "terminated_early";
+
+    static final String RELATION_GREATER_THAN_OR_EQUAL = "gte";
 }
@@ -13,11 +13,15 @@
 package org.eclipse.kapua.service.elasticsearch.client.rest;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.ParseException;
@@ -29,12 +33,18 @@ import org.eclipse.kapua.service.elasticsearch.client.AbstractElasticsearchClien
 import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
 import org.eclipse.kapua.service.elasticsearch.client.QueryConverter;
 import org.eclipse.kapua.service.elasticsearch.client.SchemaKeys;
+import org.eclipse.kapua.service.elasticsearch.client.configuration.ElasticsearchClientCircuitBreakerConfiguration;
+import org.eclipse.kapua.service.elasticsearch.client.configuration.ElasticsearchClientRequestConfiguration;
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientActionResponseException;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientCircuitBreakerOpenException;
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientCommunicationException;
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientErrorCodes;
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientException;
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientInitializationException;
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientInternalError;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientUnavailableException;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertResponse;
 import org.eclipse.kapua.service.elasticsearch.client.model.BulkUpdateRequest;
 import org.eclipse.kapua.service.elasticsearch.client.model.BulkUpdateResponse;
 import org.eclipse.kapua.service.elasticsearch.client.model.IndexRequest;
@@ -47,21 +57,33 @@ import org.eclipse.kapua.service.elasticsearch.client.model.UpdateRequest;
 import org.eclipse.kapua.service.elasticsearch.client.model.UpdateResponse;
 import org.eclipse.kapua.service.elasticsearch.client.rest.exception.RequestEntityWriteError;
 import org.eclipse.kapua.service.elasticsearch.client.rest.exception.ResponseEntityReadError;
+import org.eclipse.kapua.service.elasticsearch.client.rest.utils.CircuitBreaker;
+import org.eclipse.kapua.service.elasticsearch.client.rest.utils.PooledJsonEntityBuffer;
 
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
 import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
 import org.elasticsearch.client.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.validation.constraints.NotNull;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.Callable;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Client implementation based on Elasticsearch rest client.
@@ -75,17 +97,36 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
     private static final Logger LOG = LoggerFactory.getLogger(RestElasticsearchClient.class);
 
     private static final Random RANDOM = RandomUtils.getInstance();
+
+    private static final ScheduledExecutorService RETRY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "elasticsearch-request-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
     private static final String MSG_EMPTY_ERROR = "Empty error message";
 
     private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
     private static final String CLIENT_HITS_MAX_VALUE_EXCEEDED = "Total hits exceeds integer max value";
     private static final String QUERY_CONVERTED_QUERY = "Query - converted query: '{}'";
     private static final String COUNT_CONVERTED_QUERY = "Count - converted query: '{}'";
+    private static final String STREAM_CONVERTED_QUERY = "Stream - converted query: '{}'";
+    private static final String AGGREGATE_CONVERTED_QUERY = "Aggregate - converted query: '{}'";
 
     private Counter restCallRuntimeExecCount;
     private Counter timeoutRetryCount;
     private Counter timeoutRetryLimitReachedCount;
 
+    private CircuitBreaker circuitBreaker;
+    private Counter circuitBreakerOpenCount;
+    private Counter circuitBreakerRejectedCount;
+
+    private Semaphore inFlightPermits;
+    private Timer asyncRequestLatency;
+    private Counter asyncRequestInFlightCount;
+    private Counter asyncRequestWaitingCount;
+    private Counter asyncRequestRejectedCount;
+
     /**
      * Constructor.
      *
@@ -96,6 +137,9 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
 
         objectMapper = new ObjectMapper();
         objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+
+        jsonFactory = new JsonFactory(objectMapper);
+        jsonFactory.setRootValueSeparator(null);
     }
 
     @Override
@@ -114,6 +158,19 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
         restCallRuntimeExecCount = metricService.getCounter(getClientConfiguration().getModuleName(), DatastoreRestClientMetrics.METRIC_COMPONENT_NAME, DatastoreRestClientMetrics.METRIC_RUNTIME_EXEC, DatastoreRestClientMetrics.METRIC_COUNT);
         timeoutRetryCount = metricService.getCounter(getClientConfiguration().getModuleName(), DatastoreRestClientMetrics.METRIC_COMPONENT_NAME, DatastoreRestClientMetrics.METRIC_TIMEOUT_RETRY, DatastoreRestClientMetrics.METRIC_COUNT);
         timeoutRetryLimitReachedCount = metricService.getCounter(getClientConfiguration().getModuleName(), DatastoreRestClientMetrics.METRIC_COMPONENT_NAME, DatastoreRestClientMetrics.TIMEOUT_RETRY_LIMIT_REACHED, DatastoreRestClientMetrics.METRIC_COUNT);
+
+        ElasticsearchClientCircuitBreakerConfiguration circuitBreakerConfiguration = getClientConfiguration().getCircuitBreakerConfiguration();
+        if (circuitBreakerConfiguration.isEnabled()) {
+            circuitBreaker = new CircuitBreaker(circuitBreakerConfiguration.getFailureThreshold(), circuitBreakerConfiguration.getOpenDuration());
+        }
+        circuitBreakerOpenCount = metricService.getCounter(getClientConfiguration().getModuleName(), DatastoreRestClientMetrics.METRIC_COMPONENT_NAME, DatastoreRestClientMetrics.METRIC_CIRCUIT_BREAKER, DatastoreRestClientMetrics.METRIC_OPEN, DatastoreRestClientMetrics.METRIC_COUNT);
+        circuitBreakerRejectedCount = metricService.getCounter(getClientConfiguration().getModuleName(), DatastoreRestClientMetrics.METRIC_COMPONENT_NAME, DatastoreRestClientMetrics.METRIC_CIRCUIT_BREAKER, DatastoreRestClientMetrics.METRIC_REJECTED, DatastoreRestClientMetrics.METRIC_COUNT);
+
+        inFlightPermits = new Semaphore(getClientConfiguration().getRequestConfiguration().getMaxInFlightRequests());
+        asyncRequestLatency = metricService.getTimer(getClientConfiguration().getModuleName(), DatastoreRestClientMetrics.METRIC_COMPONENT_NAME, DatastoreRestClientMetrics.METRIC_ASYNC, DatastoreRestClientMetrics.METRIC_LATENCY);
+        asyncRequestInFlightCount = metricService.getCounter(getClientConfiguration().getModuleName(), DatastoreRestClientMetrics.METRIC_COMPONENT_NAME, DatastoreRestClientMetrics.METRIC_ASYNC, DatastoreRestClientMetrics.METRIC_IN_FLIGHT, DatastoreRestClientMetrics.METRIC_COUNT);
+        asyncRequestWaitingCount = metricService.getCounter(getClientConfiguration().getModuleName(), DatastoreRestClientMetrics.METRIC_COMPONENT_NAME, DatastoreRestClientMetrics.METRIC_ASYNC, DatastoreRestClientMetrics.METRIC_WAITING, DatastoreRestClientMetrics.METRIC_COUNT);
+        asyncRequestRejectedCount = metricService.getCounter(getClientConfiguration().getModuleName(), DatastoreRestClientMetrics.METRIC_COMPONENT_NAME, DatastoreRestClientMetrics.METRIC_ASYNC, DatastoreRestClientMetrics.METRIC_REJECTED, DatastoreRestClientMetrics.METRIC_COUNT);
     }
 
     @Override
@@ -123,72 +180,79 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
 
     @Override
     public InsertResponse insert(InsertRequest insertRequest) throws ClientException {
-        Map<String, Object> insertRequestStorableMap = getModelContext().marshal(insertRequest.getStorable());
-        LOG.debug("Insert - converted object: '{}'", insertRequestStorableMap);
+        PooledJsonEntityBuffer entityBuffer = PooledJsonEntityBuffer.acquire();
+        Response insertResponse;
+        try {
+            Request request = buildInsertRequest(insertRequest, entityBuffer);
+            insertResponse = performRequest(request, insertRequest.getTypeDescriptor().getIndex(), "INSERT");
+        } finally {
+            entityBuffer.release();
+        }
 
-        String json = writeRequestFromMap(insertRequestStorableMap);
-        Request request = new Request(ElasticsearchKeywords.ACTION_PUT, ElasticsearchResourcePaths.insertType(insertRequest));
-        request.setJsonEntity(json);
-        Response insertResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), insertRequest.getTypeDescriptor().getIndex(),"INSERT");
+        return readInsertResponse(insertResponse);
+    }
 
-        if (isRequestSuccessful(insertResponse)) {
-            JsonNode responseNode = readResponseAsJsonNode(insertResponse);
+    @Override
+    public BulkInsertResponse insert(BulkInsertRequest bulkInsertRequest) throws ClientException {
+        List<InsertRequest> insertRequests = bulkInsertRequest.getRequest();
+        if (insertRequests.isEmpty()) {
+            return new BulkInsertResponse();
+        }
 
-            String id = responseNode.get(ElasticsearchKeywords.KEY_DOC_ID).asText();
-            String index = responseNode.get(ElasticsearchKeywords.KEY_DOC_INDEX).asText();
-            String type = responseNode.get(ElasticsearchKeywords.KEY_DOC_TYPE).asText();
-            return new InsertResponse(id, new TypeDescriptor(index, type));
-        } else {
-            throw buildExceptionFromUnsuccessfulResponse("Insert", insertResponse);
+        PooledJsonEntityBuffer entityBuffer = PooledJsonEntityBuffer.acquire();
+        Response insertResponse;
+        try {
+            Request request = buildBulkInsertRequest(insertRequests, entityBuffer);
+            insertResponse = performRequest(request, "multi-index", "INSERT BULK");
+        } finally {
+            entityBuffer.release();
         }
+
+        return readBulkInsertResponse(insertRequests, insertResponse);
     }
 
     @Override
     public UpdateResponse upsert(UpdateRequest updateRequest) throws ClientException {
-        Map<String, Object> updateRequestStorableMap = getModelContext().marshal(updateRequest.getStorable());
-
-        Map<String, Object> updateRequestMap = new HashMap<>();
-        updateRequestMap.put(ElasticsearchKeywords.KEY_DOC, updateRequestStorableMap);
-        updateRequestMap.put(ElasticsearchKeywords.KEY_DOC_AS_UPSERT, true);
-        LOG.debug("Upsert - converted object: '{}'", updateRequestMap);
-
-        String json = writeRequestFromMap(updateRequestMap);
-        Request request = new Request(ElasticsearchKeywords.ACTION_POST, ElasticsearchResourcePaths.upsert(updateRequest.getTypeDescriptor(), updateRequest.getId()));
-        request.setJsonEntity(json);
-        Response updateResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), updateRequest.getTypeDescriptor().getIndex(), "UPSERT");
-
-        if (isRequestSuccessful(updateResponse)) {
-            JsonNode responseNode = readResponseAsJsonNode(updateResponse);
-
-            String id = responseNode.get(ElasticsearchKeywords.KEY_DOC_ID).asText();
-            String index = responseNode.get(ElasticsearchKeywords.KEY_DOC_INDEX).asText();
-            String type = responseNode.get(ElasticsearchKeywords.KEY_DOC_TYPE).asText();
-            return new UpdateResponse(id, new TypeDescriptor(index, type));
-        } else {
-            throw buildExceptionFromUnsuccessfulResponse("Update", updateResponse);
+        PooledJsonEntityBuffer entityBuffer = PooledJsonEntityBuffer.acquire();
+        Response updateResponse;
+        try {
+            Request request = buildUpsertRequest(updateRequest, entityBuffer);
+            updateResponse = performRequest(request, updateRequest.getTypeDescriptor().getIndex(), "UPSERT");
+        } finally {
+            entityBuffer.release();
         }
+
+        return readUpsertResponse(updateResponse);
     }
 
     @Override
     public BulkUpdateResponse upsert(BulkUpdateRequest bulkUpdateRequest) throws ClientException {
-        StringBuilder bulkOperation = new StringBuilder();
-
-        for (UpdateRequest upsertRequest : bulkUpdateRequest.getRequest()) {
-            Map<String, Object> storableMap = getModelContext().marshal(upsertRequest.getStorable());
-
-            bulkOperation.append("{ \"update\": {\"_id\": \"")
-                    .append(upsertRequest.getId())
-                    .append("\", \"_index\": \"")
-                    .append(upsertRequest.getTypeDescriptor().getIndex())
-                    .append("\"}\n");
+        PooledJsonEntityBuffer entityBuffer = PooledJsonEntityBuffer.acquire();
+        Response updateResponse;
+        try {
+            try (JsonGenerator jsonGenerator = createJsonGenerator(entityBuffer)) {
+                for (UpdateRequest upsertRequest : bulkUpdateRequest.getRequest()) {
+                    jsonGenerator.writeStartObject();
+                    jsonGenerator.writeObjectFieldStart(ElasticsearchKeywords.KEY_UPDATE);
+                    jsonGenerator.writeStringField(ElasticsearchKeywords.KEY_DOC_ID, upsertRequest.getId());
+                    jsonGenerator.writeStringField(ElasticsearchKeywords.KEY_DOC_INDEX, upsertRequest.getTypeDescriptor().getIndex());
+                    jsonGenerator.writeEndObject();
+                    jsonGenerator.writeEndObject();
+                    jsonGenerator.writeRaw('\n');
+
+                    writeUpsertDocument(upsertRequest, jsonGenerator);
+                    jsonGenerator.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                throw new RequestEntityWriteError(e);
+            }
 
-            bulkOperation.append("{ \"doc\": ");
-            bulkOperation.append(writeRequestFromMap(storableMap));
-            bulkOperation.append(", \"doc_as_upsert\": true }\n");
+            Request request = new Request(ElasticsearchKeywords.ACTION_POST, ElasticsearchResourcePaths.getBulkPath());
+            request.setEntity(entityBuffer.toEntity());
+            updateResponse = performRequest(request, "multi-index", "UPSERT BULK");
+        } finally {
+            entityBuffer.release();
         }
-        Request request = new Request(ElasticsearchKeywords.ACTION_POST, ElasticsearchResourcePaths.getBulkPath());
-        request.setJsonEntity(bulkOperation.toString());
-        Response updateResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), "multi-index", "UPSERT BULK");
 
         if (isRequestSuccessful(updateResponse)) {
             JsonNode responseNode = readResponseAsJsonNode(updateResponse);
@@ -242,61 +306,38 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
 
     @Override
     public <T> ResultList<T> query(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) throws ClientException {
-        JsonNode queryJsonNode = getModelConverter().convertQuery(query);
-        LOG.debug(QUERY_CONVERTED_QUERY, queryJsonNode);
-
-        String json = writeRequestFromJsonNode(queryJsonNode);
-
-        long totalCount = 0;
-        ArrayNode resultsNode = null;
-        Request request = new Request(ElasticsearchKeywords.ACTION_GET, ElasticsearchResourcePaths.search(typeDescriptor));
-        request.setJsonEntity(json);
-        Response queryResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), typeDescriptor.getIndex(), "QUERY");
-
-        if (isRequestSuccessful(queryResponse)) {
-            JsonNode responseNode = readResponseAsJsonNode(queryResponse);
-
-            JsonNode hitsNode = responseNode.path(ElasticsearchKeywords.KEY_HITS);
-            totalCount = hitsNode.path(ElasticsearchKeywords.KEY_TOTAL).path(ElasticsearchKeywords.KEY_VALUE).asLong();
-            if (totalCount > Integer.MAX_VALUE) {
-                throw new ClientException(ClientErrorCodes.ACTION_ERROR, CLIENT_HITS_MAX_VALUE_EXCEEDED);
-            }
-            resultsNode = ((ArrayNode) hitsNode.get(ElasticsearchKeywords.KEY_HITS));
-        } else if (!isRequestBadRequest(queryResponse) &&
-                !isRequestNotFound(queryResponse)) {
-            throw buildExceptionFromUnsuccessfulResponse("Query", queryResponse);
-        }
-
-        ResultList<T> resultList = new ResultList<>(totalCount);
-        Object queryFetchStyle = getModelConverter().getFetchStyle(query);
-        if (resultsNode != null && !resultsNode.isEmpty()) {
-            for (JsonNode result : resultsNode) {
-                Map<String, Object> object = objectMapper.convertValue(result.get(SchemaKeys.KEY_SOURCE), Map.class);
-
-                String id = result.get(ElasticsearchKeywords.KEY_DOC_ID).asText();
-                String index = result.get(ElasticsearchKeywords.KEY_DOC_INDEX).asText();
-                String type = result.get(ElasticsearchKeywords.KEY_DOC_TYPE).asText();
+        Request request = buildQueryRequest(typeDescriptor, query);
+        Response queryResponse = performRequest(request, typeDescriptor.getIndex(), "QUERY");
 
-                object.put(ModelContext.TYPE_DESCRIPTOR_KEY, new TypeDescriptor(index, type));
-                object.put(getModelContext().getIdKeyName(), id);
-                object.put(QueryConverter.QUERY_FETCH_STYLE_KEY, queryFetchStyle);
-
-                resultList.add(getModelContext().unmarshal(clazz, object));
-            }
-        }
-        return resultList;
+        return readQueryResponse(query, clazz, queryResponse);
     }
 
     @Override
     public long count(TypeDescriptor typeDescriptor, Object query) throws ClientException {
         JsonNode queryJsonNode = getModelConverter().convertQuery(query);
+        if (!queryJsonNode.isObject()) {
+            throw new ClientInternalError("Converted query is not a JSON object");
+        }
 
         LOG.debug(COUNT_CONVERTED_QUERY, queryJsonNode);
 
-        String json = writeRequestFromJsonNode(queryJsonNode);
+        // Only the count is needed, not the matching documents
+        ObjectNode countQueryJsonNode = (ObjectNode) queryJsonNode;
+        countQueryJsonNode.remove(SchemaKeys.KEY_FROM);
+        countQueryJsonNode.remove(SchemaKeys.KEY_SORT);
+        countQueryJsonNode.put(SchemaKeys.KEY_SIZE, 0);
+
+        JsonNode trackTotalHitsNode = countQueryJsonNode.get(SchemaKeys.KEY_TRACK_TOTAL_HITS);
+        if (trackTotalHitsNode != null && trackTotalHitsNode.isInt()) {
+            // Capped count: each shard can stop searching once it has matched as many documents as the cap
+            countQueryJsonNode.put(SchemaKeys.KEY_TERMINATE_AFTER, trackTotalHitsNode.asInt());
+        } else {
+            countQueryJsonNode.put(SchemaKeys.KEY_TRACK_TOTAL_HITS, true);
+        }
+
         Request request = new Request(ElasticsearchKeywords.ACTION_GET, ElasticsearchResourcePaths.search(typeDescriptor));
-        request.setJsonEntity(json);
-        Response queryResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), typeDescriptor.getIndex(), "COUNT");
+        request.setJsonEntity(writeRequestFromJsonNode(countQueryJsonNode));
+        Response queryResponse = performRequest(request, typeDescriptor.getIndex(), "COUNT");
 
         long totalCount = 0;
         if (isRequestSuccessful(queryResponse)) {
@@ -318,7 +359,7 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
     public void delete(TypeDescriptor typeDescriptor, String id) throws ClientException {
         LOG.debug("Delete - id: '{}'", id);
         Request request = new Request(ElasticsearchKeywords.ACTION_DELETE, ElasticsearchResourcePaths.id(typeDescriptor, id));
-        Response deleteResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), typeDescriptor.getIndex(), ElasticsearchKeywords.ACTION_DELETE);
+        Response deleteResponse = performRequest(request, typeDescriptor.getIndex(), ElasticsearchKeywords.ACTION_DELETE);
 
         if (!isRequestSuccessful(deleteResponse) &&
                 !isRequestNotFound(deleteResponse)) {
@@ -335,7 +376,7 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
         String json = writeRequestFromJsonNode(queryJsonNode);
         Request request = new Request(ElasticsearchKeywords.ACTION_POST, ElasticsearchResourcePaths.deleteByQuery(typeDescriptor));
         request.setJsonEntity(json);
-        Response deleteResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), typeDescriptor.getIndex(), "DELETE BY QUERY");
+        Response deleteResponse = performRequest(request, typeDescriptor.getIndex(), "DELETE BY QUERY");
 
         if (!isRequestSuccessful(deleteResponse) &&
                 !isRequestNotFound(deleteResponse) &&
@@ -344,11 +385,90 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
         }
     }
 
+    @Override
+    public <T> long stream(TypeDescriptor typeDescriptor, Object query, String tieBreakerField, Class<T> clazz, Consumer<T> consumer) throws ClientException {
+        JsonNode queryJsonNode = getModelConverter().convertQuery(query);
+        if (!queryJsonNode.isObject()) {
+            throw new ClientInternalError("Converted query is not a JSON object");
+        }
+
+        LOG.debug(STREAM_CONVERTED_QUERY, queryJsonNode);
+
+        int pageSize = getClientConfiguration().getRequestConfiguration().getStreamPageSize();
+        ObjectNode streamQueryJsonNode = (ObjectNode) queryJsonNode;
+        streamQueryJsonNode.remove(SchemaKeys.KEY_FROM);
+        streamQueryJsonNode.put(SchemaKeys.KEY_SIZE, pageSize);
+        streamQueryJsonNode.put(SchemaKeys.KEY_TRACK_TOTAL_HITS, false);
+        streamQueryJsonNode.withArray(SchemaKeys.KEY_SORT).addObject().put(tieBreakerField, SchemaKeys.SORT_ASCENDING_VALUE);
+
+        Object queryFetchStyle = getModelConverter().getFetchStyle(query);
+        long streamedCount = 0;
+        while (true) {
+            Request request = new Request(ElasticsearchKeywords.ACTION_GET, ElasticsearchResourcePaths.search(typeDescriptor));
+            request.setJsonEntity(writeRequestFromJsonNode(streamQueryJsonNode));
+            Response streamResponse = performRequest(request, typeDescriptor.getIndex(), "STREAM");
+
+            if (!isRequestSuccessful(streamResponse)) {
+                if (isRequestBadRequest(streamResponse) || isRequestNotFound(streamResponse)) {
+                    return streamedCount;
+                }
+                throw buildExceptionFromUnsuccessfulResponse("Stream", streamResponse);
+            }
+
+            JsonNode hitsNode = readResponseAsJsonNode(streamResponse).path(ElasticsearchKeywords.KEY_HITS).path(ElasticsearchKeywords.KEY_HITS);
+            JsonNode lastSortValues = null;
+            for (JsonNode hitNode : hitsNode) {
+                consumer.accept(readHit(hitNode, clazz, queryFetchStyle));
+                lastSortValues = hitNode.get(SchemaKeys.KEY_SORT);
+                streamedCount++;
+            }
+
+            // A page not full is the last one
+            if (hitsNode.size() < pageSize || lastSortValues == null) {
+                return streamedCount;
+            }
+            streamQueryJsonNode.set(SchemaKeys.KEY_SEARCH_AFTER, lastSortValues);
+        }
+    }
+
+    @Override
+    public JsonNode aggregate(TypeDescriptor typeDescriptor, Object query) throws ClientException {
+        JsonNode queryJsonNode = getModelConverter().convertQuery(query);
+        if (!queryJsonNode.isObject()) {
+            throw new ClientInternalError("Converted query is not a JSON object");
+        }
+
+        LOG.debug(AGGREGATE_CONVERTED_QUERY, queryJsonNode);
+
+        // Only the aggregations are needed, not the matching documents nor their total count
+        ObjectNode aggregateQueryJsonNode = (ObjectNode) queryJsonNode;
+        aggregateQueryJsonNode.remove(SchemaKeys.KEY_FROM);
+        aggregateQueryJsonNode.remove(SchemaKeys.KEY_SORT);
+        aggregateQueryJsonNode.put(SchemaKeys.KEY_SIZE, 0);
+        aggregateQueryJsonNode.put(SchemaKeys.KEY_TRACK_TOTAL_HITS, false);
+
+        Request request = new Request(ElasticsearchKeywords.ACTION_GET, ElasticsearchResourcePaths.search(typeDescriptor));
+        request.setJsonEntity(writeRequestFromJsonNode(aggregateQueryJsonNode));
+        Response aggregateResponse = performRequest(request, typeDescriptor.getIndex(), "AGGREGATE");
+
+        if (isRequestSuccessful(aggregateResponse)) {
+            JsonNode aggregationsNode = readResponseAsJsonNode(aggregateResponse).get(SchemaKeys.KEY_AGGREGATIONS);
+            if (aggregationsNode != null) {
+                return aggregationsNode;
+            }
+        } else if (!isRequestBadRequest(aggregateResponse) &&
+                !isRequestNotFound(aggregateResponse)) {
+            throw buildExceptionFromUnsuccessfulResponse("Aggregate", aggregateResponse);
+        }
+
+        return objectMapper.createObjectNode();
+    }
+
     @Override
     public IndexResponse isIndexExists(IndexRequest indexRequest) throws ClientException {
         LOG.debug("Index exists - index name: '{}'", indexRequest.getIndex());
         Request request = new Request(ElasticsearchKeywords.ACTION_HEAD, ElasticsearchResourcePaths.index(indexRequest.getIndex()));
-        Response isIndexExistsResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), indexRequest.getIndex(), "INDEX EXIST");
+        Response isIndexExistsResponse = performRequest(request, indexRequest.getIndex(), "INDEX EXIST");
 
         if (isRequestSuccessful(isIndexExistsResponse)) {
             return new IndexResponse(true);
@@ -364,7 +484,7 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
         LOG.debug("Find indexes - index prefix: '{}'", indexRequest.getIndex());
         Request request = new Request(ElasticsearchKeywords.ACTION_GET, ElasticsearchResourcePaths.findIndex(indexRequest.getIndex()));
         request.addParameter("pretty", "true");
-        Response findIndexResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), indexRequest.getIndex(),"INDEX EXIST");
+        Response findIndexResponse = performRequest(request, indexRequest.getIndex(),"INDEX EXIST");
 
         if (isRequestSuccessful(findIndexResponse)) {
             try {
@@ -386,7 +506,7 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
         String json = writeRequestFromJsonNode(indexSettings);
         Request request = new Request(ElasticsearchKeywords.ACTION_PUT, ElasticsearchResourcePaths.index(indexName));
         request.setJsonEntity(json);
-        Response createIndexResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), indexName, "CREATE INDEX");
+        Response createIndexResponse = performRequest(request, indexName, "CREATE INDEX");
 
         if (!isRequestSuccessful(createIndexResponse)) {
             throw buildExceptionFromUnsuccessfulResponse("Create index", createIndexResponse);
@@ -397,7 +517,7 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
     public boolean isMappingExists(TypeDescriptor typeDescriptor) throws ClientException {
         LOG.debug("Mapping exists - mapping name: '{} - {}'", typeDescriptor.getIndex(), typeDescriptor.getType());
         Request request = new Request(ElasticsearchKeywords.ACTION_GET, ElasticsearchResourcePaths.mapping(typeDescriptor));
-        Response isMappingExistsResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), typeDescriptor.getIndex(), "MAPPING EXIST");
+        Response isMappingExistsResponse = performRequest(request, typeDescriptor.getIndex(), "MAPPING EXIST");
 
         if (isRequestSuccessful(isMappingExistsResponse)) {
             return true;
@@ -415,18 +535,33 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
         String json = writeRequestFromJsonNode(mapping);
         Request request = new Request(ElasticsearchKeywords.ACTION_PUT, ElasticsearchResourcePaths.mapping(typeDescriptor));
         request.setJsonEntity(json);
-        Response createMappingResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), typeDescriptor.getIndex(), "PUT MAPPING");
+        Response createMappingResponse = performRequest(request, typeDescriptor.getIndex(), "PUT MAPPING");
 
         if (!isRequestSuccessful(createMappingResponse)) {
             throw buildExceptionFromUnsuccessfulResponse("Create mapping", createMappingResponse);
         }
     }
 
+    @Override
+    public JsonNode getMapping(TypeDescriptor typeDescriptor) throws ClientException {
+        LOG.debug("Get mapping - index: {}, type: {}", typeDescriptor.getIndex(), typeDescriptor.getType());
+        Request request = new Request(ElasticsearchKeywords.ACTION_GET, ElasticsearchResourcePaths.mapping(typeDescriptor));
+        Response getMappingResponse = performRequest(request, typeDescriptor.getIndex(), "GET MAPPING");
+
+        if (isRequestSuccessful(getMappingResponse)) {
+            return readResponseAsJsonNode(getMappingResponse).path(typeDescriptor.getIndex()).path(ElasticsearchKeywords.KEY_MAPPINGS);
+        } else if (isRequestNotFound(getMappingResponse)) {
+            return MissingNode.getInstance();
+        } else {
+            throw buildExceptionFromUnsuccessfulResponse("Get mapping", getMappingResponse);
+        }
+    }
+
     @Override
     public void refreshAllIndexes() throws ClientException {
         LOG.debug("Refresh all indexes");
         Request request = new Request(ElasticsearchKeywords.ACTION_POST, ElasticsearchResourcePaths.refreshAllIndexes());
-        Response refreshIndexResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), ElasticsearchKeywords.INDEX_ALL, "REFRESH INDEX");
+        Response refreshIndexResponse = performRequest(request, ElasticsearchKeywords.INDEX_ALL, "REFRESH INDEX");
 
         if (!isRequestSuccessful(refreshIndexResponse)) {
             throw buildExceptionFromUnsuccessfulResponse("Refresh all indexes", refreshIndexResponse);
@@ -437,7 +572,7 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
     public void deleteAllIndexes() throws ClientException {
         LOG.debug("Delete all indexes");
         Request request = new Request(ElasticsearchKeywords.ACTION_DELETE, ElasticsearchResourcePaths.index("_all"));
-        Response deleteIndexResponse = restCallTimeoutHandler(() -> getClient().performRequest(request), ElasticsearchKeywords.INDEX_ALL, "DELETE INDEX");
+        Response deleteIndexResponse = performRequest(request, ElasticsearchKeywords.INDEX_ALL, "DELETE INDEX");
 
         if (!isRequestSuccessful(deleteIndexResponse)) {
             throw buildExceptionFromUnsuccessfulResponse("Delete all indexes", deleteIndexResponse);
@@ -450,10 +585,8 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
         for (String index : indexes) {
             LOG.debug("Delete index: {}", index);
             Request request = new Request(ElasticsearchKeywords.ACTION_DELETE, ElasticsearchResourcePaths.index(index));
-            Response deleteIndexResponse = restCallTimeoutHandler(() -> {
-                LOG.debug("Deleting index: {}", index);
-                return getClient().performRequest(request);
-            }, index, "DELETE INDEX");
+            LOG.debug("Deleting index: {}", index);
+            Response deleteIndexResponse = performRequest(request, index, "DELETE INDEX");
 
             // for that call the deleteIndexResponse=null case could be considered as good response since if an index doesn't exist (404) the delete could be considered successful.
             // the deleteIndexResponse is null also if the error is due to a bad index request (400) but this error, except if there is an application bug, shouldn't never happen.
@@ -467,37 +600,303 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
         }
     }
 
-    private Response restCallTimeoutHandler(Callable<Response> restAction, String index, String operationName) throws ClientException {
-        int retryCount = 0;
+    //
+    // Asynchronous section
+    //
+
+    @Override
+    public CompletionStage<InsertResponse> insertAsync(InsertRequest insertRequest) {
+        Request request;
+        try {
+            request = buildInsertRequest(insertRequest, PooledJsonEntityBuffer.newUnpooled());
+        } catch (ClientException e) {
+            return failedStage(e);
+        }
+
+        return performRequestAsync(request, insertRequest.getTypeDescriptor().getIndex(), "INSERT", this::readInsertResponse);
+    }
+
+    @Override
+    public CompletionStage<UpdateResponse> upsertAsync(UpdateRequest updateRequest) {
+        Request request;
         try {
-            do {
-                try {
-                    return restAction.call();
-                } catch (RuntimeException e) {
-                    if (e.getCause() instanceof TimeoutException) {
-                        timeoutRetryCount.inc();
-                        if (retryCount < getClientConfiguration().getRequestConfiguration().getRequestRetryAttemptMax() - 1) {
-                            try {
-                                Thread.sleep((long) (getClientConfiguration().getRequestConfiguration().getRequestRetryAttemptWait() * (0.5 + RANDOM.nextFloat() / 2)));
-                            } catch (InterruptedException e1) {
-                                Thread.currentThread().interrupt();
+            request = buildUpsertRequest(updateRequest, PooledJsonEntityBuffer.newUnpooled());
+        } catch (ClientException e) {
+            return failedStage(e);
+        }
+
+        return performRequestAsync(request, updateRequest.getTypeDescriptor().getIndex(), "UPSERT", this::readUpsertResponse);
+    }
+
+    @Override
+    public CompletionStage<BulkInsertResponse> bulkAsync(BulkInsertRequest bulkInsertRequest) {
+        List<InsertRequest> insertRequests = bulkInsertRequest.getRequest();
+        if (insertRequests.isEmpty()) {
+            return CompletableFuture.completedFuture(new BulkInsertResponse());
+        }
+
+        Request request;
+        try {
+            request = buildBulkInsertRequest(insertRequests, PooledJsonEntityBuffer.newUnpooled());
+        } catch (ClientException e) {
+            return failedStage(e);
+        }
+
+        return performRequestAsync(request, "multi-index", "INSERT BULK", response -> readBulkInsertResponse(insertRequests, response));
+    }
+
+    @Override
+    public <T> CompletionStage<ResultList<T>> queryAsync(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) {
+        Request request;
+        try {
+            request = buildQueryRequest(typeDescriptor, query);
+        } catch (ClientException e) {
+            return failedStage(e);
+        }
+
+        return performRequestAsync(request, typeDescriptor.getIndex(), "QUERY", response -> readQueryResponse(query, clazz, response));
+    }
+
+    /**
+     * Performs the given {@link Request} without blocking the caller, like {@link #performRequestWithRetry(Request, String, String)}.
+     * <p>
+     * Before sending the {@link Request} an in flight permit must be acquired: when {@link ElasticsearchClientRequestConfiguration#getMaxInFlightRequests()}
+     * requests are already in flight, the caller waits up to {@link ElasticsearchClientRequestConfiguration#getInFlightRequestWait()} for one of them to complete.
+     * This is the backpressure which keeps callers from submitting more requests than Elasticsearch can handle.
+     * <p>
+     * The {@link Response} is read on the thread which completes the request, so it must be quick and not blocking.
+     *
+     * @param request        The {@link Request} to perform.
+     * @param index          The index targeted by the {@link Request}, for logging.
+     * @param operationName  The name of the operation, for logging.
+     * @param responseReader The {@link ResponseReader} which reads the result from the {@link Response}.
+     * @param <T>            The type of the result.
+     * @return The {@link CompletionStage} of the result.
+     * @since 2.0.0
+     */
+    private <T> CompletionStage<T> performRequestAsync(Request request, String index, String operationName, ResponseReader<T> responseReader) {
+        try {
+            acquireInFlightPermit(operationName);
+        } catch (ClientException e) {
+            return failedStage(e);
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Timer.Context latencyContext = asyncRequestLatency.time();
+        performRequestWithRetry(request, index, operationName).whenComplete((response, exception) -> {
+            releaseInFlightPermit(latencyContext);
+
+            if (exception != null) {
+                result.completeExceptionally(exception);
+                return;
+            }
+
+            try {
+                result.complete(responseReader.read(response));
+            } catch (ClientException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Acquires an in flight permit, waiting up to {@link ElasticsearchClientRequestConfiguration#getInFlightRequestWait()} for it.
+     *
+     * @param operationName The name of the operation, for logging.
+     * @throws ClientUnavailableException if no permit becomes available in time.
+     * @since 2.0.0
+     */
+    private void acquireInFlightPermit(String operationName) throws ClientUnavailableException {
+        if (!inFlightPermits.tryAcquire()) {
+            asyncRequestWaitingCount.inc();
+            try {
+                if (!inFlightPermits.tryAcquire(getClientConfiguration().getRequestConfiguration().getInFlightRequestWait(), TimeUnit.MILLISECONDS)) {
+                    asyncRequestRejectedCount.inc();
+                    LOG.warn("No in flight permit available while performing {}", operationName);
+                    throw new ClientUnavailableException("Too many asynchronous requests in flight");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ClientUnavailableException(e, "Interrupted while waiting for an in flight permit");
+            } finally {
+                asyncRequestWaitingCount.dec();
+            }
+        }
+        asyncRequestInFlightCount.inc();
+    }
+
+    private void releaseInFlightPermit(Timer.Context latencyContext) {
+        latencyContext.stop();
+        asyncRequestInFlightCount.dec();
+        inFlightPermits.release();
+    }
+
+    private static <T> CompletionStage<T> failedStage(Throwable throwable) {
+        CompletableFuture<T> failedStage = new CompletableFuture<>();
+        failedStage.completeExceptionally(throwable);
+        return failedStage;
+    }
+
+    /**
+     * Performs the given {@link Request} with {@link #performRequestWithRetry(Request, String, String)}, waiting for its {@link Response}.
+     *
+     * @param request       The {@link Request} to perform.
+     * @param index         The index targeted by the {@link Request}, for logging.
+     * @param operationName The name of the operation, for logging.
+     * @return The {@link Response} from Elasticsearch.
+     * @throws ClientException if no {@link Response} has been received.
+     * @since 2.0.0
+     */
+    private Response performRequest(Request request, String index, String operationName) throws ClientException {
+        try {
+            // Waits uninterruptibly: the request entity may be a pooled buffer which must not be released while the request is in flight
+            return performRequestWithRetry(request, index, operationName).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ClientException) {
+                throw (ClientException) e.getCause();
+            }
+            throw new ClientInternalError(e.getCause(), "Error in handling REST request");
+        }
+    }
+
+    /**
+     * Performs the given {@link Request} with {@link RestClient#performRequestAsync(Request, ResponseListener)}, retrying it if Elasticsearch does not answer or is overloaded.
+     * <p>
+     * Retries are scheduled on {@link #RETRY_SCHEDULER} after an exponential backoff with jitter, so no thread is blocked while waiting.
+     * Requests are retried up to {@link ElasticsearchClientRequestConfiguration#getRequestRetryAttemptMax()} times on:
+     * <ul>
+     *     <li>{@link IOException}s, like timeouts and refused connections</li>
+     *     <li>HTTP 429, 502, 503 and 504 responses</li>
+     * </ul>
+     * Each attempt goes through the {@link CircuitBreaker}: while it is open requests fail fast with a {@link ClientCircuitBreakerOpenException}.
+     * <p>
+     * The returned {@link CompletableFuture} completes with the last {@link Response} received, whatever its HTTP code.
+     * It completes exceptionally with a {@link ClientCommunicationException} if no {@link Response} has been received.
+     *
+     * @param request       The {@link Request} to perform.
+     * @param index         The index targeted by the {@link Request}, for logging.
+     * @param operationName The name of the operation, for logging.
+     * @return The {@link CompletableFuture} of the {@link Response}.
+     * @since 2.0.0
+     */
+    private CompletableFuture<Response> performRequestWithRetry(Request request, String index, String operationName) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        performRequestAttempt(request, index, operationName, 0, result);
+        return result;
+    }
+
+    private void performRequestAttempt(Request request, String index, String operationName, int retryCount, CompletableFuture<Response> result) {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            circuitBreakerRejectedCount.inc();
+            result.completeExceptionally(new ClientCircuitBreakerOpenException(getClientConfiguration().getClusterName()));
+            return;
+        }
+
+        try {
+            getClient().performRequestAsync(request, new ResponseListener() {
+
+                @Override
+                public void onSuccess(Response response) {
+                    recordRequestSuccess();
+                    result.complete(response);
+                }
+
+                @Override
+                public void onFailure(Exception exception) {
+                    if (exception instanceof ResponseException) {
+                        Response response = ((ResponseException) exception).getResponse();
+                        int responseCode = response.getStatusLine().getStatusCode();
+                        if (isRequestRetryable(responseCode)) {
+                            recordRequestFailure();
+                            LOG.debug("Elasticsearch Response with code {} on index {} while performing {}. Attempt: {}", responseCode, index, operationName, retryCount + 1);
+                            if (!retry(request, index, operationName, retryCount, result)) {
+                                LOG.warn("Elasticsearch Response with code {} on index {} while performing {}. Retry limit reached", responseCode, index, operationName);
+                                result.complete(response);
                             }
+                        } else {
+                            recordRequestSuccess();
+                            LOG.warn("Elasticsearch Response with code {} for on index {} while performing {}. Follows stacktrace.", responseCode, index, operationName, exception);
+                            result.complete(response);
+                        }
+                    } else if (exception instanceof IOException) {
+                        recordRequestFailure();
+                        timeoutRetryCount.inc();
+                        LOG.debug("Elasticsearch did not answer on index {} while performing {}. Attempt: {}", index, operationName, retryCount + 1, exception);
+                        if (!retry(request, index, operationName, retryCount, result)) {
+                            timeoutRetryLimitReachedCount.inc();
+                            result.completeExceptionally(new ClientCommunicationException(exception));
                         }
                     } else {
-                        throw e;
+                        recordRequestFailure();
+                        restCallRuntimeExecCount.inc();
+                        result.completeExceptionally(new ClientInternalError(exception, "Error in handling REST timeout handler"));
                     }
                 }
-            } while (++retryCount <= getClientConfiguration().getRequestConfiguration().getRequestRetryAttemptMax());
+            });
+        } catch (RuntimeException e) {
+            recordRequestFailure();
+            restCallRuntimeExecCount.inc();
+            result.completeExceptionally(new ClientInternalError(e, "Error in handling REST timeout handler"));
+        }
+    }
+
+    /**
+     * Schedules the next attempt of the given {@link Request}, if the retry limit has not been reached.
+     *
+     * @return {@code true} if the next attempt has been scheduled, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    private boolean retry(Request request, String index, String operationName, int retryCount, CompletableFuture<Response> result) {
+        if (retryCount >= getClientConfiguration().getRequestConfiguration().getRequestRetryAttemptMax()) {
+            return false;
+        }
+
+        try {
+            RETRY_SCHEDULER.schedule(() -> performRequestAttempt(request, index, operationName, retryCount + 1, result), getRetryDelay(retryCount), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the wait time before the next retry: {@link ElasticsearchClientRequestConfiguration#getRequestRetryAttemptWait()} doubled at each retry
+     * up to {@link ElasticsearchClientRequestConfiguration#getRequestRetryAttemptWaitMax()}, of which a random 50% to 100% is taken
+     * so that requests failed together are not retried together.
+     *
+     * @param retryCount The number of retries already performed.
+     * @return The wait time before the next retry, in milliseconds.
+     * @since 2.0.0
+     */
+    private long getRetryDelay(int retryCount) {
+        ElasticsearchClientRequestConfiguration requestConfiguration = getClientConfiguration().getRequestConfiguration();
+        long retryWait = Math.min((long) requestConfiguration.getRequestRetryAttemptWait() << Math.min(retryCount, 20), requestConfiguration.getRequestRetryAttemptWaitMax());
+        return (long) (retryWait * (0.5 + RANDOM.nextFloat() / 2));
+    }
 
-        } catch (ResponseException responseException) {
-            LOG.warn("Elasticsearch Response with code {} for on index {} while performing {}. Follows stacktrace.", responseException.getResponse().getStatusLine().getStatusCode(), index, operationName, responseException);
-            return responseException.getResponse();
-        } catch (Exception e) {
-            throw new ClientInternalError(e, "Error in handling REST timeout handler");
+    private void recordRequestSuccess() {
+        if (circuitBreaker != null) {
+            circuitBreaker.onSuccess();
         }
-        timeoutRetryLimitReachedCount.inc();
+    }
 
-        throw new ClientCommunicationException();
+    private void recordRequestFailure() {
+        if (circuitBreaker != null && circuitBreaker.onFailure()) {
+            circuitBreakerOpenCount.inc();
+            LOG.warn("Elasticsearch cluster {} is not responding. Requests will be rejected for {}ms", getClientConfiguration().getClusterName(), getClientConfiguration().getCircuitBreakerConfiguration().getOpenDuration());
+        }
+    }
+
+    /**
+     * Checks if the given response code means that Elasticsearch is temporarily unable to handle the request: HTTP 429, 502, 503 or 504.
+     *
+     * @param responseCode The response code to check.
+     * @return {@code true} if the request can be retried, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    private boolean isRequestRetryable(int responseCode) {
+        return responseCode == 429 || (502 <= responseCode && responseCode <= 504);
     }
 
     /**
@@ -606,26 +1005,283 @@ public class RestElasticsearchClient extends AbstractElasticsearchClient<RestCli
     }
 
     private JsonNode readResponseAsJsonNode(@NotNull Response response) throws ResponseEntityReadError {
-        try {
-            return objectMapper.readTree(EntityUtils.toString(response.getEntity()));
+        try (InputStream responseContent = response.getEntity().getContent()) {
+            return objectMapper.readTree(responseContent);
         } catch (IOException e) {
             throw new ResponseEntityReadError(e);
         }
     }
 
-    private String writeRequestFromJsonNode(@NotNull JsonNode jsonNode) throws RequestEntityWriteError {
+    /**
+     * Builds the insert {@link Request}, writing the document to the given {@link PooledJsonEntityBuffer}.
+     *
+     * @param insertRequest The {@link InsertRequest}.
+     * @param entityBuffer  The {@link PooledJsonEntityBuffer} to write the document to.
+     * @return The {@link Request} to perform.
+     * @throws ClientException if the document cannot be written.
+     * @since 2.0.0
+     */
+    private Request buildInsertRequest(@NotNull InsertRequest insertRequest, @NotNull PooledJsonEntityBuffer entityBuffer) throws ClientException {
+        try (JsonGenerator jsonGenerator = createJsonGenerator(entityBuffer)) {
+            getModelContext().marshal(insertRequest.getStorable(), jsonGenerator);
+        } catch (IOException e) {
+            throw new RequestEntityWriteError(e);
+        }
+        LOG.debug("Insert - converted object: '{}'", entityBuffer);
+
+        Request request = new Request(ElasticsearchKeywords.ACTION_PUT, ElasticsearchResourcePaths.insertType(insertRequest));
+        request.setEntity(entityBuffer.toEntity());
+        return request;
+    }
+
+    private InsertResponse readInsertResponse(@NotNull Response insertResponse) throws ClientException {
+        if (isRequestSuccessful(insertResponse)) {
+            JsonNode responseNode = readResponseAsJsonNode(insertResponse);
+
+            String id = responseNode.get(ElasticsearchKeywords.KEY_DOC_ID).asText();
+            String index = responseNode.get(ElasticsearchKeywords.KEY_DOC_INDEX).asText();
+            String type = responseNode.get(ElasticsearchKeywords.KEY_DOC_TYPE).asText();
+            return new InsertResponse(id, new TypeDescriptor(index, type));
+        } else {
+            throw buildExceptionFromUnsuccessfulResponse("Insert", insertResponse);
+        }
+    }
+
+    /**
+     * Builds the bulk insert {@link Request}, writing the documents to the given {@link PooledJsonEntityBuffer}.
+     *
+     * @param insertRequests The {@link InsertRequest}s.
+     * @param entityBuffer   The {@link PooledJsonEntityBuffer} to write the documents to.
+     * @return The {@link Request} to perform.
+     * @throws ClientException if the documents cannot be written.
+     * @since 2.0.0
+     */
+    private Request buildBulkInsertRequest(@NotNull List<InsertRequest> insertRequests, @NotNull PooledJsonEntityBuffer entityBuffer) throws ClientException {
+        try (JsonGenerator jsonGenerator = createJsonGenerator(entityBuffer)) {
+            for (InsertRequest insertRequest : insertRequests) {
+                jsonGenerator.writeStartObject();
+                jsonGenerator.writeObjectFieldStart(ElasticsearchKeywords.KEY_INDEX);
+                jsonGenerator.writeStringField(ElasticsearchKeywords.KEY_DOC_INDEX, insertRequest.getTypeDescriptor().getIndex());
+                if (insertRequest.getId() != null) {
+                    jsonGenerator.writeStringField(ElasticsearchKeywords.KEY_DOC_ID, insertRequest.getId());
+                }
+                jsonGenerator.writeEndObject();
+                jsonGenerator.writeEndObject();
+                jsonGenerator.writeRaw('\n');
+
+                getModelContext().marshal(insertRequest.getStorable(), jsonGenerator);
+                jsonGenerator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new RequestEntityWriteError(e);
+        }
+        LOG.debug("Insert bulk - documents: {}", insertRequests.size());
+
+        Request request = new Request(ElasticsearchKeywords.ACTION_POST, ElasticsearchResourcePaths.getBulkPath());
+        request.setEntity(entityBuffer.toEntity());
+        return request;
+    }
+
+    private BulkInsertResponse readBulkInsertResponse(@NotNull List<InsertRequest> insertRequests, @NotNull Response insertResponse) throws ClientException {
+        if (isRequestSuccessful(insertResponse)) {
+            JsonNode responseNode = readResponseAsJsonNode(insertResponse);
+
+            ArrayNode items = (ArrayNode) responseNode.get(ElasticsearchKeywords.KEY_ITEMS);
+            if (items == null || items.size() != insertRequests.size()) {
+                throw new ClientInternalError("Bulk insert response items do not match the request documents");
+            }
+
+            // Elasticsearch returns the items in the same order of the bulk request
+            BulkInsertResponse bulkResponse = new BulkInsertResponse();
+            int itemIndex = 0;
+            for (JsonNode item : items) {
+                InsertRequest insertRequest = insertRequests.get(itemIndex++);
+                JsonNode jsonNode = item.get(ElasticsearchKeywords.KEY_INDEX);
+                if (jsonNode == null) {
+                    throw new ClientInternalError("Empty JSON response from bulk insert");
+                }
+
+                String id = jsonNode.path(ElasticsearchKeywords.KEY_DOC_ID).asText(insertRequest.getId());
+                String indexName = jsonNode.path(ElasticsearchKeywords.KEY_DOC_INDEX).asText(insertRequest.getTypeDescriptor().getIndex());
+                String typeName = jsonNode.path(ElasticsearchKeywords.KEY_DOC_TYPE).asText(insertRequest.getTypeDescriptor().getType());
+                int responseCode = jsonNode.path(ElasticsearchKeywords.KEY_STATUS).asInt();
+                if (!isRequestSuccessful(responseCode)) {
+                    String failureMessage = jsonNode.at("/error/reason").asText();
+                    if (StringUtils.isBlank(failureMessage)) {
+                        failureMessage = MSG_EMPTY_ERROR;
+                    }
+                    bulkResponse.add(new InsertResponse(id, new TypeDescriptor(indexName, typeName), responseCode, failureMessage));
+                    LOG.info("Insert failed [{}, {}, {}, {}]", indexName, id, responseCode, failureMessage);
+                    continue;
+                }
+                bulkResponse.add(new InsertResponse(id, new TypeDescriptor(indexName, typeName)));
+            }
+            return bulkResponse;
+        } else {
+            throw buildExceptionFromUnsuccessfulResponse("Insert bulk", insertResponse);
+        }
+    }
+
+    /**
+     * Builds the upsert {@link Request}, writing the document to the given {@link PooledJsonEntityBuffer}.
+     *
+     * @param updateRequest The {@link UpdateRequest}.
+     * @param entityBuffer  The {@link PooledJsonEntityBuffer} to write the document to.
+     * @return The {@link Request} to perform.
+     * @throws ClientException if the document cannot be written.
+     * @since 2.0.0
+     */
+    private Request buildUpsertRequest(@NotNull UpdateRequest updateRequest, @NotNull PooledJsonEntityBuffer entityBuffer) throws ClientException {
+        try (JsonGenerator jsonGenerator = createJsonGenerator(entityBuffer)) {
+            writeUpsertDocument(updateRequest, jsonGenerator);
+        } catch (IOException e) {
+            throw new RequestEntityWriteError(e);
+        }
+        LOG.debug("Upsert - converted object: '{}'", entityBuffer);
+
+        Request request = new Request(ElasticsearchKeywords.ACTION_POST, ElasticsearchResourcePaths.upsert(updateRequest.getTypeDescriptor(), updateRequest.getId()));
+        request.setEntity(entityBuffer.toEntity());
+        return request;
+    }
+
+    private UpdateResponse readUpsertResponse(@NotNull Response updateResponse) throws ClientException {
+        if (isRequestSuccessful(updateResponse)) {
+            JsonNode responseNode = readResponseAsJsonNode(updateResponse);
+
+            String id = responseNode.get(ElasticsearchKeywords.KEY_DOC_ID).asText();
+            String index = responseNode.get(ElasticsearchKeywords.KEY_DOC_INDEX).asText();
+            String type = responseNode.get(ElasticsearchKeywords.KEY_DOC_TYPE).asText();
+            return new UpdateResponse(id, new TypeDescriptor(index, type));
+        } else {
+            throw buildExceptionFromUnsuccessfulResponse("Update", updateResponse);
+        }
+    }
+
+    private Request buildQueryRequest(@NotNull TypeDescriptor typeDescriptor, @NotNull Object query) throws ClientException {
+        JsonNode queryJsonNode = getModelConverter().convertQuery(query);
+        LOG.debug(QUERY_CONVERTED_QUERY, queryJsonNode);
+
+        Request request = new Request(ElasticsearchKeywords.ACTION_GET, ElasticsearchResourcePaths.search(typeDescriptor));
+        request.setJsonEntity(writeRequestFromJsonNode(queryJsonNode));
+        return request;
+    }
+
+    private <T> ResultList<T> readQueryResponse(@NotNull Object query, @NotNull Class<T> clazz, @NotNull Response queryResponse) throws ClientException {
+        long totalCount = 0;
+        boolean totalCountLowerBound = false;
+        ArrayNode resultsNode = null;
+        if (isRequestSuccessful(queryResponse)) {
+            JsonNode responseNode = readResponseAsJsonNode(queryResponse);
+
+            JsonNode hitsNode = responseNode.path(ElasticsearchKeywords.KEY_HITS);
+            JsonNode totalNode = hitsNode.path(ElasticsearchKeywords.KEY_TOTAL);
+            totalCount = totalNode.path(ElasticsearchKeywords.KEY_VALUE).asLong();
+            if (totalCount > Integer.MAX_VALUE) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, CLIENT_HITS_MAX_VALUE_EXCEEDED);
+            }
+            // The total is missing when hits are not tracked, and is a lower bound when their tracking stopped before counting all of them
+            totalCountLowerBound = totalNode.isMissingNode() ||
+                    ElasticsearchKeywords.RELATION_GREATER_THAN_OR_EQUAL.equals(totalNode.path(ElasticsearchKeywords.KEY_RELATION).asText());
+            resultsNode = ((ArrayNode) hitsNode.get(ElasticsearchKeywords.KEY_HITS));
+        } else if (!isRequestBadRequest(queryResponse) &&
+                !isRequestNotFound(queryResponse)) {
+            throw buildExceptionFromUnsuccessfulResponse("Query", queryResponse);
+        }
+
+        ResultList<T> resultList = new ResultList<>(totalCount, totalCountLowerBound);
+        Object queryFetchStyle = getModelConverter().getFetchStyle(query);
+        if (resultsNode != null && !resultsNode.isEmpty()) {
+            for (JsonNode result : resultsNode) {
+                resultList.add(readHit(result, clazz, queryFetchStyle));
+            }
+        }
+        return resultList;
+    }
+
+    /**
+     * Reads a search hit as the given {@link Class}.
+     *
+     * @param hitNode         The search hit.
+     * @param clazz           The expected {@link Object#getClass()}.
+     * @param queryFetchStyle The fetch style of the query.
+     * @return The read object.
+     * @throws ClientException if the search hit cannot be converted.
+     * @since 2.0.0
+     */
+    private <T> T readHit(@NotNull JsonNode hitNode, @NotNull Class<T> clazz, Object queryFetchStyle) throws ClientException {
+        Map<String, Object> object = objectMapper.convertValue(hitNode.get(SchemaKeys.KEY_SOURCE), Map.class);
+
+        String id = hitNode.get(ElasticsearchKeywords.KEY_DOC_ID).asText();
+        String index = hitNode.get(ElasticsearchKeywords.KEY_DOC_INDEX).asText();
+        String type = hitNode.get(ElasticsearchKeywords.KEY_DOC_TYPE).asText();
+
+        object.put(ModelContext.TYPE_DESCRIPTOR_KEY, new TypeDescriptor(index, type));
+        object.put(getModelContext().getIdKeyName(), id);
+        object.put(QueryConverter.QUERY_FETCH_STYLE_KEY, queryFetchStyle);
+
+        return getModelContext().unmarshal(clazz, object);
+    }
+
+    /**
+     * Creates a {@link JsonGenerator} which writes to the given {@link OutputStream}.
+     * <p>
+     * Root values are not separated, so that the caller can write new-line delimited JSON.
+     *
+     * @param outputStream The {@link OutputStream} to write to.
+     * @return The {@link JsonGenerator}.
+     * @throws RequestEntityWriteError if the {@link JsonGenerator} cannot be created.
+     * @since 2.0.0
+     */
+    private JsonGenerator createJsonGenerator(@NotNull OutputStream outputStream) throws RequestEntityWriteError {
         try {
-            return objectMapper.writeValueAsString(jsonNode);
-        } catch (JsonProcessingException e) {
+            return jsonFactory.createGenerator(outputStream);
+        } catch (IOException e) {
             throw new RequestEntityWriteError(e);
         }
     }
 
-    private String writeRequestFromMap(@NotNull Map<String, Object> storableMap) throws RequestEntityWriteError {
+    /**
+     * Writes the upsert document (the storable as {@code doc} with {@code doc_as_upsert}) of the given {@link UpdateRequest}.
+     *
+     * @param updateRequest The {@link UpdateRequest}.
+     * @param jsonGenerator The {@link JsonGenerator} to write to.
+     * @throws ClientException if the storable cannot be converted.
+     * @throws IOException     if the document cannot be written.
+     * @since 2.0.0
+     */
+    private void writeUpsertDocument(@NotNull UpdateRequest updateRequest, @NotNull JsonGenerator jsonGenerator) throws ClientException, IOException {
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeFieldName(ElasticsearchKeywords.KEY_DOC);
+        getModelContext().marshal(updateRequest.getStorable(), jsonGenerator);
+        jsonGenerator.writeBooleanField(ElasticsearchKeywords.KEY_DOC_AS_UPSERT, true);
+        jsonGenerator.writeEndObject();
+    }
+
+    private String writeRequestFromJsonNode(@NotNull JsonNode jsonNode) throws RequestEntityWriteError {
         try {
-            return objectMapper.writeValueAsString(storableMap);
+            return objectMapper.writeValueAsString(jsonNode);
         } catch (JsonProcessingException e) {
             throw new RequestEntityWriteError(e);
         }
     }
+
+    /**
+     * Reads the result of a request from its {@link Response}.
+     *
+     * @param <T> The type of the result.
+     * @since 2.0.0
+     */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+
+        /**
+         * Reads the result from the given {@link Response}.
+         *
+         * @param response The {@link Response} to read.
+         * @return The result.
+         * @throws ClientException if the {@link Response} is not successful or cannot be read.
+         * @since 2.0.0
+         */
+        T read(Response response) throws ClientException;
+    }
 }
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.rest.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker which stops sending requests to a cluster which is not responding.
+ * <p>
+ * The circuit breaker starts {@link State#CLOSED}: all requests are allowed.
+ * After the configured number of consecutive failures it becomes {@link State#OPEN}: requests are rejected without being sent.
+ * Once the open duration has elapsed it becomes {@link State#HALF_OPEN}: a single trial request is allowed,
+ * and its outcome decides whether the circuit breaker closes again or stays open for another open duration.
+ * <p>
+ * Each request allowed by {@link #tryAcquire()} must be followed by either {@link #onSuccess()} or {@link #onFailure()}.
+ *
+ * @since 2.0.0
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of the {@link CircuitBreaker}.
+     *
+     * @since 2.0.0
+     */
+    public enum State {
+        /**
+         * Requests are allowed.
+         *
+         * @since 2.0.0
+         */
+        CLOSED,
+
+        /**
+         * Requests are rejected.
+         *
+         * @since 2.0.0
+         */
+        OPEN,
+
+        /**
+         * A single trial request is allowed.
+         *
+         * @since 2.0.0
+         */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedOn;
+    private boolean trialInFlight;
+
+    /**
+     * Constructor.
+     *
+     * @param failureThreshold The number of consecutive failures which opens the {@link CircuitBreaker}.
+     * @param openDuration     How long the {@link CircuitBreaker} stays open before allowing a trial request, in milliseconds.
+     * @since 2.0.0
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failure threshold must be positive");
+        }
+
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDuration);
+    }
+
+    /**
+     * Checks whether a request can be sent.
+     *
+     * @return {@code true} if the request can be sent, {@code false} if it must be rejected.
+     * @since 2.0.0
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedOn < openDurationNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * Records a request which got an answer from the cluster, closing the {@link CircuitBreaker}.
+     *
+     * @since 2.0.0
+     */
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a request which did not get an answer from the cluster, opening the {@link CircuitBreaker}
+     * if it was the trial request or if the failure threshold has been reached.
+     *
+     * @return {@code true} if this failure opened the {@link CircuitBreaker}, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    public synchronized boolean onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedOn = System.nanoTime();
+            trialInFlight = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the current {@link State}.
+     * <p>
+     * An {@link State#OPEN} circuit breaker whose open duration has elapsed is still reported as {@link State#OPEN}
+     * until a request is allowed through with {@link #tryAcquire()}.
+     *
+     * @return The current {@link State}.
+     * @since 2.0.0
+     */
+    public synchronized State getState() {
+        return state;
+    }
+}
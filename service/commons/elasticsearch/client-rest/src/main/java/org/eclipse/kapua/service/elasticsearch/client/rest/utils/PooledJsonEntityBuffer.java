@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.rest.utils;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Reusable buffer where JSON request bodies are written before being sent.
+ * <p>
+ * Buffers are pooled per thread: {@link #acquire()} returns the buffer of the current thread, which must be given back with {@link #release()}
+ * once the request has been completed. The {@link HttpEntity} returned by {@link #toEntity()} wraps the internal array without copying it,
+ * so it must not be used after {@link #release()}.
+ * <p>
+ * Buffers grown above {@link #MAX_RETAINED_CAPACITY} are not retained, to avoid keeping big arrays alive after a big request.
+ * <p>
+ * Requests which are completed on another thread, like the asynchronous ones, cannot use the buffer of the submitting thread:
+ * they must use a buffer from {@link #newUnpooled()}, which is never reused.
+ *
+ * @since 2.0.0
+ */
+public class PooledJsonEntityBuffer extends ByteArrayOutputStream {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final ThreadLocal<PooledJsonEntityBuffer> BUFFERS = ThreadLocal.withInitial(PooledJsonEntityBuffer::new);
+
+    private final boolean pooled;
+
+    private PooledJsonEntityBuffer() {
+        this(true);
+    }
+
+    private PooledJsonEntityBuffer(boolean pooled) {
+        super(INITIAL_CAPACITY);
+        this.pooled = pooled;
+    }
+
+    /**
+     * Gets the empty {@link PooledJsonEntityBuffer} of the current thread.
+     *
+     * @return The empty {@link PooledJsonEntityBuffer} of the current thread.
+     * @since 2.0.0
+     */
+    public static PooledJsonEntityBuffer acquire() {
+        PooledJsonEntityBuffer buffer = BUFFERS.get();
+        buffer.reset();
+        return buffer;
+    }
+
+    /**
+     * Creates a new {@link PooledJsonEntityBuffer} which does not belong to any pool.
+     * <p>
+     * {@link #release()} does nothing on it, so that the {@link HttpEntity} returned by {@link #toEntity()} stays valid until it is garbage collected.
+     *
+     * @return The new {@link PooledJsonEntityBuffer}.
+     * @since 2.0.0
+     */
+    public static PooledJsonEntityBuffer newUnpooled() {
+        return new PooledJsonEntityBuffer(false);
+    }
+
+    /**
+     * Gives back this {@link PooledJsonEntityBuffer} to the pool.
+     *
+     * @since 2.0.0
+     */
+    public void release() {
+        if (!pooled) {
+            return;
+        }
+
+        if (buf.length > MAX_RETAINED_CAPACITY) {
+            BUFFERS.remove();
+        } else {
+            reset();
+        }
+    }
+
+    /**
+     * Builds an {@link HttpEntity} with {@link ContentType#APPLICATION_JSON} backed by the content of this buffer.
+     *
+     * @return The {@link HttpEntity} backed by the content of this buffer.
+     * @since 2.0.0
+     */
+    public HttpEntity toEntity() {
+        return new NByteArrayEntity(buf, 0, count, ContentType.APPLICATION_JSON);
+    }
+}
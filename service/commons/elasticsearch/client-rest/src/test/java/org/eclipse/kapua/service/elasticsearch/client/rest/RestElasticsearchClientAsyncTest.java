@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.rest;
+
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.elasticsearch.client.configuration.ElasticsearchClientConfiguration;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientActionResponseException;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientUnavailableException;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.TypeDescriptor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Category(JUnitTests.class)
+public class RestElasticsearchClientAsyncTest extends Assert {
+
+    private StubElasticsearchServer server;
+    private RestElasticsearchClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubElasticsearchServer();
+
+        ElasticsearchClientConfiguration clientConfiguration = new ElasticsearchClientConfiguration();
+        clientConfiguration.getRequestConfiguration()
+                .setRequestRetryAttemptMax(0)
+                .setMaxInFlightRequests(1)
+                .setInFlightRequestWait(100);
+
+        client = server.newClient(clientConfiguration, 10000);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void insertAsyncTest() throws Exception {
+        InsertResponse insertResponse = client.insertAsync(newInsertRequest()).toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        assertEquals("id-1", insertResponse.getId());
+        assertEquals("index-1", insertResponse.getTypeDescriptor().getIndex());
+    }
+
+    @Test
+    public void inFlightLimitTest() throws Exception {
+        server.hold();
+        CompletableFuture<InsertResponse> inFlight = client.insertAsync(newInsertRequest()).toCompletableFuture();
+
+        // The only permit is taken by the pending request
+        CompletableFuture<InsertResponse> rejected = client.insertAsync(newInsertRequest()).toCompletableFuture();
+        try {
+            rejected.get(10, TimeUnit.SECONDS);
+            fail("Expected the request to be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ClientUnavailableException);
+        }
+        assertFalse(inFlight.isDone());
+
+        // Once the pending request completes, the permit is available again
+        server.release();
+        assertEquals("id-1", inFlight.get(10, TimeUnit.SECONDS).getId());
+        assertEquals("id-1", client.insertAsync(newInsertRequest()).toCompletableFuture().get(10, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    public void unsuccessfulResponseTest() throws Exception {
+        server.enqueue(500, 0);
+
+        try {
+            client.insertAsync(newInsertRequest()).toCompletableFuture().get(10, TimeUnit.SECONDS);
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ClientActionResponseException);
+        }
+
+        // The failed request released its permit
+        assertEquals("id-1", client.insertAsync(newInsertRequest()).toCompletableFuture().get(10, TimeUnit.SECONDS).getId());
+    }
+
+    private InsertRequest newInsertRequest() {
+        return new InsertRequest(null, new TypeDescriptor("index-1", "_doc"), Collections.singletonMap("value", 1));
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.elasticsearch.client.configuration.ElasticsearchClientConfiguration;
+import org.eclipse.kapua.service.elasticsearch.client.model.ResultList;
+import org.eclipse.kapua.service.elasticsearch.client.model.TypeDescriptor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class RestElasticsearchClientCountTest extends Assert {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeDescriptor TYPE_DESCRIPTOR = new TypeDescriptor("index-1", "_doc");
+
+    private StubElasticsearchServer server;
+    private RestElasticsearchClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubElasticsearchServer();
+        client = server.newClient(new ElasticsearchClientConfiguration(), 10000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void cappedCountTerminatesAfterTheCapTest() throws Exception {
+        server.enqueue(searchResponse("{\"value\":100,\"relation\":\"eq\"}"));
+
+        ObjectNode query = newQuery();
+        query.put("track_total_hits", 100);
+        assertEquals(100, client.count(TYPE_DESCRIPTOR, query));
+
+        JsonNode countRequest = OBJECT_MAPPER.readTree(server.getRequestBodies().get(0));
+        assertFalse(countRequest.has("from"));
+        assertFalse(countRequest.has("sort"));
+        assertEquals(0, countRequest.get("size").asInt());
+        assertEquals(100, countRequest.get("track_total_hits").asInt());
+        assertEquals(100, countRequest.get("terminate_after").asInt());
+    }
+
+    @Test
+    public void untrackedCountIsExactTest() throws Exception {
+        server.enqueue(searchResponse("{\"value\":12345,\"relation\":\"eq\"}"));
+
+        ObjectNode query = newQuery();
+        query.put("track_total_hits", false);
+        assertEquals(12345, client.count(TYPE_DESCRIPTOR, query));
+
+        JsonNode countRequest = OBJECT_MAPPER.readTree(server.getRequestBodies().get(0));
+        assertTrue(countRequest.get("track_total_hits").asBoolean());
+        assertFalse(countRequest.has("terminate_after"));
+    }
+
+    @Test
+    public void queryTotalCountLowerBoundTest() throws Exception {
+        server.enqueue(searchResponse("{\"value\":10000,\"relation\":\"gte\"}"));
+        server.enqueue(searchResponse("{\"value\":42,\"relation\":\"eq\"}"));
+        server.enqueue(searchResponse(null));
+
+        ResultList<Map> capped = client.query(TYPE_DESCRIPTOR, newQuery(), Map.class);
+        assertEquals(10000, capped.getTotalCount());
+        assertTrue(capped.isTotalCountLowerBound());
+
+        ResultList<Map> exact = client.query(TYPE_DESCRIPTOR, newQuery(), Map.class);
+        assertEquals(42, exact.getTotalCount());
+        assertFalse(exact.isTotalCountLowerBound());
+
+        ResultList<Map> untracked = client.query(TYPE_DESCRIPTOR, newQuery(), Map.class);
+        assertEquals(0, untracked.getTotalCount());
+        assertTrue(untracked.isTotalCountLowerBound());
+    }
+
+    private ObjectNode newQuery() {
+        ObjectNode query = OBJECT_MAPPER.createObjectNode();
+        query.put("from", 100);
+        query.put("size", 50);
+        query.putArray("sort").addObject().put("timestamp", "desc");
+        return query;
+    }
+
+    private String searchResponse(String total) {
+        return "{\"hits\":{" + (total != null ? "\"total\":" + total + "," : "") + "\"hits\":[]}}";
+    }
+}
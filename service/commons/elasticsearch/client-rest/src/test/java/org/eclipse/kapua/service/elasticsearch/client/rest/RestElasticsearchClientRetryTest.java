@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.rest;
+
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.elasticsearch.client.configuration.ElasticsearchClientConfiguration;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientActionResponseException;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientCircuitBreakerOpenException;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientCommunicationException;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.TypeDescriptor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.Collections;
+
+@Category(JUnitTests.class)
+public class RestElasticsearchClientRetryTest extends Assert {
+
+    private StubElasticsearchServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubElasticsearchServer();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void overloadedResponsesAreRetriedTest() throws Exception {
+        RestElasticsearchClient client = server.newClient(newClientConfiguration(3, 100, 60000), 10000);
+        server.enqueue(429, 0);
+        server.enqueue(503, 0);
+
+        assertEquals("id-1", client.insert(newInsertRequest()).getId());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void retryLimitReachedTest() throws Exception {
+        RestElasticsearchClient client = server.newClient(newClientConfiguration(2, 100, 60000), 10000);
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(503, 0);
+        }
+
+        try {
+            client.insert(newInsertRequest());
+            fail("Expected the insert to fail");
+        } catch (ClientActionResponseException e) {
+            assertEquals("503", e.getResponseCode());
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void clientErrorsAreNotRetriedTest() throws Exception {
+        RestElasticsearchClient client = server.newClient(newClientConfiguration(3, 100, 60000), 10000);
+        server.enqueue(400, 0);
+
+        try {
+            client.insert(newInsertRequest());
+            fail("Expected the insert to fail");
+        } catch (ClientActionResponseException e) {
+            assertEquals("400", e.getResponseCode());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    // Socket timeouts are checked about every second, so slow responses must be much slower than the socket timeout
+
+    @Test
+    public void slowResponsesAreRetriedTest() throws Exception {
+        RestElasticsearchClient client = server.newClient(newClientConfiguration(3, 100, 60000), 200);
+        server.enqueue(201, 3000);
+
+        assertEquals("id-1", client.insert(newInsertRequest()).getId());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void slowResponsesRetryLimitReachedTest() throws Exception {
+        RestElasticsearchClient client = server.newClient(newClientConfiguration(1, 100, 60000), 200);
+        server.enqueue(201, 3000);
+        server.enqueue(201, 3000);
+
+        try {
+            client.insert(newInsertRequest());
+            fail("Expected the insert to fail");
+        } catch (ClientCommunicationException e) {
+            assertFalse(e instanceof ClientCircuitBreakerOpenException);
+        }
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void circuitBreakerFailsFastWhileOpenTest() throws Exception {
+        RestElasticsearchClient client = server.newClient(newClientConfiguration(0, 2, 500), 10000);
+        server.enqueue(503, 0);
+        server.enqueue(503, 0);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                client.insert(newInsertRequest());
+                fail("Expected the insert to fail");
+            } catch (ClientActionResponseException e) {
+                assertEquals("503", e.getResponseCode());
+            }
+        }
+
+        // The circuit breaker is now open: requests are rejected without reaching the server
+        try {
+            client.insert(newInsertRequest());
+            fail("Expected the insert to be rejected");
+        } catch (ClientCircuitBreakerOpenException e) {
+            assertEquals("stub-cluster", e.getClusterName());
+        }
+        try {
+            client.insertAsync(newInsertRequest()).toCompletableFuture().join();
+            fail("Expected the insert to be rejected");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof ClientCircuitBreakerOpenException);
+        }
+        assertEquals(2, server.getRequestCount());
+
+        // After the open duration a trial request goes through and closes the circuit breaker
+        Thread.sleep(600);
+        assertEquals("id-1", client.insert(newInsertRequest()).getId());
+        assertEquals("id-1", client.insert(newInsertRequest()).getId());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    public void circuitBreakerReopensOnFailedTrialTest() throws Exception {
+        RestElasticsearchClient client = server.newClient(newClientConfiguration(0, 1, 500), 10000);
+        server.enqueue(503, 0);
+        server.enqueue(503, 0);
+
+        assertInsertFails(client, ClientActionResponseException.class);
+        assertInsertFails(client, ClientCircuitBreakerOpenException.class);
+
+        // The trial request fails as well, so the circuit breaker opens again
+        Thread.sleep(600);
+        assertInsertFails(client, ClientActionResponseException.class);
+        assertInsertFails(client, ClientCircuitBreakerOpenException.class);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void circuitBreakerDisabledTest() throws Exception {
+        ElasticsearchClientConfiguration clientConfiguration = newClientConfiguration(0, 1, 60000);
+        clientConfiguration.getCircuitBreakerConfiguration().setEnabled(false);
+        RestElasticsearchClient client = server.newClient(clientConfiguration, 10000);
+        server.enqueue(503, 0);
+        server.enqueue(503, 0);
+
+        assertInsertFails(client, ClientActionResponseException.class);
+        assertInsertFails(client, ClientActionResponseException.class);
+        assertEquals("id-1", client.insert(newInsertRequest()).getId());
+    }
+
+    private void assertInsertFails(RestElasticsearchClient client, Class<? extends Exception> expectedException) {
+        try {
+            client.insert(newInsertRequest());
+            fail("Expected the insert to fail with " + expectedException.getSimpleName());
+        } catch (Exception e) {
+            assertEquals(expectedException, e.getClass());
+        }
+    }
+
+    private ElasticsearchClientConfiguration newClientConfiguration(int retryAttemptMax, int failureThreshold, int openDuration) {
+        ElasticsearchClientConfiguration clientConfiguration = new ElasticsearchClientConfiguration();
+        clientConfiguration.getRequestConfiguration()
+                .setRequestRetryAttemptMax(retryAttemptMax)
+                .setRequestRetryAttemptWait(10)
+                .setRequestRetryAttemptWaitMax(40);
+        clientConfiguration.getCircuitBreakerConfiguration()
+                .setFailureThreshold(failureThreshold)
+                .setOpenDuration(openDuration);
+        return clientConfiguration;
+    }
+
+    private InsertRequest newInsertRequest() {
+        return new InsertRequest(null, new TypeDescriptor("index-1", "_doc"), Collections.singletonMap("value", 1));
+    }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.elasticsearch.client.configuration.ElasticsearchClientConfiguration;
+import org.eclipse.kapua.service.elasticsearch.client.model.TypeDescriptor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class RestElasticsearchClientStreamTest extends Assert {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeDescriptor TYPE_DESCRIPTOR = new TypeDescriptor("index-1", "_doc");
+
+    private StubElasticsearchServer server;
+    private RestElasticsearchClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubElasticsearchServer();
+
+        ElasticsearchClientConfiguration clientConfiguration = new ElasticsearchClientConfiguration();
+        clientConfiguration.getRequestConfiguration().setStreamPageSize(2);
+
+        client = server.newClient(clientConfiguration, 10000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void streamPagesWithSearchAfterTest() throws Exception {
+        server.enqueue(searchResponse("id-1", "id-2"));
+        server.enqueue(searchResponse("id-3"));
+
+        List<String> streamedIds = new ArrayList<>();
+        long streamedCount = client.stream(TYPE_DESCRIPTOR, newQuery(), "message_id", Map.class, result -> streamedIds.add((String) result.get("id")));
+
+        assertEquals(3, streamedCount);
+        assertEquals(3, streamedIds.size());
+        assertEquals("id-1", streamedIds.get(0));
+        assertEquals("id-3", streamedIds.get(2));
+        assertEquals(2, server.getRequestCount());
+
+        JsonNode firstRequest = OBJECT_MAPPER.readTree(server.getRequestBodies().get(0));
+        assertFalse(firstRequest.has("from"));
+        assertFalse(firstRequest.has("search_after"));
+        assertEquals(2, firstRequest.get("size").asInt());
+        assertFalse(firstRequest.get("track_total_hits").asBoolean());
+        assertEquals("desc", firstRequest.get("sort").get(0).get("timestamp").asText());
+        assertEquals("asc", firstRequest.get("sort").get(1).get("message_id").asText());
+
+        // The second page starts after the sort values of the last result of the first page
+        JsonNode secondRequest = OBJECT_MAPPER.readTree(server.getRequestBodies().get(1));
+        assertEquals(1000, secondRequest.get("search_after").get(0).asLong());
+        assertEquals("id-2", secondRequest.get("search_after").get(1).asText());
+    }
+
+    @Test
+    public void streamEndsOnEmptyPageTest() throws Exception {
+        server.enqueue(searchResponse("id-1", "id-2"));
+        server.enqueue(searchResponse());
+
+        List<String> streamedIds = new ArrayList<>();
+        assertEquals(2, client.stream(TYPE_DESCRIPTOR, newQuery(), "message_id", Map.class, result -> streamedIds.add((String) result.get("id"))));
+        assertEquals(2, streamedIds.size());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private ObjectNode newQuery() {
+        ObjectNode query = OBJECT_MAPPER.createObjectNode();
+        query.put("from", 100);
+        query.put("size", 50);
+        query.putArray("sort").addObject().put("timestamp", "desc");
+        return query;
+    }
+
+    private String searchResponse(String... ids) {
+        ObjectNode response = OBJECT_MAPPER.createObjectNode();
+        ArrayNode hits = response.putObject("hits").putArray("hits");
+        for (String id : ids) {
+            ObjectNode hit = hits.addObject();
+            hit.put("_id", id);
+            hit.put("_index", "index-1");
+            hit.put("_type", "_doc");
+            hit.putObject("_source").put("value", 1);
+            hit.putArray("sort").add(1000).add(id);
+        }
+        return response.toString();
+    }
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.elasticsearch.client.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
+import org.eclipse.kapua.service.elasticsearch.client.QueryConverter;
+import org.eclipse.kapua.service.elasticsearch.client.configuration.ElasticsearchClientConfiguration;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientInitializationException;
+import org.elasticsearch.client.RestClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP server which answers like Elasticsearch does to an insert.
+ * <p>
+ * Responses with a different HTTP code or with a delay can be queued with {@link #enqueue(int, long)},
+ * responses with a different body with {@link #enqueue(String)}, and all the responses can be held back until {@link #release()}.
+ * {@link RestElasticsearchClient}s connected to it are created with {@link #newClient(ElasticsearchClientConfiguration, int)}.
+ */
+class StubElasticsearchServer implements Closeable {
+
+    private static final String INSERT_RESPONSE = "{\"_id\":\"id-1\",\"_index\":\"index-1\",\"_type\":\"_doc\",\"result\":\"created\"}";
+    private static final String ERROR_RESPONSE = "{\"error\":{\"reason\":\"stub error\"},\"status\":%d}";
+
+    private final HttpServer httpServer;
+    private final Queue<StubResponse> responses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+    private final List<RestClient> restClients = new CopyOnWriteArrayList<>();
+
+    private volatile CountDownLatch holdLatch = new CountDownLatch(0);
+
+    StubElasticsearchServer() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.createContext("/", this::handle);
+        httpServer.setExecutor(Executors.newCachedThreadPool());
+        httpServer.start();
+    }
+
+    RestElasticsearchClient newClient(ElasticsearchClientConfiguration clientConfiguration, int socketTimeout) throws ClientInitializationException {
+        RestClient restClient = RestClient.builder(new HttpHost("127.0.0.1", httpServer.getAddress().getPort()))
+                .setRequestConfigCallback(requestConfigBuilder -> requestConfigBuilder.setSocketTimeout(socketTimeout))
+                .build();
+        restClients.add(restClient);
+
+        clientConfiguration.setModuleName("stub-test");
+        clientConfiguration.setClusterName("stub-cluster");
+
+        RestElasticsearchClient client = new RestElasticsearchClient();
+        client.withClientConfiguration(clientConfiguration)
+                .withModelContext(new MapModelContext())
+                .withModelConverter(new JsonNodeQueryConverter())
+                .withClient(restClient);
+        client.init();
+        return client;
+    }
+
+    /**
+     * Queues a response for the next request which does not have one yet. Requests without a queued response get a successful insert response.
+     */
+    void enqueue(int responseCode, long delayMillis) {
+        responses.add(new StubResponse(responseCode, delayMillis, null));
+    }
+
+    /**
+     * Queues a successful response with the given body for the next request which does not have one yet.
+     */
+    void enqueue(String body) {
+        responses.add(new StubResponse(200, 0, body));
+    }
+
+    void hold() {
+        holdLatch = new CountDownLatch(1);
+    }
+
+    void release() {
+        holdLatch.countDown();
+    }
+
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    List<String> getRequestBodies() {
+        return requestBodies;
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
+        for (RestClient restClient : restClients) {
+            restClient.close();
+        }
+        httpServer.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        requestBodies.add(readRequestBody(exchange));
+        StubResponse response = responses.poll();
+        try {
+            holdLatch.await(10, TimeUnit.SECONDS);
+            if (response != null && response.delayMillis > 0) {
+                Thread.sleep(response.delayMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int responseCode = response != null ? response.responseCode : 201;
+        String successBody = response != null && response.body != null ? response.body : INSERT_RESPONSE;
+        byte[] body = (responseCode < 300 ? successBody : String.format(ERROR_RESPONSE, responseCode)).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(responseCode, body.length);
+            responseBody.write(body);
+        } catch (IOException e) {
+            // The client gave up waiting
+        }
+    }
+
+    private static String readRequestBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                requestBody.write(buffer, 0, read);
+            }
+        }
+        return new String(requestBody.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static class StubResponse {
+
+        private final int responseCode;
+        private final long delayMillis;
+        private final String body;
+
+        private StubResponse(int responseCode, long delayMillis, String body) {
+            this.responseCode = responseCode;
+            this.delayMillis = delayMillis;
+            this.body = body;
+        }
+    }
+
+    private static class MapModelContext implements ModelContext {
+
+        @Override
+        public <T> T unmarshal(Class<T> clazz, Map<String, Object> serializedObject) {
+            return clazz.cast(serializedObject);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<String, Object> marshal(Object object) {
+            return (Map<String, Object>) object;
+        }
+
+        @Override
+        public String getIdKeyName() {
+            return "id";
+        }
+    }
+
+    private static class JsonNodeQueryConverter implements QueryConverter {
+
+        @Override
+        public JsonNode convertQuery(Object query) {
+            return (JsonNode) query;
+        }
+
+        @Override
+        public Object getFetchStyle(Object query) {
+            return null;
+        }
+    }
+}
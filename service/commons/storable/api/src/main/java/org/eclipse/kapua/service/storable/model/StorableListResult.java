@@ -14,6 +14,7 @@ package org.eclipse.kapua.service.storable.model;
 
 import org.eclipse.kapua.KapuaSerializable;
 import org.eclipse.kapua.model.query.KapuaQuery;
+import org.eclipse.kapua.service.storable.model.query.CountMode;
 import org.eclipse.kapua.service.storable.model.query.StorableQuery;
 
 import javax.validation.constraints.NotNull;
@@ -36,7 +37,7 @@ import java.util.List;
  */
 @XmlRootElement(name = "result")
 @XmlAccessorType(XmlAccessType.PROPERTY)
-@XmlType(propOrder = {"limitExceeded", "size", "items", "nextKey", "totalCount"})
+@XmlType(propOrder = {"limitExceeded", "size", "items", "nextKey", "totalCount", "totalCountLowerBound"})
 public interface StorableListResult<E extends Storable> extends KapuaSerializable {
 
     /**
@@ -162,4 +163,23 @@ public interface StorableListResult<E extends Storable> extends KapuaSerializabl
     @XmlElement(name = "totalCount")
     void setTotalCount(Long totalCount);
 
+    /**
+     * Gets whether or not the {@link #getTotalCount()} is a lower bound of the {@link Storable}s that match the {@link StorableQuery#getPredicate()}s.
+     * <p>
+     * This happens when the {@link StorableQuery#getCountMode()} is not {@link CountMode#EXACT} and not all the matches have been counted.
+     *
+     * @return {@code true} if the {@link #getTotalCount()} is a lower bound, {@code false} if it is exact.
+     * @since 2.0.0
+     */
+    @XmlElement(name = "totalCountLowerBound")
+    boolean isTotalCountLowerBound();
+
+    /**
+     * Sets whether or not the {@link #getTotalCount()} is a lower bound of the {@link Storable}s that match the {@link StorableQuery#getPredicate()}s.
+     *
+     * @param totalCountLowerBound {@code true} if the {@link #getTotalCount()} is a lower bound, {@code false} if it is exact.
+     * @since 2.0.0
+     */
+    void setTotalCountLowerBound(boolean totalCountLowerBound);
+
 }
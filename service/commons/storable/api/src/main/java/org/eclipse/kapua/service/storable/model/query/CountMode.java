@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.storable.model.query;
+
+import org.eclipse.kapua.service.storable.model.StorableListResult;
+
+import java.util.Objects;
+
+/**
+ * {@link CountMode} definition.
+ * <p>
+ * It defines how the {@link StorableListResult#getTotalCount()} of a {@link StorableQuery} is counted:
+ * <ul>
+ *     <li>{@link #EXACT}: all the matching {@link org.eclipse.kapua.service.storable.model.Storable}s are counted.</li>
+ *     <li>{@link #capped(int)}: the matching {@link org.eclipse.kapua.service.storable.model.Storable}s are counted up to the given limit.
+ *     A count equal to or greater than the limit is a lower bound of the matching {@link org.eclipse.kapua.service.storable.model.Storable}s.</li>
+ *     <li>{@link #NONE}: the matching {@link org.eclipse.kapua.service.storable.model.Storable}s are not counted.</li>
+ * </ul>
+ * Counting less is cheaper on large data sets, when only knowing that there are more than a given number of matches is needed.
+ *
+ * @see StorableListResult#isTotalCountLowerBound()
+ * @since 2.0.0
+ */
+public final class CountMode {
+
+    /**
+     * The {@link CountMode} types.
+     *
+     * @since 2.0.0
+     */
+    public enum Type {
+        EXACT,
+        CAPPED,
+        NONE
+    }
+
+    /**
+     * Counts all the matches.
+     *
+     * @since 2.0.0
+     */
+    public static final CountMode EXACT = new CountMode(Type.EXACT, 0);
+
+    /**
+     * Does not count the matches.
+     *
+     * @since 2.0.0
+     */
+    public static final CountMode NONE = new CountMode(Type.NONE, 0);
+
+    private final Type type;
+    private final int limit;
+
+    /**
+     * Constructor.
+     *
+     * @param type  The {@link Type}.
+     * @param limit The count limit.
+     * @since 2.0.0
+     */
+    private CountMode(Type type, int limit) {
+        this.type = type;
+        this.limit = limit;
+    }
+
+    /**
+     * Instantiates a {@link CountMode} which counts the matches up to the given limit.
+     *
+     * @param limit The count limit.
+     * @return The {@link CountMode}.
+     * @throws IllegalArgumentException if the limit is not positive.
+     * @since 2.0.0
+     */
+    public static CountMode capped(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Count limit must be positive: " + limit);
+        }
+
+        return new CountMode(Type.CAPPED, limit);
+    }
+
+    /**
+     * Gets the {@link Type}.
+     *
+     * @return The {@link Type}.
+     * @since 2.0.0
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the count limit.
+     *
+     * @return The count limit, which is only meaningful for {@link Type#CAPPED}.
+     * @since 2.0.0
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CountMode countMode = (CountMode) o;
+        return limit == countMode.limit && type == countMode.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, limit);
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.CAPPED ? type + "(" + limit + ")" : type.name();
+    }
+}
@@ -153,6 +153,25 @@ public interface StorableQuery {
      */
     void setAskTotalCount(boolean askTotalCount);
 
+    /**
+     * Gets the {@link CountMode} of the {@link StorableListResult#getTotalCount()}.
+     *
+     * @return The {@link CountMode}.
+     * @since 2.0.0
+     */
+    @XmlTransient
+    CountMode getCountMode();
+
+    /**
+     * Sets the {@link CountMode} of the {@link StorableListResult#getTotalCount()}.
+     * <p>
+     * If set to {@code null} {@link CountMode#EXACT} will be used.
+     *
+     * @param countMode The {@link CountMode}.
+     * @since 2.0.0
+     */
+    void setCountMode(CountMode countMode);
+
     /**
      * Gets the {@link StorableFetchStyle}.
      *
@@ -32,6 +32,7 @@ public class AbstractStorableListResult<E extends Storable> implements StorableL
     private ArrayList<E> items;
     private Object nextKey;
     private Long totalCount;
+    private boolean totalCountLowerBound;
 
     /**
      * Constructor.
@@ -55,6 +56,20 @@ public class AbstractStorableListResult<E extends Storable> implements StorableL
         setTotalCount(totalCount);
     }
 
+    /**
+     * Constructor.
+     *
+     * @param storables            The {@link Storable}s to add to the {@link StorableListResult}.
+     * @param totalCount           The total count of the {@link Storable}s matched.
+     * @param totalCountLowerBound Whether or not the total count is a lower bound of the {@link Storable}s matched.
+     * @since 2.0.0
+     */
+    public AbstractStorableListResult(List<E> storables, Long totalCount, boolean totalCountLowerBound) {
+        this(storables, totalCount);
+
+        setTotalCountLowerBound(totalCountLowerBound);
+    }
+
     /**
      * Constructors.
      *
@@ -151,4 +166,14 @@ public class AbstractStorableListResult<E extends Storable> implements StorableL
         this.totalCount = totalCount;
     }
 
+    @Override
+    public boolean isTotalCountLowerBound() {
+        return totalCountLowerBound;
+    }
+
+    @Override
+    public void setTotalCountLowerBound(boolean totalCountLowerBound) {
+        this.totalCountLowerBound = totalCountLowerBound;
+    }
+
 }
@@ -35,6 +35,7 @@ public abstract class AbstractStorableQuery implements StorableQuery {
     private Integer limit;
     private Integer indexOffset;
     private boolean askTotalCount;
+    private CountMode countMode = CountMode.EXACT;
     private List<SortField> sortFields;
     private StorableFetchStyle fetchStyle;
     private List<String> fetchAttributes;
@@ -122,6 +123,16 @@ public abstract class AbstractStorableQuery implements StorableQuery {
         this.askTotalCount = askTotalCount;
     }
 
+    @Override
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    @Override
+    public void setCountMode(CountMode countMode) {
+        this.countMode = countMode != null ? countMode : CountMode.EXACT;
+    }
+
     @Override
     public List<SortField> getSortFields() {
         if (sortFields == null) {
@@ -102,4 +102,11 @@ public interface PredicateConstants {
      * @since 1.0.0
      */
     String LTE_KEY = "lte";
+
+    /**
+     * Strictly less than comparator term.
+     *
+     * @since 2.0.0
+     */
+    String LT_KEY = "lt";
 }
@@ -12,10 +12,12 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore;
 
+import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
 import org.eclipse.kapua.service.storable.StorableFactory;
 
 /**
@@ -26,4 +28,13 @@ import org.eclipse.kapua.service.storable.StorableFactory;
  * @since 1.3.0
  */
 public interface MessageStoreFactory extends StorableFactory<DatastoreMessage, MessageListResult, MessageQuery> {
+
+    /**
+     * Instantiates a new {@link MetricAggregationQuery}.
+     *
+     * @param scopeId The scope {@link KapuaId}.
+     * @return The newly instantiated {@link MetricAggregationQuery}.
+     * @since 2.0.0
+     */
+    MetricAggregationQuery newMetricAggregationQuery(KapuaId scopeId);
 }
@@ -19,10 +19,16 @@ import org.eclipse.kapua.service.KapuaService;
 import org.eclipse.kapua.service.config.KapuaConfigurableService;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
 import org.eclipse.kapua.service.storable.StorableService;
 import org.eclipse.kapua.service.storable.model.id.StorableId;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * {@link MessageStoreService} definition.
  * <p>
@@ -60,6 +66,48 @@ public interface MessageStoreService extends KapuaService, KapuaConfigurableServ
      */
     StorableId store(KapuaMessage<?, ?> message, String datastoreId) throws KapuaException;
 
+    /**
+     * Stores a batch of {@link KapuaMessage}s forcing their {@link DatastoreMessage#getId()}.
+     * <p>
+     * The {@link KapuaMessage}s are written with a single bulk request. A failure of a single {@link KapuaMessage}
+     * does not fail the whole batch, and it is reported in the corresponding {@link MessageStoreResult}.
+     *
+     * @param messages     The {@link KapuaMessage}s to store.
+     * @param datastoreIds The {@link StorableId}s in {@link String} form to assign, one for each {@link KapuaMessage} and in the same order.
+     * @return The {@link MessageStoreResult}s, one for each {@link KapuaMessage} and in the same order.
+     * @throws KapuaException If the batch cannot be processed at all.
+     * @since 2.0.0
+     */
+    List<MessageStoreResult> storeBatch(List<? extends KapuaMessage<?, ?>> messages, List<String> datastoreIds) throws KapuaException;
+
+    /**
+     * Streams all the {@link DatastoreMessage}s matching the {@link MessageQuery} to the given {@link Consumer}.
+     * <p>
+     * Unlike {@link #query(org.eclipse.kapua.service.storable.model.query.StorableQuery)}, the {@link DatastoreMessage}s are not paged with the offset:
+     * they are read one page after the other following the sort of the {@link MessageQuery},
+     * so that the cost of reading a page does not depend on how deep it is and only one page at a time is kept in memory.
+     * The {@link MessageQuery#getOffset()} and the {@link MessageQuery#getLimit()} are ignored.
+     *
+     * @param query    The {@link MessageQuery} to filter the {@link DatastoreMessage}s.
+     * @param consumer The {@link Consumer} of the {@link DatastoreMessage}s, invoked in the order of the {@link MessageQuery#getSortFields()}.
+     * @return The number of {@link DatastoreMessage}s given to the {@link Consumer}.
+     * @throws KapuaException If something goes wrong.
+     * @since 2.0.0
+     */
+    long stream(MessageQuery query, Consumer<DatastoreMessage> consumer) throws KapuaException;
+
+    /**
+     * Aggregates the metrics of the {@link DatastoreMessage}s matching the {@link MetricAggregationQuery}.
+     * <p>
+     * The aggregation is computed by the datastore, so only the statistics of each bucket are returned and not the {@link DatastoreMessage}s.
+     *
+     * @param query The {@link MetricAggregationQuery} to filter the {@link DatastoreMessage}s and to define the aggregation.
+     * @return The {@link MetricAggregationResult}.
+     * @throws KapuaException If something goes wrong.
+     * @since 2.0.0
+     */
+    MetricAggregationResult aggregate(MetricAggregationQuery query) throws KapuaException;
+
     /**
      * Deletes a {@link DatastoreMessage}  by the scope {@link KapuaId} and its {@link StorableId}.
      *
@@ -42,6 +42,13 @@ public enum DatastoreServiceErrorCodes implements KapuaErrorCode {
      */
     DATASTORE_OPERATION_EXCEPTION,
 
+    /**
+     * See {@link MetricFieldBudgetExceededException}
+     *
+     * @since 2.0.0
+     */
+    METRIC_FIELD_BUDGET_EXCEEDED_EXCEPTION,
+
     /**
      * See {@link DatastoreInternalError}.
      *
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.exception;
+
+import org.eclipse.kapua.message.KapuaMessage;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.config.ServiceComponentConfiguration;
+import org.eclipse.kapua.service.datastore.MessageStoreService;
+
+/**
+ * {@link DatastoreServiceException} to {@code throw} when {@link MessageStoreService#store(KapuaMessage)} is invoked with a message
+ * whose new metrics would exceed the metric field budget of the data index, and the {@link ServiceComponentConfiguration} requires to reject it.
+ *
+ * @since 2.0.0
+ */
+public class MetricFieldBudgetExceededException extends DatastoreServiceException {
+
+    private final KapuaId scopeId;
+    private final String clientId;
+    private final String dataIndexName;
+    private final int newMetricFieldCount;
+    private final int metricFieldBudget;
+
+    /**
+     * Constructor.
+     *
+     * @param scopeId             The scope {@link KapuaId} of the message.
+     * @param clientId            The client id of the message.
+     * @param dataIndexName       The name of the data index.
+     * @param newMetricFieldCount The number of new metric fields of the message.
+     * @param metricFieldBudget   The metric field budget of the data index.
+     * @since 2.0.0
+     */
+    public MetricFieldBudgetExceededException(KapuaId scopeId, String clientId, String dataIndexName, int newMetricFieldCount, int metricFieldBudget) {
+        super(DatastoreServiceErrorCodes.METRIC_FIELD_BUDGET_EXCEEDED_EXCEPTION, scopeId, clientId, dataIndexName, newMetricFieldCount, metricFieldBudget);
+
+        this.scopeId = scopeId;
+        this.clientId = clientId;
+        this.dataIndexName = dataIndexName;
+        this.newMetricFieldCount = newMetricFieldCount;
+        this.metricFieldBudget = metricFieldBudget;
+    }
+
+    /**
+     * Gets the scope {@link KapuaId} of the message.
+     *
+     * @return The scope {@link KapuaId} of the message.
+     * @since 2.0.0
+     */
+    public KapuaId getScopeId() {
+        return scopeId;
+    }
+
+    /**
+     * Gets the client id of the message.
+     *
+     * @return The client id of the message.
+     * @since 2.0.0
+     */
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * Gets the name of the data index.
+     *
+     * @return The name of the data index.
+     * @since 2.0.0
+     */
+    public String getDataIndexName() {
+        return dataIndexName;
+    }
+
+    /**
+     * Gets the number of new metric fields of the message.
+     *
+     * @return The number of new metric fields of the message.
+     * @since 2.0.0
+     */
+    public int getNewMetricFieldCount() {
+        return newMetricFieldCount;
+    }
+
+    /**
+     * Gets the metric field budget of the data index.
+     *
+     * @return The metric field budget of the data index.
+     * @since 2.0.0
+     */
+    public int getMetricFieldBudget() {
+        return metricFieldBudget;
+    }
+}
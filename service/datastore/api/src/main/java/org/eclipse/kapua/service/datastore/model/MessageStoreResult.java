@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.message.KapuaMessage;
+import org.eclipse.kapua.service.storable.model.id.StorableId;
+
+/**
+ * {@link MessageStoreResult} definition.
+ * <p>
+ * It reports the outcome of storing a single {@link KapuaMessage} as part of a batch store.
+ *
+ * @since 2.0.0
+ */
+public class MessageStoreResult {
+
+    private final String datastoreId;
+    private final StorableId storableId;
+    private final KapuaException exception;
+
+    /**
+     * Positive result constructor.
+     *
+     * @param datastoreId The datastore id assigned to the {@link KapuaMessage}.
+     * @param storableId  The {@link StorableId} of the stored {@link DatastoreMessage}.
+     * @since 2.0.0
+     */
+    public MessageStoreResult(String datastoreId, StorableId storableId) {
+        this.datastoreId = datastoreId;
+        this.storableId = storableId;
+        this.exception = null;
+    }
+
+    /**
+     * Negative result constructor.
+     *
+     * @param datastoreId The datastore id assigned to the {@link KapuaMessage}.
+     * @param exception   The {@link KapuaException} that prevented the {@link KapuaMessage} to be stored.
+     * @since 2.0.0
+     */
+    public MessageStoreResult(String datastoreId, KapuaException exception) {
+        this.datastoreId = datastoreId;
+        this.storableId = null;
+        this.exception = exception;
+    }
+
+    /**
+     * Gets the datastore id assigned to the {@link KapuaMessage}.
+     *
+     * @return The datastore id assigned to the {@link KapuaMessage}.
+     * @since 2.0.0
+     */
+    public String getDatastoreId() {
+        return datastoreId;
+    }
+
+    /**
+     * Gets the {@link StorableId} of the stored {@link DatastoreMessage}.
+     *
+     * @return The {@link StorableId} of the stored {@link DatastoreMessage}, or {@code null} if the store failed.
+     * @since 2.0.0
+     */
+    public StorableId getStorableId() {
+        return storableId;
+    }
+
+    /**
+     * Gets the {@link KapuaException} that prevented the {@link KapuaMessage} to be stored.
+     *
+     * @return The {@link KapuaException} that prevented the {@link KapuaMessage} to be stored, or {@code null} if the store succeeded.
+     * @since 2.0.0
+     */
+    public KapuaException getException() {
+        return exception;
+    }
+
+    /**
+     * Gets whether the {@link KapuaMessage} has been stored.
+     *
+     * @return {@code true} if the {@link KapuaMessage} has been stored, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    public boolean isSuccess() {
+        return exception == null;
+    }
+}
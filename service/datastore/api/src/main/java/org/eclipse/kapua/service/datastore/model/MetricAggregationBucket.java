@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlType;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * {@link MetricAggregationBucket} definition.
+ * <p>
+ * It contains the {@link MetricStatistics} of the messages of a time bucket of a {@link MetricAggregationQuery}.
+ *
+ * @since 2.0.0
+ */
+@XmlType(propOrder = {"timestamp", "group", "count", "metrics"})
+@XmlAccessorType(XmlAccessType.PROPERTY)
+public class MetricAggregationBucket {
+
+    private Date timestamp;
+    private String group;
+    private long count;
+    private List<MetricStatistics> metrics;
+
+    /**
+     * Gets the start of the time bucket.
+     *
+     * @return The start of the time bucket.
+     * @since 2.0.0
+     */
+    @XmlElement(name = "timestamp")
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets the start of the time bucket.
+     *
+     * @param timestamp The start of the time bucket.
+     * @since 2.0.0
+     */
+    public void setTimestamp(Date timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the value of the {@link MetricAggregationQuery#getGroupBy()} field shared by the messages of the time bucket.
+     *
+     * @return The value of the group field, or {@code null} if the time buckets are not grouped.
+     * @since 2.0.0
+     */
+    @XmlElement(name = "group")
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Sets the value of the {@link MetricAggregationQuery#getGroupBy()} field shared by the messages of the time bucket.
+     *
+     * @param group The value of the group field.
+     * @since 2.0.0
+     */
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
+    /**
+     * Gets the number of messages in the time bucket.
+     *
+     * @return The number of messages in the time bucket.
+     * @since 2.0.0
+     */
+    @XmlElement(name = "count")
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Sets the number of messages in the time bucket.
+     *
+     * @param count The number of messages in the time bucket.
+     * @since 2.0.0
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * Gets the {@link MetricStatistics}, one for each of the {@link MetricAggregationQuery#getMetrics()} and in the same order.
+     *
+     * @return The {@link MetricStatistics}.
+     * @since 2.0.0
+     */
+    @XmlElementWrapper(name = "metrics")
+    @XmlElement(name = "metric")
+    public List<MetricStatistics> getMetrics() {
+        if (metrics == null) {
+            metrics = new ArrayList<>();
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Sets the {@link MetricStatistics}.
+     *
+     * @param metrics The {@link MetricStatistics}.
+     * @since 2.0.0
+     */
+    public void setMetrics(List<MetricStatistics> metrics) {
+        this.metrics = metrics;
+    }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link MetricAggregationResult} definition.
+ * <p>
+ * It contains the {@link MetricAggregationBucket}s computed for a {@link MetricAggregationQuery}.
+ * Buckets without messages are not included.
+ *
+ * @since 2.0.0
+ */
+@XmlRootElement(name = "metricAggregationResult")
+@XmlAccessorType(XmlAccessType.PROPERTY)
+public class MetricAggregationResult {
+
+    private List<MetricAggregationBucket> buckets;
+
+    /**
+     * Gets the {@link MetricAggregationBucket}s.
+     * <p>
+     * The {@link MetricAggregationBucket}s of the same group are adjacent and ordered by {@link MetricAggregationBucket#getTimestamp()}.
+     * Groups are ordered by decreasing number of messages.
+     *
+     * @return The {@link MetricAggregationBucket}s.
+     * @since 2.0.0
+     */
+    @XmlElementWrapper(name = "buckets")
+    @XmlElement(name = "bucket")
+    public List<MetricAggregationBucket> getBuckets() {
+        if (buckets == null) {
+            buckets = new ArrayList<>();
+        }
+
+        return buckets;
+    }
+
+    /**
+     * Sets the {@link MetricAggregationBucket}s.
+     *
+     * @param buckets The {@link MetricAggregationBucket}s.
+     * @since 2.0.0
+     */
+    public void setBuckets(List<MetricAggregationBucket> buckets) {
+        this.buckets = buckets;
+    }
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * {@link MetricStatistics} definition.
+ * <p>
+ * It contains the statistics of the values of a metric within a {@link MetricAggregationBucket}.
+ * When no message of the {@link MetricAggregationBucket} has the metric, the {@link #getCount()} is zero and the other statistics are {@code null}.
+ *
+ * @since 2.0.0
+ */
+@XmlType(propOrder = {"name", "count", "min", "max", "avg", "sum"})
+@XmlAccessorType(XmlAccessType.PROPERTY)
+public class MetricStatistics {
+
+    private String name;
+    private long count;
+    private Double min;
+    private Double max;
+    private Double avg;
+    private Double sum;
+
+    /**
+     * Gets the metric name.
+     *
+     * @return The metric name.
+     * @since 2.0.0
+     */
+    @XmlElement(name = "name")
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the metric name.
+     *
+     * @param name The metric name.
+     * @since 2.0.0
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the number of values of the metric.
+     *
+     * @return The number of values of the metric.
+     * @since 2.0.0
+     */
+    @XmlElement(name = "count")
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Sets the number of values of the metric.
+     *
+     * @param count The number of values of the metric.
+     * @since 2.0.0
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * Gets the minimum value of the metric.
+     *
+     * @return The minimum value of the metric.
+     * @since 2.0.0
+     */
+    @XmlElement(name = "min")
+    public Double getMin() {
+        return min;
+    }
+
+    /**
+     * Sets the minimum value of the metric.
+     *
+     * @param min The minimum value of the metric.
+     * @since 2.0.0
+     */
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    /**
+     * Gets the maximum value of the metric.
+     *
+     * @return The maximum value of the metric.
+     * @since 2.0.0
+     */
+    @XmlElement(name = "max")
+    public Double getMax() {
+        return max;
+    }
+
+    /**
+     * Sets the maximum value of the metric.
+     *
+     * @param max The maximum value of the metric.
+     * @since 2.0.0
+     */
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    /**
+     * Gets the average value of the metric.
+     *
+     * @return The average value of the metric.
+     * @since 2.0.0
+     */
+    @XmlElement(name = "avg")
+    public Double getAvg() {
+        return avg;
+    }
+
+    /**
+     * Sets the average value of the metric.
+     *
+     * @param avg The average value of the metric.
+     * @since 2.0.0
+     */
+    public void setAvg(Double avg) {
+        this.avg = avg;
+    }
+
+    /**
+     * Gets the sum of the values of the metric.
+     *
+     * @return The sum of the values of the metric.
+     * @since 2.0.0
+     */
+    @XmlElement(name = "sum")
+    public Double getSum() {
+        return sum;
+    }
+
+    /**
+     * Sets the sum of the values of the metric.
+     *
+     * @param sum The sum of the values of the metric.
+     * @since 2.0.0
+     */
+    public void setSum(Double sum) {
+        this.sum = sum;
+    }
+}
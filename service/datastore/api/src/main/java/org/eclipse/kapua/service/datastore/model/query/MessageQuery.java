@@ -17,11 +17,19 @@ import org.eclipse.kapua.service.storable.model.query.StorableQuery;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
+import java.util.List;
 
 /**
  * Datastore message schema query definition
+ * <p>
+ * The fields and the metrics of the fetched messages can be restricted with {@link #getIncludedFields()}, {@link #getExcludedFields()},
+ * {@link #getIncludedMetrics()} and {@link #getExcludedMetrics()}.
+ * Only the requested parts of the messages are read from the datastore, so narrow queries over messages with many metrics are cheaper.
+ * The message identifiers (id, scope, device, client, channel and timestamp) are always fetched.
  *
  * @since 1.0
  */
@@ -30,4 +38,82 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(factoryClass = DatastoreMessageXmlRegistry.class, factoryMethod = "newQuery")
 public interface MessageQuery extends StorableQuery {
 
+    /**
+     * Gets the names of the message fields to fetch.
+     * <p>
+     * When empty, the message fields are the ones of the {@link #getFetchStyle()}.
+     *
+     * @return The names of the message fields to fetch.
+     * @since 2.0.0
+     */
+    @XmlElementWrapper(name = "includedFields")
+    @XmlElement(name = "field")
+    List<String> getIncludedFields();
+
+    /**
+     * Sets the names of the message fields to fetch.
+     *
+     * @param includedFields The names of the message fields to fetch.
+     * @since 2.0.0
+     */
+    void setIncludedFields(List<String> includedFields);
+
+    /**
+     * Gets the names of the message fields not to fetch.
+     *
+     * @return The names of the message fields not to fetch.
+     * @since 2.0.0
+     */
+    @XmlElementWrapper(name = "excludedFields")
+    @XmlElement(name = "field")
+    List<String> getExcludedFields();
+
+    /**
+     * Sets the names of the message fields not to fetch.
+     *
+     * @param excludedFields The names of the message fields not to fetch.
+     * @since 2.0.0
+     */
+    void setExcludedFields(List<String> excludedFields);
+
+    /**
+     * Gets the names of the metrics to fetch.
+     * <p>
+     * When empty, all the metrics are fetched.
+     * Names can contain {@code *} wildcards.
+     *
+     * @return The names of the metrics to fetch.
+     * @since 2.0.0
+     */
+    @XmlElementWrapper(name = "includedMetrics")
+    @XmlElement(name = "metric")
+    List<String> getIncludedMetrics();
+
+    /**
+     * Sets the names of the metrics to fetch.
+     *
+     * @param includedMetrics The names of the metrics to fetch.
+     * @since 2.0.0
+     */
+    void setIncludedMetrics(List<String> includedMetrics);
+
+    /**
+     * Gets the names of the metrics not to fetch.
+     * <p>
+     * Names can contain {@code *} wildcards.
+     *
+     * @return The names of the metrics not to fetch.
+     * @since 2.0.0
+     */
+    @XmlElementWrapper(name = "excludedMetrics")
+    @XmlElement(name = "metric")
+    List<String> getExcludedMetrics();
+
+    /**
+     * Sets the names of the metrics not to fetch.
+     *
+     * @param excludedMetrics The names of the metrics not to fetch.
+     * @since 2.0.0
+     */
+    void setExcludedMetrics(List<String> excludedMetrics);
 }
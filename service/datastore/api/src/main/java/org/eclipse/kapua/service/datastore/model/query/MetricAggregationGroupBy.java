@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model.query;
+
+/**
+ * The fields by which the time buckets of a {@link MetricAggregationQuery} can be grouped.
+ *
+ * @since 2.0.0
+ */
+public enum MetricAggregationGroupBy {
+
+    /**
+     * Groups by the client id of the messages.
+     *
+     * @since 2.0.0
+     */
+    CLIENT_ID,
+
+    /**
+     * Groups by the channel of the messages.
+     *
+     * @since 2.0.0
+     */
+    CHANNEL
+}
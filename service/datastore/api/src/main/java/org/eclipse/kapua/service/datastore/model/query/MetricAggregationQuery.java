@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model.query;
+
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+
+import java.util.Map;
+
+/**
+ * {@link MetricAggregationQuery} definition.
+ * <p>
+ * It selects the {@link DatastoreMessage}s like a {@link MessageQuery} does, and it defines how their metrics are aggregated:
+ * the {@link DatastoreMessage}s are split in buckets of {@link #getInterval()} by their timestamp and, optionally, by the {@link #getGroupBy()} field.
+ * The statistics of each metric are computed for each bucket.
+ * <p>
+ * The {@link #getLimit()} is the maximum number of groups, when grouping.
+ *
+ * @see MetricAggregationResult
+ * @since 2.0.0
+ */
+public interface MetricAggregationQuery extends MessageQuery {
+
+    /**
+     * Gets the metrics to aggregate.
+     *
+     * @return The metrics to aggregate, as metric name and metric type.
+     * @since 2.0.0
+     */
+    Map<String, Class<?>> getMetrics();
+
+    /**
+     * Adds a metric to aggregate.
+     *
+     * @param name The metric name.
+     * @param type The metric type.
+     * @since 2.0.0
+     */
+    void addMetric(String name, Class<?> type);
+
+    /**
+     * Gets the size of the time buckets.
+     *
+     * @return The size of the time buckets, in milliseconds.
+     * @since 2.0.0
+     */
+    long getInterval();
+
+    /**
+     * Sets the size of the time buckets.
+     *
+     * @param interval The size of the time buckets, in milliseconds.
+     * @since 2.0.0
+     */
+    void setInterval(long interval);
+
+    /**
+     * Gets the field by which the time buckets are grouped.
+     *
+     * @return The {@link MetricAggregationGroupBy}, or {@code null} if time buckets are not grouped.
+     * @since 2.0.0
+     */
+    MetricAggregationGroupBy getGroupBy();
+
+    /**
+     * Sets the field by which the time buckets are grouped.
+     *
+     * @param groupBy The {@link MetricAggregationGroupBy}, or {@code null} to not group time buckets.
+     * @since 2.0.0
+     */
+    void setGroupBy(MetricAggregationGroupBy groupBy);
+}
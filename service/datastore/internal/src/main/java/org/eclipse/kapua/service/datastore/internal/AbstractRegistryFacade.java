@@ -53,6 +53,9 @@ public abstract class AbstractRegistryFacade {
         int offset = query.getOffset() != null ? query.getOffset() : 0;
         if (query.getLimit() != null && list.getTotalCount() > offset + query.getLimit()) {
             list.setLimitExceeded(true);
+        } else if (query.getLimit() != null && list.isTotalCountLowerBound() && list.getSize() >= query.getLimit()) {
+            // Not all the matches have been counted, so a full page may be followed by others
+            list.setLimitExceeded(true);
         }
     }
 }
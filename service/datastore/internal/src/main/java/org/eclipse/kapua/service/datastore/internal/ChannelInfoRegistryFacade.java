@@ -75,12 +75,12 @@ public class ChannelInfoRegistryFacade extends AbstractRegistryFacade {
      * Update the channel information after a message store operation
      *
      * @param channelInfo
-     * @return
+     * @return The {@link UpdateResponse} of the stored channel information, or {@code null} if it was already stored.
      * @throws KapuaIllegalArgumentException
      * @throws ConfigurationException
      * @throws ClientException
      */
-    public StorableId upstore(ChannelInfo channelInfo) throws KapuaIllegalArgumentException, ConfigurationException, ClientException, MappingException {
+    public UpdateResponse upstore(ChannelInfo channelInfo) throws KapuaIllegalArgumentException, ConfigurationException, ClientException, MappingException {
         ArgumentValidator.notNull(channelInfo, "channelInfo");
         ArgumentValidator.notNull(channelInfo.getScopeId(), "channelInfo.scopeId");
         ArgumentValidator.notNull(channelInfo.getName(), "channelInfo.name");
@@ -90,7 +90,7 @@ public class ChannelInfoRegistryFacade extends AbstractRegistryFacade {
         String channelInfoId = ChannelInfoField.getOrDeriveId(channelInfo.getId(), channelInfo);
         StorableId storableId = STORABLE_ID_FACTORY.newStorableId(channelInfoId);
 
-        UpdateResponse response;
+        UpdateResponse response = null;
         // Store channel. Look up channel in the cache, and cache it if it doesn't exist
         if (!DatastoreCacheManager.getInstance().getChannelsCache().get(channelInfoId)) {
             // The code is safe even without the synchronized block
@@ -114,7 +114,7 @@ public class ChannelInfoRegistryFacade extends AbstractRegistryFacade {
                 }
             }
         }
-        return storableId;
+        return response;
     }
 
     /**
@@ -145,6 +145,7 @@ public class ChannelInfoRegistryFacade extends AbstractRegistryFacade {
 
             TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ChannelInfoSchema.CHANNEL_TYPE_NAME);
             getElasticsearchClient().delete(typeDescriptor, id.toString());
+            DatastoreCacheManager.getInstance().getChannelsQueryCache().invalidate(scopeId);
         }
     }
 
@@ -250,5 +251,6 @@ public class ChannelInfoRegistryFacade extends AbstractRegistryFacade {
 
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ChannelInfoSchema.CHANNEL_TYPE_NAME);
         getElasticsearchClient().deleteByQuery(typeDescriptor, query);
+        DatastoreCacheManager.getInstance().getChannelsQueryCache().invalidate(query.getScopeId());
     }
 }
@@ -136,13 +136,21 @@ public class ChannelInfoRegistryServiceImpl extends AbstractKapuaService impleme
 
         checkDataAccess(query.getScopeId(), Actions.read);
         try {
-            ChannelInfoListResult result = channelInfoRegistryFacade.query(query);
+            RegistryQueryCache<ChannelInfoListResult> queryCache = DatastoreCacheManager.getInstance().getChannelsQueryCache();
+            String queryCacheKey = queryCache.getKey(query);
+            ChannelInfoListResult result = queryCache.get(queryCacheKey);
+            if (result != null) {
+                return result;
+            }
+
+            result = channelInfoRegistryFacade.query(query);
             if (result != null && query.getFetchAttributes().contains(ChannelInfoField.TIMESTAMP.field())) {
                 // populate the lastMessageTimestamp
                 for (ChannelInfo channelInfo : result.getItems()) {
                     updateLastPublishedFields(channelInfo);
                 }
             }
+            queryCache.put(queryCacheKey, result);
             return result;
         } catch (Exception e) {
             throw KapuaException.internalError(e);
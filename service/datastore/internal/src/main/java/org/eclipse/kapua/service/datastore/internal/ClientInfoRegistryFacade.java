@@ -75,13 +75,13 @@ public class ClientInfoRegistryFacade extends AbstractRegistryFacade {
      * Update the client information after a message store operation
      *
      * @param clientInfo
-     * @return
+     * @return The {@link UpdateResponse} of the stored client information, or {@code null} if it was already stored.
      * @throws KapuaIllegalArgumentException
      * @throws ConfigurationException
      * @throws ClientException
      * @since 1.0.0
      */
-    public StorableId upstore(ClientInfo clientInfo) throws KapuaIllegalArgumentException, ConfigurationException, ClientException, MappingException {
+    public UpdateResponse upstore(ClientInfo clientInfo) throws KapuaIllegalArgumentException, ConfigurationException, ClientException, MappingException {
         ArgumentValidator.notNull(clientInfo, "clientInfo");
         ArgumentValidator.notNull(clientInfo.getScopeId(), "clientInfo.scopeId");
         ArgumentValidator.notNull(clientInfo.getFirstMessageId(), "clientInfo.firstPublishedMessageId");
@@ -115,7 +115,7 @@ public class ClientInfoRegistryFacade extends AbstractRegistryFacade {
                 }
             }
         }
-        return storableId;
+        return response;
     }
 
     /**
@@ -141,6 +141,7 @@ public class ClientInfoRegistryFacade extends AbstractRegistryFacade {
         String indexName = SchemaUtil.getClientIndexName(scopeId);
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ClientInfoSchema.CLIENT_TYPE_NAME);
         getElasticsearchClient().delete(typeDescriptor, id.toString());
+        DatastoreCacheManager.getInstance().getClientsQueryCache().invalidate(scopeId);
     }
 
     /**
@@ -238,5 +239,6 @@ public class ClientInfoRegistryFacade extends AbstractRegistryFacade {
         String indexName = SchemaUtil.getClientIndexName(query.getScopeId());
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, ClientInfoSchema.CLIENT_TYPE_NAME);
         getElasticsearchClient().deleteByQuery(typeDescriptor, query);
+        DatastoreCacheManager.getInstance().getClientsQueryCache().invalidate(query.getScopeId());
     }
 }
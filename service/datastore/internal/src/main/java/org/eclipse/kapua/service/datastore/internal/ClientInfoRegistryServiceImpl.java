@@ -140,13 +140,21 @@ public class ClientInfoRegistryServiceImpl extends AbstractKapuaService implemen
 
         checkAccess(query.getScopeId(), Actions.read);
         try {
-            ClientInfoListResult result = clientInfoRegistryFacade.query(query);
+            RegistryQueryCache<ClientInfoListResult> queryCache = DatastoreCacheManager.getInstance().getClientsQueryCache();
+            String queryCacheKey = queryCache.getKey(query);
+            ClientInfoListResult result = queryCache.get(queryCacheKey);
+            if (result != null) {
+                return result;
+            }
+
+            result = clientInfoRegistryFacade.query(query);
             if (result != null && query.getFetchAttributes().contains(ClientInfoField.TIMESTAMP.field())) {
                 // populate the lastMessageTimestamp
                 for (ClientInfo clientInfo : result.getItems()) {
                     updateLastPublishedFields(clientInfo);
                 }
             }
+            queryCache.put(queryCacheKey, result);
             return result;
         } catch (Exception e) {
             throw KapuaException.internalError(e);
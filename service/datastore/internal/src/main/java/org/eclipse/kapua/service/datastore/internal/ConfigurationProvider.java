@@ -42,4 +42,14 @@ public interface ConfigurationProvider {
      * @throws ConfigurationException
      */
     MessageInfo getInfo(KapuaId scopeId) throws ConfigurationException;
+
+    /**
+     * Discards the configuration and the message information cached for the given scope, if any.
+     * <p>
+     * The next call to {@link #getConfiguration(KapuaId)} or {@link #getInfo(KapuaId)} for the scope will load them again.
+     *
+     * @param scopeId The scope {@link KapuaId} to invalidate.
+     * @since 2.0.0
+     */
+    void invalidate(KapuaId scopeId);
 }
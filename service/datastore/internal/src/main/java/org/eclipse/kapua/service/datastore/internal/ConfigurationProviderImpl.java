@@ -13,6 +13,7 @@
 package org.eclipse.kapua.service.datastore.internal;
 
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.cache.LocalCache;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.account.Account;
@@ -21,14 +22,46 @@ import org.eclipse.kapua.service.config.KapuaConfigurableService;
 import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.MessageInfo;
 import org.eclipse.kapua.service.datastore.internal.mediator.MessageStoreConfiguration;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Datastore configuration provider implementation.
+ * <p>
+ * The {@link MessageStoreConfiguration} and the {@link MessageInfo} of each scope are loaded once and kept as an immutable snapshot,
+ * so that resolving them while storing a message is a single map lookup.<br>
+ * Snapshots older than {@link DatastoreSettingsKey#CONFIG_CACHE_CONFIGURATION_REFRESH_AFTER} are still returned, while a fresh one is loaded in background.
+ * Snapshots are discarded with {@link #invalidate(KapuaId)} when the configuration or the account of the scope changes.
+ * <p>
+ * Snapshots are shared by all the instances, since all of them load the configuration of the same service.
+ * At most {@link DatastoreSettingsKey#CONFIG_CACHE_CONFIGURATION_SIZE_MAXIMUM} snapshots are kept, the least recently used ones are evicted first.
  *
  * @since 1.0.0
  */
 public class ConfigurationProviderImpl implements ConfigurationProvider {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigurationProviderImpl.class);
+
+    private static final long REFRESH_AFTER_NANOS = TimeUnit.SECONDS.toNanos(DatastoreSettings.getInstance().getLong(DatastoreSettingsKey.CONFIG_CACHE_CONFIGURATION_REFRESH_AFTER, 60L));
+
+    private static final LocalCache<KapuaId, ScopeSnapshot> SNAPSHOTS = new LocalCache<>(DatastoreSettings.getInstance().getInt(DatastoreSettingsKey.CONFIG_CACHE_CONFIGURATION_SIZE_MAXIMUM, 10000), null);
+    private static final Set<KapuaId> REFRESHING_SCOPES = ConcurrentHashMap.newKeySet();
+
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "datastore-configuration-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private AccountService accountService;
     private KapuaConfigurableService configurableService;
 
@@ -47,27 +80,105 @@ public class ConfigurationProviderImpl implements ConfigurationProvider {
     @Override
     public MessageStoreConfiguration getConfiguration(KapuaId scopeId)
             throws ConfigurationException {
-        MessageStoreConfiguration messageStoreConfiguration = null;
-        try {
-            messageStoreConfiguration = new MessageStoreConfiguration(configurableService.getConfigValues(scopeId));
-        } catch (KapuaException e) {
-            throw new ConfigurationException("Cannot load configuration parameters", e);
+        if (scopeId == null) {
+            return loadConfiguration(null);
         }
-        return messageStoreConfiguration;
+        return getSnapshot(scopeId).configuration;
     }
 
     @Override
     public MessageInfo getInfo(KapuaId scopeId)
             throws ConfigurationException {
-        Account account = null;
+        if (scopeId == null) {
+            return new MessageInfo(null);
+        }
+        return getSnapshot(scopeId).info;
+    }
+
+    @Override
+    public void invalidate(KapuaId scopeId) {
         if (scopeId != null) {
-            try {
-                account = KapuaSecurityUtils.doPrivileged(() -> accountService.find(scopeId));
-            } catch (Exception exc) {
-                throw new ConfigurationException("Cannot get account information", exc);
-            }
+            SNAPSHOTS.remove(scopeId);
+        }
+    }
+
+    private ScopeSnapshot getSnapshot(KapuaId scopeId) throws ConfigurationException {
+        ScopeSnapshot snapshot = SNAPSHOTS.get(scopeId);
+        if (snapshot == null) {
+            ScopeSnapshot loadedSnapshot = loadSnapshot(scopeId);
+            snapshot = SNAPSHOTS.putIfAbsent(scopeId, loadedSnapshot);
+            return snapshot != null ? snapshot : loadedSnapshot;
+        }
+
+        if (System.nanoTime() - snapshot.loadedOn > REFRESH_AFTER_NANOS) {
+            refreshSnapshot(scopeId, snapshot);
         }
-        return new MessageInfo(account);
+        return snapshot;
     }
 
+    private void refreshSnapshot(KapuaId scopeId, ScopeSnapshot staleSnapshot) {
+        if (!REFRESHING_SCOPES.add(scopeId)) {
+            return;
+        }
+
+        try {
+            REFRESH_EXECUTOR.execute(() -> {
+                try {
+                    // If the snapshot has been invalidated in the meantime the refreshed one is discarded,
+                    // since it may have been loaded before the change that caused the invalidation.
+                    SNAPSHOTS.replace(scopeId, staleSnapshot, loadSnapshot(scopeId));
+                } catch (ConfigurationException e) {
+                    LOG.warn("Cannot refresh the datastore configuration for scope {}. The previous one will be used until the next refresh", scopeId, e);
+                } finally {
+                    REFRESHING_SCOPES.remove(scopeId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            REFRESHING_SCOPES.remove(scopeId);
+            LOG.warn("Cannot schedule the refresh of the datastore configuration for scope {}", scopeId, e);
+        }
+    }
+
+    private ScopeSnapshot loadSnapshot(KapuaId scopeId) throws ConfigurationException {
+        long loadedOn = System.nanoTime();
+
+        MessageStoreConfiguration configuration = loadConfiguration(scopeId);
+
+        Account account;
+        try {
+            account = KapuaSecurityUtils.doPrivileged(() -> accountService.find(scopeId));
+        } catch (Exception exc) {
+            throw new ConfigurationException("Cannot get account information", exc);
+        }
+
+        return new ScopeSnapshot(configuration, new MessageInfo(account), loadedOn);
+    }
+
+    private MessageStoreConfiguration loadConfiguration(KapuaId scopeId) throws ConfigurationException {
+        try {
+            // Loaded with privileges since the snapshot is shared between callers and can be refreshed outside of any session.
+            // Callers still need the Datastore permissions required by the operation they are doing.
+            return new MessageStoreConfiguration(KapuaSecurityUtils.doPrivileged(() -> configurableService.getConfigValues(scopeId)));
+        } catch (KapuaException e) {
+            throw new ConfigurationException("Cannot load configuration parameters", e);
+        }
+    }
+
+    /**
+     * The immutable {@link MessageStoreConfiguration} and {@link MessageInfo} of a scope.
+     *
+     * @since 2.0.0
+     */
+    private static class ScopeSnapshot {
+
+        private final MessageStoreConfiguration configuration;
+        private final MessageInfo info;
+        private final long loadedOn;
+
+        private ScopeSnapshot(MessageStoreConfiguration configuration, MessageInfo info, long loadedOn) {
+            this.configuration = configuration;
+            this.info = info;
+            this.loadedOn = loadedOn;
+        }
+    }
 }
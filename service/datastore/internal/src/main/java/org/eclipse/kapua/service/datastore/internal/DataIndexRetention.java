@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.commons.metric.MetricsService;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.internal.client.DatastoreClientFactory;
+import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreException;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreMediator;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
+import org.eclipse.kapua.service.elasticsearch.client.ElasticsearchClient;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientException;
+import org.eclipse.kapua.service.elasticsearch.client.model.IndexRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes the data indexes which are entirely older than the data TTL of their scope.
+ * <p>
+ * Every {@link DatastoreSettingsKey#INDEX_RETENTION_INTERVAL} seconds, the data indexes are listed and grouped by scope.
+ * The data indexes of each scope whose indexing window ends before now minus the {@link org.eclipse.kapua.service.datastore.internal.mediator.MessageStoreConfiguration#getDataTimeToLiveMilliseconds()}
+ * of the scope are deleted, which is far cheaper for Elasticsearch than deleting their messages by query.
+ * At most {@link DatastoreSettingsKey#INDEX_RETENTION_DELETIONS_MAX} data indexes are deleted by each check,
+ * with a delay of {@link DatastoreSettingsKey#INDEX_RETENTION_DELETION_DELAY} milliseconds between each other,
+ * so that the deletions do not burst the cluster after a long downtime or a TTL reduction.
+ * <p>
+ * Scopes with an unlimited data TTL are never touched.
+ * While the {@link DataIndexRollup} is enabled, the data indexes which are not rolled up yet are kept until they are, so that their statistics are not lost.
+ * <p>
+ * The background check runs between {@link #start()} and {@link #stop()}, which are called by the {@link DatastoreMediator}
+ * while the {@link DatastoreServiceModule} is started.
+ *
+ * @since 2.0.0
+ */
+public class DataIndexRetention {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataIndexRetention.class);
+
+    private static final String DATA_INDEX_INFIX = "-data-message-";
+
+    private final ConfigurationProvider configurationProvider;
+    private final DataIndexRollup dataIndexRollup;
+    private final boolean enabled;
+    private final long interval;
+    private final int deletionsMax;
+    private final long deletionDelay;
+
+    private final Counter metricDeletedIndexesCount;
+    private final Counter metricErrorCount;
+    private final Timer metricCheckTime;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor.
+     * <p>
+     * Reads the {@link DatastoreSettingsKey#INDEX_RETENTION_ENABLED}, {@link DatastoreSettingsKey#INDEX_RETENTION_INTERVAL},
+     * {@link DatastoreSettingsKey#INDEX_RETENTION_DELETIONS_MAX} and {@link DatastoreSettingsKey#INDEX_RETENTION_DELETION_DELAY} settings.
+     *
+     * @param configurationProvider The {@link ConfigurationProvider} of the data TTL of the scopes.
+     * @param dataIndexRollup       The {@link DataIndexRollup} which must roll up the data indexes before their deletion, if enabled.
+     * @since 2.0.0
+     */
+    public DataIndexRetention(ConfigurationProvider configurationProvider, DataIndexRollup dataIndexRollup) {
+        this(configurationProvider,
+                dataIndexRollup,
+                DatastoreSettings.getInstance().getBoolean(DatastoreSettingsKey.INDEX_RETENTION_ENABLED, false),
+                DatastoreSettings.getInstance().getLong(DatastoreSettingsKey.INDEX_RETENTION_INTERVAL, 3600L),
+                DatastoreSettings.getInstance().getInt(DatastoreSettingsKey.INDEX_RETENTION_DELETIONS_MAX, 100),
+                DatastoreSettings.getInstance().getLong(DatastoreSettingsKey.INDEX_RETENTION_DELETION_DELAY, 1000L));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param configurationProvider The {@link ConfigurationProvider} of the data TTL of the scopes.
+     * @param dataIndexRollup       The {@link DataIndexRollup} which must roll up the data indexes before their deletion, if enabled.
+     * @param enabled               Whether the background check is enabled.
+     * @param interval              Interval (in seconds) between the checks.
+     * @param deletionsMax          Maximum number of data indexes deleted by each check.
+     * @param deletionDelay         Delay (in milliseconds) between two data index deletions.
+     * @since 2.0.0
+     */
+    public DataIndexRetention(ConfigurationProvider configurationProvider, DataIndexRollup dataIndexRollup, boolean enabled, long interval, int deletionsMax, long deletionDelay) {
+        this.configurationProvider = configurationProvider;
+        this.dataIndexRollup = dataIndexRollup;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.deletionsMax = deletionsMax;
+        this.deletionDelay = deletionDelay;
+
+        MetricsService metricService = MetricServiceFactory.getInstance();
+        metricDeletedIndexesCount = metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_RETENTION, DataStoreDriverMetrics.METRIC_INDEXES, DataStoreDriverMetrics.METRIC_DELETED, DataStoreDriverMetrics.METRIC_COUNT);
+        metricErrorCount = metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_RETENTION, DataStoreDriverMetrics.METRIC_ERROR, DataStoreDriverMetrics.METRIC_COUNT);
+        metricCheckTime = metricService.getTimer(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_RETENTION, DataStoreDriverMetrics.METRIC_TIME, DataStoreDriverMetrics.METRIC_S);
+    }
+
+    /**
+     * Starts the background check, if enabled. Does nothing if already started.
+     *
+     * @since 2.0.0
+     */
+    public synchronized void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "datastore-data-index-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::deleteExpiredDataIndexes, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background check. Does nothing if not started.
+     *
+     * @since 2.0.0
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    /**
+     * Deletes the data indexes which are entirely older than the data TTL of their scope, up to {@link DatastoreSettingsKey#INDEX_RETENTION_DELETIONS_MAX}.
+     *
+     * @return The number of deleted data indexes.
+     * @since 2.0.0
+     */
+    public int deleteExpiredDataIndexes() {
+        int deletedCount = 0;
+        try (Timer.Context context = metricCheckTime.time()) {
+            ElasticsearchClient<?> elasticsearchClient = DatastoreClientFactory.getElasticsearchClient();
+
+            String dataIndexesName = getAllDataIndexesName();
+            Map<KapuaId, List<String>> dataIndexesByScope = groupDataIndexesByScope(elasticsearchClient.findIndexes(new IndexRequest(dataIndexesName)).getIndexes());
+
+            Instant now = Instant.now();
+            for (Map.Entry<KapuaId, List<String>> scopeDataIndexes : dataIndexesByScope.entrySet()) {
+                KapuaId scopeId = scopeDataIndexes.getKey();
+
+                long ttl;
+                try {
+                    ttl = configurationProvider.getConfiguration(scopeId).getDataTimeToLiveMilliseconds();
+                } catch (ConfigurationException e) {
+                    LOG.warn("Cannot get the data TTL of scope {}. Its data indexes will be checked again later", scopeId, e);
+                    metricErrorCount.inc();
+                    continue;
+                }
+                if (ttl <= 0) {
+                    continue;
+                }
+
+                List<String> expiredDataIndexes;
+                try {
+                    expiredDataIndexes = getExpiredDataIndexes(scopeDataIndexes.getValue(), now.minusMillis(ttl));
+                } catch (DatastoreException e) {
+                    LOG.warn("Cannot get the expired data indexes of scope {}", scopeId, e);
+                    metricErrorCount.inc();
+                    continue;
+                }
+
+                for (String expiredDataIndex : expiredDataIndexes) {
+                    if (dataIndexRollup != null && dataIndexRollup.isEnabled() && !dataIndexRollup.isRolledUp(scopeId, expiredDataIndex)) {
+                        LOG.info("Keeping expired data index {} of scope {} until it is rolled up", expiredDataIndex, scopeId);
+                        continue;
+                    }
+                    if (deletedCount >= deletionsMax) {
+                        LOG.info("Deleted {} expired data indexes. The others will be deleted by the next check", deletedCount);
+                        return deletedCount;
+                    }
+                    if (deletedCount > 0 && deletionDelay > 0) {
+                        Thread.sleep(deletionDelay);
+                    }
+
+                    LOG.info("Deleting data index {} since it is entirely older than the data TTL of scope {}", expiredDataIndex, scopeId);
+                    elasticsearchClient.deleteIndexes(expiredDataIndex);
+                    DatastoreCacheManager.getInstance().getMetadataCache().remove(expiredDataIndex);
+                    if (dataIndexRollup != null) {
+                        dataIndexRollup.onDataIndexDeleted(expiredDataIndex);
+                    }
+                    metricDeletedIndexesCount.inc();
+                    deletedCount++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClientException | RuntimeException e) {
+            LOG.warn("Cannot delete the expired data indexes. They will be deleted by the next check", e);
+            metricErrorCount.inc();
+        }
+        return deletedCount;
+    }
+
+    /**
+     * Groups the given data index names by the scope they belong to.
+     * <p>
+     * Index names which do not belong to a scope are ignored.
+     *
+     * @param dataIndexes The data index names. It can be {@code null}.
+     * @return The data index names grouped by scope.
+     * @since 2.0.0
+     */
+    public static Map<KapuaId, List<String>> groupDataIndexesByScope(String[] dataIndexes) {
+        Map<KapuaId, List<String>> dataIndexesByScope = new LinkedHashMap<>();
+        if (dataIndexes == null) {
+            return dataIndexesByScope;
+        }
+
+        String prefix = StringUtils.removeEnd(getAllDataIndexesName(), "*" + DATA_INDEX_INFIX + "*");
+        for (String dataIndex : dataIndexes) {
+            String trimmedDataIndex = StringUtils.trimToEmpty(dataIndex);
+            if (!trimmedDataIndex.startsWith(prefix) || !trimmedDataIndex.contains(DATA_INDEX_INFIX)) {
+                continue;
+            }
+
+            String scopeIdPart = StringUtils.substringBefore(trimmedDataIndex.substring(prefix.length()), DATA_INDEX_INFIX);
+            KapuaId scopeId;
+            try {
+                scopeId = new KapuaEid(new BigInteger(scopeIdPart));
+            } catch (NumberFormatException e) {
+                LOG.debug("Index {} does not belong to a scope", trimmedDataIndex);
+                continue;
+            }
+            dataIndexesByScope.computeIfAbsent(scopeId, id -> new ArrayList<>()).add(trimmedDataIndex);
+        }
+        return dataIndexesByScope;
+    }
+
+    /**
+     * Gets the data index names whose indexing window entirely ends before the given {@link Instant}.
+     *
+     * @param dataIndexes The data index names.
+     * @param expiredOn   The {@link Instant} before which the data is expired.
+     * @return The expired data index names.
+     * @throws DatastoreException if a data index name cannot be parsed.
+     * @since 2.0.0
+     */
+    public static List<String> getExpiredDataIndexes(List<String> dataIndexes, Instant expiredOn) throws DatastoreException {
+        return Arrays.asList(DatastoreUtils.convertToDataIndexes(dataIndexes.toArray(new String[0]), null, expiredOn));
+    }
+
+    /**
+     * Gets the name expression which matches the data indexes of all the scopes.
+     *
+     * @return The name expression which matches the data indexes of all the scopes.
+     * @since 2.0.0
+     */
+    static String getAllDataIndexesName() {
+        String prefix = DatastoreSettings.getInstance().getString(DatastoreSettingsKey.INDEX_PREFIX);
+        return (StringUtils.isNotEmpty(prefix) ? prefix + "-" : "") + "*" + DATA_INDEX_INFIX + "*";
+    }
+}
@@ -0,0 +1,490 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.commons.metric.MetricsService;
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.internal.client.DatastoreClientFactory;
+import org.eclipse.kapua.service.datastore.internal.converter.QueryConverterImpl;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreMediator;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.model.DataIndexRollupMarker;
+import org.eclipse.kapua.service.datastore.internal.model.MetricRollupImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricRollupSourceQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricTypesQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.TimestampRange;
+import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
+import org.eclipse.kapua.service.datastore.internal.schema.MetricInfoSchema;
+import org.eclipse.kapua.service.datastore.internal.schema.MetricRollupSchema;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+import org.eclipse.kapua.service.datastore.model.query.predicate.ChannelMatchPredicate;
+import org.eclipse.kapua.service.datastore.model.query.predicate.MetricExistsPredicate;
+import org.eclipse.kapua.service.datastore.model.query.predicate.MetricPredicate;
+import org.eclipse.kapua.service.elasticsearch.client.ElasticsearchClient;
+import org.eclipse.kapua.service.elasticsearch.client.SchemaKeys;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientErrorCodes;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientException;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.IndexRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.TypeDescriptor;
+import org.eclipse.kapua.service.storable.model.id.StorableIdFactory;
+import org.eclipse.kapua.service.storable.model.query.predicate.AndPredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.ExistsPredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.IdsPredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.OrPredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.RangePredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.StorablePredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.StorablePredicateFactory;
+import org.eclipse.kapua.service.storable.model.query.predicate.TermPredicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolls up the closed data indexes into the rollup index of their scope.
+ * <p>
+ * Every {@link DatastoreSettingsKey#ROLLUP_INTERVAL} seconds, the data indexes whose indexing window ended more than {@link DatastoreSettingsKey#ROLLUP_GRACE} seconds ago
+ * and which are not rolled up yet are aggregated into hourly {@link MetricRollupImpl}s, by client id and channel, with the count, min, max and sum of each numeric or date metric of the scope.
+ * A {@link DataIndexRollupMarker} is stored after all the {@link MetricRollupImpl}s of a data index, so that a data index whose rollup did not complete is rolled up again.
+ * The identifiers of the {@link MetricRollupImpl}s only depend on their scope, client id, channel and time bucket, so rolling up a data index again overwrites them.
+ * <p>
+ * The rollups are kept after the deletion of their data index (see {@link DataIndexRetention}), and metric aggregations over old enough timestamp ranges
+ * are answered from them (see {@link #isAnsweredFromRollups(MetricAggregationQuery, Instant)}).
+ * <p>
+ * The background rollup runs between {@link #start()} and {@link #stop()}, which are called by the {@link DatastoreMediator}
+ * while the {@link DatastoreServiceModule} is started.
+ *
+ * @since 2.0.0
+ */
+public class DataIndexRollup {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataIndexRollup.class);
+
+    /**
+     * The width (in milliseconds) of the time buckets of the {@link MetricRollupImpl}s.
+     *
+     * @since 2.0.0
+     */
+    public static final long ROLLUP_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private static final List<Class<?>> ROLLED_UP_METRIC_TYPES = Arrays.asList(Integer.class, Long.class, Float.class, Double.class, Date.class);
+    private static final List<String> ROLLED_UP_FIELDS = Arrays.asList(MessageSchema.MESSAGE_SCOPE_ID, MessageSchema.MESSAGE_CLIENT_ID, MessageSchema.MESSAGE_CHANNEL, MessageSchema.MESSAGE_TIMESTAMP);
+
+    private final StorablePredicateFactory storablePredicateFactory;
+    private final StorableIdFactory storableIdFactory;
+
+    private final boolean enabled;
+    private final long interval;
+    private final long grace;
+    private final int pageSize;
+    private final Set<String> rolledUpDataIndexes = ConcurrentHashMap.newKeySet();
+
+    private final Counter metricRolledUpIndexesCount;
+    private final Counter metricRollupBucketsCount;
+    private final Counter metricErrorCount;
+    private final Timer metricCheckTime;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor.
+     * <p>
+     * Reads the {@link DatastoreSettingsKey#ROLLUP_ENABLED}, {@link DatastoreSettingsKey#ROLLUP_INTERVAL},
+     * {@link DatastoreSettingsKey#ROLLUP_GRACE} and {@link DatastoreSettingsKey#ROLLUP_PAGE_SIZE} settings.
+     *
+     * @since 2.0.0
+     */
+    public DataIndexRollup() {
+        this(DatastoreSettings.getInstance().getBoolean(DatastoreSettingsKey.ROLLUP_ENABLED, false),
+                DatastoreSettings.getInstance().getLong(DatastoreSettingsKey.ROLLUP_INTERVAL, 3600L),
+                DatastoreSettings.getInstance().getLong(DatastoreSettingsKey.ROLLUP_GRACE, 3600L),
+                DatastoreSettings.getInstance().getInt(DatastoreSettingsKey.ROLLUP_PAGE_SIZE, 500));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param enabled  Whether the background rollup is enabled.
+     * @param interval Interval (in seconds) between the checks.
+     * @param grace    How long (in seconds) after the end of its indexing window a data index is rolled up.
+     * @param pageSize Number of rollup buckets read by each request to Elasticsearch.
+     * @since 2.0.0
+     */
+    public DataIndexRollup(boolean enabled, long interval, long grace, int pageSize) {
+        KapuaLocator locator = KapuaLocator.getInstance();
+        storablePredicateFactory = locator.getFactory(StorablePredicateFactory.class);
+        storableIdFactory = locator.getFactory(StorableIdFactory.class);
+
+        this.enabled = enabled;
+        this.interval = interval;
+        this.grace = grace;
+        this.pageSize = pageSize;
+
+        MetricsService metricService = MetricServiceFactory.getInstance();
+        metricRolledUpIndexesCount = metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_ROLLUP, DataStoreDriverMetrics.METRIC_INDEXES, DataStoreDriverMetrics.METRIC_ROLLED_UP, DataStoreDriverMetrics.METRIC_COUNT);
+        metricRollupBucketsCount = metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_ROLLUP, DataStoreDriverMetrics.METRIC_BUCKETS, DataStoreDriverMetrics.METRIC_COUNT);
+        metricErrorCount = metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_ROLLUP, DataStoreDriverMetrics.METRIC_ERROR, DataStoreDriverMetrics.METRIC_COUNT);
+        metricCheckTime = metricService.getTimer(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_ROLLUP, DataStoreDriverMetrics.METRIC_TIME, DataStoreDriverMetrics.METRIC_S);
+    }
+
+    /**
+     * Whether the rollup is enabled.
+     * <p>
+     * While it is, {@link DataIndexRetention} only deletes the data indexes which are rolled up.
+     *
+     * @return {@code true} if the rollup is enabled, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the background rollup, if enabled. Does nothing if already started.
+     *
+     * @since 2.0.0
+     */
+    public synchronized void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "datastore-data-index-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::rollUpClosedDataIndexes, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background rollup. Does nothing if not started.
+     *
+     * @since 2.0.0
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    /**
+     * Checks whether the given data index is rolled up, that is whether its {@link DataIndexRollupMarker} is stored.
+     *
+     * @param scopeId   The scope {@link KapuaId} of the data index.
+     * @param dataIndex The data index name.
+     * @return {@code true} if the data index is rolled up, {@code false} otherwise.
+     * @throws ClientException if the {@link DataIndexRollupMarker} cannot be looked up.
+     * @since 2.0.0
+     */
+    public boolean isRolledUp(KapuaId scopeId, String dataIndex) throws ClientException {
+        if (rolledUpDataIndexes.contains(dataIndex)) {
+            return true;
+        }
+
+        ElasticsearchClient<?> elasticsearchClient = DatastoreClientFactory.getElasticsearchClient();
+        String rollupIndexName = DatastoreUtils.getRollupIndexName(scopeId);
+        if (!elasticsearchClient.isIndexExists(new IndexRequest(rollupIndexName)).isIndexExists()) {
+            return false;
+        }
+
+        if (isRolledUp(elasticsearchClient, new TypeDescriptor(rollupIndexName, MetricRollupSchema.ROLLUP_TYPE_NAME), scopeId, dataIndex)) {
+            rolledUpDataIndexes.add(dataIndex);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Forgets the given data index, after its deletion.
+     *
+     * @param dataIndex The deleted data index name.
+     * @since 2.0.0
+     */
+    public void onDataIndexDeleted(String dataIndex) {
+        rolledUpDataIndexes.remove(dataIndex);
+    }
+
+    /**
+     * Rolls up the closed data indexes which are not rolled up yet.
+     *
+     * @return The number of rolled up data indexes.
+     * @since 2.0.0
+     */
+    public int rollUpClosedDataIndexes() {
+        int rolledUpCount = 0;
+        try (Timer.Context context = metricCheckTime.time()) {
+            ElasticsearchClient<?> elasticsearchClient = DatastoreClientFactory.getElasticsearchClient();
+
+            String dataIndexesName = DataIndexRetention.getAllDataIndexesName();
+            Map<KapuaId, List<String>> dataIndexesByScope = DataIndexRetention.groupDataIndexesByScope(elasticsearchClient.findIndexes(new IndexRequest(dataIndexesName)).getIndexes());
+
+            Instant closedBefore = Instant.now().minusSeconds(grace);
+            for (Map.Entry<KapuaId, List<String>> scopeDataIndexes : dataIndexesByScope.entrySet()) {
+                KapuaId scopeId = scopeDataIndexes.getKey();
+                try {
+                    rolledUpCount += rollUpClosedDataIndexes(elasticsearchClient, scopeId, scopeDataIndexes.getValue(), closedBefore);
+                } catch (KapuaException e) {
+                    LOG.warn("Cannot roll up the data indexes of scope {}. They will be rolled up by the next check", scopeId, e);
+                    metricErrorCount.inc();
+                }
+            }
+        } catch (ClientException | RuntimeException e) {
+            LOG.warn("Cannot roll up the closed data indexes. They will be rolled up by the next check", e);
+            metricErrorCount.inc();
+        }
+        return rolledUpCount;
+    }
+
+    private int rollUpClosedDataIndexes(ElasticsearchClient<?> elasticsearchClient, KapuaId scopeId, List<String> dataIndexes, Instant closedBefore) throws KapuaException {
+        List<String> closedDataIndexes = new ArrayList<>();
+        for (String closedDataIndex : DatastoreUtils.convertToDataIndexes(dataIndexes.toArray(new String[0]), null, closedBefore)) {
+            if (!rolledUpDataIndexes.contains(closedDataIndex)) {
+                closedDataIndexes.add(closedDataIndex);
+            }
+        }
+        if (closedDataIndexes.isEmpty()) {
+            return 0;
+        }
+
+        TypeDescriptor rollupTypeDescriptor = new TypeDescriptor(DatastoreMediator.getInstance().synchRollupIndex(scopeId), MetricRollupSchema.ROLLUP_TYPE_NAME);
+
+        int rolledUpCount = 0;
+        Map<String, Class<?>> metricTypes = null;
+        for (String closedDataIndex : closedDataIndexes) {
+            if (isRolledUp(elasticsearchClient, rollupTypeDescriptor, scopeId, closedDataIndex)) {
+                rolledUpDataIndexes.add(closedDataIndex);
+                continue;
+            }
+            if (metricTypes == null) {
+                metricTypes = findMetricTypes(elasticsearchClient, scopeId);
+            }
+
+            LOG.info("Rolling up data index {} into {}", closedDataIndex, rollupTypeDescriptor.getIndex());
+            rollUp(elasticsearchClient, scopeId, closedDataIndex, metricTypes, rollupTypeDescriptor);
+            elasticsearchClient.insert(new InsertRequest(DataIndexRollupMarker.getId(closedDataIndex), rollupTypeDescriptor, new DataIndexRollupMarker(scopeId, closedDataIndex)));
+
+            rolledUpDataIndexes.add(closedDataIndex);
+            metricRolledUpIndexesCount.inc();
+            rolledUpCount++;
+        }
+        return rolledUpCount;
+    }
+
+    private boolean isRolledUp(ElasticsearchClient<?> elasticsearchClient, TypeDescriptor rollupTypeDescriptor, KapuaId scopeId, String dataIndex) throws ClientException {
+        IdsPredicate markerPredicate = storablePredicateFactory.newIdsPredicate(MetricRollupSchema.ROLLUP_TYPE_NAME);
+        markerPredicate.addId(storableIdFactory.newStorableId(DataIndexRollupMarker.getId(dataIndex)));
+
+        MessageQueryImpl markerQuery = new MessageQueryImpl(scopeId);
+        markerQuery.setPredicate(markerPredicate);
+        return elasticsearchClient.count(rollupTypeDescriptor, markerQuery) > 0;
+    }
+
+    /**
+     * Finds the names and types of the metrics of the scope to roll up, from its metric registry.
+     */
+    private Map<String, Class<?>> findMetricTypes(ElasticsearchClient<?> elasticsearchClient, KapuaId scopeId) throws ClientException {
+        TypeDescriptor metricTypeDescriptor = new TypeDescriptor(DatastoreUtils.getMetricIndexName(scopeId), MetricInfoSchema.METRIC_TYPE_NAME);
+
+        MetricTypesQueryImpl metricTypesQuery = new MetricTypesQueryImpl(scopeId);
+        metricTypesQuery.setPageSize(pageSize);
+
+        Map<String, Class<?>> metricTypes = new LinkedHashMap<>();
+        JsonNode metricTypesNode;
+        do {
+            metricTypesNode = elasticsearchClient.aggregate(metricTypeDescriptor, metricTypesQuery).path(QueryConverterImpl.AGGREGATION_METRIC_TYPES);
+            for (JsonNode metricTypeNode : metricTypesNode.path(SchemaKeys.KEY_BUCKETS)) {
+                String name = metricTypeNode.path(SchemaKeys.KEY_KEY).path(MetricInfoSchema.METRIC_MTR_NAME).asText();
+                String type = metricTypeNode.path(SchemaKeys.KEY_KEY).path(MetricInfoSchema.METRIC_MTR_TYPE).asText();
+                try {
+                    Class<?> metricType = DatastoreUtils.convertToKapuaType(type);
+                    if (ROLLED_UP_METRIC_TYPES.contains(metricType)) {
+                        metricTypes.put(name, metricType);
+                    }
+                } catch (IllegalArgumentException e) {
+                    LOG.debug("Metric {} of scope {} has an unknown type {}", name, scopeId, type);
+                }
+            }
+            metricTypesQuery.setAfterKey(metricTypesNode.get(SchemaKeys.KEY_AFTER_KEY));
+        } while (metricTypesNode.path(SchemaKeys.KEY_BUCKETS).size() > 0 && metricTypesQuery.getAfterKey() != null);
+        return metricTypes;
+    }
+
+    /**
+     * Rolls up a data index, one page of time buckets at a time.
+     */
+    private void rollUp(ElasticsearchClient<?> elasticsearchClient, KapuaId scopeId, String dataIndex, Map<String, Class<?>> metricTypes, TypeDescriptor rollupTypeDescriptor) throws ClientException {
+        TypeDescriptor dataTypeDescriptor = new TypeDescriptor(dataIndex, MessageSchema.MESSAGE_TYPE_NAME);
+
+        MetricRollupSourceQueryImpl sourceQuery = new MetricRollupSourceQueryImpl(scopeId);
+        sourceQuery.setInterval(ROLLUP_INTERVAL);
+        sourceQuery.setPageSize(pageSize);
+        sourceQuery.getMetrics().putAll(metricTypes);
+
+        List<MetricRollupImpl> metricRollups;
+        do {
+            JsonNode rollupBucketsNode = elasticsearchClient.aggregate(dataTypeDescriptor, sourceQuery).path(QueryConverterImpl.AGGREGATION_ROLLUP_BUCKETS);
+            metricRollups = convertRollupBuckets(scopeId, metricTypes, rollupBucketsNode);
+            if (!metricRollups.isEmpty()) {
+                store(elasticsearchClient, metricRollups, rollupTypeDescriptor);
+            }
+            sourceQuery.setAfterKey(rollupBucketsNode.get(SchemaKeys.KEY_AFTER_KEY));
+        } while (!metricRollups.isEmpty() && sourceQuery.getAfterKey() != null);
+    }
+
+    private void store(ElasticsearchClient<?> elasticsearchClient, List<MetricRollupImpl> metricRollups, TypeDescriptor rollupTypeDescriptor) throws ClientException {
+        BulkInsertRequest bulkInsertRequest = new BulkInsertRequest();
+        for (MetricRollupImpl metricRollup : metricRollups) {
+            bulkInsertRequest.add(new InsertRequest(metricRollup.getId(), rollupTypeDescriptor, metricRollup));
+        }
+
+        BulkInsertResponse bulkInsertResponse = elasticsearchClient.insert(bulkInsertRequest);
+        for (InsertResponse insertResponse : bulkInsertResponse.getResponse()) {
+            if (!insertResponse.isResult()) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, "Insert rollup", insertResponse.getDescription());
+            }
+        }
+        metricRollupBucketsCount.inc(metricRollups.size());
+    }
+
+    /**
+     * Converts the time buckets of the response to a {@link MetricRollupSourceQueryImpl} into {@link MetricRollupImpl}s.
+     * <p>
+     * Metrics without values within a time bucket are not part of its {@link MetricRollupImpl}.
+     *
+     * @param scopeId           The scope {@link KapuaId}.
+     * @param metricTypes       The metrics of the {@link MetricRollupSourceQueryImpl}, with their types.
+     * @param rollupBucketsNode The {@code rollup_buckets} aggregation of the response.
+     * @return The {@link MetricRollupImpl}s.
+     * @since 2.0.0
+     */
+    public static List<MetricRollupImpl> convertRollupBuckets(KapuaId scopeId, Map<String, Class<?>> metricTypes, JsonNode rollupBucketsNode) {
+        List<MetricRollupImpl> metricRollups = new ArrayList<>();
+        for (JsonNode rollupBucketNode : rollupBucketsNode.path(SchemaKeys.KEY_BUCKETS)) {
+            JsonNode keyNode = rollupBucketNode.path(SchemaKeys.KEY_KEY);
+            MetricRollupImpl metricRollup = new MetricRollupImpl(
+                    scopeId,
+                    keyNode.path(MessageSchema.MESSAGE_CLIENT_ID).asText(),
+                    keyNode.path(MessageSchema.MESSAGE_CHANNEL).asText(),
+                    new Date(keyNode.path(MessageSchema.MESSAGE_TIMESTAMP).asLong()));
+            metricRollup.setCount(rollupBucketNode.path(SchemaKeys.KEY_DOC_COUNT).asLong());
+
+            int metricIndex = 0;
+            for (Map.Entry<String, Class<?>> metricType : metricTypes.entrySet()) {
+                JsonNode statsNode = rollupBucketNode.path(QueryConverterImpl.AGGREGATION_METRIC_PREFIX + metricIndex++);
+                long count = statsNode.path(MetricRollupSchema.STATISTIC_COUNT).asLong();
+                if (count == 0) {
+                    continue;
+                }
+
+                String metricValueQualifier = DatastoreUtils.getNormalizedMetricValueQualifier(metricType.getKey(), metricType.getValue());
+                MetricStatistics metricStatistics = new MetricStatistics();
+                metricStatistics.setName(metricValueQualifier);
+                metricStatistics.setCount(count);
+                metricStatistics.setMin(statsNode.path(MetricRollupSchema.STATISTIC_MIN).asDouble());
+                metricStatistics.setMax(statsNode.path(MetricRollupSchema.STATISTIC_MAX).asDouble());
+                metricStatistics.setSum(statsNode.path(MetricRollupSchema.STATISTIC_SUM).asDouble());
+                metricRollup.getMetrics().put(metricValueQualifier, metricStatistics);
+            }
+            metricRollups.add(metricRollup);
+        }
+        return metricRollups;
+    }
+
+    /**
+     * Checks whether the given {@link MetricAggregationQuery} can be answered from the rollup index of its scope, with the same result of its data indexes.
+     * <p>
+     * It can when:
+     * <ul>
+     *     <li>its interval is a multiple of {@link #ROLLUP_INTERVAL},</li>
+     *     <li>its groups are not limited, since the rollups would rank them by number of rollups instead of number of messages,</li>
+     *     <li>its timestamp range is bounded and ends before the given {@link Instant},</li>
+     *     <li>its predicate only matches the scope id, client id, channel and timestamp,</li>
+     *     <li>the bounds of its timestamp ranges are aligned to {@link #ROLLUP_INTERVAL}, or the upper bounds to the millisecond before.</li>
+     * </ul>
+     * Upper bounds aligned to {@link #ROLLUP_INTERVAL} are exclusive on the rollup index (see {@link QueryConverterImpl}),
+     * so the messages at their very millisecond are not counted.
+     *
+     * @param query          The {@link MetricAggregationQuery}.
+     * @param rolledUpBefore The {@link Instant} before which all the data indexes are rolled up.
+     * @return {@code true} if the {@link MetricAggregationQuery} can be answered from the rollup index, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    public static boolean isAnsweredFromRollups(MetricAggregationQuery query, Instant rolledUpBefore) {
+        if (query.getInterval() <= 0 || query.getInterval() % ROLLUP_INTERVAL != 0) {
+            return false;
+        }
+        if (query.getGroupBy() != null && query.getLimit() != null) {
+            return false;
+        }
+
+        TimestampRange timestampRange = TimestampRange.of(query.getPredicate());
+        if (!timestampRange.isBounded() || !timestampRange.getEnd().isBefore(rolledUpBefore)) {
+            return false;
+        }
+
+        return isRolledUpPredicate(query.getPredicate());
+    }
+
+    private static boolean isRolledUpPredicate(StorablePredicate predicate) {
+        if (predicate instanceof AndPredicate) {
+            return ((AndPredicate) predicate).getPredicates().stream().allMatch(DataIndexRollup::isRolledUpPredicate);
+        } else if (predicate instanceof OrPredicate) {
+            return ((OrPredicate) predicate).getPredicates().stream().allMatch(DataIndexRollup::isRolledUpPredicate);
+        } else if (predicate instanceof ChannelMatchPredicate) {
+            return MessageSchema.MESSAGE_CHANNEL.equals(((ChannelMatchPredicate) predicate).getField().field());
+        } else if (predicate instanceof TermPredicate) {
+            return ROLLED_UP_FIELDS.contains(((TermPredicate) predicate).getField().field());
+        } else if (predicate instanceof ExistsPredicate && !(predicate instanceof MetricExistsPredicate)) {
+            return ROLLED_UP_FIELDS.contains(((ExistsPredicate) predicate).getName());
+        } else if (predicate instanceof RangePredicate && !(predicate instanceof MetricPredicate)) {
+            String field = ((RangePredicate) predicate).getField().field();
+            if (!MessageSchema.MESSAGE_TIMESTAMP.equals(field)) {
+                return ROLLED_UP_FIELDS.contains(field);
+            }
+
+            TimestampRange timestampRange = TimestampRange.of(predicate);
+            return (timestampRange.getStart() == null || timestampRange.getStart().toEpochMilli() % ROLLUP_INTERVAL == 0) &&
+                    (timestampRange.getEnd() == null || timestampRange.getEnd().toEpochMilli() % ROLLUP_INTERVAL == 0 || (timestampRange.getEnd().toEpochMilli() + 1) % ROLLUP_INTERVAL == 0);
+        }
+        return false;
+    }
+}
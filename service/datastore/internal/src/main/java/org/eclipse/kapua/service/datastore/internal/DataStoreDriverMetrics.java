@@ -30,6 +30,20 @@ public class DataStoreDriverMetrics {
     public static final String METRIC_TIME = "time";
     public static final String METRIC_S = "s";
     public static final String METRIC_ALREADY_IN_THE_DATASTORE = "already_in_the_datastore";
+    public static final String METRIC_RETENTION = "retention";
+    public static final String METRIC_INDEXES = "indexes";
+    public static final String METRIC_DELETED = "deleted";
+    public static final String METRIC_ROLLUP = "rollup";
+    public static final String METRIC_ROLLED_UP = "rolled_up";
+    public static final String METRIC_BUCKETS = "buckets";
+    public static final String METRIC_METRIC_FIELD_BUDGET = "metric_field_budget";
+    public static final String METRIC_DROPPED = "dropped";
+    public static final String METRIC_UNINDEXED = "unindexed";
+    public static final String METRIC_REJECTED = "rejected";
+    public static final String METRIC_QUERY = "query";
+    public static final String METRIC_HIT = "hit";
+    public static final String METRIC_MISS = "miss";
+    public static final String METRIC_EVICTION = "eviction";
 
     public static final String METRIC_ERROR = "error";
     public static final String METRIC_COUNT = "count";
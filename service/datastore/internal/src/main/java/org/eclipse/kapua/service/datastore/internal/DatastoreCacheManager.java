@@ -12,38 +12,95 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore.internal;
 
+import org.eclipse.kapua.commons.cache.Cache;
 import org.eclipse.kapua.commons.cache.LocalCache;
+import org.eclipse.kapua.commons.cache.LocalFingerprintCache;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.commons.metric.MetricsService;
 import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
+import org.eclipse.kapua.service.datastore.model.ChannelInfoListResult;
+import org.eclipse.kapua.service.datastore.model.ClientInfoListResult;
+import org.eclipse.kapua.service.datastore.model.MetricInfoListResult;
 import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
 import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
+import org.eclipse.kapua.service.storable.model.StorableListResult;
 
 /**
  * Datastore cache manager.<br>
  * It keeps informations about channels, metrics and clients to speed up the store operation and avoid time consuming unnecessary operations.
+ * <p>
+ * The channels, metrics and clients caches are {@link LocalCache}s or, if {@link DatastoreSettingsKey#CONFIG_CACHE_LOCAL_TYPE} is {@value #CACHE_TYPE_FINGERPRINT},
+ * {@link LocalFingerprintCache}s which take far less memory per entry.
+ * <p>
+ * It also keeps, for a short time, the results of the channels, metrics and clients registry queries in {@link RegistryQueryCache}s.
  *
  * @since 1.0.0
  */
 public class DatastoreCacheManager {
 
+    /**
+     * {@link DatastoreSettingsKey#CONFIG_CACHE_LOCAL_TYPE} value for {@link LocalCache}s.
+     *
+     * @since 2.0.0
+     */
+    public static final String CACHE_TYPE_LOCAL = "local";
+
+    /**
+     * {@link DatastoreSettingsKey#CONFIG_CACHE_LOCAL_TYPE} value for {@link LocalFingerprintCache}s.
+     *
+     * @since 2.0.0
+     */
+    public static final String CACHE_TYPE_FINGERPRINT = "fingerprint";
+
+    private static final String METRIC_COMPONENT_NAME = "cache";
+
     private static final DatastoreCacheManager INSTANCE = new DatastoreCacheManager();
 
     private final LocalCache<String, Metadata> schemaCache;
-    private final LocalCache<String, Boolean> channelsCache;
-    private final LocalCache<String, Boolean> metricsCache;
-    private final LocalCache<String, Boolean> clientsCache;
+    private final Cache<String, Boolean> channelsCache;
+    private final Cache<String, Boolean> metricsCache;
+    private final Cache<String, Boolean> clientsCache;
+    private final RegistryQueryCache<ChannelInfoListResult> channelsQueryCache;
+    private final RegistryQueryCache<MetricInfoListResult> metricsQueryCache;
+    private final RegistryQueryCache<ClientInfoListResult> clientsQueryCache;
 
     private DatastoreCacheManager() {
         DatastoreSettings config = DatastoreSettings.getInstance();
         int expireAfter = config.getInt(DatastoreSettingsKey.CONFIG_CACHE_LOCAL_EXPIRE_AFTER);
         int sizeMax = config.getInt(DatastoreSettingsKey.CONFIG_CACHE_LOCAL_SIZE_MAXIMUM);
         int sizeMaxMetadata = config.getInt(DatastoreSettingsKey.CONFIG_CACHE_METADATA_LOCAL_SIZE_MAXIMUM);
+        String cacheType = config.getString(DatastoreSettingsKey.CONFIG_CACHE_LOCAL_TYPE, CACHE_TYPE_LOCAL);
 
         // TODO set expiration to happen frequently because the reset cache method will not get
         // called from service clients any more
-        channelsCache = new LocalCache<>(sizeMax, expireAfter, false);
-        metricsCache = new LocalCache<>(sizeMax, expireAfter, false);
-        clientsCache = new LocalCache<>(sizeMax, expireAfter, false);
+        channelsCache = newRegistryCache(cacheType, "channels", sizeMax, expireAfter);
+        metricsCache = newRegistryCache(cacheType, "metrics", sizeMax, expireAfter);
+        clientsCache = newRegistryCache(cacheType, "clients", sizeMax, expireAfter);
         schemaCache = new LocalCache<>(sizeMaxMetadata, null);
+
+        int queryExpireAfter = config.getInt(DatastoreSettingsKey.CONFIG_CACHE_QUERY_EXPIRE_AFTER, 5);
+        int querySizeMax = config.getInt(DatastoreSettingsKey.CONFIG_CACHE_QUERY_SIZE_MAXIMUM, 1000);
+        channelsQueryCache = newRegistryQueryCache("channels", querySizeMax, queryExpireAfter);
+        metricsQueryCache = newRegistryQueryCache("metrics", querySizeMax, queryExpireAfter);
+        clientsQueryCache = newRegistryQueryCache("clients", querySizeMax, queryExpireAfter);
+    }
+
+    private static Cache<String, Boolean> newRegistryCache(String cacheType, String name, int sizeMax, int expireAfter) {
+        if (CACHE_TYPE_FINGERPRINT.equals(cacheType)) {
+            MetricsService metricService = MetricServiceFactory.getInstance();
+            return new LocalFingerprintCache(sizeMax, expireAfter,
+                    metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, name, DataStoreDriverMetrics.METRIC_HIT, DataStoreDriverMetrics.METRIC_COUNT),
+                    metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, name, DataStoreDriverMetrics.METRIC_MISS, DataStoreDriverMetrics.METRIC_COUNT),
+                    metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, name, DataStoreDriverMetrics.METRIC_EVICTION, DataStoreDriverMetrics.METRIC_COUNT));
+        }
+        return new LocalCache<>(sizeMax, expireAfter, false);
+    }
+
+    private static <R extends StorableListResult<?>> RegistryQueryCache<R> newRegistryQueryCache(String name, int sizeMax, int expireAfter) {
+        MetricsService metricService = MetricServiceFactory.getInstance();
+        return new RegistryQueryCache<>(sizeMax, expireAfter,
+                metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, name, DataStoreDriverMetrics.METRIC_QUERY, DataStoreDriverMetrics.METRIC_HIT, DataStoreDriverMetrics.METRIC_COUNT),
+                metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, name, DataStoreDriverMetrics.METRIC_QUERY, DataStoreDriverMetrics.METRIC_MISS, DataStoreDriverMetrics.METRIC_COUNT));
     }
 
     /**
@@ -62,7 +119,7 @@ public class DatastoreCacheManager {
      * @return
      * @since 1.0.0
      */
-    public LocalCache<String, Boolean> getChannelsCache() {
+    public Cache<String, Boolean> getChannelsCache() {
         return channelsCache;
     }
 
@@ -72,7 +129,7 @@ public class DatastoreCacheManager {
      * @return
      * @since 1.0.0
      */
-    public LocalCache<String, Boolean> getMetricsCache() {
+    public Cache<String, Boolean> getMetricsCache() {
         return metricsCache;
     }
 
@@ -82,10 +139,40 @@ public class DatastoreCacheManager {
      * @return
      * @since 1.0.0
      */
-    public LocalCache<String, Boolean> getClientsCache() {
+    public Cache<String, Boolean> getClientsCache() {
         return clientsCache;
     }
 
+    /**
+     * Gets the cache of the results of the channels registry queries.
+     *
+     * @return The {@link RegistryQueryCache} of the channels registry.
+     * @since 2.0.0
+     */
+    public RegistryQueryCache<ChannelInfoListResult> getChannelsQueryCache() {
+        return channelsQueryCache;
+    }
+
+    /**
+     * Gets the cache of the results of the metrics registry queries.
+     *
+     * @return The {@link RegistryQueryCache} of the metrics registry.
+     * @since 2.0.0
+     */
+    public RegistryQueryCache<MetricInfoListResult> getMetricsQueryCache() {
+        return metricsQueryCache;
+    }
+
+    /**
+     * Gets the cache of the results of the clients registry queries.
+     *
+     * @return The {@link RegistryQueryCache} of the clients registry.
+     * @since 2.0.0
+     */
+    public RegistryQueryCache<ClientInfoListResult> getClientsQueryCache() {
+        return clientsQueryCache;
+    }
+
     /**
      * Get the metadata informations cache
      *
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.core.ServiceModule;
+import org.eclipse.kapua.commons.event.ServiceEventClientConfiguration;
+import org.eclipse.kapua.commons.event.ServiceEventModule;
+import org.eclipse.kapua.commons.event.ServiceEventModuleConfiguration;
+import org.eclipse.kapua.commons.event.ServiceInspector;
+import org.eclipse.kapua.service.datastore.MessageStoreService;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreMediator;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
+
+import javax.inject.Inject;
+import java.util.List;
+
+/**
+ * Datastore {@link ServiceModule} implementation.
+ * <p>
+ * Subscribes the {@link MessageStoreService} to the service events it listens for
+ * and runs the background jobs of the {@link DatastoreMediator} while the module is started.
+ *
+ * @since 2.0.0
+ */
+public class DatastoreServiceModule extends ServiceEventModule implements ServiceModule {
+
+    @Inject
+    private MessageStoreService messageStoreService;
+
+    @Override
+    protected ServiceEventModuleConfiguration initializeConfiguration() {
+        String address = DatastoreSettings.getInstance().getString(DatastoreSettingsKey.DATASTORE_EVENT_ADDRESS);
+
+        List<ServiceEventClientConfiguration> eventBusClients = ServiceInspector.getEventBusClients(messageStoreService, MessageStoreService.class);
+
+        return new ServiceEventModuleConfiguration(
+                address,
+                DatastoreEntityManagerFactory.getInstance(),
+                eventBusClients.toArray(new ServiceEventClientConfiguration[0]));
+    }
+
+    @Override
+    public void start() throws KapuaException {
+        super.start();
+
+        DatastoreMediator.getInstance().start();
+    }
+
+    @Override
+    public void stop() throws KapuaException {
+        DatastoreMediator.getInstance().stop();
+
+        super.stop();
+    }
+}
@@ -15,17 +15,21 @@ package org.eclipse.kapua.service.datastore.internal;
 import com.codahale.metrics.Counter;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.KapuaIllegalArgumentException;
-import org.eclipse.kapua.commons.cache.LocalCache;
+import org.eclipse.kapua.commons.cache.Cache;
 import org.eclipse.kapua.commons.metric.MetricServiceFactory;
 import org.eclipse.kapua.commons.metric.MetricsService;
 import org.eclipse.kapua.commons.util.ArgumentValidator;
 import org.eclipse.kapua.commons.util.KapuaDateUtils;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.KapuaMessage;
+import org.eclipse.kapua.message.KapuaPayload;
+import org.eclipse.kapua.message.internal.KapuaPayloadImpl;
 import org.eclipse.kapua.message.device.data.KapuaDataChannel;
 import org.eclipse.kapua.message.internal.device.data.KapuaDataChannelImpl;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.datastore.exception.DatastoreDisabledException;
+import org.eclipse.kapua.service.datastore.exception.MetricFieldBudgetExceededException;
+import org.eclipse.kapua.service.datastore.internal.converter.MetricAggregationResultConverter;
 import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreChannel;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
@@ -37,25 +41,38 @@ import org.eclipse.kapua.service.datastore.internal.mediator.Metric;
 import org.eclipse.kapua.service.datastore.internal.model.DataIndexBy;
 import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
 import org.eclipse.kapua.service.datastore.internal.model.MessageListResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricFieldBudgetPolicy;
 import org.eclipse.kapua.service.datastore.internal.model.query.ChannelInfoQueryImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.ClientInfoQueryImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.MetricInfoQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricRollupAggregationQueryImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.predicate.ChannelMatchPredicateImpl;
 import org.eclipse.kapua.service.datastore.internal.schema.ChannelInfoSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.ClientInfoSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
+import org.eclipse.kapua.service.datastore.internal.schema.MetricSignatureSet;
 import org.eclipse.kapua.service.datastore.internal.schema.MetricInfoSchema;
+import org.eclipse.kapua.service.datastore.internal.schema.MetricRollupSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.SchemaUtil;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
 import org.eclipse.kapua.service.datastore.model.ChannelInfo;
 import org.eclipse.kapua.service.datastore.model.ClientInfo;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientActionResponseException;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientCommunicationException;
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientException;
 import org.eclipse.kapua.service.elasticsearch.client.exception.QueryMappingException;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertResponse;
 import org.eclipse.kapua.service.elasticsearch.client.model.InsertRequest;
 import org.eclipse.kapua.service.elasticsearch.client.model.InsertResponse;
 import org.eclipse.kapua.service.elasticsearch.client.model.ResultList;
@@ -69,9 +86,18 @@ import org.eclipse.kapua.service.storable.model.query.predicate.StorablePredicat
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Message store facade
@@ -86,9 +112,15 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
     private static final StorableIdFactory STORABLE_ID_FACTORY = LOCATOR.getFactory(StorableIdFactory.class);
     private static final StorablePredicateFactory STORABLE_PREDICATE_FACTORY = LOCATOR.getFactory(StorablePredicateFactory.class);
 
+    private static final MetricAggregationResultConverter METRIC_AGGREGATION_RESULT_CONVERTER = new MetricAggregationResultConverter();
+
     private final Counter metricMessagesAlreadyInTheDatastoreCount;
+    private final Counter metricMessagesMetricFieldBudgetDroppedCount;
+    private final Counter metricMessagesMetricFieldBudgetUnindexedCount;
+    private final Counter metricMessagesMetricFieldBudgetRejectedCount;
 
     private final MessageStoreMediator mediator;
+    private final long rollupQueryOlderThan;
 
     private static final String QUERY = "query";
     private static final String QUERY_SCOPE_ID = "query.scopeId";
@@ -105,9 +137,13 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
         super(confProvider);
 
         this.mediator = mediator;
+        this.rollupQueryOlderThan = DatastoreSettings.getInstance().getLong(DatastoreSettingsKey.ROLLUP_QUERY_OLDER_THAN, 0L);
 
         MetricsService metricService = MetricServiceFactory.getInstance();
         metricMessagesAlreadyInTheDatastoreCount = metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_STORE, DataStoreDriverMetrics.METRIC_MESSAGES, DataStoreDriverMetrics.METRIC_ALREADY_IN_THE_DATASTORE, DataStoreDriverMetrics.METRIC_COUNT);
+        metricMessagesMetricFieldBudgetDroppedCount = metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_STORE, DataStoreDriverMetrics.METRIC_MESSAGES, DataStoreDriverMetrics.METRIC_METRIC_FIELD_BUDGET, DataStoreDriverMetrics.METRIC_DROPPED, DataStoreDriverMetrics.METRIC_COUNT);
+        metricMessagesMetricFieldBudgetUnindexedCount = metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_STORE, DataStoreDriverMetrics.METRIC_MESSAGES, DataStoreDriverMetrics.METRIC_METRIC_FIELD_BUDGET, DataStoreDriverMetrics.METRIC_UNINDEXED, DataStoreDriverMetrics.METRIC_COUNT);
+        metricMessagesMetricFieldBudgetRejectedCount = metricService.getCounter(DataStoreDriverMetrics.METRIC_MODULE_NAME, DataStoreDriverMetrics.METRIC_COMPONENT_NAME, DataStoreDriverMetrics.METRIC_STORE, DataStoreDriverMetrics.METRIC_MESSAGES, DataStoreDriverMetrics.METRIC_METRIC_FIELD_BUDGET, DataStoreDriverMetrics.METRIC_REJECTED, DataStoreDriverMetrics.METRIC_COUNT);
     }
 
     /**
@@ -122,6 +158,7 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
     public StorableId store(KapuaMessage<?, ?> message, String messageId, boolean newInsert)
             throws KapuaIllegalArgumentException,
             DatastoreDisabledException,
+            MetricFieldBudgetExceededException,
             ConfigurationException,
             ClientException, MappingException {
         ArgumentValidator.notNull(message, "message");
@@ -134,19 +171,8 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
             throw new DatastoreDisabledException(message.getScopeId());
         }
 
-        Date capturedOn = message.getCapturedOn();
-        // Overwrite timestamp if necessary
-        // Use the account service plan to determine whether we will give
-        // precede to the device time
         MessageStoreConfiguration accountServicePlan = getConfigProvider().getConfiguration(message.getScopeId());
-        long indexedOn = KapuaDateUtils.getKapuaSysDate().toEpochMilli();
-        if (DataIndexBy.DEVICE_TIMESTAMP.equals(accountServicePlan.getDataIndexBy())) {
-            if (capturedOn != null) {
-                indexedOn = capturedOn.getTime();
-            } else {
-                LOG.debug("The account is set to use, as date indexing, the device timestamp but the device timestamp is null! Current system date will be used to indexing the message by date!");
-            }
-        }
+        long indexedOn = getIndexedOn(message, accountServicePlan);
         // Extract schema metadata
         Metadata schemaMetadata = mediator.getMetadata(message.getScopeId(), indexedOn);
 
@@ -164,29 +190,11 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
         }
 
         // Save message (the big one)
-        DatastoreMessage messageToStore = convertTo(message, messageId);
+        DatastoreMessageImpl messageToStore = convertTo(message, messageId);
         messageToStore.setTimestamp(indexedOnDate);
         InsertRequest insertRequest = new InsertRequest(messageToStore.getDatastoreId().toString(), typeDescriptor, messageToStore);
         // Possibly update the schema with new metric mappings
-        Map<String, Metric> metrics = new HashMap<>();
-        if (message.getPayload() != null && message.getPayload().getMetrics() != null && !message.getPayload().getMetrics().isEmpty()) {
-
-            Map<String, Object> messageMetrics = message.getPayload().getMetrics();
-            for (Map.Entry<String, Object> messageMetric : messageMetrics.entrySet()) {
-                String metricName = DatastoreUtils.normalizeMetricName(messageMetric.getKey());
-                String clientMetricType = DatastoreUtils.getClientMetricFromType(messageMetric.getValue().getClass());
-                Metric metric = new Metric(metricName, clientMetricType);
-
-                // each metric is potentially a dynamic field so report it a new mapping
-                String mappedName = DatastoreUtils.getMetricValueQualifier(metricName, clientMetricType);
-                metrics.put(mappedName, metric);
-            }
-        }
-        try {
-            mediator.onUpdatedMappings(message.getScopeId(), indexedOn, metrics);
-        } catch (KapuaException e) {
-            LOG.warn("Update mappings error", e);
-        }
+        updateMessageMappings(messageToStore, indexedOn, schemaMetadata, accountServicePlan);
 
         InsertResponse insertResponse = getElasticsearchClient().insert(insertRequest);
         messageToStore.setDatastoreId(STORABLE_ID_FACTORY.newStorableId(insertResponse.getId()));
@@ -197,6 +205,148 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
         return STORABLE_ID_FACTORY.newStorableId(insertResponse.getId());
     }
 
+    /**
+     * Store a batch of messages with a single bulk insert.
+     * <p>
+     * Each message is processed independently: a failure of one message does not fail the other ones of the batch,
+     * and it is reported in the {@link MessageStoreResult} at the same position of the message.
+     * Messages already in the datastore (i.e. redelivered messages) are not stored again.
+     *
+     * @param messages   The messages to store.
+     * @param messageIds The datastore ids to assign, one for each message and in the same order.
+     * @return The {@link MessageStoreResult}s, one for each message and in the same order.
+     * @throws KapuaIllegalArgumentException
+     * @since 2.0.0
+     */
+    public List<MessageStoreResult> storeBatch(List<? extends KapuaMessage<?, ?>> messages, List<String> messageIds)
+            throws KapuaIllegalArgumentException {
+        ArgumentValidator.notNull(messages, "messages");
+        ArgumentValidator.notNull(messageIds, "messageIds");
+        if (messages.size() != messageIds.size()) {
+            throw new KapuaIllegalArgumentException("messageIds.size", String.valueOf(messageIds.size()));
+        }
+
+        MessageStoreResult[] results = new MessageStoreResult[messages.size()];
+        Map<KapuaId, MessageStoreConfiguration> configurations = new HashMap<>();
+        Map<KapuaId, MessageInfo> messageInfos = new HashMap<>();
+
+        // Validate and convert the messages
+        Map<Integer, DatastoreMessageImpl> messagesToStore = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            KapuaMessage<?, ?> message = messages.get(i);
+            String messageId = messageIds.get(i);
+            try {
+                ArgumentValidator.notNull(message, "message");
+                ArgumentValidator.notNull(message.getScopeId(), SCOPE_ID);
+                ArgumentValidator.notNull(message.getReceivedOn(), "receivedOn");
+                ArgumentValidator.notNull(messageId, "messageId");
+
+                if (!isDatastoreServiceEnabled(message.getScopeId())) {
+                    throw new DatastoreDisabledException(message.getScopeId());
+                }
+
+                MessageStoreConfiguration accountServicePlan = configurations.get(message.getScopeId());
+                if (accountServicePlan == null) {
+                    accountServicePlan = getConfigProvider().getConfiguration(message.getScopeId());
+                    configurations.put(message.getScopeId(), accountServicePlan);
+                }
+
+                DatastoreMessageImpl messageToStore = convertTo(message, messageId);
+                messageToStore.setTimestamp(new Date(getIndexedOn(message, accountServicePlan)));
+                messagesToStore.put(i, messageToStore);
+            } catch (KapuaException e) {
+                results[i] = new MessageStoreResult(messageId, e);
+            }
+        }
+
+        // Skip the messages already stored, with a single query for each scope
+        Map<KapuaId, List<Integer>> positionsByScope = new HashMap<>();
+        for (Map.Entry<Integer, DatastoreMessageImpl> messageToStore : messagesToStore.entrySet()) {
+            positionsByScope.computeIfAbsent(messageToStore.getValue().getScopeId(), scopeId -> new ArrayList<>()).add(messageToStore.getKey());
+        }
+        for (Map.Entry<KapuaId, List<Integer>> scopePositions : positionsByScope.entrySet()) {
+            try {
+                Set<String> storedIds = findStoredIds(scopePositions.getKey(), scopePositions.getValue().stream().map(messageIds::get).collect(Collectors.toList()));
+                for (Integer position : scopePositions.getValue()) {
+                    String messageId = messageIds.get(position);
+                    if (storedIds.contains(messageId)) {
+                        LOG.debug("Message with datatstore id '{}' already found", messageId);
+                        metricMessagesAlreadyInTheDatastoreCount.inc();
+                        messagesToStore.remove(position);
+                        results[position] = new MessageStoreResult(messageId, STORABLE_ID_FACTORY.newStorableId(messageId));
+                    }
+                }
+            } catch (KapuaException e) {
+                for (Integer position : scopePositions.getValue()) {
+                    messagesToStore.remove(position);
+                    results[position] = new MessageStoreResult(messageIds.get(position), e);
+                }
+            }
+        }
+
+        // Prepare the indexes and the mappings and build the bulk request
+        BulkInsertRequest bulkInsertRequest = new BulkInsertRequest();
+        List<Integer> bulkPositions = new ArrayList<>();
+        for (Map.Entry<Integer, DatastoreMessageImpl> messageToStore : messagesToStore.entrySet()) {
+            DatastoreMessageImpl datastoreMessage = messageToStore.getValue();
+            try {
+                long indexedOn = datastoreMessage.getTimestamp().getTime();
+                Metadata schemaMetadata = mediator.getMetadata(datastoreMessage.getScopeId(), indexedOn);
+                TypeDescriptor typeDescriptor = new TypeDescriptor(schemaMetadata.getDataIndexName(), MessageSchema.MESSAGE_TYPE_NAME);
+
+                updateMessageMappings(datastoreMessage, indexedOn, schemaMetadata, configurations.get(datastoreMessage.getScopeId()));
+
+                bulkInsertRequest.add(new InsertRequest(datastoreMessage.getDatastoreId().toString(), typeDescriptor, datastoreMessage));
+                bulkPositions.add(messageToStore.getKey());
+            } catch (KapuaException e) {
+                results[messageToStore.getKey()] = new MessageStoreResult(messageIds.get(messageToStore.getKey()), e);
+            }
+        }
+
+        if (!bulkPositions.isEmpty()) {
+            BulkInsertResponse bulkInsertResponse = null;
+            try {
+                bulkInsertResponse = getElasticsearchClient().insert(bulkInsertRequest);
+            } catch (ClientException e) {
+                for (Integer position : bulkPositions) {
+                    results[position] = new MessageStoreResult(messageIds.get(position), e);
+                }
+            }
+
+            if (bulkInsertResponse != null) {
+                List<InsertResponse> insertResponses = bulkInsertResponse.getResponse();
+                for (int i = 0; i < bulkPositions.size(); i++) {
+                    int position = bulkPositions.get(i);
+                    String messageId = messageIds.get(position);
+                    InsertResponse insertResponse = insertResponses.get(i);
+                    if (!insertResponse.isResult()) {
+                        results[position] = new MessageStoreResult(messageId, buildExceptionFromFailedInsert(insertResponse));
+                        continue;
+                    }
+
+                    DatastoreMessage messageToStore = messagesToStore.get(position);
+                    try {
+                        StorableId storableId = STORABLE_ID_FACTORY.newStorableId(insertResponse.getId());
+                        messageToStore.setDatastoreId(storableId);
+
+                        MessageInfo messageInfo = messageInfos.get(messageToStore.getScopeId());
+                        if (messageInfo == null) {
+                            messageInfo = getConfigProvider().getInfo(messageToStore.getScopeId());
+                            messageInfos.put(messageToStore.getScopeId(), messageInfo);
+                        }
+                        mediator.onAfterMessageStore(messageInfo, messageToStore);
+
+                        results[position] = new MessageStoreResult(messageId, storableId);
+                    } catch (KapuaException e) {
+                        results[position] = new MessageStoreResult(messageId, e);
+                    }
+                }
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
     /**
      * Delete message by identifier.<br>
      * <b>Be careful using this function since it doesn't guarantee the datastore consistency.<br>
@@ -290,7 +440,7 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
             return new MessageListResultImpl();
         }
 
-        String dataIndexName = SchemaUtil.getDataIndexName(query.getScopeId());
+        String dataIndexName = SchemaUtil.getDataIndexName(query);
         TypeDescriptor typeDescriptor = new TypeDescriptor(dataIndexName, MessageSchema.MESSAGE_TYPE_NAME);
         MessageListResult result = new MessageListResultImpl(getElasticsearchClient().query(typeDescriptor, query, DatastoreMessage.class));
         setLimitExceed(query, result);
@@ -318,11 +468,80 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
             return 0;
         }
 
-        String indexName = SchemaUtil.getDataIndexName(query.getScopeId());
+        String indexName = SchemaUtil.getDataIndexName(query);
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MessageSchema.MESSAGE_TYPE_NAME);
         return getElasticsearchClient().count(typeDescriptor, query);
     }
 
+    /**
+     * Streams all the messages matching the given query to the given {@link Consumer}.
+     * <p>
+     * The messages are read in pages with {@code search_after}, using {@link MessageSchema#MESSAGE_ID} as sort tie breaker.
+     * The offset and the limit of the query are ignored.
+     *
+     * @param query    The {@link MessageQuery} to match.
+     * @param consumer The {@link Consumer} of the matching messages.
+     * @return The number of streamed messages.
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 2.0.0
+     */
+    public long stream(MessageQuery query, Consumer<DatastoreMessage> consumer)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        ArgumentValidator.notNull(query, QUERY);
+        ArgumentValidator.notNull(query.getScopeId(), QUERY_SCOPE_ID);
+        ArgumentValidator.notNull(consumer, "consumer");
+
+        if (!isDatastoreServiceEnabled(query.getScopeId())) {
+            LOG.debug("Storage not enabled for account {}, returning empty result", query.getScopeId());
+            return 0;
+        }
+
+        String dataIndexName = SchemaUtil.getDataIndexName(query);
+        TypeDescriptor typeDescriptor = new TypeDescriptor(dataIndexName, MessageSchema.MESSAGE_TYPE_NAME);
+        return getElasticsearchClient().stream(typeDescriptor, query, MessageSchema.MESSAGE_ID, DatastoreMessage.class, consumer);
+    }
+
+    /**
+     * Aggregates the metrics of the messages matching the given query.
+     * <p>
+     * The aggregation is computed by Elasticsearch, which returns only the statistics of each bucket.
+     * Queries on ranges older than {@link DatastoreSettingsKey#ROLLUP_QUERY_OLDER_THAN} are answered from the rollup index of the scope,
+     * when {@link DataIndexRollup#isAnsweredFromRollups(MetricAggregationQuery, Instant)}.
+     *
+     * @param query The {@link MetricAggregationQuery} to perform.
+     * @return The {@link MetricAggregationResult}.
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 2.0.0
+     */
+    public MetricAggregationResult aggregate(MetricAggregationQuery query)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            ClientException {
+        ArgumentValidator.notNull(query, QUERY);
+        ArgumentValidator.notNull(query.getScopeId(), QUERY_SCOPE_ID);
+
+        if (!isDatastoreServiceEnabled(query.getScopeId())) {
+            LOG.debug("Storage not enabled for account {}, returning empty result", query.getScopeId());
+            return new MetricAggregationResult();
+        }
+
+        if (rollupQueryOlderThan > 0 && DataIndexRollup.isAnsweredFromRollups(query, Instant.now().minusSeconds(rollupQueryOlderThan))) {
+            MetricRollupAggregationQueryImpl rollupQuery = new MetricRollupAggregationQueryImpl(query);
+            TypeDescriptor typeDescriptor = new TypeDescriptor(DatastoreUtils.getRollupIndexName(query.getScopeId()), MetricRollupSchema.ROLLUP_TYPE_NAME);
+            return METRIC_AGGREGATION_RESULT_CONVERTER.convert(rollupQuery, getElasticsearchClient().aggregate(typeDescriptor, rollupQuery));
+        }
+
+        String dataIndexName = SchemaUtil.getDataIndexName(query);
+        TypeDescriptor typeDescriptor = new TypeDescriptor(dataIndexName, MessageSchema.MESSAGE_TYPE_NAME);
+        return METRIC_AGGREGATION_RESULT_CONVERTER.convert(query, getElasticsearchClient().aggregate(typeDescriptor, query));
+    }
+
     /**
      * Delete messages count matching the given query.<br>
      * <b>Be careful using this function since it doesn't guarantee the datastore consistency.<br>
@@ -345,11 +564,207 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
             return;
         }
 
-        String indexName = SchemaUtil.getDataIndexName(query.getScopeId());
+        String indexName = SchemaUtil.getDataIndexName(query);
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MessageSchema.MESSAGE_TYPE_NAME);
         getElasticsearchClient().deleteByQuery(typeDescriptor, query);
     }
 
+    /**
+     * Gets the time used to index the message.
+     * <p>
+     * Use the account service plan to determine whether we will give precedence to the device time.
+     *
+     * @param message            The message to index.
+     * @param accountServicePlan The {@link MessageStoreConfiguration} of the message scope.
+     * @return The time used to index the message.
+     * @since 2.0.0
+     */
+    private long getIndexedOn(KapuaMessage<?, ?> message, MessageStoreConfiguration accountServicePlan) {
+        Date capturedOn = message.getCapturedOn();
+        // Overwrite timestamp if necessary
+        long indexedOn = KapuaDateUtils.getKapuaSysDate().toEpochMilli();
+        if (DataIndexBy.DEVICE_TIMESTAMP.equals(accountServicePlan.getDataIndexBy())) {
+            if (capturedOn != null) {
+                indexedOn = capturedOn.getTime();
+            } else {
+                LOG.debug("The account is set to use, as date indexing, the device timestamp but the device timestamp is null! Current system date will be used to indexing the message by date!");
+            }
+        }
+        return indexedOn;
+    }
+
+    /**
+     * Updates the mappings of the data index with the metrics of the given message.
+     * <p>
+     * The update is skipped without building the message mappings when the same set of metric names and types
+     * has already been applied to the data index (see {@link Metadata#getKnownMetricSignatures()}).
+     * <p>
+     * When the new metrics of the message would exceed the metric field budget of the data index, no mapping is updated
+     * and the message is handled according to the {@link MetricFieldBudgetPolicy} (see {@link #applyMetricFieldBudgetPolicy(DatastoreMessageImpl, Metadata, MessageStoreConfiguration, int)}).
+     *
+     * @param messageToStore     The {@link DatastoreMessageImpl} to store.
+     * @param indexedOn          The time the message is indexed on.
+     * @param schemaMetadata     The {@link Metadata} of the data index where the message is stored.
+     * @param accountServicePlan The {@link MessageStoreConfiguration} of the scope of the message.
+     * @throws MetricFieldBudgetExceededException if the metric field budget is exceeded and the policy is {@link MetricFieldBudgetPolicy#REJECT}.
+     * @since 2.0.0
+     */
+    private void updateMessageMappings(DatastoreMessageImpl messageToStore, long indexedOn, Metadata schemaMetadata, MessageStoreConfiguration accountServicePlan)
+            throws MetricFieldBudgetExceededException {
+        if (messageToStore.getPayload() == null || messageToStore.getPayload().getMetrics() == null || messageToStore.getPayload().getMetrics().isEmpty()) {
+            return;
+        }
+
+        long metricSignature = MetricSignatureSet.signatureOf(messageToStore.getPayload().getMetrics());
+        if (schemaMetadata.getKnownMetricSignatures().contains(metricSignature)) {
+            return;
+        }
+
+        Map<String, Metric> messageMappings = getMessageMappings(messageToStore);
+        if (accountServicePlan.getMetricFieldBudget() != MessageStoreConfiguration.UNLIMITED) {
+            int newMetricFields = schemaMetadata.countNewMetricFields(messageMappings.keySet());
+            if (schemaMetadata.isMetricFieldBudgetExceeded(newMetricFields, accountServicePlan.getMetricFieldBudget())) {
+                // Only the metrics already mapped are indexed: no mapping to update, and the signature does not become known
+                applyMetricFieldBudgetPolicy(messageToStore, schemaMetadata, accountServicePlan, newMetricFields);
+                return;
+            }
+        }
+
+        try {
+            mediator.onUpdatedMappings(messageToStore.getScopeId(), indexedOn, messageMappings);
+            schemaMetadata.getKnownMetricSignatures().add(metricSignature);
+        } catch (KapuaException e) {
+            LOG.warn("Update mappings error", e);
+        }
+    }
+
+    /**
+     * Handles a message whose new metrics would exceed the metric field budget of the data index, according to the {@link MetricFieldBudgetPolicy}.
+     * <p>
+     * The first time a client exceeds the budget of a data index it is logged as a warning, the following ones at debug level.
+     *
+     * @param messageToStore     The {@link DatastoreMessageImpl} to store.
+     * @param schemaMetadata     The {@link Metadata} of the data index where the message is stored.
+     * @param accountServicePlan The {@link MessageStoreConfiguration} of the scope of the message.
+     * @param newMetricFields    The number of metric fields of the message not yet mapped in the data index.
+     * @throws MetricFieldBudgetExceededException if the policy is {@link MetricFieldBudgetPolicy#REJECT}.
+     * @since 2.0.0
+     */
+    private void applyMetricFieldBudgetPolicy(DatastoreMessageImpl messageToStore, Metadata schemaMetadata, MessageStoreConfiguration accountServicePlan, int newMetricFields)
+            throws MetricFieldBudgetExceededException {
+        MetricFieldBudgetPolicy metricFieldBudgetPolicy = accountServicePlan.getMetricFieldBudgetPolicy();
+        if (schemaMetadata.addOverBudgetClientId(messageToStore.getClientId())) {
+            LOG.warn("Client {} of scope {} exceeded the metric field budget of {} of data index {} with {} new metrics. Policy: {}",
+                    messageToStore.getClientId(), messageToStore.getScopeId(), accountServicePlan.getMetricFieldBudget(), schemaMetadata.getDataIndexName(), newMetricFields, metricFieldBudgetPolicy);
+        } else {
+            LOG.debug("Client {} of scope {} exceeded the metric field budget of {} of data index {} with {} new metrics. Policy: {}",
+                    messageToStore.getClientId(), messageToStore.getScopeId(), accountServicePlan.getMetricFieldBudget(), schemaMetadata.getDataIndexName(), newMetricFields, metricFieldBudgetPolicy);
+        }
+
+        if (metricFieldBudgetPolicy == MetricFieldBudgetPolicy.REJECT) {
+            metricMessagesMetricFieldBudgetRejectedCount.inc();
+            throw new MetricFieldBudgetExceededException(messageToStore.getScopeId(), messageToStore.getClientId(), schemaMetadata.getDataIndexName(), newMetricFields, accountServicePlan.getMetricFieldBudget());
+        }
+
+        // Split the metrics already mapped from the new ones. The payload is replaced, since it is shared with the original message
+        KapuaPayload payload = messageToStore.getPayload();
+        Map<String, Object> mappedMetrics = new HashMap<>();
+        Map<String, Object> newMetrics = new HashMap<>();
+        for (Map.Entry<String, Object> metric : payload.getMetrics().entrySet()) {
+            String mappedName = DatastoreUtils.getNormalizedMetricValueQualifier(metric.getKey(), metric.getValue().getClass());
+            if (schemaMetadata.getMessageMappingsCache().containsKey(mappedName)) {
+                mappedMetrics.put(metric.getKey(), metric.getValue());
+            } else {
+                newMetrics.put(metric.getKey(), metric.getValue());
+            }
+        }
+
+        KapuaPayload budgetPayload = new KapuaPayloadImpl();
+        budgetPayload.setBody(payload.getBody());
+        budgetPayload.setMetrics(mappedMetrics);
+        messageToStore.setPayload(budgetPayload);
+
+        if (metricFieldBudgetPolicy == MetricFieldBudgetPolicy.UNINDEXED) {
+            messageToStore.setUnindexedMetrics(newMetrics);
+            metricMessagesMetricFieldBudgetUnindexedCount.inc();
+        } else {
+            metricMessagesMetricFieldBudgetDroppedCount.inc();
+        }
+    }
+
+    /**
+     * Gets the metric mappings of the message.
+     *
+     * @param message The message from which extract the metric mappings.
+     * @return The metric mappings, keyed by the mapped name.
+     * @since 2.0.0
+     */
+    private Map<String, Metric> getMessageMappings(KapuaMessage<?, ?> message) {
+        Map<String, Metric> metrics = new HashMap<>();
+        if (message.getPayload() != null && message.getPayload().getMetrics() != null && !message.getPayload().getMetrics().isEmpty()) {
+
+            Map<String, Object> messageMetrics = message.getPayload().getMetrics();
+            for (Map.Entry<String, Object> messageMetric : messageMetrics.entrySet()) {
+                String metricName = DatastoreUtils.normalizeMetricName(messageMetric.getKey());
+                String clientMetricType = DatastoreUtils.getClientMetricFromType(messageMetric.getValue().getClass());
+                Metric metric = new Metric(metricName, clientMetricType);
+
+                // each metric is potentially a dynamic field so report it a new mapping
+                String mappedName = DatastoreUtils.getMetricValueQualifier(metricName, clientMetricType);
+                metrics.put(mappedName, metric);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Finds which of the given message ids are already stored.
+     *
+     * @param scopeId    The scope {@link KapuaId} of the messages.
+     * @param messageIds The message ids to look for.
+     * @return The message ids already stored.
+     * @throws ClientException
+     * @since 2.0.0
+     */
+    private Set<String> findStoredIds(KapuaId scopeId, List<String> messageIds) throws ClientException {
+        MessageQueryImpl idsQuery = new MessageQueryImpl(scopeId);
+        idsQuery.setLimit(messageIds.size());
+        idsQuery.setFetchStyle(StorableFetchStyle.FIELDS);
+
+        IdsPredicate idsPredicate = STORABLE_PREDICATE_FACTORY.newIdsPredicate(MessageSchema.MESSAGE_TYPE_NAME);
+        for (String messageId : messageIds) {
+            idsPredicate.addId(STORABLE_ID_FACTORY.newStorableId(messageId));
+        }
+        idsQuery.setPredicate(idsPredicate);
+
+        String indexName = SchemaUtil.getDataIndexName(scopeId);
+        TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MessageSchema.MESSAGE_TYPE_NAME);
+        ResultList<DatastoreMessage> storedMessages = getElasticsearchClient().query(typeDescriptor, idsQuery, DatastoreMessage.class);
+
+        Set<String> storedIds = new HashSet<>();
+        for (DatastoreMessage storedMessage : storedMessages.getResult()) {
+            storedIds.add(storedMessage.getDatastoreId().toString());
+        }
+        return storedIds;
+    }
+
+    /**
+     * Builds the {@link ClientException} for a single failed insert of a bulk request.
+     * <p>
+     * Inserts rejected because Elasticsearch is overloaded or unavailable are reported as {@link ClientCommunicationException}
+     * so that they are handled as the other communication errors.
+     *
+     * @param insertResponse The failed {@link InsertResponse}.
+     * @return The {@link ClientException} describing the failure.
+     * @since 2.0.0
+     */
+    private ClientException buildExceptionFromFailedInsert(InsertResponse insertResponse) {
+        if (insertResponse.getStatus() == 429 || insertResponse.getStatus() == 503) {
+            return new ClientCommunicationException();
+        }
+        return new ClientActionResponseException("Insert", insertResponse.getDescription(), String.valueOf(insertResponse.getStatus()));
+    }
+
     // TODO cache will not be reset from the client code it should be automatically reset
     // after some time.
     private void resetCache(KapuaId scopeId, KapuaId deviceId, String channel, String clientId) throws Exception {
@@ -391,7 +806,7 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
             ResultList<MetricInfo> metrics = getElasticsearchClient().query(typeDescriptor, metricQuery, MetricInfo.class);
 
             totalHits = metrics.getTotalCount();
-            LocalCache<String, Boolean> metricsCache = DatastoreCacheManager.getInstance().getMetricsCache();
+            Cache<String, Boolean> metricsCache = DatastoreCacheManager.getInstance().getMetricsCache();
             long toBeProcessed = totalHits > pageSize ? pageSize : totalHits;
 
             for (int i = 0; i < toBeProcessed; i++) {
@@ -424,7 +839,7 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
             ResultList<ChannelInfo> channels = getElasticsearchClient().query(typeDescriptor, channelQuery, ChannelInfo.class);
 
             totalHits = channels.getTotalCount();
-            LocalCache<String, Boolean> channelsCache = DatastoreCacheManager.getInstance().getChannelsCache();
+            Cache<String, Boolean> channelsCache = DatastoreCacheManager.getInstance().getChannelsCache();
             long toBeProcessed = totalHits > pageSize ? pageSize : totalHits;
 
             for (int i = 0; i < toBeProcessed; i++) {
@@ -458,7 +873,7 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
                 ResultList<ClientInfo> clients = getElasticsearchClient().query(typeDescriptor, clientInfoQuery, ClientInfo.class);
 
                 totalHits = clients.getTotalCount();
-                LocalCache<String, Boolean> clientsCache = DatastoreCacheManager.getInstance().getClientsCache();
+                Cache<String, Boolean> clientsCache = DatastoreCacheManager.getInstance().getClientsCache();
                 long toBeProcessed = totalHits > pageSize ? pageSize : totalHits;
 
                 for (int i = 0; i < toBeProcessed; i++) {
@@ -499,11 +914,11 @@ public final class MessageStoreFacade extends AbstractRegistryFacade {
      *
      * @param message
      */
-    private DatastoreMessage convertTo(KapuaMessage<?, ?> message, String messageId) {
+    private DatastoreMessageImpl convertTo(KapuaMessage<?, ?> message, String messageId) {
         KapuaDataChannel datastoreChannel = new KapuaDataChannelImpl();
         datastoreChannel.setSemanticParts(message.getChannel().getSemanticParts());
 
-        DatastoreMessage datastoreMessage = new DatastoreMessageImpl();
+        DatastoreMessageImpl datastoreMessage = new DatastoreMessageImpl();
         datastoreMessage.setCapturedOn(message.getCapturedOn());
         datastoreMessage.setChannel(datastoreChannel);
         datastoreMessage.setClientId(message.getClientId());
@@ -18,9 +18,11 @@ import org.eclipse.kapua.service.datastore.MetricInfoFactory;
 import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
 import org.eclipse.kapua.service.datastore.internal.model.MessageListResultImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricAggregationQueryImpl;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
 
 import javax.inject.Singleton;
 
@@ -46,4 +48,9 @@ public class MessageStoreFactoryImpl implements MessageStoreFactory {
     public MessageQuery newQuery(KapuaId scopeId) {
         return new MessageQueryImpl(scopeId);
     }
+
+    @Override
+    public MetricAggregationQuery newMetricAggregationQuery(KapuaId scopeId) {
+        return new MetricAggregationQueryImpl(scopeId);
+    }
 }
@@ -22,6 +22,8 @@ import org.eclipse.kapua.commons.configuration.AbstractKapuaConfigurableService;
 import org.eclipse.kapua.commons.metric.MetricServiceFactory;
 import org.eclipse.kapua.commons.metric.MetricsService;
 import org.eclipse.kapua.commons.util.ArgumentValidator;
+import org.eclipse.kapua.event.ListenServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.KapuaMessage;
 import org.eclipse.kapua.model.domain.Actions;
@@ -32,21 +34,35 @@ import org.eclipse.kapua.service.authorization.permission.Permission;
 import org.eclipse.kapua.service.authorization.permission.PermissionFactory;
 import org.eclipse.kapua.service.datastore.DatastoreDomains;
 import org.eclipse.kapua.service.datastore.MessageStoreService;
+import org.eclipse.kapua.service.datastore.exception.MetricFieldBudgetExceededException;
 import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreCommunicationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreException;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreMediator;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
 import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
 import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
 import org.eclipse.kapua.service.elasticsearch.client.exception.ClientCommunicationException;
 import org.eclipse.kapua.service.storable.model.id.StorableId;
 import org.eclipse.kapua.service.storable.model.query.StorableFetchStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Message store service implementation.
@@ -56,6 +72,8 @@ import java.util.UUID;
 @Singleton
 public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService implements MessageStoreService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(MessageStoreServiceImpl.class);
+
     private static final KapuaLocator LOCATOR = KapuaLocator.getInstance();
 
     // metrics
@@ -76,7 +94,12 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
     protected final PermissionFactory permissionFactory = LOCATOR.getFactory(PermissionFactory.class);
     protected static final Integer MAX_ENTRIES_ON_DELETE = DatastoreSettings.getInstance().getInt(DatastoreSettingsKey.CONFIG_MAX_ENTRIES_ON_DELETE);
 
+    private static final List<Class<?>> AGGREGABLE_METRIC_TYPES = Arrays.asList(Integer.class, Long.class, Float.class, Double.class, Date.class);
+
+    protected final ConfigurationProvider configurationProvider;
     protected final MessageStoreFacade messageStoreFacade;
+    protected final DataIndexRetention dataIndexRetention;
+    protected final DataIndexRollup dataIndexRollup;
 
     /**
      * Constructor.
@@ -87,9 +110,13 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
      */
     public MessageStoreServiceImpl() {
         super(MessageStoreService.class.getName(), DatastoreDomains.DATASTORE_DOMAIN, DatastoreEntityManagerFactory.getInstance());
-        ConfigurationProviderImpl configurationProvider = new ConfigurationProviderImpl(this, accountService);
+        configurationProvider = new ConfigurationProviderImpl(this, accountService);
         messageStoreFacade = new MessageStoreFacade(configurationProvider, DatastoreMediator.getInstance());
         DatastoreMediator.getInstance().setMessageStoreFacade(messageStoreFacade);
+        dataIndexRollup = new DataIndexRollup();
+        DatastoreMediator.getInstance().setDataIndexRollup(dataIndexRollup);
+        dataIndexRetention = new DataIndexRetention(configurationProvider, dataIndexRollup);
+        DatastoreMediator.getInstance().setDataIndexRetention(dataIndexRetention);
 
         // data message
         MetricsService metricService = MetricServiceFactory.getInstance();
@@ -121,7 +148,7 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
             metricConfigurationErrorCount.inc();
             metricQueueConfigurationErrorCount.inc();
             throw e;
-        } catch (KapuaIllegalArgumentException e) {
+        } catch (KapuaIllegalArgumentException | MetricFieldBudgetExceededException e) {
             metricValidationErrorCount.inc();
             metricQueueGenericErrorCount.inc();
             throw e;
@@ -151,7 +178,7 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
             metricConfigurationErrorCount.inc();
             metricQueueConfigurationErrorCount.inc();
             throw e;
-        } catch (KapuaIllegalArgumentException e) {
+        } catch (KapuaIllegalArgumentException | MetricFieldBudgetExceededException e) {
             metricValidationErrorCount.inc();
             metricQueueGenericErrorCount.inc();
             throw e;
@@ -168,6 +195,75 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
         }
     }
 
+    @Override
+    public List<MessageStoreResult> storeBatch(List<? extends KapuaMessage<?, ?>> messages, List<String> datastoreIds)
+            throws KapuaException {
+        ArgumentValidator.notNull(messages, "messages");
+        ArgumentValidator.notNull(datastoreIds, "datastoreIds");
+        if (messages.size() != datastoreIds.size()) {
+            throw new KapuaIllegalArgumentException("datastoreIds.size", String.valueOf(datastoreIds.size()));
+        }
+
+        Context metricDataSaveTimeContext = metricDataSaveTime.time();
+        try {
+            MessageStoreResult[] results = new MessageStoreResult[messages.size()];
+
+            // Check the access once for each scope
+            Map<KapuaId, Exception> accessChecks = new HashMap<>();
+            List<KapuaMessage<?, ?>> allowedMessages = new ArrayList<>();
+            List<String> allowedDatastoreIds = new ArrayList<>();
+            List<Integer> allowedPositions = new ArrayList<>();
+            for (int i = 0; i < messages.size(); i++) {
+                KapuaMessage<?, ?> message = messages.get(i);
+                KapuaId scopeId = message != null ? message.getScopeId() : null;
+
+                Exception accessException;
+                if (accessChecks.containsKey(scopeId)) {
+                    accessException = accessChecks.get(scopeId);
+                } else {
+                    accessException = null;
+                    try {
+                        checkDataAccess(scopeId, Actions.write);
+                    } catch (Exception e) {
+                        accessException = e;
+                    }
+                    accessChecks.put(scopeId, accessException);
+                }
+
+                metricMessageCount.inc();
+                if (accessException != null) {
+                    results[i] = new MessageStoreResult(datastoreIds.get(i), convertStoreException(datastoreIds.get(i), accessException));
+                    continue;
+                }
+                allowedMessages.add(message);
+                allowedDatastoreIds.add(datastoreIds.get(i));
+                allowedPositions.add(i);
+            }
+
+            List<MessageStoreResult> storeResults;
+            try {
+                storeResults = messageStoreFacade.storeBatch(allowedMessages, allowedDatastoreIds);
+            } catch (Exception e) {
+                for (int i = 0; i < allowedPositions.size(); i++) {
+                    results[allowedPositions.get(i)] = new MessageStoreResult(allowedDatastoreIds.get(i), convertStoreException(allowedDatastoreIds.get(i), e));
+                }
+                return Arrays.asList(results);
+            }
+
+            for (int i = 0; i < storeResults.size(); i++) {
+                MessageStoreResult storeResult = storeResults.get(i);
+                if (!storeResult.isSuccess()) {
+                    storeResult = new MessageStoreResult(storeResult.getDatastoreId(), convertStoreException(storeResult.getDatastoreId(), storeResult.getException()));
+                }
+                results[allowedPositions.get(i)] = storeResult;
+            }
+
+            return Arrays.asList(results);
+        } finally {
+            metricDataSaveTimeContext.stop();
+        }
+    }
+
     @Override
     public DatastoreMessage find(KapuaId scopeId, StorableId id) throws KapuaException {
         return find(scopeId, id, StorableFetchStyle.SOURCE_FULL);
@@ -205,6 +301,38 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
         }
     }
 
+    @Override
+    public long stream(MessageQuery query, Consumer<DatastoreMessage> consumer)
+            throws KapuaException {
+        checkDataAccess(query.getScopeId(), Actions.read);
+        try {
+            return messageStoreFacade.stream(query, consumer);
+        } catch (Exception e) {
+            throw new DatastoreException(KapuaErrorCodes.INTERNAL_ERROR, e);
+        }
+    }
+
+    @Override
+    public MetricAggregationResult aggregate(MetricAggregationQuery query)
+            throws KapuaException {
+        ArgumentValidator.notNull(query, "query");
+        ArgumentValidator.notEmptyOrNull(query.getMetrics().keySet(), "query.metrics");
+        ArgumentValidator.numRange(query.getInterval(), 1, Long.MAX_VALUE, "query.interval");
+        DatastoreUtils.checkAggregationBucketCount(query);
+        for (Map.Entry<String, Class<?>> metric : query.getMetrics().entrySet()) {
+            if (!AGGREGABLE_METRIC_TYPES.contains(metric.getValue())) {
+                throw new KapuaIllegalArgumentException("query.metrics." + metric.getKey(), metric.getValue() != null ? metric.getValue().getSimpleName() : null);
+            }
+        }
+
+        checkDataAccess(query.getScopeId(), Actions.read);
+        try {
+            return messageStoreFacade.aggregate(query);
+        } catch (Exception e) {
+            throw new DatastoreException(KapuaErrorCodes.INTERNAL_ERROR, e);
+        }
+    }
+
     @Override
     public void delete(KapuaId scopeId, StorableId id)
             throws KapuaException {
@@ -229,11 +357,66 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
         }
     }
 
+    @Override
+    public void setConfigValues(KapuaId scopeId, KapuaId parentId, Map<String, Object> values) throws KapuaException {
+        super.setConfigValues(scopeId, parentId, values);
+        configurationProvider.invalidate(scopeId);
+    }
+
+    /**
+     * Invalidates the cached datastore configuration of the scope when its account changes.
+     * <p>
+     * The subscription to the {@link AccountService} events is made by the {@link DatastoreServiceModule}.
+     *
+     * @param kapuaEvent The received {@link ServiceEvent}.
+     * @since 2.0.0
+     */
+    @ListenServiceEvent(fromAddress = "account")
+    public void onKapuaEvent(ServiceEvent kapuaEvent) {
+        if (kapuaEvent == null) {
+            return;
+        }
+        LOG.debug("MessageStoreService: received kapua event from {}, operation {}", kapuaEvent.getService(), kapuaEvent.getOperation());
+        if (AccountService.class.getName().equals(kapuaEvent.getService()) &&
+                ("update".equals(kapuaEvent.getOperation()) || "delete".equals(kapuaEvent.getOperation()))) {
+            configurationProvider.invalidate(kapuaEvent.getEntityId());
+        }
+    }
+
     @Override
     protected boolean isServiceEnabled(KapuaId scopeId) {
         return !DatastoreSettings.getInstance().getBoolean(DatastoreSettingsKey.DISABLE_DATASTORE, false);
     }
 
+    /**
+     * Converts the {@link Exception} raised while storing a message to the {@link KapuaException} reported to the caller,
+     * updating the error metrics as {@link #store(KapuaMessage, String)} does.
+     *
+     * @param datastoreId The datastore id of the message.
+     * @param exception   The {@link Exception} raised while storing the message.
+     * @return The {@link KapuaException} to report.
+     * @since 2.0.0
+     */
+    private KapuaException convertStoreException(String datastoreId, Exception exception) {
+        if (exception instanceof ConfigurationException) {
+            metricConfigurationErrorCount.inc();
+            metricQueueConfigurationErrorCount.inc();
+            return (ConfigurationException) exception;
+        } else if (exception instanceof KapuaIllegalArgumentException || exception instanceof MetricFieldBudgetExceededException) {
+            metricValidationErrorCount.inc();
+            metricQueueGenericErrorCount.inc();
+            return (KapuaException) exception;
+        } else if (exception instanceof ClientCommunicationException) {
+            metricCommunicationErrorCount.inc();
+            metricQueueCommunicationErrorCount.inc();
+            return new DatastoreCommunicationException(datastoreId, exception);
+        } else {
+            metricGenericErrorCount.inc();
+            metricQueueGenericErrorCount.inc();
+            return new DatastoreException(KapuaErrorCodes.INTERNAL_ERROR, exception);
+        }
+    }
+
     protected void checkDataAccess(KapuaId scopeId, Actions action)
             throws KapuaException {
         Permission permission = permissionFactory.newPermission(DatastoreDomains.DATASTORE_DOMAIN, action, scopeId);
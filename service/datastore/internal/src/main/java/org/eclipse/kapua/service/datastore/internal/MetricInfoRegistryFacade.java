@@ -116,7 +116,7 @@ public class MetricInfoRegistryFacade extends AbstractRegistryFacade {
      * Update the metrics informations after a message store operation (for few metrics)
      *
      * @param metricInfos
-     * @return
+     * @return The {@link BulkUpdateResponse} of the stored metrics informations, or {@code null} if they were all already stored.
      * @throws KapuaIllegalArgumentException
      * @throws ConfigurationException
      * @throws ClientException
@@ -210,6 +210,7 @@ public class MetricInfoRegistryFacade extends AbstractRegistryFacade {
         String indexName = SchemaUtil.getMetricIndexName(scopeId);
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MetricInfoSchema.METRIC_TYPE_NAME);
         getElasticsearchClient().delete(typeDescriptor, id.toString());
+        DatastoreCacheManager.getInstance().getMetricsQueryCache().invalidate(scopeId);
     }
 
     /**
@@ -307,5 +308,6 @@ public class MetricInfoRegistryFacade extends AbstractRegistryFacade {
         String indexName = SchemaUtil.getMetricIndexName(query.getScopeId());
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MetricInfoSchema.METRIC_TYPE_NAME);
         getElasticsearchClient().deleteByQuery(typeDescriptor, query);
+        DatastoreCacheManager.getInstance().getMetricsQueryCache().invalidate(query.getScopeId());
     }
 }
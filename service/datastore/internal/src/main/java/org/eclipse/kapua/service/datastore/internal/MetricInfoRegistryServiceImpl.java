@@ -142,13 +142,21 @@ public class MetricInfoRegistryServiceImpl extends AbstractKapuaService implemen
 
         checkDataAccess(query.getScopeId(), Actions.read);
         try {
-            MetricInfoListResult result = metricInfoRegistryFacade.query(query);
+            RegistryQueryCache<MetricInfoListResult> queryCache = DatastoreCacheManager.getInstance().getMetricsQueryCache();
+            String queryCacheKey = queryCache.getKey(query);
+            MetricInfoListResult result = queryCache.get(queryCacheKey);
+            if (result != null) {
+                return result;
+            }
+
+            result = metricInfoRegistryFacade.query(query);
             if (result != null && query.getFetchAttributes().contains(MetricInfoField.TIMESTAMP_FULL.field())) {
                 // populate the lastMessageTimestamp
                 for (MetricInfo metricInfo : result.getItems()) {
                     updateLastPublishedFields(metricInfo);
                 }
             }
+            queryCache.put(queryCacheKey, result);
             return result;
         } catch (Exception e) {
             throw KapuaException.internalError(e);
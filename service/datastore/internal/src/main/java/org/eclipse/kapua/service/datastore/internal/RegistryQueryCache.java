@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import com.codahale.metrics.Counter;
+import org.eclipse.kapua.commons.cache.LocalCache;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.internal.converter.QueryConverterImpl;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.elasticsearch.client.exception.QueryMappingException;
+import org.eclipse.kapua.service.storable.model.StorableListResult;
+import org.eclipse.kapua.service.storable.model.query.StorableQuery;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the results of the queries to a registry (channels, clients or metrics).
+ * <p>
+ * Results are kept for a short time, keyed by the scope and by a hash of the canonical form of the {@link StorableQuery}, which is the converted Elasticsearch query.
+ * The results of a scope are invalidated with {@link #invalidate(KapuaId)} when a new entry is stored in the registry for that scope:
+ * each scope has a generation which is part of the key, so invalidating a scope only increments its generation and old results are left to expire.
+ * A result computed while its scope is invalidated is stored with the old generation, so it is never returned.
+ * <p>
+ * The cache and its invalidation are local to the process: the invalidation is done by
+ * {@link org.eclipse.kapua.service.datastore.internal.mediator.DatastoreMediator#onAfterMessageStore} of the process which stored the message.
+ * Other processes (e.g. a REST API instance when messages are stored by a consumer) keep returning their cached results
+ * until they expire, so a new channel, client or metric can be missing from their queries for up to
+ * {@link org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey#CONFIG_CACHE_QUERY_EXPIRE_AFTER} seconds.
+ * <p>
+ * Cached results are shared, so they must not be modified.
+ *
+ * @param <R> The {@link StorableListResult} type.
+ * @since 2.0.0
+ */
+public class RegistryQueryCache<R extends StorableListResult<?>> {
+
+    private static final QueryConverterImpl QUERY_CONVERTER = new QueryConverterImpl();
+
+    private final boolean enabled;
+    private final LocalCache<String, R> results;
+    private final ConcurrentMap<KapuaId, AtomicLong> scopeGenerations = new ConcurrentHashMap<>();
+    private final Counter hitCount;
+    private final Counter missCount;
+
+    /**
+     * Constructor.
+     *
+     * @param sizeMax     The maximum number of cached results.
+     * @param expireAfter The time (in seconds) after which a cached result expires. Zero disables the cache.
+     * @param hitCount    The {@link Counter} of the results found in the cache.
+     * @param missCount   The {@link Counter} of the results not found in the cache.
+     * @since 2.0.0
+     */
+    public RegistryQueryCache(int sizeMax, int expireAfter, Counter hitCount, Counter missCount) {
+        this.enabled = sizeMax > 0 && expireAfter > 0;
+        this.results = new LocalCache<>(Math.max(sizeMax, 0), Math.max(expireAfter, 0), null);
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+    }
+
+    /**
+     * Gets the key of the given {@link StorableQuery}.
+     * <p>
+     * The key must be taken before performing the {@link StorableQuery} and then used both to {@link #get(String)} and to {@link #put(String, StorableListResult)} its result,
+     * so that a result computed while the scope is invalidated is not returned afterwards.
+     *
+     * @param query The {@link StorableQuery}.
+     * @return The key, or {@code null} if the result of the {@link StorableQuery} cannot be cached.
+     * @since 2.0.0
+     */
+    public String getKey(StorableQuery query) {
+        if (!enabled || query.getScopeId() == null) {
+            return null;
+        }
+
+        String canonicalQuery;
+        try {
+            canonicalQuery = QUERY_CONVERTER.convertQuery(query).toString();
+        } catch (QueryMappingException e) {
+            return null;
+        }
+
+        long generation = scopeGenerations.computeIfAbsent(query.getScopeId(), scopeId -> new AtomicLong()).get();
+        return DatastoreUtils.getHashCode(
+                query.getScopeId().toCompactId(), ":", Long.toString(generation), ":",
+                canonicalQuery, ":", String.valueOf(query.getFetchAttributes()), ":", Boolean.toString(query.isAskTotalCount()));
+    }
+
+    /**
+     * Gets the cached result.
+     *
+     * @param key The key from {@link #getKey(StorableQuery)}.
+     * @return The cached result, or {@code null} if not cached.
+     * @since 2.0.0
+     */
+    public R get(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        R result = results.get(key);
+        if (result != null) {
+            hitCount.inc();
+        } else {
+            missCount.inc();
+        }
+        return result;
+    }
+
+    /**
+     * Caches a result.
+     *
+     * @param key    The key from {@link #getKey(StorableQuery)}.
+     * @param result The result of the {@link StorableQuery}.
+     * @since 2.0.0
+     */
+    public void put(String key, R result) {
+        if (key != null && result != null) {
+            results.put(key, result);
+        }
+    }
+
+    /**
+     * Invalidates the cached results of the given scope.
+     *
+     * @param scopeId The scope {@link KapuaId}.
+     * @since 2.0.0
+     */
+    public void invalidate(KapuaId scopeId) {
+        AtomicLong generation = scopeGenerations.get(scopeId);
+        if (generation != null) {
+            generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * Invalidates all the cached results.
+     *
+     * @since 2.0.0
+     */
+    public void invalidateAll() {
+        for (AtomicLong generation : scopeGenerations.values()) {
+            generation.incrementAndGet();
+        }
+        results.invalidateAll();
+    }
+}
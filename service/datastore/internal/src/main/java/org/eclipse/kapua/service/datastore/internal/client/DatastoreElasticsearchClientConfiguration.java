@@ -44,6 +44,14 @@ public class DatastoreElasticsearchClientConfiguration extends ElasticsearchClie
         getRequestConfiguration().setScrollTimeout(ELASTICSEARCH_CLIENT_SETTINGS.getInt(DatastoreElasticsearchClientSettingsKey.REQUEST_SCROLL_TIMEOUT));
         getRequestConfiguration().setRequestRetryAttemptMax(ELASTICSEARCH_CLIENT_SETTINGS.getInt(DatastoreElasticsearchClientSettingsKey.REQUEST_RETRY_MAX));
         getRequestConfiguration().setRequestRetryAttemptWait(ELASTICSEARCH_CLIENT_SETTINGS.getInt(DatastoreElasticsearchClientSettingsKey.REQUEST_RETRY_WAIT));
+        getRequestConfiguration().setRequestRetryAttemptWaitMax(ELASTICSEARCH_CLIENT_SETTINGS.getInt(DatastoreElasticsearchClientSettingsKey.REQUEST_RETRY_WAIT_MAX, 30000));
+        getRequestConfiguration().setMaxInFlightRequests(ELASTICSEARCH_CLIENT_SETTINGS.getInt(DatastoreElasticsearchClientSettingsKey.REQUEST_ASYNC_MAX_IN_FLIGHT, 128));
+        getRequestConfiguration().setInFlightRequestWait(ELASTICSEARCH_CLIENT_SETTINGS.getInt(DatastoreElasticsearchClientSettingsKey.REQUEST_ASYNC_IN_FLIGHT_WAIT, 15000));
+        getRequestConfiguration().setStreamPageSize(ELASTICSEARCH_CLIENT_SETTINGS.getInt(DatastoreElasticsearchClientSettingsKey.REQUEST_STREAM_PAGE_SIZE, 1000));
+        getRequestConfiguration().setSimulatedLatency(ELASTICSEARCH_CLIENT_SETTINGS.getInt(DatastoreElasticsearchClientSettingsKey.REQUEST_SIMULATED_LATENCY, 0));
+        getCircuitBreakerConfiguration().setEnabled(ELASTICSEARCH_CLIENT_SETTINGS.getBoolean(DatastoreElasticsearchClientSettingsKey.CIRCUIT_BREAKER_ENABLED, true));
+        getCircuitBreakerConfiguration().setFailureThreshold(ELASTICSEARCH_CLIENT_SETTINGS.getInt(DatastoreElasticsearchClientSettingsKey.CIRCUIT_BREAKER_FAILURE_THRESHOLD, 5));
+        getCircuitBreakerConfiguration().setOpenDuration(ELASTICSEARCH_CLIENT_SETTINGS.getInt(DatastoreElasticsearchClientSettingsKey.CIRCUIT_BREAKER_OPEN_DURATION, 30000));
         getSslConfiguration().setEnabled(ELASTICSEARCH_CLIENT_SETTINGS.getBoolean(DatastoreElasticsearchClientSettingsKey.SSL_ENABLED));
 
         getReconnectConfiguration().setReconnectDelay(30000);
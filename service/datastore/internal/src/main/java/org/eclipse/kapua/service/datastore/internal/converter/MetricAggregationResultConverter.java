@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricRollupAggregationQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.schema.MetricRollupSchema;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationBucket;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+import org.eclipse.kapua.service.elasticsearch.client.SchemaKeys;
+
+import java.util.Date;
+
+/**
+ * Converts the {@code aggregations} of the Elasticsearch response to a {@link MetricAggregationQuery} into a {@link MetricAggregationResult}.
+ * <p>
+ * The response to a {@link MetricRollupAggregationQueryImpl} is converted into the same {@link MetricAggregationResult} the data indexes would have given.
+ *
+ * @see QueryConverterImpl
+ * @since 2.0.0
+ */
+public class MetricAggregationResultConverter {
+
+    private static final String STATS_COUNT = "count";
+    private static final String STATS_MIN = "min";
+    private static final String STATS_MAX = "max";
+    private static final String STATS_AVG = "avg";
+    private static final String STATS_SUM = "sum";
+
+    /**
+     * Converts the {@code aggregations} of the Elasticsearch response.
+     *
+     * @param query            The {@link MetricAggregationQuery} which has been performed.
+     * @param aggregationsNode The {@code aggregations} of the Elasticsearch response.
+     * @return The {@link MetricAggregationResult}.
+     * @since 2.0.0
+     */
+    public MetricAggregationResult convert(MetricAggregationQuery query, JsonNode aggregationsNode) {
+        MetricAggregationResult result = new MetricAggregationResult();
+        if (query.getGroupBy() == null) {
+            convertTimeBuckets(query, null, aggregationsNode.path(QueryConverterImpl.AGGREGATION_TIME_BUCKETS), result);
+        } else {
+            for (JsonNode groupNode : aggregationsNode.path(QueryConverterImpl.AGGREGATION_GROUPS).path(SchemaKeys.KEY_BUCKETS)) {
+                convertTimeBuckets(query, groupNode.path(SchemaKeys.KEY_KEY).asText(), groupNode.path(QueryConverterImpl.AGGREGATION_TIME_BUCKETS), result);
+            }
+        }
+        return result;
+    }
+
+    private void convertTimeBuckets(MetricAggregationQuery query, String group, JsonNode timeBucketsNode, MetricAggregationResult result) {
+        for (JsonNode timeBucketNode : timeBucketsNode.path(SchemaKeys.KEY_BUCKETS)) {
+            MetricAggregationBucket bucket = new MetricAggregationBucket();
+            bucket.setTimestamp(new Date(timeBucketNode.path(SchemaKeys.KEY_KEY).asLong()));
+            bucket.setGroup(group);
+            boolean rollup = query instanceof MetricRollupAggregationQueryImpl;
+            if (rollup) {
+                bucket.setCount(timeBucketNode.path(QueryConverterImpl.AGGREGATION_MESSAGE_COUNT).path(SchemaKeys.KEY_VALUE).asLong());
+            } else {
+                bucket.setCount(timeBucketNode.path(SchemaKeys.KEY_DOC_COUNT).asLong());
+            }
+
+            int metricIndex = 0;
+            for (String metricName : query.getMetrics().keySet()) {
+                String metricAggregation = QueryConverterImpl.AGGREGATION_METRIC_PREFIX + metricIndex++;
+                bucket.getMetrics().add(rollup ? convertRollupStatistics(metricName, metricAggregation, timeBucketNode) : convertStatistics(metricName, timeBucketNode.path(metricAggregation)));
+            }
+
+            result.getBuckets().add(bucket);
+        }
+    }
+
+    private MetricStatistics convertStatistics(String metricName, JsonNode statsNode) {
+        MetricStatistics metricStatistics = new MetricStatistics();
+        metricStatistics.setName(metricName);
+        metricStatistics.setCount(statsNode.path(STATS_COUNT).asLong());
+        metricStatistics.setMin(readDouble(statsNode, STATS_MIN));
+        metricStatistics.setMax(readDouble(statsNode, STATS_MAX));
+        metricStatistics.setAvg(readDouble(statsNode, STATS_AVG));
+        metricStatistics.setSum(metricStatistics.getCount() > 0 ? readDouble(statsNode, STATS_SUM) : null);
+        return metricStatistics;
+    }
+
+    /**
+     * Merges the statistics of the rollups, whose averages are computed from their sums and counts.
+     */
+    private MetricStatistics convertRollupStatistics(String metricName, String metricAggregation, JsonNode timeBucketNode) {
+        MetricStatistics metricStatistics = new MetricStatistics();
+        metricStatistics.setName(metricName);
+        metricStatistics.setCount(timeBucketNode.path(metricAggregation + "_" + MetricRollupSchema.STATISTIC_COUNT).path(SchemaKeys.KEY_VALUE).asLong());
+        if (metricStatistics.getCount() > 0) {
+            metricStatistics.setMin(readDouble(timeBucketNode.path(metricAggregation + "_" + MetricRollupSchema.STATISTIC_MIN), SchemaKeys.KEY_VALUE));
+            metricStatistics.setMax(readDouble(timeBucketNode.path(metricAggregation + "_" + MetricRollupSchema.STATISTIC_MAX), SchemaKeys.KEY_VALUE));
+            metricStatistics.setSum(readDouble(timeBucketNode.path(metricAggregation + "_" + MetricRollupSchema.STATISTIC_SUM), SchemaKeys.KEY_VALUE));
+            metricStatistics.setAvg(metricStatistics.getSum() != null ? metricStatistics.getSum() / metricStatistics.getCount() : null);
+        }
+        return metricStatistics;
+    }
+
+    /**
+     * Reads a statistic, which Elasticsearch reports as {@code null} when there are no values.
+     */
+    private Double readDouble(JsonNode statsNode, String statName) {
+        JsonNode statNode = statsNode.path(statName);
+        return statNode.isNumber() ? statNode.asDouble() : null;
+    }
+}
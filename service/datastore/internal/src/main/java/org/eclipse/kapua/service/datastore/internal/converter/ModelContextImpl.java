@@ -13,6 +13,7 @@
 package org.eclipse.kapua.service.datastore.internal.converter;
 
 import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.eclipse.kapua.commons.model.id.KapuaEid;
 import org.eclipse.kapua.commons.util.KapuaDateUtils;
 import org.eclipse.kapua.locator.KapuaLocator;
@@ -25,16 +26,20 @@ import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
 import org.eclipse.kapua.service.datastore.internal.model.ChannelInfoImpl;
 import org.eclipse.kapua.service.datastore.internal.model.ClientInfoImpl;
+import org.eclipse.kapua.service.datastore.internal.model.DataIndexRollupMarker;
 import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
 import org.eclipse.kapua.service.datastore.internal.model.MetricInfoImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricRollupImpl;
 import org.eclipse.kapua.service.datastore.internal.schema.ChannelInfoSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.ClientInfoSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.MetricInfoSchema;
+import org.eclipse.kapua.service.datastore.internal.schema.MetricRollupSchema;
 import org.eclipse.kapua.service.datastore.model.ChannelInfo;
 import org.eclipse.kapua.service.datastore.model.ClientInfo;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
 import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
 import org.eclipse.kapua.service.elasticsearch.client.QueryConverter;
 import org.eclipse.kapua.service.elasticsearch.client.exception.DatamodelMappingException;
@@ -43,8 +48,10 @@ import org.eclipse.kapua.service.storable.model.query.StorableFetchStyle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.text.ParseException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -60,11 +67,32 @@ public class ModelContextImpl implements ModelContext {
 
     private static final Logger logger = LoggerFactory.getLogger(ModelContextImpl.class);
 
-    private static final KapuaLocator LOCATOR = KapuaLocator.getInstance();
-    private static final StorableIdFactory STORABLE_ID_FACTORY = LOCATOR.getFactory(StorableIdFactory.class);
-
     private static final String UNSUPPORTED_OBJECT_TYPE_ERROR_MSG = "The conversion of object [%s] is not supported!";
     private static final String MARSHAL_INVALID_PARAMETERS_ERROR_MSG = "Object and/or object type cannot be null!";
+    private static final String MESSAGE_IP_ADDRESS = "127.0.0.1"; // FIXME: support this or remove?
+
+    private final StorableIdFactory storableIdFactory;
+
+    /**
+     * Constructor.
+     * <p>
+     * The {@link StorableIdFactory} is resolved through the {@link KapuaLocator}.
+     *
+     * @since 1.0
+     */
+    public ModelContextImpl() {
+        this(KapuaLocator.getInstance().getFactory(StorableIdFactory.class));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param storableIdFactory The {@link StorableIdFactory} used to build the ids of the unmarshalled storables.
+     * @since 2.0.0
+     */
+    public ModelContextImpl(StorableIdFactory storableIdFactory) {
+        this.storableIdFactory = storableIdFactory;
+    }
 
     @Override
     public String getIdKeyName() {
@@ -113,6 +141,12 @@ public class ModelContextImpl implements ModelContext {
             if (object instanceof MetricInfo) {
                 return marshalMetricInfo((MetricInfo) object);
             }
+            if (object instanceof MetricRollupImpl) {
+                return marshalMetricRollup((MetricRollupImpl) object);
+            }
+            if (object instanceof DataIndexRollupMarker) {
+                return marshalDataIndexRollupMarker((DataIndexRollupMarker) object);
+            }
         } catch (ParseException e) {
             throw new DatamodelMappingException(e, "Date conversion error");
         }
@@ -132,7 +166,7 @@ public class ModelContextImpl implements ModelContext {
         StorableFetchStyle fetchStyle = getStorableFetchStyle(messageMap);
         DatastoreMessageImpl message = new DatastoreMessageImpl();
         String id = (String) messageMap.get(getIdKeyName());
-        message.setDatastoreId(STORABLE_ID_FACTORY.newStorableId(id));
+        message.setDatastoreId(storableIdFactory.newStorableId(id));
         String messageId = (String) messageMap.get(MessageSchema.MESSAGE_ID);
         if (messageId != null) {
             message.setId(UUID.fromString(messageId));
@@ -149,7 +183,7 @@ public class ModelContextImpl implements ModelContext {
         message.setDeviceId(deviceId);
         String clientId = (String) messageMap.get(MessageSchema.MESSAGE_CLIENT_ID);
         message.setClientId(clientId);
-        message.setDatastoreId(STORABLE_ID_FACTORY.newStorableId(id));
+        message.setDatastoreId(storableIdFactory.newStorableId(id));
 
         KapuaDataChannelImpl dataChannel = new KapuaDataChannelImpl();
         message.setChannel(dataChannel);
@@ -214,23 +248,18 @@ public class ModelContextImpl implements ModelContext {
         message.setSentOn(KapuaDateUtils.parseDate((String) sentOnFld));
         Object receivedOnFld = messageMap.get(MessageSchema.MESSAGE_RECEIVED_ON);
         message.setReceivedOn(KapuaDateUtils.parseDate((String) receivedOnFld));
-        if (messageMap.get(MessageSchema.MESSAGE_METRICS) != null) {
-            Map<String, Object> metrics = (Map<String, Object>) messageMap.get(MessageSchema.MESSAGE_METRICS);
-            Map<String, Object> payloadMetrics = new HashMap<>();
-            String[] metricNames = metrics.keySet().toArray(new String[]{});
-            for (String metricsName : metricNames) {
-                Map<String, Object> metricValue = (Map<String, Object>) metrics.get(metricsName);
-                if (metricValue.size() > 0) {
-                    String[] valueTypes = metricValue.keySet().toArray(new String[]{});
-                    Object value = metricValue.get(valueTypes[0]);
-                    // since elasticsearch doesn't return always the same type of the saved field
-                    // (usually due to some promotion of the field type)
-                    // we need to check the metric type returned by elasticsearch and, if needed, convert to the proper type
-                    payloadMetrics.put(DatastoreUtils.restoreMetricName(metricsName), DatastoreUtils.convertToCorrectType(valueTypes[0], value));
-                }
-            }
+        // Only the metrics requested by the query are in the source, since the others are filtered out by Elasticsearch
+        Map<String, Object> metrics = (Map<String, Object>) messageMap.get(MessageSchema.MESSAGE_METRICS);
+        Map<String, Object> unindexedMetrics = (Map<String, Object>) messageMap.get(MessageSchema.MESSAGE_UNINDEXED_METRICS);
+        if (metrics != null || unindexedMetrics != null) {
+            int metricCount = (metrics != null ? metrics.size() : 0) + (unindexedMetrics != null ? unindexedMetrics.size() : 0);
+            Map<String, Object> payloadMetrics = new HashMap<>((int) (metricCount / 0.75f) + 1);
+            unmarshalMetrics(metrics, payloadMetrics);
+            unmarshalMetrics(unindexedMetrics, payloadMetrics);
             payload.setMetrics(payloadMetrics);
         }
+        message.setPayload(payload);
+
         if (fetchStyle.equals(StorableFetchStyle.SOURCE_SELECT)) {
             return message;
         }
@@ -239,8 +268,6 @@ public class ModelContextImpl implements ModelContext {
             payload.setBody(body);
         }
 
-        message.setPayload(payload);
-
         return message;
     }
 
@@ -259,10 +286,10 @@ public class ModelContextImpl implements ModelContext {
         Date timestamp = KapuaDateUtils.parseDate(lastMsgTimestamp);
 
         MetricInfo metricInfo = new MetricInfoImpl(scopeId);
-        metricInfo.setId(STORABLE_ID_FACTORY.newStorableId(id));
+        metricInfo.setId(storableIdFactory.newStorableId(id));
         metricInfo.setClientId(clientId);
         metricInfo.setChannel(channel);
-        metricInfo.setFirstMessageId(STORABLE_ID_FACTORY.newStorableId(lastMsgId));
+        metricInfo.setFirstMessageId(storableIdFactory.newStorableId(lastMsgId));
         metricInfo.setName(metricName);
         metricInfo.setFirstMessageOn(timestamp);
         metricInfo.setMetricType(DatastoreUtils.convertToKapuaType(type));
@@ -275,10 +302,10 @@ public class ModelContextImpl implements ModelContext {
         String id = (String) channelInfoMap.get(getIdKeyName());
 
         ChannelInfo channelInfo = new ChannelInfoImpl(scopeId);
-        channelInfo.setId(STORABLE_ID_FACTORY.newStorableId(id));
+        channelInfo.setId(storableIdFactory.newStorableId(id));
         channelInfo.setClientId((String) channelInfoMap.get(ChannelInfoSchema.CHANNEL_CLIENT_ID));
         channelInfo.setName((String) channelInfoMap.get(ChannelInfoSchema.CHANNEL_NAME));
-        channelInfo.setFirstMessageId(STORABLE_ID_FACTORY.newStorableId((String) channelInfoMap.get(ChannelInfoSchema.CHANNEL_MESSAGE_ID)));
+        channelInfo.setFirstMessageId(storableIdFactory.newStorableId((String) channelInfoMap.get(ChannelInfoSchema.CHANNEL_MESSAGE_ID)));
         channelInfo.setFirstMessageOn(KapuaDateUtils.parseDate((String) channelInfoMap.get(ChannelInfoSchema.CHANNEL_TIMESTAMP)));
 
         return channelInfo;
@@ -289,9 +316,9 @@ public class ModelContextImpl implements ModelContext {
         String id = (String) clientInfoMap.get(getIdKeyName());
 
         ClientInfo clientInfo = new ClientInfoImpl(scopeId);
-        clientInfo.setId(STORABLE_ID_FACTORY.newStorableId(id));
+        clientInfo.setId(storableIdFactory.newStorableId(id));
         clientInfo.setClientId((String) clientInfoMap.get(ClientInfoSchema.CLIENT_ID));
-        clientInfo.setFirstMessageId(STORABLE_ID_FACTORY.newStorableId((String) clientInfoMap.get(ClientInfoSchema.CLIENT_MESSAGE_ID)));
+        clientInfo.setFirstMessageId(storableIdFactory.newStorableId((String) clientInfoMap.get(ClientInfoSchema.CLIENT_MESSAGE_ID)));
         clientInfo.setFirstMessageOn(KapuaDateUtils.parseDate((String) clientInfoMap.get(ClientInfoSchema.CLIENT_TIMESTAMP)));
 
         return clientInfo;
@@ -315,7 +342,7 @@ public class ModelContextImpl implements ModelContext {
         }
         unmarshalledMessage.put(MessageSchema.MESSAGE_TIMESTAMP, KapuaDateUtils.formatDate(message.getTimestamp()));
         unmarshalledMessage.put(MessageSchema.MESSAGE_RECEIVED_ON, KapuaDateUtils.formatDate(message.getReceivedOn()));
-        unmarshalledMessage.put(MessageSchema.MESSAGE_IP_ADDRESS, "127.0.0.1"); // FIXME: support this or remove?
+        unmarshalledMessage.put(MessageSchema.MESSAGE_IP_ADDRESS, MESSAGE_IP_ADDRESS);
         unmarshalledMessage.put(MessageSchema.MESSAGE_SCOPE_ID, scopeId);
         unmarshalledMessage.put(MessageSchema.MESSAGE_DEVICE_ID, deviceIdStr);
         unmarshalledMessage.put(MessageSchema.MESSAGE_CLIENT_ID, message.getClientId());
@@ -358,28 +385,107 @@ public class ModelContextImpl implements ModelContext {
         unmarshalledMessage.put(MessageSchema.MESSAGE_BODY, payload.getBody());
         Map<String, Object> kapuaMetrics = payload.getMetrics();
         if (kapuaMetrics != null) {
-            Map<String, Object> metrics = new HashMap<>();
-            String[] metricNames = kapuaMetrics.keySet().toArray(new String[]{});
-            for (String kapuaMetricName : metricNames) {
-                Object metricValue = kapuaMetrics.get(kapuaMetricName);
-                // Sanitize field names: '.' is not allowed
-                String metricName = DatastoreUtils.normalizeMetricName(kapuaMetricName);
-                String clientMetricType = DatastoreUtils.getClientMetricFromType(metricValue.getClass());
-                String clientMetricTypeAcronym = DatastoreUtils.getClientMetricFromAcronym(clientMetricType);
-                Map<String, Object> field = new HashMap<>();
-                if (DatastoreUtils.isDateMetric(clientMetricTypeAcronym) && metricValue instanceof Date) {
-                    field.put(clientMetricTypeAcronym, KapuaDateUtils.formatDate((Date) metricValue));
-                } else {
-                    field.put(clientMetricTypeAcronym, metricValue);
-                }
-                metrics.put(metricName, field);
-            }
-            unmarshalledMessage.put(MessageSchema.MESSAGE_METRICS, metrics);
+            unmarshalledMessage.put(MessageSchema.MESSAGE_METRICS, marshalMetrics(kapuaMetrics));
+        }
+
+        Map<String, Object> unindexedMetrics = getUnindexedMetrics(message);
+        if (!unindexedMetrics.isEmpty()) {
+            unmarshalledMessage.put(MessageSchema.MESSAGE_UNINDEXED_METRICS, marshalMetrics(unindexedMetrics));
         }
 
         return unmarshalledMessage;
     }
 
+    /**
+     * Unmarshals the metrics of a {@link DatastoreMessage}, restoring their names and types.
+     *
+     * @param metrics        The marshalled metrics, or {@code null}.
+     * @param payloadMetrics The payload metrics to add the unmarshalled metrics to.
+     * @since 2.0.0
+     */
+    @SuppressWarnings("unchecked")
+    private void unmarshalMetrics(Map<String, Object> metrics, Map<String, Object> payloadMetrics) {
+        if (metrics == null) {
+            return;
+        }
+
+        for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+            Map<String, Object> metricValue = (Map<String, Object>) metric.getValue();
+            if (metricValue.size() > 0) {
+                Map.Entry<String, Object> typedValue = metricValue.entrySet().iterator().next();
+                // since elasticsearch doesn't return always the same type of the saved field
+                // (usually due to some promotion of the field type)
+                // we need to check the metric type returned by elasticsearch and, if needed, convert to the proper type
+                payloadMetrics.put(DatastoreUtils.restoreMetricName(metric.getKey()), DatastoreUtils.convertToCorrectType(typedValue.getKey(), typedValue.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Marshals the metrics of a {@link DatastoreMessage}, normalizing their names and qualifying their values by type.
+     *
+     * @param kapuaMetrics The metrics.
+     * @return The marshalled metrics.
+     * @throws ParseException
+     * @since 2.0.0
+     */
+    private Map<String, Object> marshalMetrics(Map<String, Object> kapuaMetrics) throws ParseException {
+        Map<String, Object> metrics = new HashMap<>();
+        String[] metricNames = kapuaMetrics.keySet().toArray(new String[]{});
+        for (String kapuaMetricName : metricNames) {
+            Object metricValue = kapuaMetrics.get(kapuaMetricName);
+            // Sanitize field names: '.' is not allowed
+            String metricName = DatastoreUtils.normalizeMetricName(kapuaMetricName);
+            String metricTypeAcronym = getMetricTypeAcronym(metricValue);
+            Map<String, Object> field = new HashMap<>();
+            field.put(metricTypeAcronym, marshalMetricValue(metricTypeAcronym, metricValue));
+            metrics.put(metricName, field);
+        }
+        return metrics;
+    }
+
+    /**
+     * Gets the acronym which qualifies a metric value by its type.
+     *
+     * @param metricValue The metric value.
+     * @return The metric type acronym.
+     * @since 2.0.0
+     */
+    private static String getMetricTypeAcronym(Object metricValue) {
+        return DatastoreUtils.getClientMetricFromAcronym(DatastoreUtils.getClientMetricFromType(metricValue.getClass()));
+    }
+
+    /**
+     * Converts a metric value to the one stored: dates are formatted, all the other values are stored as they are.
+     *
+     * @param metricTypeAcronym The metric type acronym, see {@link #getMetricTypeAcronym(Object)}.
+     * @param metricValue       The metric value.
+     * @return The metric value to store.
+     * @throws ParseException
+     * @since 2.0.0
+     */
+    private static Object marshalMetricValue(String metricTypeAcronym, Object metricValue) throws ParseException {
+        if (DatastoreUtils.isDateMetric(metricTypeAcronym) && metricValue instanceof Date) {
+            return KapuaDateUtils.formatDate((Date) metricValue);
+        }
+        return metricValue;
+    }
+
+    /**
+     * Gets the metrics of the {@link DatastoreMessage} which must be stored without being indexed.
+     *
+     * @param message The {@link DatastoreMessage}.
+     * @return The unindexed metrics, or an empty {@link Map}.
+     * @see DatastoreMessageImpl#getUnindexedMetrics()
+     * @since 2.0.0
+     */
+    private static Map<String, Object> getUnindexedMetrics(DatastoreMessage message) {
+        if (message instanceof DatastoreMessageImpl && ((DatastoreMessageImpl) message).getUnindexedMetrics() != null) {
+            return ((DatastoreMessageImpl) message).getUnindexedMetrics();
+        }
+        return Collections.emptyMap();
+    }
+
     private Map<String, Object> marshalClientInfo(ClientInfo clientInfo) throws ParseException {
         Map<String, Object> unmarshalledClientInfo = new HashMap<>();
         unmarshalledClientInfo.put(ClientInfoSchema.CLIENT_ID, clientInfo.getClientId());
@@ -417,6 +523,231 @@ public class ModelContextImpl implements ModelContext {
         return unmarshalledMetricInfo;
     }
 
+    /**
+     * Marshals the {@link MetricRollupImpl}.
+     * <p>
+     * The statistics of each metric are nested by metric name and type acronym, like the metric values of the messages.
+     *
+     * @param metricRollup The {@link MetricRollupImpl}.
+     * @throws ParseException
+     * @since 2.0.0
+     */
+    private Map<String, Object> marshalMetricRollup(MetricRollupImpl metricRollup) throws ParseException {
+        Map<String, Object> marshalledMetricRollup = new HashMap<>();
+        marshalledMetricRollup.put(MetricRollupSchema.ROLLUP_SCOPE_ID, metricRollup.getScopeId().toStringId());
+        marshalledMetricRollup.put(MetricRollupSchema.ROLLUP_CLIENT_ID, metricRollup.getClientId());
+        marshalledMetricRollup.put(MetricRollupSchema.ROLLUP_CHANNEL, metricRollup.getChannel());
+        marshalledMetricRollup.put(MetricRollupSchema.ROLLUP_TIMESTAMP, KapuaDateUtils.formatDate(metricRollup.getTimestamp()));
+        marshalledMetricRollup.put(MetricRollupSchema.ROLLUP_COUNT, metricRollup.getCount());
+
+        Map<String, Object> marshalledMetrics = new HashMap<>();
+        for (Map.Entry<String, MetricStatistics> metric : metricRollup.getMetrics().entrySet()) {
+            MetricStatistics metricStatistics = metric.getValue();
+
+            Map<String, Object> marshalledStatistics = new HashMap<>();
+            marshalledStatistics.put(MetricRollupSchema.STATISTIC_COUNT, metricStatistics.getCount());
+            marshalledStatistics.put(MetricRollupSchema.STATISTIC_MIN, metricStatistics.getMin());
+            marshalledStatistics.put(MetricRollupSchema.STATISTIC_MAX, metricStatistics.getMax());
+            marshalledStatistics.put(MetricRollupSchema.STATISTIC_SUM, metricStatistics.getSum());
+
+            String[] metricParts = DatastoreUtils.getMetricParts(metric.getKey());
+            @SuppressWarnings("unchecked")
+            Map<String, Object> marshalledMetric = (Map<String, Object>) marshalledMetrics.computeIfAbsent(metricParts[0], name -> new HashMap<String, Object>());
+            marshalledMetric.put(metricParts[1], marshalledStatistics);
+        }
+        marshalledMetricRollup.put(MetricRollupSchema.ROLLUP_METRICS, marshalledMetrics);
+
+        return marshalledMetricRollup;
+    }
+
+    /**
+     * Marshals the {@link DataIndexRollupMarker}.
+     *
+     * @param dataIndexRollupMarker The {@link DataIndexRollupMarker}.
+     * @since 2.0.0
+     */
+    private Map<String, Object> marshalDataIndexRollupMarker(DataIndexRollupMarker dataIndexRollupMarker) {
+        Map<String, Object> marshalledMarker = new HashMap<>();
+        marshalledMarker.put(MetricRollupSchema.ROLLUP_SCOPE_ID, dataIndexRollupMarker.getScopeId().toStringId());
+        marshalledMarker.put(MetricRollupSchema.ROLLUP_DATA_INDEX, dataIndexRollupMarker.getDataIndexName());
+        return marshalledMarker;
+    }
+
+    @Override
+    public void marshal(Object object, JsonGenerator jsonGenerator) throws DatamodelMappingException {
+        if (object == null || jsonGenerator == null) {
+            throw new DatamodelMappingException(MARSHAL_INVALID_PARAMETERS_ERROR_MSG);
+        }
+
+        try {
+            if (object instanceof DatastoreMessage) {
+                writeDatastoreMessage((DatastoreMessage) object, jsonGenerator);
+            } else if (object instanceof ClientInfo) {
+                writeClientInfo((ClientInfo) object, jsonGenerator);
+            } else if (object instanceof ChannelInfo) {
+                writeChannelInfo((ChannelInfo) object, jsonGenerator);
+            } else if (object instanceof MetricInfo) {
+                writeMetricInfo((MetricInfo) object, jsonGenerator);
+            } else {
+                // Rollups are written once per bucket, they are not worth a streaming writer
+                jsonGenerator.writeObject(marshal(object));
+            }
+        } catch (ParseException e) {
+            throw new DatamodelMappingException(e, "Date conversion error");
+        } catch (IOException e) {
+            throw new DatamodelMappingException(e, "Cannot write the object");
+        }
+    }
+
+    /**
+     * Writes the {@link DatastoreMessage} to the {@link JsonGenerator}.
+     * <p>
+     * It produces the same document of {@link #marshalDatastoreMessage(DatastoreMessage)}.
+     *
+     * @param message       The {@link DatastoreMessage}.
+     * @param jsonGenerator The {@link JsonGenerator} to write to.
+     * @throws ParseException
+     * @throws IOException
+     * @since 2.0.0
+     */
+    private void writeDatastoreMessage(DatastoreMessage message, JsonGenerator jsonGenerator) throws ParseException, IOException {
+        jsonGenerator.writeStartObject();
+        //
+        // Message
+        if (message.getId() != null) {
+            jsonGenerator.writeStringField(MessageSchema.MESSAGE_ID, message.getId().toString());
+        }
+        jsonGenerator.writeStringField(MessageSchema.MESSAGE_TIMESTAMP, KapuaDateUtils.formatDate(message.getTimestamp()));
+        jsonGenerator.writeStringField(MessageSchema.MESSAGE_RECEIVED_ON, KapuaDateUtils.formatDate(message.getReceivedOn()));
+        jsonGenerator.writeStringField(MessageSchema.MESSAGE_IP_ADDRESS, MESSAGE_IP_ADDRESS);
+        jsonGenerator.writeStringField(MessageSchema.MESSAGE_SCOPE_ID, message.getScopeId().toStringId());
+        jsonGenerator.writeStringField(MessageSchema.MESSAGE_DEVICE_ID, message.getDeviceId() == null ? null : message.getDeviceId().toStringId());
+        jsonGenerator.writeStringField(MessageSchema.MESSAGE_CLIENT_ID, message.getClientId());
+
+        //
+        // Channel
+        jsonGenerator.writeStringField(MessageSchema.MESSAGE_CHANNEL, message.getChannel().toString());
+        List<String> channelParts = message.getChannel().getSemanticParts();
+        jsonGenerator.writeFieldName(MessageSchema.MESSAGE_CHANNEL_PARTS);
+        if (channelParts != null) {
+            jsonGenerator.writeStartArray();
+            for (String channelPart : channelParts) {
+                jsonGenerator.writeString(channelPart);
+            }
+            jsonGenerator.writeEndArray();
+        } else {
+            jsonGenerator.writeNull();
+        }
+        jsonGenerator.writeStringField(MessageSchema.MESSAGE_CAPTURED_ON, KapuaDateUtils.formatDate(message.getCapturedOn()));
+        jsonGenerator.writeStringField(MessageSchema.MESSAGE_SENT_ON, KapuaDateUtils.formatDate(message.getSentOn()));
+
+        //
+        // Position
+        KapuaPosition kapuaPosition = message.getPosition();
+        if (kapuaPosition != null) {
+            jsonGenerator.writeObjectFieldStart(MessageSchema.MESSAGE_POSITION);
+            jsonGenerator.writeFieldName(MessageSchema.MESSAGE_POS_LOCATION);
+            if (kapuaPosition.getLongitude() != null && kapuaPosition.getLatitude() != null) {
+                jsonGenerator.writeStartObject();
+                jsonGenerator.writeNumberField(MessageSchema.MESSAGE_POSITION_LONGITUDE, kapuaPosition.getLongitude());
+                jsonGenerator.writeNumberField(MessageSchema.MESSAGE_POSITION_LATITUDE, kapuaPosition.getLatitude());
+                jsonGenerator.writeEndObject();
+            } else {
+                jsonGenerator.writeNull();
+            }
+            jsonGenerator.writeObjectField(MessageSchema.MESSAGE_POS_ALT, kapuaPosition.getAltitude());
+            jsonGenerator.writeObjectField(MessageSchema.MESSAGE_POS_PRECISION, kapuaPosition.getPrecision());
+            jsonGenerator.writeObjectField(MessageSchema.MESSAGE_POS_HEADING, kapuaPosition.getHeading());
+            jsonGenerator.writeObjectField(MessageSchema.MESSAGE_POS_SPEED, kapuaPosition.getSpeed());
+            jsonGenerator.writeStringField(MessageSchema.MESSAGE_POS_TIMESTAMP, KapuaDateUtils.formatDate(kapuaPosition.getTimestamp()));
+            jsonGenerator.writeObjectField(MessageSchema.MESSAGE_POS_SATELLITES, kapuaPosition.getSatellites());
+            jsonGenerator.writeObjectField(MessageSchema.MESSAGE_POS_STATUS, kapuaPosition.getStatus());
+            jsonGenerator.writeEndObject();
+        }
+
+        //
+        // Payload
+        KapuaPayload payload = message.getPayload();
+        if (payload != null) {
+            jsonGenerator.writeFieldName(MessageSchema.MESSAGE_BODY);
+            if (payload.getBody() != null) {
+                jsonGenerator.writeBinary(payload.getBody());
+            } else {
+                jsonGenerator.writeNull();
+            }
+
+            Map<String, Object> kapuaMetrics = payload.getMetrics();
+            if (kapuaMetrics != null) {
+                writeMetrics(MessageSchema.MESSAGE_METRICS, kapuaMetrics, jsonGenerator);
+            }
+
+            Map<String, Object> unindexedMetrics = getUnindexedMetrics(message);
+            if (!unindexedMetrics.isEmpty()) {
+                writeMetrics(MessageSchema.MESSAGE_UNINDEXED_METRICS, unindexedMetrics, jsonGenerator);
+            }
+        }
+
+        jsonGenerator.writeEndObject();
+    }
+
+    /**
+     * Writes the metrics of a {@link DatastoreMessage}, normalizing their names and qualifying their values by type.
+     *
+     * @param fieldName     The name of the field which holds the metrics.
+     * @param kapuaMetrics  The metrics.
+     * @param jsonGenerator The {@link JsonGenerator} to write to.
+     * @throws ParseException
+     * @throws IOException
+     * @since 2.0.0
+     */
+    private void writeMetrics(String fieldName, Map<String, Object> kapuaMetrics, JsonGenerator jsonGenerator) throws ParseException, IOException {
+        jsonGenerator.writeObjectFieldStart(fieldName);
+        for (Map.Entry<String, Object> kapuaMetric : kapuaMetrics.entrySet()) {
+            Object metricValue = kapuaMetric.getValue();
+            String metricTypeAcronym = getMetricTypeAcronym(metricValue);
+
+            jsonGenerator.writeObjectFieldStart(DatastoreUtils.normalizeMetricName(kapuaMetric.getKey()));
+            jsonGenerator.writeObjectField(metricTypeAcronym, marshalMetricValue(metricTypeAcronym, metricValue));
+            jsonGenerator.writeEndObject();
+        }
+        jsonGenerator.writeEndObject();
+    }
+
+    private void writeClientInfo(ClientInfo clientInfo, JsonGenerator jsonGenerator) throws ParseException, IOException {
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeStringField(ClientInfoSchema.CLIENT_ID, clientInfo.getClientId());
+        jsonGenerator.writeStringField(ClientInfoSchema.CLIENT_MESSAGE_ID, clientInfo.getFirstMessageId().toString());
+        jsonGenerator.writeStringField(ClientInfoSchema.CLIENT_TIMESTAMP, KapuaDateUtils.formatDate(clientInfo.getFirstMessageOn()));
+        jsonGenerator.writeStringField(ClientInfoSchema.CLIENT_SCOPE_ID, clientInfo.getScopeId().toStringId());
+        jsonGenerator.writeEndObject();
+    }
+
+    private void writeChannelInfo(ChannelInfo channelInfo, JsonGenerator jsonGenerator) throws ParseException, IOException {
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeStringField(ChannelInfoSchema.CHANNEL_NAME, channelInfo.getName());
+        jsonGenerator.writeStringField(ChannelInfoSchema.CHANNEL_TIMESTAMP, KapuaDateUtils.formatDate(channelInfo.getFirstMessageOn()));
+        jsonGenerator.writeStringField(ChannelInfoSchema.CHANNEL_CLIENT_ID, channelInfo.getClientId());
+        jsonGenerator.writeStringField(ChannelInfoSchema.CHANNEL_SCOPE_ID, channelInfo.getScopeId().toStringId());
+        jsonGenerator.writeStringField(ChannelInfoSchema.CHANNEL_MESSAGE_ID, channelInfo.getFirstMessageId().toString());
+        jsonGenerator.writeEndObject();
+    }
+
+    private void writeMetricInfo(MetricInfo metricInfo, JsonGenerator jsonGenerator) throws ParseException, IOException {
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeStringField(MetricInfoSchema.METRIC_SCOPE_ID, metricInfo.getScopeId().toStringId());
+        jsonGenerator.writeStringField(MetricInfoSchema.METRIC_CLIENT_ID, metricInfo.getClientId());
+        jsonGenerator.writeStringField(MetricInfoSchema.METRIC_CHANNEL, metricInfo.getChannel());
+
+        jsonGenerator.writeObjectFieldStart(MetricInfoSchema.METRIC_MTR);
+        jsonGenerator.writeStringField(MetricInfoSchema.METRIC_MTR_NAME, metricInfo.getName());
+        jsonGenerator.writeStringField(MetricInfoSchema.METRIC_MTR_TYPE, DatastoreUtils.convertToClientMetricType(metricInfo.getMetricType()));
+        jsonGenerator.writeStringField(MetricInfoSchema.METRIC_MTR_TIMESTAMP, KapuaDateUtils.formatDate(metricInfo.getFirstMessageOn()));
+        jsonGenerator.writeStringField(MetricInfoSchema.METRIC_MTR_MSG_ID, metricInfo.getFirstMessageId().toString());
+        jsonGenerator.writeEndObject();
+
+        jsonGenerator.writeEndObject();
+    }
+
     private StorableFetchStyle getStorableFetchStyle(Map<String, Object> objectMap) {
         Object storableFetchStyle = objectMap.get(QueryConverter.QUERY_FETCH_STYLE_KEY);
         if (storableFetchStyle instanceof StorableFetchStyle) {
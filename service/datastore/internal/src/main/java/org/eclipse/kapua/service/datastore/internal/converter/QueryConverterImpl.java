@@ -15,15 +15,26 @@ package org.eclipse.kapua.service.datastore.internal.converter;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricRollupAggregationQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricRollupSourceQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricTypesQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
+import org.eclipse.kapua.service.datastore.internal.schema.MetricInfoSchema;
+import org.eclipse.kapua.service.datastore.internal.schema.MetricRollupSchema;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
 import org.eclipse.kapua.service.elasticsearch.client.QueryConverter;
 import org.eclipse.kapua.service.elasticsearch.client.SchemaKeys;
 import org.eclipse.kapua.service.elasticsearch.client.exception.QueryMappingException;
 import org.eclipse.kapua.service.storable.exception.MappingException;
+import org.eclipse.kapua.service.storable.model.query.CountMode;
 import org.eclipse.kapua.service.storable.model.query.SortField;
 import org.eclipse.kapua.service.storable.model.query.StorableQuery;
+import org.eclipse.kapua.service.storable.model.query.predicate.PredicateConstants;
 import org.eclipse.kapua.service.storable.model.utils.MappingUtils;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Query converter implementation
@@ -32,6 +43,50 @@ import java.util.List;
  */
 public class QueryConverterImpl implements QueryConverter {
 
+    /**
+     * Name of the aggregation which groups the time buckets of a {@link MetricAggregationQuery}.
+     *
+     * @since 2.0.0
+     */
+    public static final String AGGREGATION_GROUPS = "groups";
+
+    /**
+     * Name of the aggregation which splits the messages of a {@link MetricAggregationQuery} in time buckets.
+     *
+     * @since 2.0.0
+     */
+    public static final String AGGREGATION_TIME_BUCKETS = "time_buckets";
+
+    /**
+     * Prefix of the name of the aggregations of the metrics of a {@link MetricAggregationQuery}, followed by the position of the metric.
+     * <p>
+     * Metric names are not used as aggregation names since they can contain characters not allowed in them.
+     *
+     * @since 2.0.0
+     */
+    public static final String AGGREGATION_METRIC_PREFIX = "metric_";
+
+    /**
+     * Name of the aggregation which sums the message counts of the rollups within a time bucket of a {@link MetricRollupAggregationQueryImpl}.
+     *
+     * @since 2.0.0
+     */
+    public static final String AGGREGATION_MESSAGE_COUNT = "message_count";
+
+    /**
+     * Name of the aggregation which splits the messages of a {@link MetricRollupSourceQueryImpl} in time buckets by client id and channel.
+     *
+     * @since 2.0.0
+     */
+    public static final String AGGREGATION_ROLLUP_BUCKETS = "rollup_buckets";
+
+    /**
+     * Name of the aggregation which lists the distinct metric names and types of a {@link MetricTypesQueryImpl}.
+     *
+     * @since 2.0.0
+     */
+    public static final String AGGREGATION_METRIC_TYPES = "metric_types";
+
     @Override
     public JsonNode convertQuery(Object query) throws QueryMappingException {
         if (!(query instanceof StorableQuery)) {
@@ -50,7 +105,11 @@ public class QueryConverterImpl implements QueryConverter {
 
             // query
             if (storableQuery.getPredicate() != null) {
-                rootNode.set(SchemaKeys.KEY_QUERY, storableQuery.getPredicate().toSerializedMap());
+                JsonNode queryNode = storableQuery.getPredicate().toSerializedMap();
+                if (storableQuery instanceof MetricRollupAggregationQueryImpl) {
+                    excludeTimestampUpperBounds(queryNode);
+                }
+                rootNode.set(SchemaKeys.KEY_QUERY, queryNode);
             }
 
             // sort
@@ -72,12 +131,225 @@ public class QueryConverterImpl implements QueryConverter {
                 rootNode.set(SchemaKeys.KEY_SIZE, MappingUtils.newNumericNode(limit));
             }
             rootNode.set(SchemaKeys.KEY_SORT, sortNode);
+
+            // total count
+            CountMode countMode = storableQuery.getCountMode() != null ? storableQuery.getCountMode() : CountMode.EXACT;
+            switch (countMode.getType()) {
+                case CAPPED:
+                    rootNode.put(SchemaKeys.KEY_TRACK_TOTAL_HITS, countMode.getLimit());
+                    break;
+                case NONE:
+                    rootNode.put(SchemaKeys.KEY_TRACK_TOTAL_HITS, false);
+                    break;
+                case EXACT:
+                default:
+                    rootNode.put(SchemaKeys.KEY_TRACK_TOTAL_HITS, true);
+                    break;
+            }
+
+            // aggregations
+            if (storableQuery instanceof MetricAggregationQuery) {
+                rootNode.set(SchemaKeys.KEY_AGGREGATIONS, convertAggregations((MetricAggregationQuery) storableQuery));
+            } else if (storableQuery instanceof MetricRollupSourceQueryImpl) {
+                rootNode.set(SchemaKeys.KEY_AGGREGATIONS, convertRollupSourceAggregations((MetricRollupSourceQueryImpl) storableQuery));
+            } else if (storableQuery instanceof MetricTypesQueryImpl) {
+                rootNode.set(SchemaKeys.KEY_AGGREGATIONS, convertMetricTypesAggregations((MetricTypesQueryImpl) storableQuery));
+            }
             return rootNode;
         } catch (MappingException me) {
             throw new QueryMappingException(me, "Cannot convert Storable Query");
         }
     }
 
+    /**
+     * Converts the aggregation of a {@link MetricAggregationQuery}.
+     *
+     * <pre>
+     *  {
+     *      "groups": {
+     *          "terms": { "field": "client_id", "size": 10 },
+     *          "aggregations": {
+     *              "time_buckets": {
+     *                  "date_histogram": { "field": "timestamp", "fixed_interval": "60000ms", "min_doc_count": 1 },
+     *                  "aggregations": {
+     *                      "metric_0": { "stats": { "field": "metrics.temperature.dbl" } }
+     *                  }
+     *              }
+     *          }
+     *      }
+     *  }
+     * </pre>
+     * <p>
+     * The {@code groups} aggregation is only present when {@link MetricAggregationQuery#getGroupBy()} is set.
+     * <p>
+     * A {@link MetricRollupAggregationQueryImpl} has the same time buckets, but the statistics of each metric are merged
+     * from the ones of the rollups with the {@code metric_<n>_count}, {@code metric_<n>_min}, {@code metric_<n>_max} and {@code metric_<n>_sum} aggregations,
+     * and the message count is the {@code message_count} aggregation.
+     *
+     * @param query The {@link MetricAggregationQuery} to convert.
+     * @return The {@code aggregations} object.
+     * @since 2.0.0
+     */
+    private ObjectNode convertAggregations(MetricAggregationQuery query) {
+        ObjectNode metricsNode = MappingUtils.newObjectNode();
+        int metricIndex = 0;
+        for (Map.Entry<String, Class<?>> metric : query.getMetrics().entrySet()) {
+            String metricField = MessageSchema.MESSAGE_METRICS + "." + DatastoreUtils.getNormalizedMetricValueQualifier(metric.getKey(), metric.getValue());
+            String metricAggregation = AGGREGATION_METRIC_PREFIX + metricIndex++;
+            if (query instanceof MetricRollupAggregationQueryImpl) {
+                metricsNode.putObject(metricAggregation + "_" + MetricRollupSchema.STATISTIC_COUNT).putObject(SchemaKeys.KEY_SUM).put(SchemaKeys.KEY_FIELD, metricField + "." + MetricRollupSchema.STATISTIC_COUNT);
+                metricsNode.putObject(metricAggregation + "_" + MetricRollupSchema.STATISTIC_MIN).putObject(SchemaKeys.KEY_MIN).put(SchemaKeys.KEY_FIELD, metricField + "." + MetricRollupSchema.STATISTIC_MIN);
+                metricsNode.putObject(metricAggregation + "_" + MetricRollupSchema.STATISTIC_MAX).putObject(SchemaKeys.KEY_MAX).put(SchemaKeys.KEY_FIELD, metricField + "." + MetricRollupSchema.STATISTIC_MAX);
+                metricsNode.putObject(metricAggregation + "_" + MetricRollupSchema.STATISTIC_SUM).putObject(SchemaKeys.KEY_SUM).put(SchemaKeys.KEY_FIELD, metricField + "." + MetricRollupSchema.STATISTIC_SUM);
+            } else {
+                metricsNode.putObject(metricAggregation).putObject(SchemaKeys.KEY_STATS).put(SchemaKeys.KEY_FIELD, metricField);
+            }
+        }
+        if (query instanceof MetricRollupAggregationQueryImpl) {
+            metricsNode.putObject(AGGREGATION_MESSAGE_COUNT).putObject(SchemaKeys.KEY_SUM).put(SchemaKeys.KEY_FIELD, MetricRollupSchema.ROLLUP_COUNT);
+        }
+
+        ObjectNode timeBucketsNode = MappingUtils.newObjectNode();
+        timeBucketsNode.putObject(SchemaKeys.KEY_DATE_HISTOGRAM)
+                .put(SchemaKeys.KEY_FIELD, MessageSchema.MESSAGE_TIMESTAMP)
+                .put(SchemaKeys.KEY_FIXED_INTERVAL, query.getInterval() + "ms")
+                .put(SchemaKeys.KEY_MIN_DOC_COUNT, 1);
+        timeBucketsNode.set(SchemaKeys.KEY_AGGREGATIONS, metricsNode);
+
+        ObjectNode aggregationsNode = MappingUtils.newObjectNode();
+        if (query.getGroupBy() == null) {
+            aggregationsNode.set(AGGREGATION_TIME_BUCKETS, timeBucketsNode);
+            return aggregationsNode;
+        }
+
+        ObjectNode termsNode = MappingUtils.newObjectNode();
+        switch (query.getGroupBy()) {
+            case CLIENT_ID:
+                termsNode.put(SchemaKeys.KEY_FIELD, MessageSchema.MESSAGE_CLIENT_ID);
+                break;
+            case CHANNEL:
+                termsNode.put(SchemaKeys.KEY_FIELD, MessageSchema.MESSAGE_CHANNEL);
+                break;
+        }
+        if (query.getLimit() != null) {
+            termsNode.put(SchemaKeys.KEY_SIZE, query.getLimit());
+        }
+
+        ObjectNode groupsNode = aggregationsNode.putObject(AGGREGATION_GROUPS);
+        groupsNode.set(SchemaKeys.KEY_TERMS, termsNode);
+        groupsNode.putObject(SchemaKeys.KEY_AGGREGATIONS).set(AGGREGATION_TIME_BUCKETS, timeBucketsNode);
+        return aggregationsNode;
+    }
+
+    /**
+     * Makes the timestamp upper bounds of the given serialized predicate exclusive.
+     * <p>
+     * The timestamp of a rollup is the start of its time bucket, so a rollup at an inclusive upper bound would be entirely counted
+     * while only the messages at the very millisecond of the bound are matched on the data indexes.
+     *
+     * @param predicateNode The serialized predicate.
+     */
+    private void excludeTimestampUpperBounds(JsonNode predicateNode) {
+        JsonNode timestampRangeNode = predicateNode.path(PredicateConstants.RANGE_KEY).path(MetricRollupSchema.ROLLUP_TIMESTAMP);
+        if (timestampRangeNode.has(PredicateConstants.LTE_KEY)) {
+            ObjectNode boundsNode = (ObjectNode) timestampRangeNode;
+            boundsNode.set(PredicateConstants.LT_KEY, boundsNode.remove(PredicateConstants.LTE_KEY));
+        }
+        for (JsonNode childNode : predicateNode) {
+            excludeTimestampUpperBounds(childNode);
+        }
+    }
+
+    /**
+     * Converts the aggregation of a {@link MetricRollupSourceQueryImpl}.
+     *
+     * <pre>
+     *  {
+     *      "rollup_buckets": {
+     *          "composite": {
+     *              "size": 500,
+     *              "sources": [
+     *                  { "client_id": { "terms": { "field": "client_id" } } },
+     *                  { "channel": { "terms": { "field": "channel" } } },
+     *                  { "timestamp": { "date_histogram": { "field": "timestamp", "fixed_interval": "3600000ms" } } }
+     *              ],
+     *              "after": { "client_id": "client-1", "channel": "telemetry", "timestamp": 1640995200000 }
+     *          },
+     *          "aggregations": {
+     *              "metric_0": { "stats": { "field": "metrics.temperature.dbl" } }
+     *          }
+     *      }
+     *  }
+     * </pre>
+     *
+     * @param query The {@link MetricRollupSourceQueryImpl} to convert.
+     * @return The {@code aggregations} object.
+     * @since 2.0.0
+     */
+    private ObjectNode convertRollupSourceAggregations(MetricRollupSourceQueryImpl query) {
+        ObjectNode compositeNode = MappingUtils.newObjectNode();
+        compositeNode.put(SchemaKeys.KEY_SIZE, query.getPageSize());
+        ArrayNode sourcesNode = compositeNode.putArray(SchemaKeys.KEY_SOURCES);
+        sourcesNode.addObject().putObject(MessageSchema.MESSAGE_CLIENT_ID).putObject(SchemaKeys.KEY_TERMS).put(SchemaKeys.KEY_FIELD, MessageSchema.MESSAGE_CLIENT_ID);
+        sourcesNode.addObject().putObject(MessageSchema.MESSAGE_CHANNEL).putObject(SchemaKeys.KEY_TERMS).put(SchemaKeys.KEY_FIELD, MessageSchema.MESSAGE_CHANNEL);
+        sourcesNode.addObject().putObject(MessageSchema.MESSAGE_TIMESTAMP).putObject(SchemaKeys.KEY_DATE_HISTOGRAM)
+                .put(SchemaKeys.KEY_FIELD, MessageSchema.MESSAGE_TIMESTAMP)
+                .put(SchemaKeys.KEY_FIXED_INTERVAL, query.getInterval() + "ms");
+        if (query.getAfterKey() != null) {
+            compositeNode.set(SchemaKeys.KEY_AFTER, query.getAfterKey());
+        }
+
+        ObjectNode metricsNode = MappingUtils.newObjectNode();
+        int metricIndex = 0;
+        for (Map.Entry<String, Class<?>> metric : query.getMetrics().entrySet()) {
+            String metricField = MessageSchema.MESSAGE_METRICS + "." + DatastoreUtils.getNormalizedMetricValueQualifier(metric.getKey(), metric.getValue());
+            metricsNode.putObject(AGGREGATION_METRIC_PREFIX + metricIndex++).putObject(SchemaKeys.KEY_STATS).put(SchemaKeys.KEY_FIELD, metricField);
+        }
+
+        ObjectNode aggregationsNode = MappingUtils.newObjectNode();
+        ObjectNode rollupBucketsNode = aggregationsNode.putObject(AGGREGATION_ROLLUP_BUCKETS);
+        rollupBucketsNode.set(SchemaKeys.KEY_COMPOSITE, compositeNode);
+        rollupBucketsNode.set(SchemaKeys.KEY_AGGREGATIONS, metricsNode);
+        return aggregationsNode;
+    }
+
+    /**
+     * Converts the aggregation of a {@link MetricTypesQueryImpl}.
+     *
+     * <pre>
+     *  {
+     *      "metric_types": {
+     *          "composite": {
+     *              "size": 500,
+     *              "sources": [
+     *                  { "name": { "terms": { "field": "metric.name" } } },
+     *                  { "type": { "terms": { "field": "metric.type" } } }
+     *              ],
+     *              "after": { "name": "temperature", "type": "double" }
+     *          }
+     *      }
+     *  }
+     * </pre>
+     *
+     * @param query The {@link MetricTypesQueryImpl} to convert.
+     * @return The {@code aggregations} object.
+     * @since 2.0.0
+     */
+    private ObjectNode convertMetricTypesAggregations(MetricTypesQueryImpl query) {
+        ObjectNode compositeNode = MappingUtils.newObjectNode();
+        compositeNode.put(SchemaKeys.KEY_SIZE, query.getPageSize());
+        ArrayNode sourcesNode = compositeNode.putArray(SchemaKeys.KEY_SOURCES);
+        sourcesNode.addObject().putObject(MetricInfoSchema.METRIC_MTR_NAME).putObject(SchemaKeys.KEY_TERMS).put(SchemaKeys.KEY_FIELD, MetricInfoSchema.METRIC_MTR_NAME_FULL);
+        sourcesNode.addObject().putObject(MetricInfoSchema.METRIC_MTR_TYPE).putObject(SchemaKeys.KEY_TERMS).put(SchemaKeys.KEY_FIELD, MetricInfoSchema.METRIC_MTR_TYPE_FULL);
+        if (query.getAfterKey() != null) {
+            compositeNode.set(SchemaKeys.KEY_AFTER, query.getAfterKey());
+        }
+
+        ObjectNode aggregationsNode = MappingUtils.newObjectNode();
+        aggregationsNode.putObject(AGGREGATION_METRIC_TYPES).set(SchemaKeys.KEY_COMPOSITE, compositeNode);
+        return aggregationsNode;
+    }
+
     @Override
     public Object getFetchStyle(Object query) throws QueryMappingException {
         if (!(query instanceof StorableQuery)) {
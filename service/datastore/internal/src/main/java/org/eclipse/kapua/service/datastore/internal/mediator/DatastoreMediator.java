@@ -22,6 +22,8 @@ import org.eclipse.kapua.service.datastore.ClientInfoRegistryService;
 import org.eclipse.kapua.service.datastore.MetricInfoRegistryService;
 import org.eclipse.kapua.service.datastore.internal.ChannelInfoRegistryFacade;
 import org.eclipse.kapua.service.datastore.internal.ClientInfoRegistryFacade;
+import org.eclipse.kapua.service.datastore.internal.DataIndexRetention;
+import org.eclipse.kapua.service.datastore.internal.DataIndexRollup;
 import org.eclipse.kapua.service.datastore.internal.DatastoreCacheManager;
 import org.eclipse.kapua.service.datastore.internal.MessageStoreFacade;
 import org.eclipse.kapua.service.datastore.internal.MetricInfoRegistryFacade;
@@ -58,6 +60,8 @@ public class DatastoreMediator implements MessageStoreMediator,
     private final Schema esSchema;
 
     private MessageStoreFacade messageStoreFacade;
+    private DataIndexRetention dataIndexRetention;
+    private DataIndexRollup dataIndexRollup;
     private ClientInfoRegistryFacade clientInfoRegistryFacade;
     private ChannelInfoRegistryFacade channelInfoStoreFacade;
     private MetricInfoRegistryFacade metricInfoStoreFacade;
@@ -85,6 +89,42 @@ public class DatastoreMediator implements MessageStoreMediator,
         return INSTANCE;
     }
 
+    /**
+     * Starts the background jobs of the datastore.
+     *
+     * @see Schema#start()
+     * @see DataIndexRollup#start()
+     * @see DataIndexRetention#start()
+     * @since 2.0.0
+     */
+    public void start() {
+        esSchema.start();
+        if (dataIndexRollup != null) {
+            dataIndexRollup.start();
+        }
+        if (dataIndexRetention != null) {
+            dataIndexRetention.start();
+        }
+    }
+
+    /**
+     * Stops the background jobs of the datastore.
+     *
+     * @see Schema#stop()
+     * @see DataIndexRetention#stop()
+     * @see DataIndexRollup#stop()
+     * @since 2.0.0
+     */
+    public void stop() {
+        if (dataIndexRetention != null) {
+            dataIndexRetention.stop();
+        }
+        if (dataIndexRollup != null) {
+            dataIndexRollup.stop();
+        }
+        esSchema.stop();
+    }
+
     /**
      * Sets the {@link MessageStoreFacade}.
      *
@@ -95,6 +135,26 @@ public class DatastoreMediator implements MessageStoreMediator,
         this.messageStoreFacade = messageStoreFacade;
     }
 
+    /**
+     * Sets the {@link DataIndexRetention}, started and stopped with the other background jobs.
+     *
+     * @param dataIndexRetention The {@link DataIndexRetention}.
+     * @since 2.0.0
+     */
+    public void setDataIndexRetention(DataIndexRetention dataIndexRetention) {
+        this.dataIndexRetention = dataIndexRetention;
+    }
+
+    /**
+     * Sets the {@link DataIndexRollup}, started and stopped with the other background jobs.
+     *
+     * @param dataIndexRollup The {@link DataIndexRollup}.
+     * @since 2.0.0
+     */
+    public void setDataIndexRollup(DataIndexRollup dataIndexRollup) {
+        this.dataIndexRollup = dataIndexRollup;
+    }
+
     /**
      * Sets the {@link ClientInfoRegistryFacade}.
      *
@@ -154,7 +214,11 @@ public class DatastoreMediator implements MessageStoreMediator,
         clientInfo.setId(STORABLE_ID_FACTORY.newStorableId(ClientInfoField.getOrDeriveId(null, message.getScopeId(), message.getClientId())));
         clientInfo.setFirstMessageId(message.getDatastoreId());
         clientInfo.setFirstMessageOn(message.getTimestamp());
-        clientInfoRegistryFacade.upstore(clientInfo);
+        if (clientInfoRegistryFacade.upstore(clientInfo) != null) {
+            // A new client is listed by the clients registry queries of the scope.
+            // Only the cache of this process is invalidated, the other processes wait for their cached results to expire
+            DatastoreCacheManager.getInstance().getClientsQueryCache().invalidate(message.getScopeId());
+        }
 
         ChannelInfoImpl channelInfo = new ChannelInfoImpl(message.getScopeId());
         channelInfo.setClientId(message.getClientId());
@@ -162,7 +226,9 @@ public class DatastoreMediator implements MessageStoreMediator,
         channelInfo.setFirstMessageId(message.getDatastoreId());
         channelInfo.setFirstMessageOn(message.getTimestamp());
         channelInfo.setId(STORABLE_ID_FACTORY.newStorableId(ChannelInfoField.getOrDeriveId(null, channelInfo)));
-        channelInfoStoreFacade.upstore(channelInfo);
+        if (channelInfoStoreFacade.upstore(channelInfo) != null) {
+            DatastoreCacheManager.getInstance().getChannelsQueryCache().invalidate(message.getScopeId());
+        }
 
         KapuaPayload payload = message.getPayload();
         if (payload == null) {
@@ -188,7 +254,9 @@ public class DatastoreMediator implements MessageStoreMediator,
             messageMetrics[i++] = metricInfo;
         }
 
-        metricInfoStoreFacade.upstore(messageMetrics);
+        if (metricInfoStoreFacade.upstore(messageMetrics) != null) {
+            DatastoreCacheManager.getInstance().getMetricsQueryCache().invalidate(message.getScopeId());
+        }
     }
 
     /*
@@ -230,6 +298,19 @@ public class DatastoreMediator implements MessageStoreMediator,
         // otherwise the computational cost for each delete operation will be too high
     }
 
+    /**
+     * Creates the rollup index of the given scope, if it does not exist yet.
+     *
+     * @param scopeId The scope {@link KapuaId}.
+     * @return The name of the rollup index.
+     * @throws ClientException
+     * @throws MappingException
+     * @since 2.0.0
+     */
+    public String synchRollupIndex(KapuaId scopeId) throws ClientException, MappingException {
+        return esSchema.synchRollupIndex(scopeId);
+    }
+
     public void refreshAllIndexes() throws ClientException {
         messageStoreFacade.refreshAllIndexes();
     }
@@ -249,6 +330,9 @@ public class DatastoreMediator implements MessageStoreMediator,
         DatastoreCacheManager.getInstance().getClientsCache().invalidateAll();
         DatastoreCacheManager.getInstance().getMetricsCache().invalidateAll();
         DatastoreCacheManager.getInstance().getMetadataCache().invalidateAll();
+        DatastoreCacheManager.getInstance().getChannelsQueryCache().invalidateAll();
+        DatastoreCacheManager.getInstance().getClientsQueryCache().invalidateAll();
+        DatastoreCacheManager.getInstance().getMetricsQueryCache().invalidateAll();
     }
 
 }
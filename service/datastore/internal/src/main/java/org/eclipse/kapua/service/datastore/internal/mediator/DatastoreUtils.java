@@ -17,10 +17,13 @@ import com.google.common.hash.Hashing;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.kapua.KapuaErrorCodes;
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.KapuaIllegalArgumentException;
 import org.eclipse.kapua.commons.util.KapuaDateUtils;
 import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.internal.model.query.TimestampRange;
 import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
 import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,9 +41,13 @@ import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAccessor;
 import java.time.temporal.WeekFields;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -52,7 +59,7 @@ public class DatastoreUtils {
 
     private static final Logger LOG = LoggerFactory.getLogger(DatastoreUtils.class);
 
-    private enum IndexType { CHANNEL, CLIENT, METRIC }
+    private enum IndexType { CHANNEL, CLIENT, METRIC, ROLLUP }
 
     private DatastoreUtils() {
     }
@@ -163,13 +170,24 @@ public class DatastoreUtils {
      * @since 1.0.0
      */
     public static String normalizeMetricName(String name) {
-        String newName = name;
-        if (newName.contains(".")) {
-            newName = newName.replace(String.valueOf(SPECIAL_DOLLAR), SPECIAL_DOLLAR_ESC);
-            newName = newName.replace(String.valueOf(SPECIAL_DOT), SPECIAL_DOT_ESC);
-            LOG.trace(String.format("Metric %s contains a special char '%s' that will be replaced with '%s'", name, String.valueOf(SPECIAL_DOT), SPECIAL_DOT_ESC));
+        if (name.indexOf(SPECIAL_DOT) < 0) {
+            return name;
+        }
+
+        // Escaped with a single pass, since it is done for each metric of each stored message
+        StringBuilder newName = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == SPECIAL_DOLLAR) {
+                newName.append(SPECIAL_DOLLAR_ESC);
+            } else if (c == SPECIAL_DOT) {
+                newName.append(SPECIAL_DOT_ESC);
+            } else {
+                newName.append(c);
+            }
         }
-        return newName;
+        LOG.trace("Metric {} contains a special char '{}' that will be replaced with '{}'", name, SPECIAL_DOT, SPECIAL_DOT_ESC);
+        return newName.toString();
     }
 
     /**
@@ -292,6 +310,115 @@ public class DatastoreUtils {
         return sb.toString();
     }
 
+    /**
+     * Gets the data index names which can contain the messages with a timestamp between the given instants (both included).
+     * <p>
+     * An index name expression is returned for each indexing window touched by the time window.
+     * Each expression ends with a wildcard, so that indexing windows without an index (no message stored in them) do not fail the request,
+     * and so that it also matches the indexes created with a narrower indexing window.
+     * The indexes created with a wider indexing window are not matched: pass the widest indexing window the data indexes may have been created with
+     * (see {@link #getWiderIndexingWindowOption(String, String)}).
+     * When more than {@code maxIndexNames} expressions are needed, the next wider indexing window is used.
+     * When the time window is not bounded or it is too wide even for weekly expressions, {@link #getDataIndexName(KapuaId)} is returned.
+     *
+     * @param scopeId              The scope of the data indexes.
+     * @param windowStart          The start of the time window, or {@code null} if not bounded.
+     * @param windowEnd            The end of the time window, or {@code null} if not bounded.
+     * @param indexingWindowOption The indexing window of the data indexes.
+     * @param maxIndexNames        The maximum number of index name expressions to return.
+     * @return The comma separated data index name expressions.
+     * @since 2.0.0
+     */
+    public static String getDataIndexName(KapuaId scopeId, Instant windowStart, Instant windowEnd, String indexingWindowOption, int maxIndexNames) {
+        if (windowStart == null || windowEnd == null || maxIndexNames <= 0) {
+            return getDataIndexName(scopeId);
+        }
+
+        // An empty time window does not match anything, the index of its start is enough
+        Instant actualWindowEnd = windowEnd.isBefore(windowStart) ? windowStart : windowEnd;
+
+        String indexNamePrefix = StringUtils.removeEnd(getDataIndexName(scopeId), "*");
+        for (String windowOption : getIndexingWindowOptionsFrom(indexingWindowOption)) {
+            Set<String> indexNames = getDataIndexNames(indexNamePrefix, windowStart, actualWindowEnd, windowOption, maxIndexNames);
+            if (indexNames != null) {
+                return String.join(",", indexNames);
+            }
+        }
+        return getDataIndexName(scopeId);
+    }
+
+    /**
+     * Gets the wider of the given indexing windows.
+     * <p>
+     * The data index names of a wider indexing window are prefixes of the ones of the narrower indexing windows,
+     * so the expressions of the wider indexing window match the data indexes created with both of them.
+     *
+     * @param indexingWindowOption      The indexing window.
+     * @param otherIndexingWindowOption The other indexing window.
+     * @return The wider of the given indexing windows.
+     * @since 2.0.0
+     */
+    public static String getWiderIndexingWindowOption(String indexingWindowOption, String otherIndexingWindowOption) {
+        List<String> widerIndexingWindowOptions = getIndexingWindowOptionsFrom(indexingWindowOption);
+        return widerIndexingWindowOptions.contains(otherIndexingWindowOption) ? otherIndexingWindowOption : widerIndexingWindowOptions.get(0);
+    }
+
+    /**
+     * Gets the given indexing window followed by the wider ones.
+     *
+     * @param indexingWindowOption The narrowest indexing window.
+     * @return The given indexing window followed by the wider ones.
+     * @since 2.0.0
+     */
+    private static List<String> getIndexingWindowOptionsFrom(String indexingWindowOption) {
+        if (INDEXING_WINDOW_OPTION_HOUR.equals(indexingWindowOption)) {
+            return Arrays.asList(INDEXING_WINDOW_OPTION_HOUR, INDEXING_WINDOW_OPTION_DAY, INDEXING_WINDOW_OPTION_WEEK);
+        } else if (INDEXING_WINDOW_OPTION_DAY.equals(indexingWindowOption)) {
+            return Arrays.asList(INDEXING_WINDOW_OPTION_DAY, INDEXING_WINDOW_OPTION_WEEK);
+        } else {
+            return Collections.singletonList(INDEXING_WINDOW_OPTION_WEEK);
+        }
+    }
+
+    /**
+     * Gets the data index name expressions of the given indexing window which cover the time window.
+     *
+     * @return The data index name expressions, or {@code null} if more than {@code maxIndexNames} are needed.
+     * @since 2.0.0
+     */
+    private static Set<String> getDataIndexNames(String indexNamePrefix, Instant windowStart, Instant windowEnd, String indexingWindowOption, int maxIndexNames) {
+        DateTimeFormatter formatter;
+        ChronoUnit step;
+        switch (indexingWindowOption) {
+            default:
+            case INDEXING_WINDOW_OPTION_WEEK:
+                // Weeks start on a day boundary, which depends on the locale
+                formatter = DATA_INDEX_FORMATTER_WEEK;
+                step = ChronoUnit.DAYS;
+                break;
+            case INDEXING_WINDOW_OPTION_DAY:
+                formatter = DATA_INDEX_FORMATTER_DAY;
+                step = ChronoUnit.DAYS;
+                break;
+            case INDEXING_WINDOW_OPTION_HOUR:
+                formatter = DATA_INDEX_FORMATTER_HOUR;
+                step = ChronoUnit.HOURS;
+                break;
+        }
+
+        Set<String> indexNames = new LinkedHashSet<>();
+        for (Instant time = windowStart.truncatedTo(step); !time.isAfter(windowEnd); time = time.plus(1, step)) {
+            StringBuilder sb = new StringBuilder(indexNamePrefix);
+            formatter.formatTo(time.atOffset(ZoneOffset.UTC), sb);
+            indexNames.add(sb.append('*').toString());
+
+            if (indexNames.size() > maxIndexNames) {
+                return null;
+            }
+        }
+        return indexNames;
+    }
+
     public static String getChannelIndexName(KapuaId scopeId) {
         return getRegistryIndexName(scopeId, IndexType.CHANNEL);
     }
@@ -304,6 +431,43 @@ public class DatastoreUtils {
         return getRegistryIndexName(scopeId, IndexType.METRIC);
     }
 
+    /**
+     * Gets the name of the index of the metric rollups of the given scope.
+     *
+     * @param scopeId The scope {@link KapuaId}.
+     * @return The name of the rollup index.
+     * @since 2.0.0
+     */
+    public static String getRollupIndexName(KapuaId scopeId) {
+        return getRegistryIndexName(scopeId, IndexType.ROLLUP);
+    }
+
+    /**
+     * Checks that the {@link MetricAggregationQuery} does not produce more than {@link DatastoreSettingsKey#QUERY_AGGREGATION_BUCKETS_MAX} buckets:
+     * the time buckets of its timestamp range, times the {@link MetricAggregationQuery#getLimit()} groups if grouped.
+     * <p>
+     * Aggregations without a bounded timestamp range are not checked, since their time buckets depend on the stored messages.
+     *
+     * @param query The {@link MetricAggregationQuery} to check.
+     * @throws KapuaIllegalArgumentException if the {@link MetricAggregationQuery} produces too many buckets.
+     * @since 2.0.0
+     */
+    public static void checkAggregationBucketCount(MetricAggregationQuery query) throws KapuaIllegalArgumentException {
+        long maxBuckets = DatastoreSettings.getInstance().getLong(DatastoreSettingsKey.QUERY_AGGREGATION_BUCKETS_MAX, 10000L);
+        TimestampRange timestampRange = TimestampRange.of(query.getPredicate());
+        if (maxBuckets <= 0 || query.getInterval() <= 0 || !timestampRange.isBounded()) {
+            return;
+        }
+
+        long range = Math.max(0, timestampRange.getEnd().toEpochMilli() - timestampRange.getStart().toEpochMilli());
+        long timeBuckets = range / query.getInterval() + 1;
+        long groups = query.getGroupBy() != null && query.getLimit() != null ? Math.max(1, query.getLimit()) : 1;
+        if (timeBuckets > maxBuckets / groups) {
+            throw new KapuaIllegalArgumentException("query.interval",
+                    String.format("%d ms over %d ms and %d groups exceed the maximum of %d buckets", query.getInterval(), range, groups, maxBuckets));
+        }
+    }
+
     /**
      * Get the Kapua index name for the specified base name
      *
@@ -430,6 +594,18 @@ public class DatastoreUtils {
         return String.format("%s.%s", name, shortType);
     }
 
+    /**
+     * Gets the full metric name used to store the given metric in Elasticsearch, with the metric name normalized as in the stored messages (see {@link #normalizeMetricName(String)}).
+     *
+     * @param name The metric name.
+     * @param type The metric value type.
+     * @return The full metric name.
+     * @since 2.0.0
+     */
+    public static String getNormalizedMetricValueQualifier(String name, Class<?> type) {
+        return getMetricValueQualifier(normalizeMetricName(name), getClientMetricFromType(type));
+    }
+
     /**
      * Get the client metric type from the metric value type
      *
@@ -22,7 +22,7 @@ import org.eclipse.kapua.service.account.Account;
  */
 public class MessageInfo {
 
-    private Account account;
+    private final Account account;
 
     /**
      * Construct a new message information using the given account
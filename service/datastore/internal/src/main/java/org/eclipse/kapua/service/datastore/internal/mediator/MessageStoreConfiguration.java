@@ -15,6 +15,7 @@ package org.eclipse.kapua.service.datastore.internal.mediator;
 
 import org.eclipse.kapua.commons.util.KapuaDateUtils;
 import org.eclipse.kapua.service.datastore.internal.model.DataIndexBy;
+import org.eclipse.kapua.service.datastore.internal.model.MetricFieldBudgetPolicy;
 import org.eclipse.kapua.service.datastore.internal.model.metric.MetricsIndexBy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +27,8 @@ import java.util.Map;
 
 /**
  * Message store configuration parameters (user dependent)
+ * <p>
+ * Instances are immutable, so that they can be safely shared between the threads storing the messages of the same scope.
  *
  * @since 1.0
  */
@@ -69,6 +72,18 @@ public class MessageStoreConfiguration {
      */
     public static final String CONFIGURATION_METRICS_INDEX_BY_KEY = "metricsIndexBy";
 
+    /**
+     * Metric field budget key.<br>
+     * <b>The key must be aligned with the key used in org.eclipse.kapua.service.datastore.MessageStoreService.xml meta data configuration file).</b>
+     */
+    public static final String CONFIGURATION_METRIC_FIELD_BUDGET_KEY = "metricFieldBudget";
+
+    /**
+     * Metric field budget policy key (available options are in MetricFieldBudgetPolicy enumeration).<br>
+     * <b>The key must be aligned with the key used in org.eclipse.kapua.service.datastore.MessageStoreService.xml meta data configuration file).</b>
+     */
+    public static final String CONFIGURATION_METRIC_FIELD_BUDGET_POLICY_KEY = "metricFieldBudgetPolicy";
+
     /**
      * Defines a value in service plan as unlimited resource
      */
@@ -87,6 +102,8 @@ public class MessageStoreConfiguration {
     private long rxByteLimit = 1000000;
     private DataIndexBy dataIndexBy = DataIndexBy.SERVER_TIMESTAMP;
     private MetricsIndexBy metricsIndexBy = MetricsIndexBy.TIMESTAMP;
+    private int metricFieldBudget = UNLIMITED;
+    private MetricFieldBudgetPolicy metricFieldBudgetPolicy = MetricFieldBudgetPolicy.DROP;
 
     private Map<String, Object> values;
 
@@ -120,6 +137,12 @@ public class MessageStoreConfiguration {
             if (this.values.get(CONFIGURATION_METRICS_INDEX_BY_KEY) != null) {
                 setMetricsIndexBy(MetricsIndexBy.valueOf((String) this.values.get(CONFIGURATION_METRICS_INDEX_BY_KEY)));
             }
+            if (this.values.get(CONFIGURATION_METRIC_FIELD_BUDGET_KEY) != null) {
+                setMetricFieldBudget((Integer) this.values.get(CONFIGURATION_METRIC_FIELD_BUDGET_KEY));
+            }
+            if (this.values.get(CONFIGURATION_METRIC_FIELD_BUDGET_POLICY_KEY) != null) {
+                setMetricFieldBudgetPolicy(MetricFieldBudgetPolicy.valueOf((String) this.values.get(CONFIGURATION_METRIC_FIELD_BUDGET_POLICY_KEY)));
+            }
         }
     }
 
@@ -135,7 +158,7 @@ public class MessageStoreConfiguration {
     /**
      * Set the expiration date parameter ({@link MessageStoreConfiguration#CONFIGURATION_EXPIRATION_DATE_KEY}
      */
-    public void setExpirationDate(Date expirationDate) {
+    private void setExpirationDate(Date expirationDate) {
         this.expirationDate = expirationDate;
     }
 
@@ -151,7 +174,7 @@ public class MessageStoreConfiguration {
     /**
      * Set the data storage enabled parameter ({@link MessageStoreConfiguration#CONFIGURATION_DATA_STORAGE_ENABLED_KEY}
      */
-    public void setDataStorageEnabled(boolean dataStorageEnabled) {
+    private void setDataStorageEnabled(boolean dataStorageEnabled) {
         this.dataStorageEnabled = dataStorageEnabled;
     }
 
@@ -176,7 +199,7 @@ public class MessageStoreConfiguration {
     /**
      * Set the data time to live parameter ({@link MessageStoreConfiguration#CONFIGURATION_DATA_TTL_KEY}
      */
-    public void setDataTimeToLive(int dataTimeToLive) {
+    private void setDataTimeToLive(int dataTimeToLive) {
         if (dataTimeToLive < 0) {
             this.dataTimeToLive = TTL_DEFAULT_DAYS;
         } else {
@@ -196,7 +219,7 @@ public class MessageStoreConfiguration {
     /**
      * Set the rx byte limit parameter ({@link MessageStoreConfiguration#CONFIGURATION_RX_BYTE_LIMIT_KEY}
      */
-    public void setRxByteLimit(long rxByteLimit) {
+    private void setRxByteLimit(long rxByteLimit) {
         this.rxByteLimit = rxByteLimit;
     }
 
@@ -212,7 +235,7 @@ public class MessageStoreConfiguration {
     /**
      * Set the data index by parameter ({@link MessageStoreConfiguration#CONFIGURATION_DATA_INDEX_BY_KEY}
      */
-    public void setDataIndexBy(DataIndexBy dataIndexBy) {
+    private void setDataIndexBy(DataIndexBy dataIndexBy) {
         this.dataIndexBy = dataIndexBy;
     }
 
@@ -228,7 +251,43 @@ public class MessageStoreConfiguration {
     /**
      * Set the metrics index by date parameter ({@link MessageStoreConfiguration#CONFIGURATION_METRICS_INDEX_BY_KEY}
      */
-    public void setMetricsIndexBy(MetricsIndexBy metricsIndexBy) {
+    private void setMetricsIndexBy(MetricsIndexBy metricsIndexBy) {
         this.metricsIndexBy = metricsIndexBy;
     }
+
+    /**
+     * Get the metric field budget parameter ({@link MessageStoreConfiguration#CONFIGURATION_METRIC_FIELD_BUDGET_KEY}
+     * <p>
+     * The maximum number of metric fields which can be mapped in each data index of the scope, or {@link #UNLIMITED}.
+     *
+     * @return
+     * @since 2.0.0
+     */
+    public int getMetricFieldBudget() {
+        return metricFieldBudget;
+    }
+
+    /**
+     * Set the metric field budget parameter ({@link MessageStoreConfiguration#CONFIGURATION_METRIC_FIELD_BUDGET_KEY}
+     */
+    private void setMetricFieldBudget(int metricFieldBudget) {
+        this.metricFieldBudget = metricFieldBudget < 0 ? UNLIMITED : metricFieldBudget;
+    }
+
+    /**
+     * Get the metric field budget policy parameter ({@link MessageStoreConfiguration#CONFIGURATION_METRIC_FIELD_BUDGET_POLICY_KEY}
+     *
+     * @return
+     * @since 2.0.0
+     */
+    public MetricFieldBudgetPolicy getMetricFieldBudgetPolicy() {
+        return metricFieldBudgetPolicy;
+    }
+
+    /**
+     * Set the metric field budget policy parameter ({@link MessageStoreConfiguration#CONFIGURATION_METRIC_FIELD_BUDGET_POLICY_KEY}
+     */
+    private void setMetricFieldBudgetPolicy(MetricFieldBudgetPolicy metricFieldBudgetPolicy) {
+        this.metricFieldBudgetPolicy = metricFieldBudgetPolicy;
+    }
 }
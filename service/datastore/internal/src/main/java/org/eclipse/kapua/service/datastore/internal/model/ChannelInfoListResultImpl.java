@@ -42,7 +42,7 @@ public class ChannelInfoListResultImpl extends AbstractStorableListResult<Channe
      * @since 1.0.0
      */
     public ChannelInfoListResultImpl(ResultList<ChannelInfo> resultList) {
-        super(resultList.getResult(), resultList.getTotalCount());
+        super(resultList.getResult(), resultList.getTotalCount(), resultList.isTotalCountLowerBound());
     }
 
 }
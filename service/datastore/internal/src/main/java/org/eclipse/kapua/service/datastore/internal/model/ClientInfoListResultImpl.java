@@ -42,7 +42,7 @@ public class ClientInfoListResultImpl extends AbstractStorableListResult<ClientI
      * @since 1.0.0
      */
     public ClientInfoListResultImpl(ResultList<ClientInfo> resultList) {
-        super(resultList.getResult(), resultList.getTotalCount());
+        super(resultList.getResult(), resultList.getTotalCount(), resultList.isTotalCountLowerBound());
     }
 
 }
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+
+/**
+ * Marks a data index as rolled up into the rollup index of its scope.
+ * <p>
+ * It is stored in the rollup index after all the {@link MetricRollupImpl}s of the data index,
+ * so that a data index whose rollup did not complete is rolled up again.
+ *
+ * @since 2.0.0
+ */
+public class DataIndexRollupMarker {
+
+    private final KapuaId scopeId;
+    private final String dataIndexName;
+
+    /**
+     * Constructor.
+     *
+     * @param scopeId       The scope {@link KapuaId}.
+     * @param dataIndexName The name of the rolled up data index.
+     * @since 2.0.0
+     */
+    public DataIndexRollupMarker(KapuaId scopeId, String dataIndexName) {
+        this.scopeId = scopeId;
+        this.dataIndexName = dataIndexName;
+    }
+
+    /**
+     * Gets the identifier of the marker of the given data index.
+     *
+     * @param dataIndexName The name of the data index.
+     * @return The identifier of the marker.
+     * @since 2.0.0
+     */
+    public static String getId(String dataIndexName) {
+        return DatastoreUtils.getHashCode("rolled_up_index", dataIndexName);
+    }
+
+    public String getId() {
+        return getId(dataIndexName);
+    }
+
+    public KapuaId getScopeId() {
+        return scopeId;
+    }
+
+    public String getDataIndexName() {
+        return dataIndexName;
+    }
+}
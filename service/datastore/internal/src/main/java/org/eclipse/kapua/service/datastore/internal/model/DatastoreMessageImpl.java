@@ -20,6 +20,7 @@ import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.storable.model.id.StorableId;
 
 import java.util.Date;
+import java.util.Map;
 
 /**
  * {@link DatastoreMessage} implementation.
@@ -32,6 +33,7 @@ public class DatastoreMessageImpl extends KapuaMessageImpl<KapuaDataChannel, Kap
 
     private StorableId datastoreId;
     private Date timestamp;
+    private Map<String, Object> unindexedMetrics;
 
     @Override
     public StorableId getDatastoreId() {
@@ -53,4 +55,25 @@ public class DatastoreMessageImpl extends KapuaMessageImpl<KapuaDataChannel, Kap
         this.timestamp = timestamp;
     }
 
+    /**
+     * Gets the metrics which are stored without being indexed, since they exceeded the metric field budget of the data index.
+     * <p>
+     * They are not part of the {@link #getPayload()} metrics when storing the message, while they are when reading it back.
+     *
+     * @return The unindexed metrics.
+     * @since 2.0.0
+     */
+    public Map<String, Object> getUnindexedMetrics() {
+        return unindexedMetrics;
+    }
+
+    /**
+     * Sets the metrics which are stored without being indexed.
+     *
+     * @param unindexedMetrics The unindexed metrics.
+     * @since 2.0.0
+     */
+    public void setUnindexedMetrics(Map<String, Object> unindexedMetrics) {
+        this.unindexedMetrics = unindexedMetrics;
+    }
 }
@@ -42,7 +42,7 @@ public class MessageListResultImpl extends AbstractStorableListResult<DatastoreM
      * @since 1.0.0
      */
     public MessageListResultImpl(ResultList<DatastoreMessage> resultList) {
-        super(resultList.getResult(), resultList.getTotalCount());
+        super(resultList.getResult(), resultList.getTotalCount(), resultList.isTotalCountLowerBound());
     }
 
 }
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import javax.xml.bind.annotation.XmlEnum;
+
+/**
+ * Metric field budget policy options.
+ * <p>
+ * Defines how a message is stored when its new metrics would exceed the metric field budget of the data index.
+ *
+ * @since 2.0.0
+ */
+@XmlEnum
+public enum MetricFieldBudgetPolicy {
+
+    /**
+     * Drop.
+     * <p>
+     * The message is stored without the metrics which are not already mapped in the data index.
+     *
+     * @since 2.0.0
+     */
+    DROP,
+
+    /**
+     * Unindexed.
+     * <p>
+     * The message is stored with the metrics which are not already mapped in the data index kept in the source only:
+     * they are returned by the queries but they cannot be searched, sorted nor aggregated.
+     *
+     * @since 2.0.0
+     */
+    UNINDEXED,
+
+    /**
+     * Reject.
+     * <p>
+     * The message is not stored.
+     *
+     * @since 2.0.0
+     */
+    REJECT
+}
@@ -42,7 +42,7 @@ public class MetricInfoListResultImpl extends AbstractStorableListResult<MetricI
      * @since 1.0.0
      */
     public MetricInfoListResultImpl(ResultList<MetricInfo> resultList) {
-        super(resultList.getResult(), resultList.getTotalCount());
+        super(resultList.getResult(), resultList.getTotalCount(), resultList.isTotalCountLowerBound());
     }
 
 }
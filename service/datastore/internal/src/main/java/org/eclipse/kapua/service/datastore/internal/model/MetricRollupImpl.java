@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The statistics of the metrics of the messages of a client on a channel within a time bucket.
+ * <p>
+ * It is stored in the rollup index of the scope by {@link org.eclipse.kapua.service.datastore.internal.DataIndexRollup}.
+ *
+ * @since 2.0.0
+ */
+public class MetricRollupImpl {
+
+    private KapuaId scopeId;
+    private String clientId;
+    private String channel;
+    private Date timestamp;
+    private long count;
+    private final Map<String, MetricStatistics> metrics = new LinkedHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param scopeId   The scope {@link KapuaId}.
+     * @param clientId  The client id.
+     * @param channel   The channel.
+     * @param timestamp The start of the time bucket.
+     * @since 2.0.0
+     */
+    public MetricRollupImpl(KapuaId scopeId, String clientId, String channel, Date timestamp) {
+        this.scopeId = scopeId;
+        this.clientId = clientId;
+        this.channel = channel;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the identifier of the rollup, which is the same every time the same time bucket is rolled up.
+     *
+     * @return The identifier of the rollup.
+     * @since 2.0.0
+     */
+    public String getId() {
+        return DatastoreUtils.getHashCode(scopeId.toCompactId(), ":", clientId, ":", channel, ":", Long.toString(timestamp.getTime()));
+    }
+
+    public KapuaId getScopeId() {
+        return scopeId;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the number of messages within the time bucket.
+     *
+     * @return The number of messages within the time bucket.
+     * @since 2.0.0
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * Gets the {@link MetricStatistics}, by metric value qualifier (see {@link DatastoreUtils#getMetricValueQualifier(String, String)}).
+     * <p>
+     * Only {@link MetricStatistics#getCount()}, {@link MetricStatistics#getMin()}, {@link MetricStatistics#getMax()} and {@link MetricStatistics#getSum()} are stored.
+     *
+     * @return The {@link MetricStatistics}, by metric value qualifier.
+     * @since 2.0.0
+     */
+    public Map<String, MetricStatistics> getMetrics() {
+        return metrics;
+    }
+}
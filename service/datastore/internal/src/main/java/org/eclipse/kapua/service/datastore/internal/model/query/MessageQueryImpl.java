@@ -13,6 +13,7 @@
 package org.eclipse.kapua.service.datastore.internal.model.query;
 
 import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
 import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
 import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
@@ -20,7 +21,12 @@ import org.eclipse.kapua.service.storable.model.query.AbstractStorableQuery;
 import org.eclipse.kapua.service.storable.model.query.SortField;
 import org.eclipse.kapua.service.storable.model.query.StorableFetchStyle;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * {@link MessageQuery} implementation
@@ -29,6 +35,34 @@ import java.util.Collections;
  */
 public class MessageQueryImpl extends AbstractStorableQuery implements MessageQuery {
 
+    /**
+     * The message fields, except the metrics, fetched by {@link StorableFetchStyle#SOURCE_FULL}.
+     */
+    private static final String[] SOURCE_FULL_FIELDS = new String[]{
+            MessageSchema.MESSAGE_ID,
+            MessageSchema.MESSAGE_TIMESTAMP,
+            MessageSchema.MESSAGE_RECEIVED_ON,
+            MessageSchema.MESSAGE_IP_ADDRESS,
+            MessageSchema.MESSAGE_SCOPE_ID,
+            MessageSchema.MESSAGE_DEVICE_ID,
+            MessageSchema.MESSAGE_CLIENT_ID,
+            MessageSchema.MESSAGE_CHANNEL,
+            MessageSchema.MESSAGE_CHANNEL_PARTS,
+            MessageSchema.MESSAGE_CAPTURED_ON,
+            MessageSchema.MESSAGE_SENT_ON,
+            MessageSchema.MESSAGE_POSITION,
+            MessageSchema.MESSAGE_BODY};
+
+    /**
+     * The message fields, except the metrics, fetched by {@link StorableFetchStyle#SOURCE_SELECT}.
+     */
+    private static final String[] SOURCE_SELECT_FIELDS = new String[]{MessageSchema.MESSAGE_CAPTURED_ON, MessageSchema.MESSAGE_POSITION + ".*"};
+
+    private List<String> includedFields;
+    private List<String> excludedFields;
+    private List<String> includedMetrics;
+    private List<String> excludedMetrics;
+
     /**
      * Constructor.
      *
@@ -50,12 +84,33 @@ public class MessageQueryImpl extends AbstractStorableQuery implements MessageQu
                 includeSource = getFields();
                 break;
             case SOURCE_SELECT:
-                includeSource = new String[]{MessageSchema.MESSAGE_CAPTURED_ON, MessageSchema.MESSAGE_POSITION + ".*", MessageSchema.MESSAGE_METRICS + ".*"};
+                includeSource = new String[]{MessageSchema.MESSAGE_CAPTURED_ON, MessageSchema.MESSAGE_POSITION + ".*", MessageSchema.MESSAGE_METRICS + ".*", MessageSchema.MESSAGE_UNINDEXED_METRICS + ".*"};
                 break;
             case SOURCE_FULL:
                 includeSource = new String[]{"*"};
         }
-        return includeSource;
+
+        if (fetchStyle == StorableFetchStyle.FIELDS || (getIncludedFields().isEmpty() && getIncludedMetrics().isEmpty())) {
+            return includeSource;
+        }
+
+        // Projection: the message identifiers, the requested fields and the requested metrics
+        Set<String> projectedIncludes = new LinkedHashSet<>(Arrays.asList(getFields()));
+        if (!getIncludedFields().isEmpty()) {
+            projectedIncludes.addAll(getIncludedFields());
+        } else {
+            projectedIncludes.addAll(Arrays.asList(fetchStyle == StorableFetchStyle.SOURCE_SELECT ? SOURCE_SELECT_FIELDS : SOURCE_FULL_FIELDS));
+        }
+        if (!getIncludedMetrics().isEmpty()) {
+            for (String includedMetric : getIncludedMetrics()) {
+                projectedIncludes.add(getMetricField(MessageSchema.MESSAGE_METRICS, includedMetric));
+                projectedIncludes.add(getMetricField(MessageSchema.MESSAGE_UNINDEXED_METRICS, includedMetric));
+            }
+        } else {
+            projectedIncludes.add(MessageSchema.MESSAGE_METRICS + ".*");
+            projectedIncludes.add(MessageSchema.MESSAGE_UNINDEXED_METRICS + ".*");
+        }
+        return projectedIncludes.toArray(new String[0]);
     }
 
     @Override
@@ -72,7 +127,23 @@ public class MessageQueryImpl extends AbstractStorableQuery implements MessageQu
             case SOURCE_FULL:
                 excludeSource = new String[]{""};
         }
-        return excludeSource;
+
+        if (fetchStyle == StorableFetchStyle.FIELDS || (getExcludedFields().isEmpty() && getExcludedMetrics().isEmpty())) {
+            return excludeSource;
+        }
+
+        Set<String> projectedExcludes = new LinkedHashSet<>();
+        for (String exclude : excludeSource) {
+            if (!exclude.isEmpty()) {
+                projectedExcludes.add(exclude);
+            }
+        }
+        projectedExcludes.addAll(getExcludedFields());
+        for (String excludedMetric : getExcludedMetrics()) {
+            projectedExcludes.add(getMetricField(MessageSchema.MESSAGE_METRICS, excludedMetric));
+            projectedExcludes.add(getMetricField(MessageSchema.MESSAGE_UNINDEXED_METRICS, excludedMetric));
+        }
+        return projectedExcludes.toArray(new String[0]);
     }
 
     @Override
@@ -86,4 +157,71 @@ public class MessageQueryImpl extends AbstractStorableQuery implements MessageQu
                 MessageField.TIMESTAMP.field()};
     }
 
+    @Override
+    public List<String> getIncludedFields() {
+        if (includedFields == null) {
+            includedFields = new ArrayList<>();
+        }
+
+        return includedFields;
+    }
+
+    @Override
+    public void setIncludedFields(List<String> includedFields) {
+        this.includedFields = includedFields;
+    }
+
+    @Override
+    public List<String> getExcludedFields() {
+        if (excludedFields == null) {
+            excludedFields = new ArrayList<>();
+        }
+
+        return excludedFields;
+    }
+
+    @Override
+    public void setExcludedFields(List<String> excludedFields) {
+        this.excludedFields = excludedFields;
+    }
+
+    @Override
+    public List<String> getIncludedMetrics() {
+        if (includedMetrics == null) {
+            includedMetrics = new ArrayList<>();
+        }
+
+        return includedMetrics;
+    }
+
+    @Override
+    public void setIncludedMetrics(List<String> includedMetrics) {
+        this.includedMetrics = includedMetrics;
+    }
+
+    @Override
+    public List<String> getExcludedMetrics() {
+        if (excludedMetrics == null) {
+            excludedMetrics = new ArrayList<>();
+        }
+
+        return excludedMetrics;
+    }
+
+    @Override
+    public void setExcludedMetrics(List<String> excludedMetrics) {
+        this.excludedMetrics = excludedMetrics;
+    }
+
+    /**
+     * Gets the field of the given metric, which holds its typed values.
+     *
+     * @param metricsField The field which holds the metrics, {@link MessageSchema#MESSAGE_METRICS} or {@link MessageSchema#MESSAGE_UNINDEXED_METRICS}.
+     * @param metricName   The metric name.
+     * @return The metric field.
+     * @since 2.0.0
+     */
+    private static String getMetricField(String metricsField, String metricName) {
+        return metricsField + "." + DatastoreUtils.normalizeMetricName(metricName);
+    }
 }
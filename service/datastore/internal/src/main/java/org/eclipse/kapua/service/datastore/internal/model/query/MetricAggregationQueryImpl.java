@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model.query;
+
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationGroupBy;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link MetricAggregationQuery} implementation
+ *
+ * @since 2.0.0
+ */
+public class MetricAggregationQueryImpl extends MessageQueryImpl implements MetricAggregationQuery {
+
+    private final Map<String, Class<?>> metrics = new LinkedHashMap<>();
+    private long interval;
+    private MetricAggregationGroupBy groupBy;
+
+    /**
+     * Constructor.
+     *
+     * @param scopeId The scope {@link KapuaId}.
+     * @since 2.0.0
+     */
+    public MetricAggregationQueryImpl(KapuaId scopeId) {
+        super(scopeId);
+    }
+
+    @Override
+    public Map<String, Class<?>> getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void addMetric(String name, Class<?> type) {
+        metrics.put(name, type);
+    }
+
+    @Override
+    public long getInterval() {
+        return interval;
+    }
+
+    @Override
+    public void setInterval(long interval) {
+        this.interval = interval;
+    }
+
+    @Override
+    public MetricAggregationGroupBy getGroupBy() {
+        return groupBy;
+    }
+
+    @Override
+    public void setGroupBy(MetricAggregationGroupBy groupBy) {
+        this.groupBy = groupBy;
+    }
+}
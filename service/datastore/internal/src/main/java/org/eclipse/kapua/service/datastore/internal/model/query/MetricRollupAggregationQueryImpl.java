@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model.query;
+
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+
+/**
+ * {@link MetricAggregationQuery} answered from the rollup index of the scope instead of from its data indexes.
+ * <p>
+ * The statistics of each time bucket are merged from the statistics of the rolled up time buckets within it.
+ *
+ * @since 2.0.0
+ */
+public class MetricRollupAggregationQueryImpl extends MetricAggregationQueryImpl {
+
+    /**
+     * Constructor.
+     *
+     * @param query The {@link MetricAggregationQuery} to answer from the rollup index.
+     * @since 2.0.0
+     */
+    public MetricRollupAggregationQueryImpl(MetricAggregationQuery query) {
+        super(query.getScopeId());
+
+        setPredicate(query.getPredicate());
+        setLimit(query.getLimit());
+        setInterval(query.getInterval());
+        setGroupBy(query.getGroupBy());
+        getMetrics().putAll(query.getMetrics());
+    }
+}
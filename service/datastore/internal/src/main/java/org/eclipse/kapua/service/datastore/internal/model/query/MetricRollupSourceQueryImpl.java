@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.eclipse.kapua.model.id.KapuaId;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Query of a page of the time buckets, by client id and channel, of the messages of a data index, with the statistics of the given metrics.
+ * <p>
+ * It is used to roll up a data index by {@link org.eclipse.kapua.service.datastore.internal.DataIndexRollup}.
+ *
+ * @since 2.0.0
+ */
+public class MetricRollupSourceQueryImpl extends MessageQueryImpl {
+
+    private final Map<String, Class<?>> metrics = new LinkedHashMap<>();
+    private long interval;
+    private int pageSize;
+    private JsonNode afterKey;
+
+    /**
+     * Constructor.
+     *
+     * @param scopeId The scope {@link KapuaId}.
+     * @since 2.0.0
+     */
+    public MetricRollupSourceQueryImpl(KapuaId scopeId) {
+        super(scopeId);
+    }
+
+    /**
+     * Gets the metrics to compute the statistics of, with their types.
+     *
+     * @return The metrics to compute the statistics of, with their types.
+     * @since 2.0.0
+     */
+    public Map<String, Class<?>> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the width (in milliseconds) of the time buckets.
+     *
+     * @return The width (in milliseconds) of the time buckets.
+     * @since 2.0.0
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    public void setInterval(long interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Gets the maximum number of time buckets of the page.
+     *
+     * @return The maximum number of time buckets of the page.
+     * @since 2.0.0
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Gets the key of the last time bucket of the previous page.
+     *
+     * @return The key of the last time bucket of the previous page, or {@code null} for the first page.
+     * @since 2.0.0
+     */
+    public JsonNode getAfterKey() {
+        return afterKey;
+    }
+
+    public void setAfterKey(JsonNode afterKey) {
+        this.afterKey = afterKey;
+    }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model.query;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.eclipse.kapua.model.id.KapuaId;
+
+/**
+ * Query of a page of the distinct names and types of the metrics of the metric registry of a scope.
+ * <p>
+ * It is used to know which metrics to roll up by {@link org.eclipse.kapua.service.datastore.internal.DataIndexRollup}.
+ *
+ * @since 2.0.0
+ */
+public class MetricTypesQueryImpl extends MetricInfoQueryImpl {
+
+    private int pageSize;
+    private JsonNode afterKey;
+
+    /**
+     * Constructor.
+     *
+     * @param scopeId The scope {@link KapuaId}.
+     * @since 2.0.0
+     */
+    public MetricTypesQueryImpl(KapuaId scopeId) {
+        super(scopeId);
+    }
+
+    /**
+     * Gets the maximum number of metric names and types of the page.
+     *
+     * @return The maximum number of metric names and types of the page.
+     * @since 2.0.0
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Gets the key of the last metric name and type of the previous page.
+     *
+     * @return The key of the last metric name and type of the previous page, or {@code null} for the first page.
+     * @since 2.0.0
+     */
+    public JsonNode getAfterKey() {
+        return afterKey;
+    }
+
+    public void setAfterKey(JsonNode afterKey) {
+        this.afterKey = afterKey;
+    }
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model.query;
+
+import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
+import org.eclipse.kapua.service.datastore.model.query.predicate.MetricPredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.AndPredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.OrPredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.RangePredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.StorablePredicate;
+
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * The range of message timestamps that a {@link StorablePredicate} can match.
+ * <p>
+ * The range is computed from the {@link RangePredicate}s on {@link MessageSchema#MESSAGE_TIMESTAMP}:
+ * an {@link AndPredicate} matches the intersection of the ranges of its {@link StorablePredicate}s and an {@link OrPredicate} matches their union.
+ * Any other {@link StorablePredicate} does not restrict the range.
+ * The computed range can be wider than the matched timestamps, but never narrower.
+ *
+ * @since 2.0.0
+ */
+public class TimestampRange {
+
+    private static final TimestampRange UNBOUNDED = new TimestampRange(null, null);
+
+    private final Instant start;
+    private final Instant end;
+
+    /**
+     * Constructor.
+     *
+     * @param start The start of the range, or {@code null} if not bounded.
+     * @param end   The end of the range, or {@code null} if not bounded.
+     * @since 2.0.0
+     */
+    private TimestampRange(Instant start, Instant end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Gets the {@link TimestampRange} that the given {@link StorablePredicate} can match.
+     *
+     * @param predicate The {@link StorablePredicate} to analyze. It can be {@code null}.
+     * @return The {@link TimestampRange}.
+     * @since 2.0.0
+     */
+    public static TimestampRange of(StorablePredicate predicate) {
+        if (predicate instanceof AndPredicate) {
+            TimestampRange range = UNBOUNDED;
+            for (StorablePredicate childPredicate : ((AndPredicate) predicate).getPredicates()) {
+                range = range.intersect(of(childPredicate));
+            }
+            return range;
+        } else if (predicate instanceof OrPredicate) {
+            TimestampRange range = null;
+            for (StorablePredicate childPredicate : ((OrPredicate) predicate).getPredicates()) {
+                range = range == null ? of(childPredicate) : range.union(of(childPredicate));
+            }
+            return range != null ? range : UNBOUNDED;
+        } else if (predicate instanceof RangePredicate && !(predicate instanceof MetricPredicate)) {
+            RangePredicate rangePredicate = (RangePredicate) predicate;
+            if (rangePredicate.getField() != null && MessageSchema.MESSAGE_TIMESTAMP.equals(rangePredicate.getField().field())) {
+                return new TimestampRange(toInstant(rangePredicate.getMinValue()), toInstant(rangePredicate.getMaxValue()));
+            }
+        }
+        return UNBOUNDED;
+    }
+
+    /**
+     * Gets the start of the range.
+     *
+     * @return The start of the range, or {@code null} if not bounded.
+     * @since 2.0.0
+     */
+    public Instant getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end of the range.
+     *
+     * @return The end of the range, or {@code null} if not bounded.
+     * @since 2.0.0
+     */
+    public Instant getEnd() {
+        return end;
+    }
+
+    /**
+     * Checks whether both the start and the end of the range are bounded.
+     *
+     * @return {@code true} if the range is bounded, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    public boolean isBounded() {
+        return start != null && end != null;
+    }
+
+    private TimestampRange intersect(TimestampRange other) {
+        return new TimestampRange(
+                start == null || (other.start != null && other.start.isAfter(start)) ? other.start : start,
+                end == null || (other.end != null && other.end.isBefore(end)) ? other.end : end);
+    }
+
+    private TimestampRange union(TimestampRange other) {
+        return new TimestampRange(
+                start == null || other.start == null ? null : (other.start.isBefore(start) ? other.start : start),
+                end == null || other.end == null ? null : (other.end.isAfter(end) ? other.end : end));
+    }
+
+    /**
+     * Converts a bound of a {@link RangePredicate} to an {@link Instant}.
+     * <p>
+     * {@link String} bounds are left to Elasticsearch (they can be date math expressions), so they are considered not bounded.
+     *
+     * @param value The bound value.
+     * @return The {@link Instant}, or {@code null} if not bounded.
+     * @since 2.0.0
+     */
+    private static Instant toInstant(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).toInstant();
+        } else if (value instanceof Instant) {
+            return (Instant) value;
+        } else if (value instanceof Long || value instanceof Integer) {
+            return Instant.ofEpochMilli(((Number) value).longValue());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.schema;
+
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.datastore.internal.DatastoreCacheManager;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientException;
+import org.eclipse.kapua.service.storable.exception.MappingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the data index of the next indexing window before the current one ends.
+ * <p>
+ * Scopes which used their data index in the last {@link DatastoreSettingsKey#INDEX_PRECREATION_AHEAD} seconds are considered active.
+ * Every {@link DatastoreSettingsKey#INDEX_PRECREATION_INTERVAL} seconds, the data index that active scopes will use in
+ * {@link DatastoreSettingsKey#INDEX_PRECREATION_AHEAD} seconds is synchronized if it is not the current one,
+ * so that messages stored after the indexing window boundary find their data index already created and cached.
+ * <p>
+ * The background check runs between {@link #start()} and {@link #stop()}, which are called by the {@link Schema}.
+ *
+ * @since 2.0.0
+ */
+public class DataIndexPreCreator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataIndexPreCreator.class);
+
+    private final Schema schema;
+    private final boolean enabled;
+    private final long aheadMillis;
+    private final long interval;
+
+    private final Map<KapuaId, ScopeActivity> activeScopes = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executor;
+    private volatile boolean running;
+
+    /**
+     * Constructor.
+     * <p>
+     * Reads the {@link DatastoreSettingsKey#INDEX_PRECREATION_ENABLED}, {@link DatastoreSettingsKey#INDEX_PRECREATION_AHEAD}
+     * and {@link DatastoreSettingsKey#INDEX_PRECREATION_INTERVAL} settings.
+     *
+     * @param schema The {@link Schema} used to synchronize the data indexes.
+     * @since 2.0.0
+     */
+    DataIndexPreCreator(Schema schema) {
+        this(schema,
+                DatastoreSettings.getInstance().getBoolean(DatastoreSettingsKey.INDEX_PRECREATION_ENABLED, true),
+                TimeUnit.SECONDS.toMillis(DatastoreSettings.getInstance().getLong(DatastoreSettingsKey.INDEX_PRECREATION_AHEAD, 600L)),
+                DatastoreSettings.getInstance().getLong(DatastoreSettingsKey.INDEX_PRECREATION_INTERVAL, 60L));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param schema      The {@link Schema} used to synchronize the data indexes.
+     * @param enabled     Whether the background check is enabled.
+     * @param aheadMillis How long (in milliseconds) before the end of the current indexing window the next data index is created.
+     * @param interval    Interval (in seconds) between the checks.
+     * @since 2.0.0
+     */
+    public DataIndexPreCreator(Schema schema, boolean enabled, long aheadMillis, long interval) {
+        this.schema = schema;
+        this.enabled = enabled;
+        this.aheadMillis = aheadMillis;
+        this.interval = interval;
+    }
+
+    /**
+     * Starts the background check, if enabled. Does nothing if already started.
+     *
+     * @since 2.0.0
+     */
+    public synchronized void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "datastore-data-index-precreation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::preCreateDataIndexes, interval, interval, TimeUnit.SECONDS);
+        running = true;
+    }
+
+    /**
+     * Stops the background check and forgets the active scopes. Does nothing if not started.
+     *
+     * @since 2.0.0
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+
+        running = false;
+        executor.shutdownNow();
+        executor = null;
+        activeScopes.clear();
+    }
+
+    /**
+     * Marks the scope as active, if the background check is running.
+     *
+     * @param scopeId The scope {@link KapuaId} which is using its data index.
+     * @since 2.0.0
+     */
+    public void onDataIndexUsed(KapuaId scopeId) {
+        if (!running) {
+            return;
+        }
+
+        ScopeActivity scopeActivity = activeScopes.get(scopeId);
+        if (scopeActivity == null) {
+            scopeActivity = activeScopes.computeIfAbsent(scopeId, id -> new ScopeActivity());
+        }
+        scopeActivity.lastUsedOn = System.currentTimeMillis();
+    }
+
+    /**
+     * Creates the next data index of the active scopes, if they will use a new one within {@code aheadMillis}.
+     * <p>
+     * Scopes which did not use their data index within {@code aheadMillis} are no longer active.
+     *
+     * @since 2.0.0
+     */
+    public void preCreateDataIndexes() {
+        long now = System.currentTimeMillis();
+        long ahead = now + aheadMillis;
+
+        Iterator<Map.Entry<KapuaId, ScopeActivity>> activeScopesIterator = activeScopes.entrySet().iterator();
+        while (activeScopesIterator.hasNext()) {
+            Map.Entry<KapuaId, ScopeActivity> activeScope = activeScopesIterator.next();
+            if (activeScope.getValue().lastUsedOn < now - aheadMillis) {
+                activeScopesIterator.remove();
+                continue;
+            }
+
+            KapuaId scopeId = activeScope.getKey();
+            try {
+                String nextDataIndexName = schema.getDataIndexName(scopeId, ahead);
+                if (nextDataIndexName.equals(schema.getDataIndexName(scopeId, now)) ||
+                        DatastoreCacheManager.getInstance().getMetadataCache().get(nextDataIndexName) != null) {
+                    continue;
+                }
+
+                LOG.info("Creating data index {} ahead of the indexing window boundary", nextDataIndexName);
+                schema.synchDataIndex(scopeId, ahead);
+            } catch (ClientException | MappingException | RuntimeException e) {
+                LOG.warn("Cannot create the next data index for scope {}. It will be created by the first message stored in it", scopeId, e);
+            }
+        }
+    }
+
+    /**
+     * Tracks when a scope last used its data index.
+     *
+     * @since 2.0.0
+     */
+    private static class ScopeActivity {
+
+        private volatile long lastUsedOn;
+    }
+}
@@ -245,6 +245,15 @@ public class MessageSchema {
      */
     public static final String MESSAGE_METRICS = "metrics";
 
+    /**
+     * Message unindexed metrics
+     * <p>
+     * Metrics which exceeded the metric field budget of the data index: they are kept in the source only.
+     *
+     * @since 2.0.0
+     */
+    public static final String MESSAGE_UNINDEXED_METRICS = "unindexed_metrics";
+
     /**
      * Message body
      *
@@ -354,6 +363,10 @@ public class MessageSchema {
                             new KeyValueEntry(SchemaKeys.KEY_DYNAMIC, true) });
             propertiesNode.set(MESSAGE_METRICS, messageMetrics);
 
+            ObjectNode messageUnindexedMetrics = MappingUtils.newObjectNode(
+                    new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_OBJECT), new KeyValueEntry(SchemaKeys.KEY_ENABLED, false) });
+            propertiesNode.set(MESSAGE_UNINDEXED_METRICS, messageUnindexedMetrics);
+
             ObjectNode messageBody = MappingUtils.newObjectNode(new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_BINARY), new KeyValueEntry(SchemaKeys.KEY_INDEX, SchemaKeys.VALUE_FALSE) });
             propertiesNode.set(MESSAGE_BODY, messageBody);
         }
@@ -14,8 +14,10 @@ package org.eclipse.kapua.service.datastore.internal.schema;
 
 import org.eclipse.kapua.service.datastore.internal.mediator.Metric;
 
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Metadata object
@@ -35,8 +37,12 @@ public class Metadata {
     // No removal of existing cached mappings or changes in the
     // existing mappings.
     private final Map<String, Metric> messageMappingsCache;
+    private final MetricSignatureSet knownMetricSignatures;
     //
 
+    // Clients whose messages exceeded the metric field budget of the index
+    private final Set<String> overBudgetClientIds;
+
     /**
      * Get the mappings cache
      *
@@ -47,13 +53,89 @@ public class Metadata {
         return messageMappingsCache;
     }
 
+    /**
+     * Get the signatures of the metric sets whose mappings are already applied
+     *
+     * @return
+     * @since 2.0.0
+     */
+    public MetricSignatureSet getKnownMetricSignatures() {
+        return knownMetricSignatures;
+    }
+
+    /**
+     * Get the number of metric fields mapped in the data index.
+     * <p>
+     * The metric fields already mapped in the data index when this {@link Metadata} has been created are counted as well.
+     *
+     * @return
+     * @since 2.0.0
+     */
+    public int getMetricFieldCount() {
+        return messageMappingsCache.size();
+    }
+
+    /**
+     * Counts the given mapped metric names which are not yet mapped in the data index.
+     *
+     * @param mappedNames The mapped metric names, see {@link #getMessageMappingsCache()}.
+     * @return The number of the given mapped metric names which are not yet mapped.
+     * @since 2.0.0
+     */
+    public int countNewMetricFields(Collection<String> mappedNames) {
+        int newMetricFields = 0;
+        for (String mappedName : mappedNames) {
+            if (!messageMappingsCache.containsKey(mappedName)) {
+                newMetricFields++;
+            }
+        }
+        return newMetricFields;
+    }
+
+    /**
+     * Checks whether mapping the given number of new metric fields would exceed the given metric field budget.
+     * <p>
+     * The check is not atomic with the mapping of the fields, so concurrent messages can exceed the budget by their new metrics.
+     *
+     * @param newMetricFields   The number of new metric fields.
+     * @param metricFieldBudget The maximum number of metric fields of the data index.
+     * @return {@code true} if the metric field budget would be exceeded, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    public boolean isMetricFieldBudgetExceeded(int newMetricFields, int metricFieldBudget) {
+        return newMetricFields > 0 && getMetricFieldCount() + newMetricFields > metricFieldBudget;
+    }
+
+    /**
+     * Records the given client id as one whose messages exceeded the metric field budget of the data index.
+     *
+     * @param clientId The client id.
+     * @return {@code true} if the client id was not already recorded, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    public boolean addOverBudgetClientId(String clientId) {
+        return overBudgetClientIds.add(clientId);
+    }
+
+    /**
+     * Get the client ids whose messages exceeded the metric field budget of the data index.
+     *
+     * @return
+     * @since 2.0.0
+     */
+    public Set<String> getOverBudgetClientIds() {
+        return overBudgetClientIds;
+    }
+
     /**
      * Constructor.
      *
      * @since 1.0.0
      */
     public Metadata(String dataIndexName, String channelRegistryIndexName, String clientRegistryIndexName, String metricRegistryIndexName) {
-        this.messageMappingsCache = new HashMap<>(100);
+        this.messageMappingsCache = new ConcurrentHashMap<>(100);
+        this.knownMetricSignatures = new MetricSignatureSet();
+        this.overBudgetClientIds = ConcurrentHashMap.newKeySet();
         this.dataIndexName = dataIndexName;
         this.channelRegistryIndexName = channelRegistryIndexName;
         this.clientRegistryIndexName = clientRegistryIndexName;
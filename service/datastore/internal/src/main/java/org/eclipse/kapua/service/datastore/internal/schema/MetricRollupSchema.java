@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.model.MetricRollupImpl;
+import org.eclipse.kapua.service.elasticsearch.client.SchemaKeys;
+import org.eclipse.kapua.service.storable.exception.MappingException;
+import org.eclipse.kapua.service.storable.model.utils.KeyValueEntry;
+import org.eclipse.kapua.service.storable.model.utils.MappingUtils;
+
+/**
+ * {@link MetricRollupImpl} schema definition.
+ * <p>
+ * The scope id, client id, channel and timestamp fields have the same name of the {@link MessageSchema} ones,
+ * so that the predicates of a message query on them can be run as they are on the rollup index.
+ *
+ * @since 2.0.0
+ */
+public class MetricRollupSchema {
+
+    /**
+     * @since 2.0.0
+     */
+    private MetricRollupSchema() {
+    }
+
+    /**
+     * Metric rollup schema name
+     *
+     * @since 2.0.0
+     */
+    public static final String ROLLUP_TYPE_NAME = "rollup";
+
+    /**
+     * Rollup scope id
+     *
+     * @since 2.0.0
+     */
+    public static final String ROLLUP_SCOPE_ID = MessageSchema.MESSAGE_SCOPE_ID;
+
+    /**
+     * Rollup client identifier
+     *
+     * @since 2.0.0
+     */
+    public static final String ROLLUP_CLIENT_ID = MessageSchema.MESSAGE_CLIENT_ID;
+
+    /**
+     * Rollup channel
+     *
+     * @since 2.0.0
+     */
+    public static final String ROLLUP_CHANNEL = MessageSchema.MESSAGE_CHANNEL;
+
+    /**
+     * Rollup timestamp, which is the start of the rolled up time bucket
+     *
+     * @since 2.0.0
+     */
+    public static final String ROLLUP_TIMESTAMP = MessageSchema.MESSAGE_TIMESTAMP;
+
+    /**
+     * Rollup message count
+     *
+     * @since 2.0.0
+     */
+    public static final String ROLLUP_COUNT = "count";
+
+    /**
+     * Rollup metric statistics, by metric name and type acronym
+     *
+     * @since 2.0.0
+     */
+    public static final String ROLLUP_METRICS = MessageSchema.MESSAGE_METRICS;
+
+    /**
+     * Rolled up data index, only set on the document which marks a data index as rolled up
+     *
+     * @since 2.0.0
+     */
+    public static final String ROLLUP_DATA_INDEX = "rolled_up_index";
+
+    /**
+     * Metric statistic: number of values
+     *
+     * @since 2.0.0
+     */
+    public static final String STATISTIC_COUNT = "count";
+
+    /**
+     * Metric statistic: minimum value
+     *
+     * @since 2.0.0
+     */
+    public static final String STATISTIC_MIN = "min";
+
+    /**
+     * Metric statistic: maximum value
+     *
+     * @since 2.0.0
+     */
+    public static final String STATISTIC_MAX = "max";
+
+    /**
+     * Metric statistic: sum of the values
+     *
+     * @since 2.0.0
+     */
+    public static final String STATISTIC_SUM = "sum";
+
+    /**
+     * Create and return the Json representation of the metric rollup schema
+     * <p>
+     * The statistics of the metrics are mapped dynamically: the count as long and the others as double.
+     *
+     * @param sourceEnable
+     * @return
+     * @throws MappingException
+     * @since 2.0.0
+     */
+    public static JsonNode getRollupTypeSchema(boolean sourceEnable) throws MappingException {
+        ObjectNode rollupNode = MappingUtils.newObjectNode();
+
+        ObjectNode sourceRollup = MappingUtils.newObjectNode(new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_ENABLED, sourceEnable) });
+        rollupNode.set(SchemaKeys.KEY_SOURCE, sourceRollup);
+
+        ObjectNode countTemplateNode = MappingUtils.newObjectNode(new KeyValueEntry[]{
+                new KeyValueEntry(SchemaKeys.KEY_PATH_MATCH, ROLLUP_METRICS + ".*." + STATISTIC_COUNT),
+                new KeyValueEntry(SchemaKeys.KEY_MATCH_MAPPING_TYPE, SchemaKeys.TYPE_LONG) });
+        countTemplateNode.set(SchemaKeys.KEY_MAPPING, MappingUtils.newObjectNode(new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_LONG) }));
+
+        ObjectNode valueTemplateNode = MappingUtils.newObjectNode(new KeyValueEntry[]{
+                new KeyValueEntry(SchemaKeys.KEY_PATH_MATCH, ROLLUP_METRICS + ".*"),
+                new KeyValueEntry(SchemaKeys.KEY_MATCH_MAPPING_TYPE, SchemaKeys.TYPE_DOUBLE) });
+        valueTemplateNode.set(SchemaKeys.KEY_MAPPING, MappingUtils.newObjectNode(new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_DOUBLE) }));
+
+        rollupNode.set(SchemaKeys.KEY_DYNAMIC_TEMPLATES, MappingUtils.newArrayNode()
+                .add(MappingUtils.newObjectNode().set(ROLLUP_METRICS + "_" + STATISTIC_COUNT, countTemplateNode))
+                .add(MappingUtils.newObjectNode().set(ROLLUP_METRICS + "_values", valueTemplateNode)));
+
+        ObjectNode propertiesNode = MappingUtils.newObjectNode();
+        {
+            ObjectNode rollupScopeId = MappingUtils.newObjectNode(new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_KEYWORD), new KeyValueEntry(SchemaKeys.KEY_INDEX, SchemaKeys.VALUE_TRUE) });
+            propertiesNode.set(ROLLUP_SCOPE_ID, rollupScopeId);
+
+            ObjectNode rollupClientId = MappingUtils.newObjectNode(new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_KEYWORD), new KeyValueEntry(SchemaKeys.KEY_INDEX, SchemaKeys.VALUE_TRUE) });
+            propertiesNode.set(ROLLUP_CLIENT_ID, rollupClientId);
+
+            ObjectNode rollupChannel = MappingUtils.newObjectNode(new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_KEYWORD), new KeyValueEntry(SchemaKeys.KEY_INDEX, SchemaKeys.VALUE_TRUE) });
+            propertiesNode.set(ROLLUP_CHANNEL, rollupChannel);
+
+            ObjectNode rollupTimestamp = MappingUtils.newObjectNode(new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_DATE), new KeyValueEntry(SchemaKeys.KEY_FORMAT, DatastoreUtils.DATASTORE_DATE_FORMAT) });
+            propertiesNode.set(ROLLUP_TIMESTAMP, rollupTimestamp);
+
+            ObjectNode rollupCount = MappingUtils.newObjectNode(new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_LONG) });
+            propertiesNode.set(ROLLUP_COUNT, rollupCount);
+
+            ObjectNode rollupDataIndex = MappingUtils.newObjectNode(new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_KEYWORD), new KeyValueEntry(SchemaKeys.KEY_INDEX, SchemaKeys.VALUE_TRUE) });
+            propertiesNode.set(ROLLUP_DATA_INDEX, rollupDataIndex);
+
+            ObjectNode rollupMetrics = MappingUtils.newObjectNode(
+                    new KeyValueEntry[]{ new KeyValueEntry(SchemaKeys.KEY_TYPE, SchemaKeys.TYPE_OBJECT), new KeyValueEntry(SchemaKeys.KEY_ENABLED, true),
+                            new KeyValueEntry(SchemaKeys.KEY_DYNAMIC, true) });
+            propertiesNode.set(ROLLUP_METRICS, rollupMetrics);
+        }
+        rollupNode.set(SchemaKeys.FIELD_NAME_PROPERTIES, propertiesNode);
+
+        return rollupNode;
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.schema;
+
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of the metric signatures whose mappings have already been applied to a data index.
+ * <p>
+ * A metric signature is a 64 bit hash of the set of metric names and types of a message, see {@link #signatureOf(Map)}.
+ * Messages with a known signature do not need any mapping update, so they can skip building and comparing their mappings.
+ * <p>
+ * The set is a fixed size open addressing table of primitive longs: lookups and insertions do not allocate and do not lock.
+ * When the table is full new signatures are not retained, and their messages just go through the regular mapping update.
+ *
+ * @since 2.0.0
+ */
+public class MetricSignatureSet {
+
+    private static final int CAPACITY = 1024;
+    private static final int MAX_PROBES = 16;
+
+    private static final long EMPTY = 0L;
+
+    private final AtomicLongArray signatures = new AtomicLongArray(CAPACITY);
+
+    /**
+     * Computes the signature of the given metrics.
+     * <p>
+     * The signature depends only on the set of metric names and on their types, not on the values nor on the iteration order.
+     *
+     * @param metrics The metrics, as found in the message payload.
+     * @return The signature of the metrics.
+     * @since 2.0.0
+     */
+    public static long signatureOf(Map<String, Object> metrics) {
+        long signature = metrics.size();
+        for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+            long metricHash = hashOf(metric.getKey());
+
+            Object value = metric.getValue();
+            if (value != null) {
+                metricHash = metricHash * 31 + DatastoreUtils.getClientMetricFromType(value.getClass()).hashCode();
+            }
+
+            // Sum of mixed hashes, to be independent from the iteration order
+            signature += mix(metricHash);
+        }
+        return signature != EMPTY ? signature : 1L;
+    }
+
+    /**
+     * Checks whether the given signature is known.
+     *
+     * @param signature The signature to check.
+     * @return {@code true} if the signature is known, {@code false} otherwise.
+     * @since 2.0.0
+     */
+    public boolean contains(long signature) {
+        int slot = slotOf(signature);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            long slotSignature = signatures.get(slot);
+            if (slotSignature == signature) {
+                return true;
+            } else if (slotSignature == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & (CAPACITY - 1);
+        }
+        return false;
+    }
+
+    /**
+     * Adds the given signature to the known ones.
+     *
+     * @param signature The signature to add.
+     * @since 2.0.0
+     */
+    public void add(long signature) {
+        int slot = slotOf(signature);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            long slotSignature = signatures.get(slot);
+            if (slotSignature == signature) {
+                return;
+            } else if (slotSignature == EMPTY) {
+                if (signatures.compareAndSet(slot, EMPTY, signature)) {
+                    return;
+                }
+                // Lost the slot to another thread: check it again
+                probe--;
+                continue;
+            }
+            slot = (slot + 1) & (CAPACITY - 1);
+        }
+    }
+
+    private static int slotOf(long signature) {
+        return (int) mix(signature) & (CAPACITY - 1);
+    }
+
+    /**
+     * 64 bit hash of the characters of the given {@link String}, which (unlike {@link String#hashCode()}) keeps the collisions
+     * between the metric names of a fleet negligible.
+     */
+    private static long hashOf(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Finalization step of MurmurHash3, to spread the bits of the hash.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
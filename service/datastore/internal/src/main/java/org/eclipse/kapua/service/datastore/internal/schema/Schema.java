@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore.internal.schema;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -37,11 +38,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Datastore schema creation/update
+ * <p>
+ * Schema updates are serialized per index: concurrent callers for the same index wait for the same pending operation,
+ * while callers for other indexes are not blocked.
+ * <p>
+ * The {@link DataIndexPreCreator} runs between {@link #start()} and {@link #stop()}.
  *
  * @since 1.0.0
  */
@@ -49,6 +59,50 @@ public class Schema {
 
     private static final Logger LOG = LoggerFactory.getLogger(Schema.class);
 
+    private static final String[] CLIENT_METRIC_TYPES = {
+            DatastoreUtils.CLIENT_METRIC_TYPE_STRING,
+            DatastoreUtils.CLIENT_METRIC_TYPE_INTEGER,
+            DatastoreUtils.CLIENT_METRIC_TYPE_LONG,
+            DatastoreUtils.CLIENT_METRIC_TYPE_FLOAT,
+            DatastoreUtils.CLIENT_METRIC_TYPE_DOUBLE,
+            DatastoreUtils.CLIENT_METRIC_TYPE_DATE,
+            DatastoreUtils.CLIENT_METRIC_TYPE_BOOLEAN,
+            DatastoreUtils.CLIENT_METRIC_TYPE_BINARY
+    };
+
+    private final Map<String, CompletableFuture<Metadata>> pendingDataIndexSynchs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> pendingRegistryIndexSynchs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> pendingRollupIndexSynchs = new ConcurrentHashMap<>();
+
+    private final DataIndexPreCreator dataIndexPreCreator;
+
+    /**
+     * Constructor.
+     *
+     * @since 2.0.0
+     */
+    public Schema() {
+        dataIndexPreCreator = new DataIndexPreCreator(this);
+    }
+
+    /**
+     * Starts the {@link DataIndexPreCreator}, if enabled by {@link DatastoreSettingsKey#INDEX_PRECREATION_ENABLED}.
+     *
+     * @since 2.0.0
+     */
+    public void start() {
+        dataIndexPreCreator.start();
+    }
+
+    /**
+     * Stops the {@link DataIndexPreCreator}.
+     *
+     * @since 2.0.0
+     */
+    public void stop() {
+        dataIndexPreCreator.stop();
+    }
+
     /**
      * Synchronize metadata
      *
@@ -59,22 +113,36 @@ public class Schema {
      * @since 1.0.0
      */
     public Metadata synch(KapuaId scopeId, long time) throws ClientException, MappingException {
-        String dataIndexName;
-        try {
-            String indexingWindowOption = DatastoreSettings.getInstance().getString(DatastoreSettingsKey.INDEXING_WINDOW_OPTION, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK);
-            dataIndexName = DatastoreUtils.getDataIndexName(scopeId, time, indexingWindowOption);
-        } catch (KapuaException kaex) {
-            throw new ClientException(ClientErrorCodes.INTERNAL_ERROR, kaex, "Error while generating index name");
-        }
+        dataIndexPreCreator.onDataIndexUsed(scopeId);
+
+        return synchDataIndex(scopeId, time);
+    }
+
+    /**
+     * Synchronize metadata, without marking the scope as active for {@link DataIndexPreCreator}
+     *
+     * @param scopeId
+     * @param time
+     * @return
+     * @throws ClientException
+     * @since 2.0.0
+     */
+    Metadata synchDataIndex(KapuaId scopeId, long time) throws ClientException, MappingException {
+        String dataIndexName = getDataIndexName(scopeId, time);
 
         Metadata currentMetadata = DatastoreCacheManager.getInstance().getMetadataCache().get(dataIndexName);
         if (currentMetadata != null) {
             return currentMetadata;
         }
 
-        LOG.debug("Before entering updating metadata");
-        synchronized (Schema.class) {
-            LOG.debug("Entered updating metadata");
+        return memoize(pendingDataIndexSynchs, dataIndexName, () -> {
+            // Another caller may have completed the synch between the cache lookup and the registration of this one
+            Metadata metadata = DatastoreCacheManager.getInstance().getMetadataCache().get(dataIndexName);
+            if (metadata != null) {
+                return metadata;
+            }
+
+            LOG.debug("Updating metadata for index {}", dataIndexName);
             ElasticsearchClient<?> elasticsearchClient = DatastoreClientFactory.getInstance().getElasticsearchClient();
             // Check existence of the data index
             IndexResponse dataIndexExistsResponse = elasticsearchClient.isIndexExists(new IndexRequest(dataIndexName));
@@ -89,43 +157,55 @@ public class Schema {
 
             // Check existence of the kapua internal indexes
             String channelRegistryIndexName = DatastoreUtils.getChannelIndexName(scopeId);
-            IndexResponse channelRegistryIndexExistsResponse = elasticsearchClient.isIndexExists(new IndexRequest(channelRegistryIndexName));
-            if (!channelRegistryIndexExistsResponse.isIndexExists()) {
-                elasticsearchClient.createIndex(channelRegistryIndexName, getMappingSchema(channelRegistryIndexName));
-                LOG.info("Channel Metadata index created: {}", channelRegistryIndexExistsResponse);
-
-                elasticsearchClient.putMapping(new TypeDescriptor(channelRegistryIndexName, ChannelInfoSchema.CHANNEL_TYPE_NAME), ChannelInfoSchema.getChannelTypeSchema(enableSourceField));
-            }
-
             String clientRegistryIndexName = DatastoreUtils.getClientIndexName(scopeId);
-            IndexResponse clientRegistryIndexExistsResponse = elasticsearchClient.isIndexExists(new IndexRequest(clientRegistryIndexName));
-            if (!clientRegistryIndexExistsResponse.isIndexExists()) {
-                elasticsearchClient.createIndex(clientRegistryIndexName, getMappingSchema(clientRegistryIndexName));
-                LOG.info("Client Metadata index created: {}", clientRegistryIndexExistsResponse);
+            String metricRegistryIndexName = DatastoreUtils.getMetricIndexName(scopeId);
+
+            // Registry indexes are shared by all the data indexes of the scope
+            memoize(pendingRegistryIndexSynchs, channelRegistryIndexName, () -> {
+                synchRegistryIndexes(elasticsearchClient, channelRegistryIndexName, clientRegistryIndexName, metricRegistryIndexName, enableSourceField);
+                return null;
+            });
 
-                elasticsearchClient.putMapping(new TypeDescriptor(clientRegistryIndexName, ClientInfoSchema.CLIENT_TYPE_NAME), ClientInfoSchema.getClientTypeSchema(enableSourceField));
+            metadata = new Metadata(dataIndexName, channelRegistryIndexName, clientRegistryIndexName, metricRegistryIndexName);
+            if (dataIndexExistsResponse.isIndexExists()) {
+                // The metric fields already mapped count against the metric field budget
+                loadMessageMappings(elasticsearchClient, metadata);
             }
 
-            String metricRegistryIndexName = DatastoreUtils.getMetricIndexName(scopeId);
-            IndexResponse metricRegistryIndexExistsResponse = elasticsearchClient.isIndexExists(new IndexRequest(metricRegistryIndexName));
-            if (!metricRegistryIndexExistsResponse.isIndexExists()) {
-                elasticsearchClient.createIndex(metricRegistryIndexName, getMappingSchema(metricRegistryIndexName));
-                LOG.info("Metric Metadata index created: {}", metricRegistryIndexExistsResponse);
+            // Current metadata can only increase the custom mappings
+            // other fields does not change within the same account id
+            // and custom mappings are not and must not be exposed to
+            // outside this class to preserve thread safetyness
+            DatastoreCacheManager.getInstance().getMetadataCache().put(dataIndexName, metadata);
+            LOG.debug("Updated metadata for index {}", dataIndexName);
 
-                elasticsearchClient.putMapping(new TypeDescriptor(metricRegistryIndexName, MetricInfoSchema.METRIC_TYPE_NAME), MetricInfoSchema.getMetricTypeSchema(enableSourceField));
-            }
+            return metadata;
+        });
+    }
 
-            currentMetadata = new Metadata(dataIndexName, channelRegistryIndexName, clientRegistryIndexName, metricRegistryIndexName);
-            LOG.debug("Leaving updating metadata");
-        }
+    /**
+     * Creates the rollup index of the given scope, if it does not exist yet.
+     *
+     * @param scopeId The scope {@link KapuaId}.
+     * @return The name of the rollup index.
+     * @throws ClientException
+     * @throws MappingException
+     * @since 2.0.0
+     */
+    public String synchRollupIndex(KapuaId scopeId) throws ClientException, MappingException {
+        String rollupIndexName = DatastoreUtils.getRollupIndexName(scopeId);
 
-        // Current metadata can only increase the custom mappings
-        // other fields does not change within the same account id
-        // and custom mappings are not and must not be exposed to
-        // outside this class to preserve thread safetyness
-        DatastoreCacheManager.getInstance().getMetadataCache().put(dataIndexName, currentMetadata);
+        return memoize(pendingRollupIndexSynchs, rollupIndexName, () -> {
+            ElasticsearchClient<?> elasticsearchClient = DatastoreClientFactory.getInstance().getElasticsearchClient();
+            IndexResponse rollupIndexExistsResponse = elasticsearchClient.isIndexExists(new IndexRequest(rollupIndexName));
+            if (!rollupIndexExistsResponse.isIndexExists()) {
+                elasticsearchClient.createIndex(rollupIndexName, getMappingSchema(rollupIndexName));
+                LOG.info("Rollup index created: {}", rollupIndexName);
 
-        return currentMetadata;
+                elasticsearchClient.putMapping(new TypeDescriptor(rollupIndexName, MetricRollupSchema.ROLLUP_TYPE_NAME), MetricRollupSchema.getRollupTypeSchema(true));
+            }
+            return rollupIndexName;
+        });
     }
 
     /**
@@ -142,29 +222,134 @@ public class Schema {
         if (metrics == null || metrics.size() == 0) {
             return;
         }
-        String newIndex;
+        String newIndex = getDataIndexName(scopeId, time);
+
+        Metadata currentMetadata = DatastoreCacheManager.getInstance().getMetadataCache().get(newIndex);
+        if (currentMetadata == null) {
+            // Evicted from the cache after the synch done before storing the message
+            currentMetadata = synch(scopeId, time);
+        }
+
+        // Update mappings only if a metric is new (not in cache)
+        Map<String, Metric> diffs = getMessageMappingDiffs(currentMetadata, metrics);
+        if (diffs == null || diffs.isEmpty()) {
+            return;
+        }
+        ObjectNode metricsMapping = getNewMessageMappingsBuilder(diffs);
+
+        LOG.trace("Sending dynamic message mappings: {}", metricsMapping);
+        DatastoreClientFactory.getInstance().getElasticsearchClient().putMapping(new TypeDescriptor(currentMetadata.getDataIndexName(), MessageSchema.MESSAGE_TYPE_NAME), metricsMapping);
+    }
+
+    /**
+     * Gets the data index name for the given scope and time, according to {@link DatastoreSettingsKey#INDEXING_WINDOW_OPTION}
+     *
+     * @param scopeId
+     * @param time
+     * @return
+     * @throws ClientException
+     * @since 2.0.0
+     */
+    String getDataIndexName(KapuaId scopeId, long time) throws ClientException {
         try {
             String indexingWindowOption = DatastoreSettings.getInstance().getString(DatastoreSettingsKey.INDEXING_WINDOW_OPTION, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK);
-            newIndex = DatastoreUtils.getDataIndexName(scopeId, time, indexingWindowOption);
+            return DatastoreUtils.getDataIndexName(scopeId, time, indexingWindowOption);
         } catch (KapuaException kaex) {
             throw new ClientException(ClientErrorCodes.INTERNAL_ERROR, kaex, "Error while generating index name");
         }
-        Metadata currentMetadata = DatastoreCacheManager.getInstance().getMetadataCache().get(newIndex);
+    }
 
-        ObjectNode metricsMapping = null;
-        Map<String, Metric> diffs = null;
+    /**
+     * Creates the registry indexes of a scope, if they do not exist yet.
+     *
+     * @since 2.0.0
+     */
+    private void synchRegistryIndexes(ElasticsearchClient<?> elasticsearchClient, String channelRegistryIndexName, String clientRegistryIndexName, String metricRegistryIndexName, boolean enableSourceField)
+            throws ClientException, MappingException {
+        IndexResponse channelRegistryIndexExistsResponse = elasticsearchClient.isIndexExists(new IndexRequest(channelRegistryIndexName));
+        if (!channelRegistryIndexExistsResponse.isIndexExists()) {
+            elasticsearchClient.createIndex(channelRegistryIndexName, getMappingSchema(channelRegistryIndexName));
+            LOG.info("Channel Metadata index created: {}", channelRegistryIndexExistsResponse);
+
+            elasticsearchClient.putMapping(new TypeDescriptor(channelRegistryIndexName, ChannelInfoSchema.CHANNEL_TYPE_NAME), ChannelInfoSchema.getChannelTypeSchema(enableSourceField));
+        }
+
+        IndexResponse clientRegistryIndexExistsResponse = elasticsearchClient.isIndexExists(new IndexRequest(clientRegistryIndexName));
+        if (!clientRegistryIndexExistsResponse.isIndexExists()) {
+            elasticsearchClient.createIndex(clientRegistryIndexName, getMappingSchema(clientRegistryIndexName));
+            LOG.info("Client Metadata index created: {}", clientRegistryIndexExistsResponse);
+
+            elasticsearchClient.putMapping(new TypeDescriptor(clientRegistryIndexName, ClientInfoSchema.CLIENT_TYPE_NAME), ClientInfoSchema.getClientTypeSchema(enableSourceField));
+        }
+
+        IndexResponse metricRegistryIndexExistsResponse = elasticsearchClient.isIndexExists(new IndexRequest(metricRegistryIndexName));
+        if (!metricRegistryIndexExistsResponse.isIndexExists()) {
+            elasticsearchClient.createIndex(metricRegistryIndexName, getMappingSchema(metricRegistryIndexName));
+            LOG.info("Metric Metadata index created: {}", metricRegistryIndexExistsResponse);
 
-        synchronized (Schema.class) {
-            // Update mappings only if a metric is new (not in cache)
-            diffs = getMessageMappingDiffs(currentMetadata, metrics);
-            if (diffs == null || diffs.isEmpty()) {
-                return;
+            elasticsearchClient.putMapping(new TypeDescriptor(metricRegistryIndexName, MetricInfoSchema.METRIC_TYPE_NAME), MetricInfoSchema.getMetricTypeSchema(enableSourceField));
+        }
+    }
+
+    /**
+     * Runs the given {@link SchemaAction} for the given index, unless the same action is already running for it.
+     * <p>
+     * If the action is already running, the caller waits for its completion and gets its outcome.
+     *
+     * @param pendingActions The actions currently running, by index name.
+     * @param indexName      The name of the index the action is for.
+     * @param schemaAction   The {@link SchemaAction} to run.
+     * @return The result of the {@link SchemaAction}.
+     * @throws ClientException  if the {@link SchemaAction} fails.
+     * @throws MappingException if the {@link SchemaAction} fails.
+     * @since 2.0.0
+     */
+    private <T> T memoize(Map<String, CompletableFuture<T>> pendingActions, String indexName, SchemaAction<T> schemaAction) throws ClientException, MappingException {
+        CompletableFuture<T> pendingAction = new CompletableFuture<>();
+        CompletableFuture<T> runningAction = pendingActions.putIfAbsent(indexName, pendingAction);
+        if (runningAction != null) {
+            return awaitSchemaAction(runningAction, indexName);
+        }
+
+        try {
+            T result = schemaAction.run();
+            pendingAction.complete(result);
+            return result;
+        } catch (ClientException | MappingException | RuntimeException e) {
+            pendingAction.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingActions.remove(indexName, pendingAction);
+        }
+    }
+
+    private <T> T awaitSchemaAction(CompletableFuture<T> runningAction, String indexName) throws ClientException, MappingException {
+        try {
+            return runningAction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException(ClientErrorCodes.INTERNAL_ERROR, e, "Interrupted while waiting the schema update of index " + indexName);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ClientException) {
+                throw (ClientException) cause;
+            } else if (cause instanceof MappingException) {
+                throw (MappingException) cause;
             }
-            metricsMapping = getNewMessageMappingsBuilder(diffs);
+            throw new ClientException(ClientErrorCodes.INTERNAL_ERROR, cause, "Error while updating schema of index " + indexName);
         }
+    }
 
-        LOG.trace("Sending dynamic message mappings: {}", metricsMapping);
-        DatastoreClientFactory.getInstance().getElasticsearchClient().putMapping(new TypeDescriptor(currentMetadata.getDataIndexName(), MessageSchema.MESSAGE_TYPE_NAME), metricsMapping);
+    /**
+     * An update of the schema of an index.
+     *
+     * @param <T> The result type.
+     * @since 2.0.0
+     */
+    @FunctionalInterface
+    private interface SchemaAction<T> {
+
+        T run() throws ClientException, MappingException;
     }
 
     /**
@@ -216,6 +401,51 @@ public class Schema {
         return typeNode;
     }
 
+    /**
+     * Loads the metric fields already mapped in the data index of the given {@link Metadata} into its message mappings cache.
+     *
+     * @param elasticsearchClient The {@link ElasticsearchClient} to read the mapping with.
+     * @param metadata            The {@link Metadata} to load.
+     * @throws ClientException
+     * @since 2.0.0
+     */
+    private void loadMessageMappings(ElasticsearchClient<?> elasticsearchClient, Metadata metadata) throws ClientException {
+        JsonNode metricsPropertiesNode = elasticsearchClient.getMapping(new TypeDescriptor(metadata.getDataIndexName(), MessageSchema.MESSAGE_TYPE_NAME))
+                .path(SchemaKeys.FIELD_NAME_PROPERTIES)
+                .path(SchemaKeys.FIELD_NAME_METRICS)
+                .path(SchemaKeys.FIELD_NAME_PROPERTIES);
+
+        Iterator<Entry<String, JsonNode>> metricMappings = metricsPropertiesNode.fields();
+        while (metricMappings.hasNext()) {
+            Entry<String, JsonNode> metricMapping = metricMappings.next();
+            Iterator<String> acronyms = metricMapping.getValue().path(SchemaKeys.FIELD_NAME_PROPERTIES).fieldNames();
+            while (acronyms.hasNext()) {
+                String acronym = acronyms.next();
+                String type = getClientMetricTypeFromAcronym(acronym);
+                if (type != null) {
+                    metadata.getMessageMappingsCache().putIfAbsent(DatastoreUtils.getMetricValueQualifier(metricMapping.getKey(), type), new Metric(metricMapping.getKey(), type));
+                }
+            }
+        }
+        LOG.debug("Loaded {} metric fields mapped in data index {}", metadata.getMetricFieldCount(), metadata.getDataIndexName());
+    }
+
+    /**
+     * Gets the client metric type of the given acronym, as mapped by {@link DatastoreUtils#getClientMetricFromAcronym(String)}.
+     *
+     * @param acronym The client metric type acronym.
+     * @return The client metric type, or {@code null} if the acronym is unknown.
+     * @since 2.0.0
+     */
+    private static String getClientMetricTypeFromAcronym(String acronym) {
+        for (String type : CLIENT_METRIC_TYPES) {
+            if (DatastoreUtils.getClientMetricFromAcronym(type).equals(acronym)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
     /**
      * @param currentMetadata
      * @param esMetrics
@@ -229,11 +459,11 @@ public class Schema {
 
         Map<String, Metric> diffs = null;
         for (Entry<String, Metric> esMetric : esMetrics.entrySet()) {
-            if (!currentMetadata.getMessageMappingsCache().containsKey(esMetric.getKey())) {
+            // Only the first caller adding the metric to the cache sends its mapping
+            if (currentMetadata.getMessageMappingsCache().putIfAbsent(esMetric.getKey(), esMetric.getValue()) == null) {
                 if (diffs == null) {
                     diffs = new HashMap<>(100);
                 }
-                currentMetadata.getMessageMappingsCache().put(esMetric.getKey(), esMetric.getValue());
                 diffs.put(esMetric.getKey(), esMetric.getValue());
             }
         }
@@ -14,7 +14,12 @@ package org.eclipse.kapua.service.datastore.internal.schema;
 
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.model.query.TimestampRange;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
+import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -63,6 +68,35 @@ public class SchemaUtil {
         return DatastoreUtils.getDataIndexName(scopeId);
     }
 
+    /**
+     * Gets the Elasticsearch data index names which can contain the messages matched by the given {@link MessageQuery}.
+     * <p>
+     * The data indexes are restricted according to the {@link TimestampRange} of the {@link MessageQuery#getPredicate()},
+     * see {@link DatastoreUtils#getDataIndexName(KapuaId, Instant, Instant, String, int)}.
+     * The indexing window used is the wider of {@link DatastoreSettingsKey#INDEXING_WINDOW_OPTION} and {@link DatastoreSettingsKey#QUERY_INDEX_WINDOW_WIDEST},
+     * so that the data indexes created before a change of the indexing window are still matched.
+     *
+     * @param query The {@link MessageQuery}.
+     * @return The comma separated data index name expressions.
+     * @since 2.0.0
+     */
+    public static String getDataIndexName(MessageQuery query) {
+        TimestampRange timestampRange = TimestampRange.of(query.getPredicate());
+        if (!timestampRange.isBounded()) {
+            return getDataIndexName(query.getScopeId());
+        }
+
+        DatastoreSettings datastoreSettings = DatastoreSettings.getInstance();
+        return DatastoreUtils.getDataIndexName(
+                query.getScopeId(),
+                timestampRange.getStart(),
+                timestampRange.getEnd(),
+                DatastoreUtils.getWiderIndexingWindowOption(
+                        datastoreSettings.getString(DatastoreSettingsKey.INDEXING_WINDOW_OPTION, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK),
+                        datastoreSettings.getString(DatastoreSettingsKey.QUERY_INDEX_WINDOW_WIDEST, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK)),
+                datastoreSettings.getInt(DatastoreSettingsKey.QUERY_INDEX_NAMES_MAX, 32));
+    }
+
     /**
      * Get the Kapua data index name
      *
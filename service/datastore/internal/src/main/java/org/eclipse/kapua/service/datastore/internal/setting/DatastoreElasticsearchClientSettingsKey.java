@@ -93,6 +93,54 @@ public enum DatastoreElasticsearchClientSettingsKey implements SettingKey {
      * @since 1.3.0
      */
     REQUEST_RETRY_WAIT("datastore.elasticsearch.request.retry.wait"),
+    /**
+     * Elasticsearch max wait time between retry attempt, reached doubling the {@link #REQUEST_RETRY_WAIT} at each attempt (in milliseconds)
+     *
+     * @since 2.0.0
+     */
+    REQUEST_RETRY_WAIT_MAX("datastore.elasticsearch.request.retry.wait.max"),
+    /**
+     * Maximum number of asynchronous requests in flight at the same time.
+     *
+     * @since 2.0.0
+     */
+    REQUEST_ASYNC_MAX_IN_FLIGHT("datastore.elasticsearch.request.async.max_in_flight"),
+    /**
+     * Maximum wait time for an in flight slot when submitting an asynchronous request (in milliseconds).
+     *
+     * @since 2.0.0
+     */
+    REQUEST_ASYNC_IN_FLIGHT_WAIT("datastore.elasticsearch.request.async.in_flight_wait"),
+    /**
+     * Number of results read with each request when streaming the results of a query.
+     *
+     * @since 2.0.0
+     */
+    REQUEST_STREAM_PAGE_SIZE("datastore.elasticsearch.request.stream.page_size"),
+    /**
+     * Latency added to each request by the providers which do not talk to an Elasticsearch cluster, like the in-memory one (in milliseconds).
+     *
+     * @since 2.0.0
+     */
+    REQUEST_SIMULATED_LATENCY("datastore.elasticsearch.request.simulated_latency"),
+    /**
+     * Enable the circuit breaker which rejects the requests while Elasticsearch is not responding.
+     *
+     * @since 2.0.0
+     */
+    CIRCUIT_BREAKER_ENABLED("datastore.elasticsearch.circuit_breaker.enabled"),
+    /**
+     * Number of consecutive failed requests which opens the circuit breaker.
+     *
+     * @since 2.0.0
+     */
+    CIRCUIT_BREAKER_FAILURE_THRESHOLD("datastore.elasticsearch.circuit_breaker.failure_threshold"),
+    /**
+     * Time the circuit breaker stays open before letting a trial request through (in milliseconds).
+     *
+     * @since 2.0.0
+     */
+    CIRCUIT_BREAKER_OPEN_DURATION("datastore.elasticsearch.circuit_breaker.open_duration"),
     /**
      * Enable Elasticsearch client ssl connection (at the present only the rest client supports it)
      *
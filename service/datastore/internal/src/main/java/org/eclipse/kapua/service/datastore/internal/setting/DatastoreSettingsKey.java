@@ -34,6 +34,38 @@ public enum DatastoreSettingsKey implements SettingKey {
      * Metadata cache maximum size
      */
     CONFIG_CACHE_METADATA_LOCAL_SIZE_MAXIMUM("datastore.cache.metadata.local.size.maximum"),
+    /**
+     * Implementation of the channels, metrics and clients caches. Allowed values: "local", "fingerprint"
+     *
+     * @since 2.0.0
+     */
+    CONFIG_CACHE_LOCAL_TYPE("datastore.cache.local.type"),
+    /**
+     * Age (in seconds) after which the cached per scope configuration is refreshed in background
+     *
+     * @since 2.0.0
+     */
+    CONFIG_CACHE_CONFIGURATION_REFRESH_AFTER("datastore.cache.configuration.refresh.after"),
+    /**
+     * Maximum number of scopes whose configuration is cached
+     *
+     * @since 2.0.0
+     */
+    CONFIG_CACHE_CONFIGURATION_SIZE_MAXIMUM("datastore.cache.configuration.size.maximum"),
+    /**
+     * Expire time (in seconds) of the cached results of the channels, metrics and clients registry queries. 0 disables the cache
+     * <p>
+     * It is also the maximum delay for the results cached by a process to include the entries stored by another process.
+     *
+     * @since 2.0.0
+     */
+    CONFIG_CACHE_QUERY_EXPIRE_AFTER("datastore.cache.query.expire.after"),
+    /**
+     * Maximum number of cached results of each of the channels, metrics and clients registry queries
+     *
+     * @since 2.0.0
+     */
+    CONFIG_CACHE_QUERY_SIZE_MAXIMUM("datastore.cache.query.size.maximum"),
     /**
      * Enable datastore timing profile
      */
@@ -66,6 +98,106 @@ public enum DatastoreSettingsKey implements SettingKey {
      * Elasticsearch index width. Allowed values: "week", "day", "hour"
      */
     INDEXING_WINDOW_OPTION("datastore.index.window"),
+    /**
+     * Enables the creation of the next data index before the current indexing window ends
+     *
+     * @since 2.0.0
+     */
+    INDEX_PRECREATION_ENABLED("datastore.index.precreation.enabled"),
+    /**
+     * How long (in seconds) before the end of the current indexing window the next data index is created
+     *
+     * @since 2.0.0
+     */
+    INDEX_PRECREATION_AHEAD("datastore.index.precreation.ahead"),
+    /**
+     * Interval (in seconds) between the checks for the data indexes to create
+     *
+     * @since 2.0.0
+     */
+    INDEX_PRECREATION_INTERVAL("datastore.index.precreation.interval"),
+    /**
+     * Enables the deletion of the data indexes which are entirely older than the data TTL of their scope.
+     * It runs only while the datastore service module is started, and must be enabled in exactly one application
+     *
+     * @since 2.0.0
+     */
+    INDEX_RETENTION_ENABLED("datastore.index.retention.enabled"),
+    /**
+     * Interval (in seconds) between the checks for the data indexes to delete
+     *
+     * @since 2.0.0
+     */
+    INDEX_RETENTION_INTERVAL("datastore.index.retention.interval"),
+    /**
+     * Maximum number of data indexes deleted by each check. The others are deleted by the next checks
+     *
+     * @since 2.0.0
+     */
+    INDEX_RETENTION_DELETIONS_MAX("datastore.index.retention.deletions.max"),
+    /**
+     * Delay (in milliseconds) between two data index deletions
+     *
+     * @since 2.0.0
+     */
+    INDEX_RETENTION_DELETION_DELAY("datastore.index.retention.deletion.delay"),
+    /**
+     * Enables the rollup of the closed data indexes into the rollup index of their scope.
+     * It runs only while the datastore service module is started, and must be enabled in exactly one application
+     *
+     * @since 2.0.0
+     */
+    ROLLUP_ENABLED("datastore.rollup.enabled"),
+    /**
+     * Interval (in seconds) between the checks for the data indexes to roll up
+     *
+     * @since 2.0.0
+     */
+    ROLLUP_INTERVAL("datastore.rollup.interval"),
+    /**
+     * How long (in seconds) after the end of its indexing window a data index is rolled up, so that late messages are included
+     *
+     * @since 2.0.0
+     */
+    ROLLUP_GRACE("datastore.rollup.grace"),
+    /**
+     * Number of rollup buckets read by each request to Elasticsearch while rolling up a data index
+     *
+     * @since 2.0.0
+     */
+    ROLLUP_PAGE_SIZE("datastore.rollup.page.size"),
+    /**
+     * How old (in seconds) the end of the timestamp range of a metric aggregation must be for it to be answered from the rollup index. Set to 0 to disable.
+     *
+     * @since 2.0.0
+     */
+    ROLLUP_QUERY_OLDER_THAN("datastore.rollup.query.older.than"),
+    /**
+     * Maximum number of data index names a message query is restricted to, according to its timestamp range.
+     * Queries which would need more are sent to all the data indexes of the scope. Set to 0 to disable.
+     *
+     * @since 2.0.0
+     */
+    QUERY_INDEX_NAMES_MAX("datastore.query.index_names.max"),
+    /**
+     * Maximum number of buckets of a metric aggregation with a bounded timestamp range: its time buckets times its groups, if grouped. Set to 0 to disable.
+     *
+     * @since 2.0.0
+     */
+    QUERY_AGGREGATION_BUCKETS_MAX("datastore.query.aggregation.buckets.max"),
+    /**
+     * The widest indexing window ("week", "day" or "hour") the existing data indexes have been created with, the current {@link #INDEXING_WINDOW_OPTION} included.
+     * Message queries restrict the data indexes at this granularity (or a wider one), so that the indexes created before a change of the indexing window are still matched.
+     *
+     * @since 2.0.0
+     */
+    QUERY_INDEX_WINDOW_WIDEST("datastore.query.index_window.widest"),
+    /**
+     * The address of the datastore service events
+     *
+     * @since 2.0.0
+     */
+    DATASTORE_EVENT_ADDRESS("datastore.eventAddress"),
     /**
      * Disables the entire Datastore feature
      */
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.message.device.data.KapuaDataMessage;
+import org.eclipse.kapua.message.internal.device.data.KapuaDataChannelImpl;
+import org.eclipse.kapua.message.internal.device.data.KapuaDataMessageImpl;
+import org.eclipse.kapua.message.internal.device.data.KapuaDataPayloadImpl;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.common.MockedLocator;
+import org.eclipse.kapua.service.account.Account;
+import org.eclipse.kapua.service.account.AccountService;
+import org.eclipse.kapua.service.authorization.AuthorizationService;
+import org.eclipse.kapua.service.authorization.permission.PermissionFactory;
+import org.eclipse.kapua.service.datastore.ChannelInfoRegistryService;
+import org.eclipse.kapua.service.datastore.ClientInfoRegistryService;
+import org.eclipse.kapua.service.datastore.MessageStoreService;
+import org.eclipse.kapua.service.datastore.MetricInfoRegistryService;
+import org.eclipse.kapua.service.datastore.internal.ChannelInfoRegistryServiceImpl;
+import org.eclipse.kapua.service.datastore.internal.ClientInfoRegistryServiceImpl;
+import org.eclipse.kapua.service.datastore.internal.MessageStoreServiceImpl;
+import org.eclipse.kapua.service.datastore.internal.MetricInfoRegistryServiceImpl;
+import org.eclipse.kapua.service.datastore.internal.client.DatastoreClientFactory;
+import org.eclipse.kapua.service.datastore.internal.model.query.predicate.DatastorePredicateFactoryImpl;
+import org.eclipse.kapua.service.datastore.model.query.predicate.DatastorePredicateFactory;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientUnavailableException;
+import org.eclipse.kapua.service.elasticsearch.client.memory.InMemoryElasticsearchClient;
+import org.eclipse.kapua.service.storable.model.id.StorableIdFactory;
+import org.eclipse.kapua.service.storable.model.id.StorableIdFactoryImpl;
+import org.eclipse.kapua.service.storable.model.query.predicate.StorablePredicateFactory;
+import org.eclipse.kapua.service.storable.model.query.predicate.StorablePredicateFactoryImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.mockito.Mockito;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class of the tests which run the datastore services against the {@link InMemoryElasticsearchClient}.
+ * <p>
+ * It requires the {@link MockedLocator} and the {@link InMemorySpyElasticsearchClientProvider},
+ * which are set with the {@code locator.class.impl} and {@code datastore.elasticsearch.provider} system properties.
+ * <p>
+ * The datastore services are created once, since they share the {@link org.eclipse.kapua.service.datastore.internal.mediator.DatastoreMediator} singleton:
+ * each test stores its data in a new scope, whose configuration can be set with {@link #setConfigValues(Map)}.
+ *
+ * @since 2.0.0
+ */
+public abstract class AbstractInMemoryDatastoreTest extends Assert {
+
+    private static final AtomicLong SCOPE_ID_SEQUENCE = new AtomicLong(1000);
+    private static final Map<KapuaId, Map<String, Object>> CONFIG_VALUES = new ConcurrentHashMap<>();
+
+    protected static MessageStoreService messageStoreService;
+    protected static ClientInfoRegistryService clientInfoRegistryService;
+    protected static ChannelInfoRegistryService channelInfoRegistryService;
+    protected static MetricInfoRegistryService metricInfoRegistryService;
+
+    protected static AccountService accountService;
+
+    protected KapuaId scopeId;
+
+    @BeforeClass
+    public static void setUpDatastoreServices() throws Exception {
+        synchronized (AbstractInMemoryDatastoreTest.class) {
+            if (messageStoreService != null) {
+                return;
+            }
+
+            KapuaLocator locator = KapuaLocator.getInstance();
+            assertTrue("The MockedLocator is required, set it with -Dlocator.class.impl", locator instanceof MockedLocator);
+            MockedLocator mockedLocator = (MockedLocator) locator;
+
+            accountService = Mockito.mock(AccountService.class);
+            mockedLocator.setMockedService(AccountService.class, accountService);
+            mockedLocator.setMockedService(AuthorizationService.class, Mockito.mock(AuthorizationService.class));
+            mockedLocator.setMockedFactory(PermissionFactory.class, Mockito.mock(PermissionFactory.class));
+            mockedLocator.setMockedFactory(StorableIdFactory.class, new StorableIdFactoryImpl());
+            mockedLocator.setMockedFactory(StorablePredicateFactory.class, new StorablePredicateFactoryImpl());
+            mockedLocator.setMockedFactory(DatastorePredicateFactory.class, new DatastorePredicateFactoryImpl());
+
+            // The configuration of the scopes is provided by the tests instead of being read from the database
+            messageStoreService = new MessageStoreServiceImpl() {
+
+                @Override
+                protected Map<String, Object> getConfigValues(KapuaId scopeId, boolean excludeDisabled) {
+                    return CONFIG_VALUES.getOrDefault(scopeId, new HashMap<>());
+                }
+            };
+            mockedLocator.setMockedService(MessageStoreService.class, messageStoreService);
+
+            clientInfoRegistryService = new ClientInfoRegistryServiceImpl();
+            mockedLocator.setMockedService(ClientInfoRegistryService.class, clientInfoRegistryService);
+            channelInfoRegistryService = new ChannelInfoRegistryServiceImpl();
+            mockedLocator.setMockedService(ChannelInfoRegistryService.class, channelInfoRegistryService);
+            metricInfoRegistryService = new MetricInfoRegistryServiceImpl();
+            mockedLocator.setMockedService(MetricInfoRegistryService.class, metricInfoRegistryService);
+        }
+    }
+
+    @Before
+    public void setUpScope() throws Exception {
+        scopeId = new KapuaEid(BigInteger.valueOf(SCOPE_ID_SEQUENCE.incrementAndGet()));
+
+        Account account = Mockito.mock(Account.class);
+        Mockito.when(account.getId()).thenReturn(scopeId);
+        Mockito.when(account.getName()).thenReturn("account-" + scopeId.getId());
+        Mockito.doReturn(account).when(accountService).find(scopeId);
+    }
+
+    @After
+    public void tearDownScope() throws Exception {
+        CONFIG_VALUES.remove(scopeId);
+        Mockito.reset(getElasticsearchClient());
+    }
+
+    /**
+     * Sets the datastore configuration of the scope of the test.
+     *
+     * @param configValues The datastore configuration values.
+     */
+    protected void setConfigValues(Map<String, Object> configValues) {
+        CONFIG_VALUES.put(scopeId, configValues);
+    }
+
+    /**
+     * Gets the {@link Mockito#spy(Object)} of the {@link InMemoryElasticsearchClient} used by the datastore services.
+     *
+     * @return The {@link InMemoryElasticsearchClient} used by the datastore services.
+     * @throws ClientUnavailableException
+     */
+    protected static InMemoryElasticsearchClient getElasticsearchClient() throws ClientUnavailableException {
+        return (InMemoryElasticsearchClient) DatastoreClientFactory.getElasticsearchClient();
+    }
+
+    /**
+     * Creates a data message of the scope of the test, received at the given time.
+     *
+     * @param clientId   The client id of the message.
+     * @param channel    The channel of the message.
+     * @param receivedOn The time the message has been received.
+     * @param metrics    The metrics of the message.
+     * @return The data message.
+     */
+    protected KapuaDataMessage newMessage(String clientId, String channel, Date receivedOn, Map<String, Object> metrics) {
+        KapuaDataMessage message = new KapuaDataMessageImpl();
+        message.setScopeId(scopeId);
+        message.setClientId(clientId);
+        message.setReceivedOn(receivedOn);
+        message.setSentOn(receivedOn);
+        message.setCapturedOn(receivedOn);
+
+        KapuaDataChannelImpl dataChannel = new KapuaDataChannelImpl();
+        dataChannel.setSemanticParts(Arrays.asList(channel.split("/")));
+        message.setChannel(dataChannel);
+
+        KapuaDataPayloadImpl payload = new KapuaDataPayloadImpl();
+        payload.setMetrics(new HashMap<>(metrics));
+        message.setPayload(payload);
+        return message;
+    }
+}
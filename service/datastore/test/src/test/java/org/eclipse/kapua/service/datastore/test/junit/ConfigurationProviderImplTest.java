@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.account.Account;
+import org.eclipse.kapua.service.account.AccountService;
+import org.eclipse.kapua.service.config.KapuaConfigurableService;
+import org.eclipse.kapua.service.datastore.internal.ConfigurationProviderImpl;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageStoreConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class ConfigurationProviderImplTest extends Assert {
+
+    private KapuaConfigurableService configurableService;
+    private AccountService accountService;
+    private ConfigurationProviderImpl configurationProvider;
+
+    private KapuaId scopeId;
+
+    @Before
+    public void setUp() throws Exception {
+        // Snapshots are shared between instances, so each test uses its own scope
+        scopeId = new KapuaEid(BigInteger.valueOf(System.nanoTime()));
+
+        Map<String, Object> values = new HashMap<>();
+        values.put(MessageStoreConfiguration.CONFIGURATION_DATA_TTL_KEY, 42);
+
+        configurableService = Mockito.mock(KapuaConfigurableService.class);
+        Mockito.when(configurableService.getConfigValues(scopeId)).thenReturn(values);
+
+        accountService = Mockito.mock(AccountService.class);
+        Mockito.when(accountService.find(scopeId)).thenReturn(Mockito.mock(Account.class));
+
+        configurationProvider = new ConfigurationProviderImpl(configurableService, accountService);
+    }
+
+    @Test
+    public void snapshotIsLoadedOnce() throws Exception {
+        MessageStoreConfiguration configuration = configurationProvider.getConfiguration(scopeId);
+        assertEquals(42, configuration.getDataTimeToLive());
+
+        assertSame(configuration, configurationProvider.getConfiguration(scopeId));
+        assertSame(configurationProvider.getInfo(scopeId), configurationProvider.getInfo(scopeId));
+
+        Mockito.verify(configurableService, Mockito.times(1)).getConfigValues(scopeId);
+        Mockito.verify(accountService, Mockito.times(1)).find(scopeId);
+    }
+
+    @Test
+    public void snapshotIsSharedBetweenInstances() throws Exception {
+        MessageStoreConfiguration configuration = configurationProvider.getConfiguration(scopeId);
+
+        assertSame(configuration, new ConfigurationProviderImpl(configurableService, accountService).getConfiguration(scopeId));
+    }
+
+    @Test
+    public void invalidateReloadsSnapshot() throws Exception {
+        MessageStoreConfiguration configuration = configurationProvider.getConfiguration(scopeId);
+
+        configurationProvider.invalidate(scopeId);
+
+        assertNotSame(configuration, configurationProvider.getConfiguration(scopeId));
+        Mockito.verify(configurableService, Mockito.times(2)).getConfigValues(scopeId);
+    }
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit;
+
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.ConfigurationProvider;
+import org.eclipse.kapua.service.datastore.internal.DataIndexRetention;
+import org.eclipse.kapua.service.datastore.internal.DataIndexRollup;
+import org.eclipse.kapua.service.datastore.internal.converter.MetricAggregationResultConverter;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageStoreConfiguration;
+import org.eclipse.kapua.service.datastore.internal.model.DataIndexBy;
+import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricAggregationQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricRollupAggregationQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.schema.MetricRollupSchema;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationBucket;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+import org.eclipse.kapua.service.elasticsearch.client.model.IndexRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.TypeDescriptor;
+import org.eclipse.kapua.service.storable.model.query.predicate.RangePredicateImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class DataIndexRollupRetentionTest extends AbstractInMemoryDatastoreTest {
+
+    private static final long HOUR = DataIndexRollup.ROLLUP_INTERVAL;
+
+    private Instant start;
+    private String dataIndex;
+
+    @Before
+    public void setUpMessages() throws Exception {
+        // Index the messages by their timestamp, far enough in the past for their data index to be closed and expired
+        setConfigValues(Collections.singletonMap(MessageStoreConfiguration.CONFIGURATION_DATA_INDEX_BY_KEY, DataIndexBy.DEVICE_TIMESTAMP.name()));
+        start = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(21, ChronoUnit.DAYS);
+        String indexingWindowOption = DatastoreSettings.getInstance().getString(DatastoreSettingsKey.INDEXING_WINDOW_OPTION, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK);
+        dataIndex = DatastoreUtils.getDataIndexName(scopeId, start.toEpochMilli(), indexingWindowOption);
+
+        storeMessage("client-1", start.plus(10, ChronoUnit.MINUTES), 20.0);
+        storeMessage("client-1", start.plus(20, ChronoUnit.MINUTES), 30.0);
+        storeMessage("client-2", start.plus(30, ChronoUnit.MINUTES), 10.0);
+        storeMessage("client-1", start.plus(70, ChronoUnit.MINUTES), 25.0);
+    }
+
+    @Test
+    public void rollUpClosedDataIndexesTest() throws Exception {
+        DataIndexRollup dataIndexRollup = new DataIndexRollup(true, 3600, 3600, 500);
+
+        assertFalse(dataIndexRollup.isRolledUp(scopeId, dataIndex));
+        assertTrue(dataIndexRollup.rollUpClosedDataIndexes() > 0);
+
+        assertTrue(dataIndexRollup.isRolledUp(scopeId, dataIndex));
+        // The marker is stored in the rollup index, so it is found by other instances too
+        assertTrue(new DataIndexRollup(true, 3600, 3600, 500).isRolledUp(scopeId, dataIndex));
+
+        // 3 rollups (client-1 and client-2 in the first hour, client-1 in the second one) and the marker
+        assertEquals(4, getElasticsearchClient().count(getRollupTypeDescriptor(), new MessageQueryImpl(scopeId)));
+    }
+
+    @Test
+    public void rollUpAgainIsIdempotentTest() throws Exception {
+        new DataIndexRollup(true, 3600, 3600, 500).rollUpClosedDataIndexes();
+        MetricAggregationResult firstResult = aggregateFromRollups(newQuery());
+        long firstCount = getElasticsearchClient().count(getRollupTypeDescriptor(), new MessageQueryImpl(scopeId));
+
+        // A new instance finds the markers of the data indexes and does not roll them up again
+        Mockito.reset(getElasticsearchClient());
+        assertEquals(0, new DataIndexRollup(true, 3600, 3600, 500).rollUpClosedDataIndexes());
+        Mockito.verify(getElasticsearchClient(), Mockito.never()).aggregate(Mockito.any(TypeDescriptor.class), Mockito.any());
+
+        assertEquals(firstCount, getElasticsearchClient().count(getRollupTypeDescriptor(), new MessageQueryImpl(scopeId)));
+        assertResultEquals(firstResult, aggregateFromRollups(newQuery()));
+    }
+
+    @Test
+    public void rollupQueryMatchesDataQueryTest() throws Exception {
+        new DataIndexRollup(true, 3600, 3600, 500).rollUpClosedDataIndexes();
+
+        MetricAggregationResult dataResult = messageStoreService.aggregate(newQuery());
+        MetricAggregationResult rollupResult = aggregateFromRollups(newQuery());
+
+        assertEquals(2, dataResult.getBuckets().size());
+        assertResultEquals(dataResult, rollupResult);
+
+        MetricStatistics firstHourTemperature = rollupResult.getBuckets().get(0).getMetrics().get(0);
+        assertEquals(3, firstHourTemperature.getCount());
+        assertEquals(10.0, firstHourTemperature.getMin(), 0);
+        assertEquals(30.0, firstHourTemperature.getMax(), 0);
+        assertEquals(60.0, firstHourTemperature.getSum(), 0);
+    }
+
+    @Test
+    public void retentionKeepsDataIndexesNotRolledUpTest() throws Exception {
+        DataIndexRollup dataIndexRollup = new DataIndexRollup(true, 3600, 3600, 500);
+        DataIndexRetention dataIndexRetention = new DataIndexRetention(newConfigurationProvider(), dataIndexRollup, true, 3600, 100, 0);
+
+        dataIndexRetention.deleteExpiredDataIndexes();
+        assertTrue("The data index is not rolled up yet", getElasticsearchClient().isIndexExists(new IndexRequest(dataIndex)).isIndexExists());
+
+        dataIndexRollup.rollUpClosedDataIndexes();
+        dataIndexRetention.deleteExpiredDataIndexes();
+        assertFalse(getElasticsearchClient().isIndexExists(new IndexRequest(dataIndex)).isIndexExists());
+    }
+
+    @Test
+    public void retentionWithoutRollupDeletesDataIndexesTest() throws Exception {
+        DataIndexRollup dataIndexRollup = new DataIndexRollup(false, 3600, 3600, 500);
+        DataIndexRetention dataIndexRetention = new DataIndexRetention(newConfigurationProvider(), dataIndexRollup, true, 3600, 100, 0);
+
+        dataIndexRetention.deleteExpiredDataIndexes();
+
+        assertFalse(getElasticsearchClient().isIndexExists(new IndexRequest(dataIndex)).isIndexExists());
+    }
+
+    private void storeMessage(String clientId, Instant receivedOn, double temperature) throws Exception {
+        messageStoreService.store(newMessage(clientId, "heater/data", Date.from(receivedOn), Collections.singletonMap("temperature", temperature)));
+    }
+
+    private MetricAggregationQuery newQuery() {
+        MetricAggregationQuery query = new MetricAggregationQueryImpl(scopeId);
+        query.setPredicate(new RangePredicateImpl(MessageField.TIMESTAMP, Date.from(start), new Date(start.toEpochMilli() + 2 * HOUR - 1)));
+        query.addMetric("temperature", Double.class);
+        query.setInterval(HOUR);
+        return query;
+    }
+
+    private MetricAggregationResult aggregateFromRollups(MetricAggregationQuery query) throws Exception {
+        MetricRollupAggregationQueryImpl rollupQuery = new MetricRollupAggregationQueryImpl(query);
+        return new MetricAggregationResultConverter().convert(rollupQuery, getElasticsearchClient().aggregate(getRollupTypeDescriptor(), rollupQuery));
+    }
+
+    private TypeDescriptor getRollupTypeDescriptor() {
+        return new TypeDescriptor(DatastoreUtils.getRollupIndexName(scopeId), MetricRollupSchema.ROLLUP_TYPE_NAME);
+    }
+
+    /**
+     * Gives a data TTL of 7 days to the scope of the test and an unlimited one to the other scopes, whose data indexes must not be touched.
+     */
+    private ConfigurationProvider newConfigurationProvider() throws Exception {
+        Map<String, Object> testScopeValues = new HashMap<>();
+        testScopeValues.put(MessageStoreConfiguration.CONFIGURATION_DATA_TTL_KEY, 7);
+        Map<String, Object> otherScopeValues = new HashMap<>();
+        otherScopeValues.put(MessageStoreConfiguration.CONFIGURATION_DATA_TTL_KEY, 0);
+
+        ConfigurationProvider configurationProvider = Mockito.mock(ConfigurationProvider.class);
+        Mockito.doAnswer(invocation -> new MessageStoreConfiguration(scopeId.equals(invocation.getArguments()[0]) ? testScopeValues : otherScopeValues))
+                .when(configurationProvider).getConfiguration(Mockito.any(KapuaId.class));
+        return configurationProvider;
+    }
+
+    private void assertResultEquals(MetricAggregationResult expected, MetricAggregationResult actual) {
+        assertEquals(expected.getBuckets().size(), actual.getBuckets().size());
+        for (int i = 0; i < expected.getBuckets().size(); i++) {
+            MetricAggregationBucket expectedBucket = expected.getBuckets().get(i);
+            MetricAggregationBucket actualBucket = actual.getBuckets().get(i);
+            assertEquals(expectedBucket.getTimestamp(), actualBucket.getTimestamp());
+            assertEquals(expectedBucket.getCount(), actualBucket.getCount());
+
+            MetricStatistics expectedStatistics = expectedBucket.getMetrics().get(0);
+            MetricStatistics actualStatistics = actualBucket.getMetrics().get(0);
+            assertEquals(expectedStatistics.getCount(), actualStatistics.getCount());
+            assertEquals(expectedStatistics.getMin(), actualStatistics.getMin(), 0);
+            assertEquals(expectedStatistics.getMax(), actualStatistics.getMax(), 0);
+            assertEquals(expectedStatistics.getSum(), actualStatistics.getSum(), 0);
+        }
+    }
+}
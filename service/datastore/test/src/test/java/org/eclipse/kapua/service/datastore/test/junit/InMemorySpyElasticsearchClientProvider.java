@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit;
+
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientUnavailableException;
+import org.eclipse.kapua.service.elasticsearch.client.memory.InMemoryElasticsearchClient;
+import org.eclipse.kapua.service.elasticsearch.client.memory.InMemoryElasticsearchClientProvider;
+import org.mockito.Mockito;
+
+/**
+ * {@link InMemoryElasticsearchClientProvider} which hands out a {@link Mockito#spy(Object)} of its {@link InMemoryElasticsearchClient},
+ * so that tests can make it answer like a remote cluster does when it fails.
+ *
+ * @since 2.0.0
+ */
+public class InMemorySpyElasticsearchClientProvider extends InMemoryElasticsearchClientProvider {
+
+    private InMemoryElasticsearchClient inMemoryElasticsearchClientSpy;
+
+    @Override
+    public synchronized InMemoryElasticsearchClient getElasticsearchClient() throws ClientUnavailableException {
+        if (inMemoryElasticsearchClientSpy == null) {
+            inMemoryElasticsearchClientSpy = Mockito.spy(super.getElasticsearchClient());
+        }
+        return inMemoryElasticsearchClientSpy;
+    }
+
+    @Override
+    public synchronized void close() {
+        inMemoryElasticsearchClientSpy = null;
+        super.close();
+    }
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit;
+
+import org.eclipse.kapua.commons.event.ServiceEventClientConfiguration;
+import org.eclipse.kapua.commons.event.ServiceInspector;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEventBusListener;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.account.AccountService;
+import org.eclipse.kapua.service.datastore.MessageStoreService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+@Category(JUnitTests.class)
+public class MessageStoreServiceEventTest extends AbstractInMemoryDatastoreTest {
+
+    private ServiceEventBusListener accountEventListener;
+
+    @Before
+    public void setUp() throws Exception {
+        List<ServiceEventClientConfiguration> eventBusClients = ServiceInspector.getEventBusClients(messageStoreService, MessageStoreService.class);
+
+        assertEquals(1, eventBusClients.size());
+        assertEquals("account", eventBusClients.get(0).getAddress());
+        accountEventListener = eventBusClients.get(0).getEventListener();
+        assertNotNull(accountEventListener);
+    }
+
+    @Test
+    public void accountUpdateEvictsConfigurationTest() throws Exception {
+        storeMessage();
+        storeMessage();
+        Mockito.verify(accountService, Mockito.times(1)).find(scopeId);
+
+        accountEventListener.onKapuaEvent(newEvent(AccountService.class, "update", scopeId));
+
+        storeMessage();
+        Mockito.verify(accountService, Mockito.times(2)).find(scopeId);
+    }
+
+    @Test
+    public void accountDeleteEvictsConfigurationTest() throws Exception {
+        storeMessage();
+
+        accountEventListener.onKapuaEvent(newEvent(AccountService.class, "delete", scopeId));
+
+        storeMessage();
+        Mockito.verify(accountService, Mockito.times(2)).find(scopeId);
+    }
+
+    @Test
+    public void otherEventsKeepConfigurationTest() throws Exception {
+        storeMessage();
+
+        accountEventListener.onKapuaEvent(newEvent(AccountService.class, "create", scopeId));
+        accountEventListener.onKapuaEvent(newEvent(MessageStoreService.class, "delete", scopeId));
+        accountEventListener.onKapuaEvent(null);
+
+        storeMessage();
+        Mockito.verify(accountService, Mockito.times(1)).find(scopeId);
+    }
+
+    private void storeMessage() throws Exception {
+        messageStoreService.store(newMessage("client-1", "heater/data", new Date(), Collections.singletonMap("temperature", 20.0)));
+    }
+
+    private ServiceEvent newEvent(Class<?> service, String operation, KapuaId entityId) {
+        ServiceEvent serviceEvent = new ServiceEvent();
+        serviceEvent.setService(service.getName());
+        serviceEvent.setOperation(operation);
+        serviceEvent.setEntityId(entityId);
+        return serviceEvent;
+    }
+}
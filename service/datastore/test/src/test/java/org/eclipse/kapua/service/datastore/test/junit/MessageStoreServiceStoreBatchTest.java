@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit;
+
+import org.eclipse.kapua.KapuaErrorCodes;
+import org.eclipse.kapua.KapuaIllegalArgumentException;
+import org.eclipse.kapua.message.device.data.KapuaDataMessage;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreCommunicationException;
+import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientCommunicationException;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.BulkInsertResponse;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertRequest;
+import org.eclipse.kapua.service.elasticsearch.client.model.InsertResponse;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Category(JUnitTests.class)
+public class MessageStoreServiceStoreBatchTest extends AbstractInMemoryDatastoreTest {
+
+    @Test
+    public void storeBatchTest() throws Exception {
+        List<KapuaDataMessage> messages = Arrays.asList(
+                newMessage("client-1", "telemetry/engine", new Date(), Collections.singletonMap("rpm", 1000)),
+                newMessage("client-1", "telemetry/engine", new Date(), Collections.singletonMap("rpm", 2000)),
+                newMessage("client-2", "telemetry/cabin", new Date(), Collections.singletonMap("temperature", 21.5)));
+        List<String> datastoreIds = newDatastoreIds(messages.size());
+
+        List<MessageStoreResult> results = messageStoreService.storeBatch(messages, datastoreIds);
+
+        assertEquals(messages.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertTrue(results.get(i).isSuccess());
+            assertEquals(datastoreIds.get(i), results.get(i).getDatastoreId());
+            assertEquals(datastoreIds.get(i), results.get(i).getStorableId().toString());
+        }
+        Mockito.verify(getElasticsearchClient(), Mockito.times(1)).insert(Mockito.any(BulkInsertRequest.class));
+        assertEquals(new HashSet<>(datastoreIds), queryStoredIds());
+    }
+
+    @Test
+    public void storeBatchSkipsAlreadyStoredMessagesTest() throws Exception {
+        KapuaDataMessage storedMessage = newMessage("client-1", "telemetry/engine", new Date(), Collections.singletonMap("rpm", 1000));
+        String storedDatastoreId = UUID.randomUUID().toString();
+        assertTrue(messageStoreService.storeBatch(Collections.singletonList(storedMessage), Collections.singletonList(storedDatastoreId)).get(0).isSuccess());
+        Mockito.reset(getElasticsearchClient());
+
+        // The stored message is delivered again, together with a new one
+        KapuaDataMessage newMessage = newMessage("client-1", "telemetry/engine", new Date(), Collections.singletonMap("rpm", 2000));
+        String newDatastoreId = UUID.randomUUID().toString();
+        List<MessageStoreResult> results = messageStoreService.storeBatch(Arrays.asList(storedMessage, newMessage), Arrays.asList(storedDatastoreId, newDatastoreId));
+
+        assertTrue("The already stored message should be reported as stored", results.get(0).isSuccess());
+        assertEquals(storedDatastoreId, results.get(0).getStorableId().toString());
+        assertTrue(results.get(1).isSuccess());
+
+        ArgumentCaptor<BulkInsertRequest> bulkInsertRequest = ArgumentCaptor.forClass(BulkInsertRequest.class);
+        Mockito.verify(getElasticsearchClient()).insert(bulkInsertRequest.capture());
+        assertEquals("Only the new message should be inserted",
+                Collections.singletonList(newDatastoreId), bulkInsertRequest.getValue().getRequest().stream().map(InsertRequest::getId).collect(Collectors.toList()));
+        assertEquals(new HashSet<>(Arrays.asList(storedDatastoreId, newDatastoreId)), queryStoredIds());
+    }
+
+    @Test
+    public void storeBatchRejectedItemsTest() throws Exception {
+        // Elasticsearch rejects the single items of a bulk request when it is overloaded (429) or unavailable (503)
+        Map<Integer, Integer> rejectedItems = new HashMap<>();
+        rejectedItems.put(1, 429);
+        rejectedItems.put(2, 503);
+        rejectedItems.put(3, 400);
+        Mockito.doAnswer(invocation -> {
+            BulkInsertRequest bulkInsertRequest = (BulkInsertRequest) invocation.getArguments()[0];
+            BulkInsertResponse bulkInsertResponse = new BulkInsertResponse();
+            for (int i = 0; i < bulkInsertRequest.getRequest().size(); i++) {
+                InsertRequest insertRequest = bulkInsertRequest.getRequest().get(i);
+                if (rejectedItems.containsKey(i)) {
+                    bulkInsertResponse.add(new InsertResponse(insertRequest.getId(), insertRequest.getTypeDescriptor(), rejectedItems.get(i), "rejected"));
+                } else {
+                    bulkInsertResponse.add(getElasticsearchClient().insert(insertRequest));
+                }
+            }
+            return bulkInsertResponse;
+        }).when(getElasticsearchClient()).insert(Mockito.any(BulkInsertRequest.class));
+
+        List<KapuaDataMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            messages.add(newMessage("client-1", "telemetry/engine", new Date(), Collections.singletonMap("rpm", i)));
+        }
+        List<String> datastoreIds = newDatastoreIds(messages.size());
+
+        List<MessageStoreResult> results = messageStoreService.storeBatch(messages, datastoreIds);
+
+        assertTrue(results.get(0).isSuccess());
+        for (int i : new int[]{1, 2}) {
+            assertFalse(results.get(i).isSuccess());
+            assertTrue("A rejected message should be retried", results.get(i).getException() instanceof DatastoreCommunicationException);
+            assertEquals(datastoreIds.get(i), ((DatastoreCommunicationException) results.get(i).getException()).getUuid());
+            assertTrue(results.get(i).getException().getCause() instanceof ClientCommunicationException);
+        }
+        assertFalse(results.get(3).isSuccess());
+        assertFalse("A failed message should not be retried", results.get(3).getException() instanceof DatastoreCommunicationException);
+        assertEquals(KapuaErrorCodes.INTERNAL_ERROR, results.get(3).getException().getCode());
+        assertEquals(Collections.singleton(datastoreIds.get(0)), queryStoredIds());
+    }
+
+    @Test
+    public void storeBatchUnavailableClientTest() throws Exception {
+        Mockito.doThrow(new ClientCommunicationException()).when(getElasticsearchClient()).insert(Mockito.any(BulkInsertRequest.class));
+
+        List<KapuaDataMessage> messages = Arrays.asList(
+                newMessage("client-1", "telemetry/engine", new Date(), Collections.singletonMap("rpm", 1000)),
+                newMessage("client-2", "telemetry/engine", new Date(), Collections.singletonMap("rpm", 2000)));
+        List<String> datastoreIds = newDatastoreIds(messages.size());
+
+        List<MessageStoreResult> results = messageStoreService.storeBatch(messages, datastoreIds);
+
+        for (int i = 0; i < results.size(); i++) {
+            assertTrue(results.get(i).getException() instanceof DatastoreCommunicationException);
+            assertEquals(datastoreIds.get(i), ((DatastoreCommunicationException) results.get(i).getException()).getUuid());
+        }
+    }
+
+    @Test
+    public void storeBatchInvalidMessageTest() throws Exception {
+        KapuaDataMessage invalidMessage = newMessage("client-1", "telemetry/engine", new Date(), Collections.singletonMap("rpm", 1000));
+        invalidMessage.setReceivedOn(null);
+        List<KapuaDataMessage> messages = Arrays.asList(
+                invalidMessage,
+                newMessage("client-1", "telemetry/engine", new Date(), Collections.singletonMap("rpm", 2000)));
+        List<String> datastoreIds = newDatastoreIds(messages.size());
+
+        List<MessageStoreResult> results = messageStoreService.storeBatch(messages, datastoreIds);
+
+        assertTrue(results.get(0).getException() instanceof KapuaIllegalArgumentException);
+        assertTrue("An invalid message should not fail the other ones of the batch", results.get(1).isSuccess());
+        assertEquals(Collections.singleton(datastoreIds.get(1)), queryStoredIds());
+    }
+
+    @Test(expected = KapuaIllegalArgumentException.class)
+    public void storeBatchMismatchingIdsTest() throws Exception {
+        messageStoreService.storeBatch(Collections.singletonList(newMessage("client-1", "telemetry/engine", new Date(), Collections.emptyMap())), Collections.emptyList());
+    }
+
+    private Set<String> queryStoredIds() throws Exception {
+        MessageQueryImpl query = new MessageQueryImpl(scopeId);
+        query.setLimit(100);
+        MessageListResult messageListResult = messageStoreService.query(query);
+        return messageListResult.getItems().stream().map(DatastoreMessage::getDatastoreId).map(Object::toString).collect(Collectors.toSet());
+    }
+
+    private static List<String> newDatastoreIds(int count) {
+        List<String> datastoreIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            datastoreIds.add(UUID.randomUUID().toString());
+        }
+        return datastoreIds;
+    }
+}
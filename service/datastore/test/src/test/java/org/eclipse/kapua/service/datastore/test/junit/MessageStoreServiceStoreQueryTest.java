@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit;
+
+import org.eclipse.kapua.message.device.data.KapuaDataPayload;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
+import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.predicate.ChannelMatchPredicateImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.predicate.MetricPredicateImpl;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.storable.model.id.StorableId;
+import org.eclipse.kapua.service.storable.model.query.SortField;
+import org.eclipse.kapua.service.storable.model.query.predicate.AndPredicateImpl;
+import org.eclipse.kapua.service.storable.model.query.predicate.TermPredicateImpl;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class MessageStoreServiceStoreQueryTest extends AbstractInMemoryDatastoreTest {
+
+    @Test
+    public void storeAndFindTest() throws Exception {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("temperature", 21.5);
+        metrics.put("rpm", 1000);
+        metrics.put("engine.state", "running");
+        Date receivedOn = new Date();
+
+        StorableId storableId = messageStoreService.store(newMessage("client-1", "telemetry/engine", receivedOn, metrics));
+
+        DatastoreMessage message = messageStoreService.find(scopeId, storableId);
+        assertNotNull(message);
+        assertEquals(storableId.toString(), message.getDatastoreId().toString());
+        assertEquals(scopeId, message.getScopeId());
+        assertEquals("client-1", message.getClientId());
+        assertEquals(Arrays.asList("telemetry", "engine"), message.getChannel().getSemanticParts());
+        assertEquals(receivedOn, message.getReceivedOn());
+
+        // The metric names and types survive the round trip
+        KapuaDataPayload payload = (KapuaDataPayload) message.getPayload();
+        assertEquals(21.5, payload.getMetrics().get("temperature"));
+        assertEquals(1000, payload.getMetrics().get("rpm"));
+        assertEquals("running", payload.getMetrics().get("engine.state"));
+    }
+
+    @Test
+    public void queryByChannelClientAndMetricTest() throws Exception {
+        Date now = new Date();
+        messageStoreService.store(newMessage("client-1", "heater/data", now, Collections.singletonMap("temperature", 18.0)));
+        messageStoreService.store(newMessage("client-1", "heater/data", now, Collections.singletonMap("temperature", 24.0)));
+        messageStoreService.store(newMessage("client-2", "heater/data", now, Collections.singletonMap("temperature", 25.0)));
+        messageStoreService.store(newMessage("client-1", "engine/data", now, Collections.singletonMap("temperature", 90.0)));
+
+        MessageQueryImpl query = new MessageQueryImpl(scopeId);
+        query.setPredicate(new AndPredicateImpl(
+                new ChannelMatchPredicateImpl("heater/"),
+                new TermPredicateImpl(MessageField.CLIENT_ID, "client-1"),
+                new MetricPredicateImpl("temperature", Double.class, 20.0, null)));
+
+        MessageListResult result = messageStoreService.query(query);
+        assertEquals(1, result.getSize());
+        assertEquals(24.0, ((KapuaDataPayload) result.getFirstItem().getPayload()).getMetrics().get("temperature"));
+        assertEquals(1, messageStoreService.count(query));
+
+        MessageQueryImpl allQuery = new MessageQueryImpl(scopeId);
+        assertEquals(4, messageStoreService.count(allQuery));
+    }
+
+    @Test
+    public void queryPagesAndSortsTest() throws Exception {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            messageStoreService.store(newMessage("client-1", "heater/data", new Date(now + i * 1000L), Collections.singletonMap("sequence", i)));
+        }
+
+        MessageQueryImpl query = new MessageQueryImpl(scopeId);
+        query.setSortFields(Collections.singletonList(SortField.descending(MessageField.TIMESTAMP.field())));
+        query.setLimit(2);
+        query.setOffset(1);
+        query.setAskTotalCount(true);
+
+        MessageListResult result = messageStoreService.query(query);
+        assertEquals(2, result.getSize());
+        assertEquals(Long.valueOf(5), result.getTotalCount());
+        assertEquals(3, ((KapuaDataPayload) result.getFirstItem().getPayload()).getMetrics().get("sequence"));
+        assertEquals(2, ((KapuaDataPayload) result.getItem(1).getPayload()).getMetrics().get("sequence"));
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+        Date now = new Date();
+        for (int i = 0; i < 25; i++) {
+            messageStoreService.store(newMessage("client-" + i % 2, "heater/data", now, Collections.singletonMap("sequence", i)));
+        }
+
+        MessageQueryImpl query = new MessageQueryImpl(scopeId);
+        query.setPredicate(new TermPredicateImpl(MessageField.CLIENT_ID, "client-0"));
+
+        List<DatastoreMessage> streamedMessages = new ArrayList<>();
+        long streamedCount = messageStoreService.stream(query, streamedMessages::add);
+
+        assertEquals(13, streamedCount);
+        assertEquals(13, streamedMessages.size());
+        for (DatastoreMessage streamedMessage : streamedMessages) {
+            assertEquals("client-0", streamedMessage.getClientId());
+        }
+    }
+
+    @Test
+    public void deleteTest() throws Exception {
+        StorableId deletedId = messageStoreService.store(newMessage("client-1", "heater/data", new Date(), Collections.singletonMap("temperature", 18.0)));
+        StorableId keptId = messageStoreService.store(newMessage("client-2", "heater/data", new Date(), Collections.singletonMap("temperature", 19.0)));
+
+        messageStoreService.delete(scopeId, deletedId);
+
+        assertNull(messageStoreService.find(scopeId, deletedId));
+        assertNotNull(messageStoreService.find(scopeId, keptId));
+        assertEquals(1, messageStoreService.count(new MessageQueryImpl(scopeId)));
+    }
+}
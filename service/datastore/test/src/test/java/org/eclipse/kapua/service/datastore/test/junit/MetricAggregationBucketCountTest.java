@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit;
+
+import org.eclipse.kapua.KapuaIllegalArgumentException;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricAggregationQueryImpl;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationGroupBy;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+import org.eclipse.kapua.service.storable.model.query.predicate.RangePredicateImpl;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@Category(JUnitTests.class)
+public class MetricAggregationBucketCountTest extends AbstractInMemoryDatastoreTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Test
+    public void acceptedBucketCountTest() throws Exception {
+        // 24 time buckets
+        DatastoreUtils.checkAggregationBucketCount(newQuery(DAY, TimeUnit.HOURS.toMillis(1)));
+
+        // 1440 time buckets for each of 5 groups
+        MetricAggregationQuery groupedQuery = newQuery(DAY, TimeUnit.MINUTES.toMillis(1));
+        groupedQuery.setGroupBy(MetricAggregationGroupBy.CLIENT_ID);
+        groupedQuery.setLimit(5);
+        DatastoreUtils.checkAggregationBucketCount(groupedQuery);
+
+        // Without a bounded range the time buckets are not known
+        MetricAggregationQuery unboundedQuery = new MetricAggregationQueryImpl(scopeId);
+        unboundedQuery.addMetric("temperature", Double.class);
+        unboundedQuery.setInterval(1);
+        DatastoreUtils.checkAggregationBucketCount(unboundedQuery);
+    }
+
+    @Test(expected = KapuaIllegalArgumentException.class)
+    public void tooManyTimeBucketsTest() throws Exception {
+        // 86400 time buckets
+        DatastoreUtils.checkAggregationBucketCount(newQuery(DAY, TimeUnit.SECONDS.toMillis(1)));
+    }
+
+    @Test(expected = KapuaIllegalArgumentException.class)
+    public void tooManyGroupedBucketsTest() throws Exception {
+        // 1440 time buckets for each of 10 groups
+        MetricAggregationQuery query = newQuery(DAY, TimeUnit.MINUTES.toMillis(1));
+        query.setGroupBy(MetricAggregationGroupBy.CHANNEL);
+        query.setLimit(10);
+
+        DatastoreUtils.checkAggregationBucketCount(query);
+    }
+
+    @Test
+    public void aggregateRejectsTooManyBucketsTest() throws Exception {
+        try {
+            messageStoreService.aggregate(newQuery(DAY, 1));
+            fail("The aggregation should be rejected");
+        } catch (KapuaIllegalArgumentException e) {
+            assertEquals("query.interval", e.getArgumentName());
+        }
+    }
+
+    private MetricAggregationQuery newQuery(long range, long interval) {
+        Date end = new Date();
+        Date start = new Date(end.getTime() - range);
+
+        MetricAggregationQuery query = new MetricAggregationQueryImpl(scopeId);
+        query.setPredicate(new RangePredicateImpl(MessageField.TIMESTAMP, start, end));
+        query.addMetric("temperature", Double.class);
+        query.setInterval(interval);
+        return query;
+    }
+}
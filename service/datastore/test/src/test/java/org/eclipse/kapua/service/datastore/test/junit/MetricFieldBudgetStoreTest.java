@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit;
+
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.exception.MetricFieldBudgetExceededException;
+import org.eclipse.kapua.service.datastore.internal.DatastoreCacheManager;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageStoreConfiguration;
+import org.eclipse.kapua.service.datastore.internal.model.MetricFieldBudgetPolicy;
+import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
+import org.eclipse.kapua.service.datastore.internal.schema.Schema;
+import org.eclipse.kapua.service.datastore.model.MessageStoreResult;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class MetricFieldBudgetStoreTest extends AbstractInMemoryDatastoreTest {
+
+    private final Schema schema = new Schema();
+
+    @Test
+    public void metricFieldCountIsLoadedFromDataIndexTest() throws Exception {
+        Date now = new Date();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("temperature", 21.5);
+        metrics.put("rpm", 1000);
+        metrics.put("engine.state", "running");
+        messageStoreService.store(newMessage("client-1", "telemetry/engine", now, metrics));
+        messageStoreService.store(newMessage("client-1", "telemetry/engine", now, Collections.singletonMap("temperature", 21)));
+
+        Metadata metadata = evictMetadata(now);
+
+        // As after a restart, the metadata of the existing data index counts the metric fields mapped so far
+        Metadata synchedMetadata = schema.synch(scopeId, now.getTime());
+        assertNotSame(metadata, synchedMetadata);
+        assertEquals(4, synchedMetadata.getMetricFieldCount());
+        assertTrue(synchedMetadata.getMessageMappingsCache().containsKey("temperature.dbl"));
+        assertTrue(synchedMetadata.getMessageMappingsCache().containsKey("temperature.int"));
+        assertEquals(0, synchedMetadata.countNewMetricFields(Collections.singletonList("rpm.int")));
+    }
+
+    @Test
+    public void metricFieldBudgetIsEnforcedAfterEvictionTest() throws Exception {
+        Map<String, Object> configValues = new HashMap<>();
+        configValues.put(MessageStoreConfiguration.CONFIGURATION_METRIC_FIELD_BUDGET_KEY, 2);
+        configValues.put(MessageStoreConfiguration.CONFIGURATION_METRIC_FIELD_BUDGET_POLICY_KEY, MetricFieldBudgetPolicy.REJECT.name());
+        setConfigValues(configValues);
+
+        Date now = new Date();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("temperature", 21.5);
+        metrics.put("pressure", 1.2);
+        messageStoreService.store(newMessage("client-1", "heater/data", now, metrics));
+        evictMetadata(now);
+
+        // Already mapped metrics are still accepted
+        messageStoreService.store(newMessage("client-1", "heater/data", now, Collections.singletonMap("temperature", 22.0)));
+
+        try {
+            messageStoreService.store(newMessage("client-1", "heater/data", now, Collections.singletonMap("humidity", 40.0)));
+            fail("The message should exceed the metric field budget");
+        } catch (MetricFieldBudgetExceededException e) {
+            // Expected
+        }
+
+        // The batch store reports the same exception, not a generic internal error
+        List<MessageStoreResult> results = messageStoreService.storeBatch(
+                Collections.singletonList(newMessage("client-2", "heater/data", now, Collections.singletonMap("humidity", 40.0))),
+                Collections.singletonList("datastore-id-1"));
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(0).getException() instanceof MetricFieldBudgetExceededException);
+    }
+
+    private Metadata evictMetadata(Date time) throws Exception {
+        Metadata metadata = schema.synch(scopeId, time.getTime());
+        DatastoreCacheManager.getInstance().getMetadataCache().remove(metadata.getDataIndexName());
+        return metadata;
+    }
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit;
+
+import com.codahale.metrics.Counter;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.RegistryQueryCache;
+import org.eclipse.kapua.service.datastore.internal.model.ChannelInfoListResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.ChannelInfoQueryImpl;
+import org.eclipse.kapua.service.datastore.model.ChannelInfoListResult;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+
+@Category(JUnitTests.class)
+public class RegistryQueryCacheTest extends Assert {
+
+    private static final KapuaId SCOPE_ID = KapuaEid.ONE;
+    private static final KapuaId OTHER_SCOPE_ID = new KapuaEid(BigInteger.valueOf(2));
+
+    private final Counter hitCount = new Counter();
+    private final Counter missCount = new Counter();
+    private final RegistryQueryCache<ChannelInfoListResult> cache = new RegistryQueryCache<>(100, 60, hitCount, missCount);
+
+    @Test
+    public void equalQueriesShareTheResultTest() {
+        ChannelInfoListResult result = new ChannelInfoListResultImpl();
+        cache.put(cache.getKey(newQuery(SCOPE_ID, 10)), result);
+
+        assertSame(result, cache.get(cache.getKey(newQuery(SCOPE_ID, 10))));
+        assertNull(cache.get(cache.getKey(newQuery(SCOPE_ID, 20))));
+        assertNull(cache.get(cache.getKey(newQuery(OTHER_SCOPE_ID, 10))));
+        assertEquals(1, hitCount.getCount());
+        assertEquals(2, missCount.getCount());
+    }
+
+    @Test
+    public void invalidateScopeTest() {
+        cache.put(cache.getKey(newQuery(SCOPE_ID, 10)), new ChannelInfoListResultImpl());
+        cache.put(cache.getKey(newQuery(OTHER_SCOPE_ID, 10)), new ChannelInfoListResultImpl());
+
+        cache.invalidate(SCOPE_ID);
+
+        assertNull(cache.get(cache.getKey(newQuery(SCOPE_ID, 10))));
+        assertNotNull(cache.get(cache.getKey(newQuery(OTHER_SCOPE_ID, 10))));
+    }
+
+    @Test
+    public void resultComputedDuringInvalidationIsNotReturnedTest() {
+        // The key is taken before the query is performed, and a new channel is stored meanwhile
+        String key = cache.getKey(newQuery(SCOPE_ID, 10));
+        cache.invalidate(SCOPE_ID);
+        cache.put(key, new ChannelInfoListResultImpl());
+
+        assertNull(cache.get(cache.getKey(newQuery(SCOPE_ID, 10))));
+    }
+
+    @Test
+    public void disabledCacheTest() {
+        RegistryQueryCache<ChannelInfoListResult> disabledCache = new RegistryQueryCache<>(100, 0, hitCount, missCount);
+
+        String key = disabledCache.getKey(newQuery(SCOPE_ID, 10));
+        disabledCache.put(key, new ChannelInfoListResultImpl());
+
+        assertNull(key);
+        assertNull(disabledCache.get(key));
+    }
+
+    private ChannelInfoQueryImpl newQuery(KapuaId scopeId, int limit) {
+        ChannelInfoQueryImpl query = new ChannelInfoQueryImpl(scopeId);
+        query.setLimit(limit);
+        return query;
+    }
+}
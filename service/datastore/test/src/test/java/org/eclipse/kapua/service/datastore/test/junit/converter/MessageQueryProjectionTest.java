@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.converter.QueryConverterImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
+import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.storable.model.query.StorableFetchStyle;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Category(JUnitTests.class)
+public class MessageQueryProjectionTest extends Assert {
+
+    @Test
+    public void noProjectionTest() throws Exception {
+        JsonNode sourceNode = convertSource(new MessageQueryImpl(KapuaEid.ONE));
+
+        assertEquals(Arrays.asList("*"), toList(sourceNode.get("includes")));
+        assertEquals(Arrays.asList(""), toList(sourceNode.get("excludes")));
+    }
+
+    @Test
+    public void includedMetricsTest() throws Exception {
+        MessageQuery query = new MessageQueryImpl(KapuaEid.ONE);
+        query.setIncludedMetrics(Arrays.asList("temperature", "engine.rpm"));
+
+        List<String> includes = toList(convertSource(query).get("includes"));
+
+        assertTrue(includes.contains("scope_id"));
+        assertTrue(includes.contains("body"));
+        assertTrue(includes.contains("metrics.temperature"));
+        assertTrue(includes.contains("metrics.engine$2erpm"));
+        assertFalse(includes.contains("*"));
+        assertFalse(includes.contains("metrics.*"));
+    }
+
+    @Test
+    public void includedFieldsAndExcludedMetricsTest() throws Exception {
+        MessageQuery query = new MessageQueryImpl(KapuaEid.ONE);
+        query.setFetchStyle(StorableFetchStyle.SOURCE_SELECT);
+        query.setIncludedFields(Arrays.asList("captured_on"));
+        query.setExcludedMetrics(Arrays.asList("raw_*"));
+
+        JsonNode sourceNode = convertSource(query);
+
+        List<String> includes = toList(sourceNode.get("includes"));
+        assertTrue(includes.contains("captured_on"));
+        assertTrue(includes.contains("metrics.*"));
+        assertFalse(includes.contains("position.*"));
+        assertEquals(Arrays.asList("body", "metrics.raw_*", "unindexed_metrics.raw_*"), toList(sourceNode.get("excludes")));
+    }
+
+    private JsonNode convertSource(MessageQuery query) throws Exception {
+        return new QueryConverterImpl().convertQuery(query).get("_source");
+    }
+
+    private List<String> toList(JsonNode arrayNode) {
+        List<String> values = new ArrayList<>();
+        arrayNode.forEach(value -> values.add(value.asText()));
+        return values;
+    }
+}
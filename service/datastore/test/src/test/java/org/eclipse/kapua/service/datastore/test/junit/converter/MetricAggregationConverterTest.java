@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.converter.MetricAggregationResultConverter;
+import org.eclipse.kapua.service.datastore.internal.converter.QueryConverterImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricAggregationQueryImpl;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationBucket;
+import org.eclipse.kapua.service.datastore.model.MetricAggregationResult;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationGroupBy;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class MetricAggregationConverterTest extends Assert {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    public void convertQueryTest() throws Exception {
+        MetricAggregationQuery query = newQuery(null);
+
+        JsonNode aggregationsNode = new QueryConverterImpl().convertQuery(query).get("aggregations");
+
+        JsonNode dateHistogramNode = aggregationsNode.get("time_buckets").get("date_histogram");
+        assertEquals("timestamp", dateHistogramNode.get("field").asText());
+        assertEquals("60000ms", dateHistogramNode.get("fixed_interval").asText());
+        JsonNode metricsNode = aggregationsNode.get("time_buckets").get("aggregations");
+        assertEquals("metrics.temperature.dbl", metricsNode.get("metric_0").get("stats").get("field").asText());
+        assertEquals("metrics.pressure.int", metricsNode.get("metric_1").get("stats").get("field").asText());
+    }
+
+    @Test
+    public void convertQueryDottedMetricNameTest() throws Exception {
+        MetricAggregationQuery query = new MetricAggregationQueryImpl(KapuaEid.ONE);
+        query.addMetric("engine.rpm", Integer.class);
+        query.addMetric("price$.eur", Double.class);
+        query.setInterval(60000);
+
+        JsonNode metricsNode = new QueryConverterImpl().convertQuery(query).get("aggregations").get("time_buckets").get("aggregations");
+
+        // Same field names of the stored message metrics
+        assertEquals("metrics.engine$2erpm.int", metricsNode.get("metric_0").get("stats").get("field").asText());
+        assertEquals("metrics.price$24$2eeur.dbl", metricsNode.get("metric_1").get("stats").get("field").asText());
+    }
+
+    @Test
+    public void convertGroupedQueryTest() throws Exception {
+        MetricAggregationQuery query = newQuery(MetricAggregationGroupBy.CLIENT_ID);
+        query.setLimit(5);
+
+        JsonNode groupsNode = new QueryConverterImpl().convertQuery(query).get("aggregations").get("groups");
+
+        assertEquals("client_id", groupsNode.get("terms").get("field").asText());
+        assertEquals(5, groupsNode.get("terms").get("size").asInt());
+        assertTrue(groupsNode.get("aggregations").get("time_buckets").has("date_histogram"));
+    }
+
+    @Test
+    public void convertGroupedResultTest() throws Exception {
+        JsonNode aggregationsNode = OBJECT_MAPPER.readTree("{\"groups\":{\"buckets\":[" +
+                "{\"key\":\"client-1\",\"doc_count\":3,\"time_buckets\":{\"buckets\":[" +
+                "{\"key\":60000,\"doc_count\":2,\"metric_0\":{\"count\":2,\"min\":1.0,\"max\":3.0,\"avg\":2.0,\"sum\":4.0},\"metric_1\":{\"count\":0,\"min\":null,\"max\":null,\"avg\":null,\"sum\":0.0}}," +
+                "{\"key\":120000,\"doc_count\":1,\"metric_0\":{\"count\":1,\"min\":5.0,\"max\":5.0,\"avg\":5.0,\"sum\":5.0},\"metric_1\":{\"count\":1,\"min\":7.0,\"max\":7.0,\"avg\":7.0,\"sum\":7.0}}]}}]}}");
+
+        MetricAggregationResult result = new MetricAggregationResultConverter().convert(newQuery(MetricAggregationGroupBy.CLIENT_ID), aggregationsNode);
+
+        assertEquals(2, result.getBuckets().size());
+        MetricAggregationBucket firstBucket = result.getBuckets().get(0);
+        assertEquals("client-1", firstBucket.getGroup());
+        assertEquals(60000, firstBucket.getTimestamp().getTime());
+        assertEquals(2, firstBucket.getCount());
+
+        MetricStatistics temperature = firstBucket.getMetrics().get(0);
+        assertEquals("temperature", temperature.getName());
+        assertEquals(2, temperature.getCount());
+        assertEquals(1.0, temperature.getMin(), 0);
+        assertEquals(3.0, temperature.getMax(), 0);
+        assertEquals(2.0, temperature.getAvg(), 0);
+        assertEquals(4.0, temperature.getSum(), 0);
+
+        // Metrics without values in the bucket have no statistics
+        MetricStatistics pressure = firstBucket.getMetrics().get(1);
+        assertEquals("pressure", pressure.getName());
+        assertEquals(0, pressure.getCount());
+        assertNull(pressure.getMin());
+        assertNull(pressure.getSum());
+
+        assertEquals(120000, result.getBuckets().get(1).getTimestamp().getTime());
+    }
+
+    private MetricAggregationQuery newQuery(MetricAggregationGroupBy groupBy) {
+        MetricAggregationQuery query = new MetricAggregationQueryImpl(KapuaEid.ONE);
+        query.addMetric("temperature", Double.class);
+        query.addMetric("pressure", Integer.class);
+        query.setInterval(60000);
+        query.setGroupBy(groupBy);
+        return query;
+    }
+}
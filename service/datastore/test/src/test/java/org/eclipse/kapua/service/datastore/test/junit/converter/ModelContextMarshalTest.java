@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.converter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.util.xml.XmlUtil;
+import org.eclipse.kapua.message.internal.KapuaPayloadImpl;
+import org.eclipse.kapua.message.internal.KapuaPositionImpl;
+import org.eclipse.kapua.message.internal.device.data.KapuaDataChannelImpl;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.converter.ModelContextImpl;
+import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
+import org.eclipse.kapua.service.datastore.test.junit.DatastoreJAXBContextProvider;
+import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
+import org.eclipse.kapua.service.storable.model.id.StorableIdFactoryImpl;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compares the streaming {@link ModelContext#marshal(Object, JsonGenerator)} with the {@link Map} based {@link ModelContext#marshal(Object)}.
+ * <p>
+ * Their allocations are compared by the {@code MessageMarshalBenchmark} in the {@code qa/benchmarks} module.
+ */
+@Category(JUnitTests.class)
+public class ModelContextMarshalTest extends Assert {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory(OBJECT_MAPPER);
+
+    private final ModelContext modelContext = new ModelContextImpl(new StorableIdFactoryImpl());
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        XmlUtil.setContextProvider(new DatastoreJAXBContextProvider());
+    }
+
+    @Test
+    public void streamingMarshalProducesSameDocument() throws Exception {
+        DatastoreMessageImpl message = buildMessage();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        writeStreaming(message, buffer);
+
+        assertEquals(OBJECT_MAPPER.readTree(mapBased(message)), OBJECT_MAPPER.readTree(buffer.toByteArray()));
+    }
+
+    private byte[] mapBased(DatastoreMessageImpl message) throws Exception {
+        return OBJECT_MAPPER.writeValueAsBytes(modelContext.marshal(message));
+    }
+
+    private void writeStreaming(DatastoreMessageImpl message, ByteArrayOutputStream buffer) throws Exception {
+        try (JsonGenerator jsonGenerator = JSON_FACTORY.createGenerator(buffer)) {
+            modelContext.marshal(message, jsonGenerator);
+        }
+    }
+
+    private DatastoreMessageImpl buildMessage() {
+        Date now = new Date();
+
+        DatastoreMessageImpl message = new DatastoreMessageImpl();
+        message.setId(UUID.randomUUID());
+        message.setScopeId(new KapuaEid(BigInteger.ONE));
+        message.setDeviceId(new KapuaEid(BigInteger.TEN));
+        message.setClientId("client-1");
+        message.setReceivedOn(now);
+        message.setSentOn(now);
+        message.setCapturedOn(now);
+        message.setTimestamp(now);
+
+        KapuaDataChannelImpl channel = new KapuaDataChannelImpl();
+        channel.setSemanticParts(Arrays.asList("heater", "data", "temperature"));
+        message.setChannel(channel);
+
+        KapuaPositionImpl position = new KapuaPositionImpl();
+        position.setLatitude(45.0);
+        position.setLongitude(13.0);
+        position.setAltitude(100.0);
+        position.setTimestamp(now);
+        message.setPosition(position);
+
+        Map<String, Object> metrics = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            metrics.put("metric.double." + i, (double) i);
+            metrics.put("metric.string." + i, "value-" + i);
+        }
+        metrics.put("metric.date", now);
+        metrics.put("metric.boolean", true);
+
+        KapuaPayloadImpl payload = new KapuaPayloadImpl();
+        payload.setMetrics(metrics);
+        payload.setBody("body".getBytes());
+        message.setPayload(payload);
+
+        return message;
+    }
+}
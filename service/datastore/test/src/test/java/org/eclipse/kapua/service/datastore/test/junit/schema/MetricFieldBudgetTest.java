@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.schema;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.util.xml.XmlUtil;
+import org.eclipse.kapua.message.internal.KapuaPayloadImpl;
+import org.eclipse.kapua.message.internal.device.data.KapuaDataChannelImpl;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.converter.ModelContextImpl;
+import org.eclipse.kapua.service.datastore.internal.mediator.Metric;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageStoreConfiguration;
+import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
+import org.eclipse.kapua.service.datastore.internal.model.MetricFieldBudgetPolicy;
+import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
+import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.datastore.test.junit.DatastoreJAXBContextProvider;
+import org.eclipse.kapua.service.elasticsearch.client.ModelContext;
+import org.eclipse.kapua.service.elasticsearch.client.QueryConverter;
+import org.eclipse.kapua.service.storable.model.id.StorableIdFactoryImpl;
+import org.eclipse.kapua.service.storable.model.query.StorableFetchStyle;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Category(JUnitTests.class)
+public class MetricFieldBudgetTest extends Assert {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ModelContext modelContext = new ModelContextImpl(new StorableIdFactoryImpl());
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        XmlUtil.setContextProvider(new DatastoreJAXBContextProvider());
+    }
+
+    @Test
+    public void metadataBudgetTest() {
+        Metadata metadata = new Metadata("1-data-message-2022-01", "channel", "client", "metric");
+        metadata.getMessageMappingsCache().put("temperature.dbl", new Metric("temperature", "double"));
+        metadata.getMessageMappingsCache().put("pressure.dbl", new Metric("pressure", "double"));
+
+        assertEquals(2, metadata.getMetricFieldCount());
+        assertEquals(1, metadata.countNewMetricFields(Arrays.asList("temperature.dbl", "humidity.dbl")));
+        assertEquals(0, metadata.countNewMetricFields(Arrays.asList("temperature.dbl", "pressure.dbl")));
+
+        assertFalse(metadata.isMetricFieldBudgetExceeded(1, 3));
+        assertTrue(metadata.isMetricFieldBudgetExceeded(2, 3));
+        // Already mapped metrics are always allowed, even when the budget is already exceeded
+        assertFalse(metadata.isMetricFieldBudgetExceeded(0, 1));
+
+        assertTrue(metadata.addOverBudgetClientId("client-1"));
+        assertFalse(metadata.addOverBudgetClientId("client-1"));
+        assertEquals(Collections.singleton("client-1"), metadata.getOverBudgetClientIds());
+    }
+
+    @Test
+    public void configurationTest() {
+        MessageStoreConfiguration defaultConfiguration = new MessageStoreConfiguration(new HashMap<>());
+        assertEquals(MessageStoreConfiguration.UNLIMITED, defaultConfiguration.getMetricFieldBudget());
+        assertEquals(MetricFieldBudgetPolicy.DROP, defaultConfiguration.getMetricFieldBudgetPolicy());
+
+        Map<String, Object> values = new HashMap<>();
+        values.put(MessageStoreConfiguration.CONFIGURATION_METRIC_FIELD_BUDGET_KEY, 500);
+        values.put(MessageStoreConfiguration.CONFIGURATION_METRIC_FIELD_BUDGET_POLICY_KEY, "UNINDEXED");
+        MessageStoreConfiguration configuration = new MessageStoreConfiguration(values);
+        assertEquals(500, configuration.getMetricFieldBudget());
+        assertEquals(MetricFieldBudgetPolicy.UNINDEXED, configuration.getMetricFieldBudgetPolicy());
+    }
+
+    @Test
+    public void unindexedMetricsRoundTripTest() throws Exception {
+        DatastoreMessageImpl message = buildMessage();
+
+        Map<String, Object> marshalled = modelContext.marshal(message);
+        assertTrue(((Map<?, ?>) marshalled.get(MessageSchema.MESSAGE_METRICS)).containsKey("temperature"));
+        assertFalse(((Map<?, ?>) marshalled.get(MessageSchema.MESSAGE_METRICS)).containsKey("reading_1640995200"));
+        assertTrue(((Map<?, ?>) marshalled.get(MessageSchema.MESSAGE_UNINDEXED_METRICS)).containsKey("reading_1640995200"));
+
+        // The streaming marshal writes the same document
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JsonGenerator jsonGenerator = OBJECT_MAPPER.getFactory().createGenerator(buffer)) {
+            modelContext.marshal(message, jsonGenerator);
+        }
+        assertEquals(OBJECT_MAPPER.readTree(OBJECT_MAPPER.writeValueAsBytes(marshalled)), OBJECT_MAPPER.readTree(buffer.toByteArray()));
+
+        // Unindexed metrics are read back as payload metrics
+        @SuppressWarnings("unchecked")
+        Map<String, Object> source = OBJECT_MAPPER.readValue(buffer.toByteArray(), Map.class);
+        source.put(modelContext.getIdKeyName(), "message-1");
+        source.put(QueryConverter.QUERY_FETCH_STYLE_KEY, StorableFetchStyle.SOURCE_FULL);
+        DatastoreMessage readMessage = modelContext.unmarshal(DatastoreMessage.class, source);
+
+        assertEquals(21.5, readMessage.getPayload().getMetrics().get("temperature"));
+        assertEquals(42L, readMessage.getPayload().getMetrics().get("reading_1640995200"));
+    }
+
+    private DatastoreMessageImpl buildMessage() {
+        Date now = new Date();
+
+        DatastoreMessageImpl message = new DatastoreMessageImpl();
+        message.setId(UUID.randomUUID());
+        message.setScopeId(new KapuaEid(BigInteger.ONE));
+        message.setClientId("client-1");
+        message.setReceivedOn(now);
+        message.setSentOn(now);
+        message.setCapturedOn(now);
+        message.setTimestamp(now);
+
+        KapuaDataChannelImpl channel = new KapuaDataChannelImpl();
+        channel.setSemanticParts(Arrays.asList("heater", "data"));
+        message.setChannel(channel);
+
+        KapuaPayloadImpl payload = new KapuaPayloadImpl();
+        payload.setMetrics(new HashMap<>(Collections.singletonMap("temperature", 21.5)));
+        message.setPayload(payload);
+        message.setUnindexedMetrics(new HashMap<>(Collections.singletonMap("reading_1640995200", 42L)));
+        return message;
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.schema;
+
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.schema.MetricSignatureSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class MetricSignatureSetTest extends Assert {
+
+    @Test
+    public void signatureIgnoresValuesAndOrder() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("temperature", 21.5);
+        metrics.put("door.open", true);
+        metrics.put("label", "kitchen");
+
+        Map<String, Object> reorderedMetrics = new LinkedHashMap<>();
+        reorderedMetrics.put("label", "living room");
+        reorderedMetrics.put("temperature", 19.0);
+        reorderedMetrics.put("door.open", false);
+
+        assertEquals(MetricSignatureSet.signatureOf(metrics), MetricSignatureSet.signatureOf(reorderedMetrics));
+    }
+
+    @Test
+    public void signatureDependsOnNamesAndTypes() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("temperature", 21.5);
+        long signature = MetricSignatureSet.signatureOf(metrics);
+
+        Map<String, Object> otherType = new HashMap<>();
+        otherType.put("temperature", 21);
+        assertNotEquals(signature, MetricSignatureSet.signatureOf(otherType));
+
+        Map<String, Object> otherName = new HashMap<>();
+        otherName.put("temperatur", 21.5);
+        assertNotEquals(signature, MetricSignatureSet.signatureOf(otherName));
+
+        Map<String, Object> moreMetrics = new HashMap<>(metrics);
+        moreMetrics.put("humidity", 40.0);
+        assertNotEquals(signature, MetricSignatureSet.signatureOf(moreMetrics));
+    }
+
+    @Test
+    public void containsAddedSignatures() {
+        MetricSignatureSet metricSignatureSet = new MetricSignatureSet();
+
+        assertFalse(metricSignatureSet.contains(42L));
+        metricSignatureSet.add(42L);
+        metricSignatureSet.add(42L);
+        assertTrue(metricSignatureSet.contains(42L));
+        assertFalse(metricSignatureSet.contains(43L));
+    }
+
+    @Test
+    public void fullSetKeepsWorking() {
+        MetricSignatureSet metricSignatureSet = new MetricSignatureSet();
+
+        for (long signature = 1; signature <= 10_000; signature++) {
+            metricSignatureSet.add(signature);
+        }
+
+        assertTrue(metricSignatureSet.contains(1L));
+        assertFalse(metricSignatureSet.contains(-1L));
+    }
+}
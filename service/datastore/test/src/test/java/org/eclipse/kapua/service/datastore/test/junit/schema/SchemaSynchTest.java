@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.schema;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.schema.DataIndexPreCreator;
+import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
+import org.eclipse.kapua.service.datastore.internal.schema.Schema;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingsKey;
+import org.eclipse.kapua.service.datastore.test.junit.AbstractInMemoryDatastoreTest;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientErrorCodes;
+import org.eclipse.kapua.service.elasticsearch.client.exception.ClientException;
+import org.eclipse.kapua.service.elasticsearch.client.memory.InMemoryElasticsearchClient;
+import org.eclipse.kapua.service.elasticsearch.client.model.IndexRequest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Category(JUnitTests.class)
+public class SchemaSynchTest extends AbstractInMemoryDatastoreTest {
+
+    private static final long PRECREATION_AHEAD = TimeUnit.DAYS.toMillis(8);
+
+    private final Schema schema = new Schema();
+
+    @Test
+    public void concurrentSynchCreatesDataIndexOnceTest() throws Exception {
+        long now = System.currentTimeMillis();
+        String dataIndexName = getDataIndexName(now);
+
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryElasticsearchClient elasticsearchClient = getElasticsearchClient();
+        Mockito.doAnswer(invocation -> {
+            creating.countDown();
+            release.await();
+            return invocation.callRealMethod();
+        }).when(elasticsearchClient).createIndex(Mockito.eq(dataIndexName), Mockito.any(ObjectNode.class));
+
+        AtomicReference<Metadata> firstMetadata = new AtomicReference<>();
+        AtomicReference<Metadata> secondMetadata = new AtomicReference<>();
+        Thread first = synchInBackground(now, firstMetadata);
+        assertTrue(creating.await(10, TimeUnit.SECONDS));
+
+        // The second caller waits for the synch of the first one
+        Thread second = synchInBackground(now, secondMetadata);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (second.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, second.getState());
+
+        release.countDown();
+        first.join(10000);
+        second.join(10000);
+
+        assertNotNull(firstMetadata.get());
+        assertSame(firstMetadata.get(), secondMetadata.get());
+        assertEquals(dataIndexName, firstMetadata.get().getDataIndexName());
+        Mockito.verify(elasticsearchClient, Mockito.times(1)).createIndex(Mockito.eq(dataIndexName), Mockito.any(ObjectNode.class));
+    }
+
+    @Test
+    public void failedSynchIsRetriedTest() throws Exception {
+        long now = System.currentTimeMillis();
+        String dataIndexName = getDataIndexName(now);
+
+        InMemoryElasticsearchClient elasticsearchClient = getElasticsearchClient();
+        Mockito.doThrow(new ClientException(ClientErrorCodes.ACTION_ERROR, "Injected failure"))
+                .when(elasticsearchClient).createIndex(Mockito.eq(dataIndexName), Mockito.any(ObjectNode.class));
+
+        try {
+            schema.synch(scopeId, now);
+            fail("The synch should fail");
+        } catch (ClientException e) {
+            assertEquals(ClientErrorCodes.ACTION_ERROR, e.getCode());
+        }
+
+        // The failed synch is not kept: the next one creates the data index
+        Mockito.doCallRealMethod().when(elasticsearchClient).createIndex(Mockito.eq(dataIndexName), Mockito.any(ObjectNode.class));
+
+        assertEquals(dataIndexName, schema.synch(scopeId, now).getDataIndexName());
+        assertTrue(elasticsearchClient.isIndexExists(new IndexRequest(dataIndexName)).isIndexExists());
+        Mockito.verify(elasticsearchClient, Mockito.times(2)).createIndex(Mockito.eq(dataIndexName), Mockito.any(ObjectNode.class));
+    }
+
+    @Test
+    public void nextDataIndexIsPreCreatedTest() throws Exception {
+        long now = System.currentTimeMillis();
+        String nextDataIndexName = getDataIndexName(now + PRECREATION_AHEAD);
+
+        DataIndexPreCreator dataIndexPreCreator = new DataIndexPreCreator(schema, true, PRECREATION_AHEAD, 3600);
+        dataIndexPreCreator.start();
+        try {
+            dataIndexPreCreator.onDataIndexUsed(scopeId);
+            dataIndexPreCreator.preCreateDataIndexes();
+        } finally {
+            dataIndexPreCreator.stop();
+        }
+
+        assertTrue(getElasticsearchClient().isIndexExists(new IndexRequest(nextDataIndexName)).isIndexExists());
+        assertFalse("Only the next data index should be created", getElasticsearchClient().isIndexExists(new IndexRequest(getDataIndexName(now))).isIndexExists());
+    }
+
+    @Test
+    public void stoppedPreCreatorIgnoresScopesTest() throws Exception {
+        long now = System.currentTimeMillis();
+
+        DataIndexPreCreator dataIndexPreCreator = new DataIndexPreCreator(schema, true, PRECREATION_AHEAD, 3600);
+        dataIndexPreCreator.onDataIndexUsed(scopeId);
+        dataIndexPreCreator.preCreateDataIndexes();
+
+        assertFalse(getElasticsearchClient().isIndexExists(new IndexRequest(getDataIndexName(now + PRECREATION_AHEAD))).isIndexExists());
+    }
+
+    private Thread synchInBackground(long time, AtomicReference<Metadata> metadata) {
+        Thread thread = new Thread(() -> {
+            try {
+                metadata.set(schema.synch(scopeId, time));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private String getDataIndexName(long time) throws Exception {
+        String indexingWindowOption = DatastoreSettings.getInstance().getString(DatastoreSettingsKey.INDEXING_WINDOW_OPTION, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK);
+        return DatastoreUtils.getDataIndexName(scopeId, time, indexingWindowOption);
+    }
+}
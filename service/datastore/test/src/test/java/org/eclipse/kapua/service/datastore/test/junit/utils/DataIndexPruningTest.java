@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.utils;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.util.xml.XmlUtil;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.mediator.ChannelInfoField;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
+import org.eclipse.kapua.service.datastore.internal.model.query.TimestampRange;
+import org.eclipse.kapua.service.datastore.internal.model.query.predicate.MetricPredicateImpl;
+import org.eclipse.kapua.service.datastore.test.junit.DatastoreJAXBContextProvider;
+import org.eclipse.kapua.service.storable.model.query.predicate.AndPredicateImpl;
+import org.eclipse.kapua.service.storable.model.query.predicate.OrPredicateImpl;
+import org.eclipse.kapua.service.storable.model.query.predicate.RangePredicateImpl;
+import org.eclipse.kapua.service.storable.model.query.predicate.TermPredicateImpl;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+@Category(JUnitTests.class)
+public class DataIndexPruningTest extends Assert {
+
+    private static final KapuaId ONE = new KapuaEid(BigInteger.ONE);
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        XmlUtil.setContextProvider(new DatastoreJAXBContextProvider());
+    }
+
+    @Test
+    public void unboundedWindowTest() {
+        Instant instant = utc(2017, 1, 1, 0, 0);
+
+        assertEquals("1-data-message-*", DatastoreUtils.getDataIndexName(ONE, null, null, DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32));
+        assertEquals("1-data-message-*", DatastoreUtils.getDataIndexName(ONE, instant, null, DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32));
+        assertEquals("1-data-message-*", DatastoreUtils.getDataIndexName(ONE, null, instant, DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32));
+        assertEquals("1-data-message-*", DatastoreUtils.getDataIndexName(ONE, instant, instant, DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 0));
+    }
+
+    @Test
+    public void hourWindowBoundariesTest() {
+        // Inside a single hour
+        assertEquals("1-data-message-2017-01-01-10*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2017, 1, 1, 10, 0), utc(2017, 1, 1, 10, 10), DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32));
+
+        // Up to the last millisecond of the hour
+        assertEquals("1-data-message-2017-01-01-10*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2017, 1, 1, 10, 0), utc(2017, 1, 1, 11, 0).minusMillis(1), DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32));
+
+        // The window end is included
+        assertEquals("1-data-message-2017-01-01-10*,1-data-message-2017-01-01-11*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2017, 1, 1, 10, 0), utc(2017, 1, 1, 11, 0), DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32));
+
+        // Across midnight, which is also the start of a week (Sunday)
+        assertEquals("1-data-message-2016-53-07-23*,1-data-message-2017-01-01-00*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2016, 12, 31, 23, 59), utc(2017, 1, 1, 0, 1), DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32));
+    }
+
+    @Test
+    public void dayWindowBoundariesTest() {
+        assertEquals("1-data-message-2017-02-03*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2017, 1, 10, 0, 0), utc(2017, 1, 11, 0, 0).minusMillis(1), DatastoreUtils.INDEXING_WINDOW_OPTION_DAY, 32));
+        assertEquals("1-data-message-2017-02-03*,1-data-message-2017-02-04*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2017, 1, 10, 23, 59), utc(2017, 1, 11, 0, 0), DatastoreUtils.INDEXING_WINDOW_OPTION_DAY, 32));
+    }
+
+    @Test
+    public void weekWindowBoundariesTest() {
+        // From Sunday to Saturday
+        assertEquals("1-data-message-2017-02*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2017, 1, 8, 0, 0), utc(2017, 1, 15, 0, 0).minusMillis(1), DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK, 32));
+        assertEquals("1-data-message-2017-02*,1-data-message-2017-03*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2017, 1, 8, 0, 0), utc(2017, 1, 15, 0, 0), DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK, 32));
+        assertEquals("1-data-message-2016-53*,1-data-message-2017-01*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2016, 12, 31, 12, 0), utc(2017, 1, 1, 12, 0), DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK, 32));
+    }
+
+    @Test
+    public void emptyWindowTest() {
+        assertEquals("1-data-message-2017-01-01-10*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2017, 1, 1, 10, 30), utc(2017, 1, 1, 9, 0), DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32));
+    }
+
+    @Test
+    public void widerIndexingWindowTest() {
+        // 49 hours are too many: the days are used instead
+        assertEquals("1-data-message-2017-02-03*,1-data-message-2017-02-04*,1-data-message-2017-02-05*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2017, 1, 10, 0, 0), utc(2017, 1, 12, 0, 0), DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32));
+
+        // 15 days are too many: the weeks are used instead
+        assertEquals("1-data-message-2017-02*,1-data-message-2017-03*,1-data-message-2017-04*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2017, 1, 10, 0, 0), utc(2017, 1, 24, 0, 0), DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 10));
+
+        // Too many weeks as well
+        assertEquals("1-data-message-*",
+                DatastoreUtils.getDataIndexName(ONE, utc(2016, 1, 1, 0, 0), utc(2017, 1, 1, 0, 0), DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32));
+    }
+
+    @Test
+    public void widerIndexingWindowOptionTest() {
+        assertEquals(DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK, DatastoreUtils.getWiderIndexingWindowOption(DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK));
+        assertEquals(DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK, DatastoreUtils.getWiderIndexingWindowOption(DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK, DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR));
+        assertEquals(DatastoreUtils.INDEXING_WINDOW_OPTION_DAY, DatastoreUtils.getWiderIndexingWindowOption(DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, DatastoreUtils.INDEXING_WINDOW_OPTION_DAY));
+        assertEquals(DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, DatastoreUtils.getWiderIndexingWindowOption(DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR));
+        assertEquals(DatastoreUtils.INDEXING_WINDOW_OPTION_DAY, DatastoreUtils.getWiderIndexingWindowOption(DatastoreUtils.INDEXING_WINDOW_OPTION_DAY, null));
+    }
+
+    @Test
+    public void changedIndexingWindowTest() throws Exception {
+        // The indexing window was changed from week to hour: the week index of the older messages is not matched by the hour expressions
+        Instant windowStart = utc(2017, 1, 10, 10, 0);
+        Instant windowEnd = utc(2017, 1, 10, 12, 0);
+        String weekIndexName = DatastoreUtils.getDataIndexName(ONE, windowStart.toEpochMilli(), DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK);
+        String hourIndexName = DatastoreUtils.getDataIndexName(ONE, windowEnd.toEpochMilli(), DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR);
+
+        List<String> hourIndexNames = Arrays.asList(DatastoreUtils.getDataIndexName(ONE, windowStart, windowEnd, DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 32).split(","));
+        assertMatched(hourIndexNames, hourIndexName);
+        assertNotMatched(hourIndexNames, weekIndexName);
+
+        // With the widest indexing window both are matched
+        String indexingWindowOption = DatastoreUtils.getWiderIndexingWindowOption(DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK);
+        List<String> indexNames = Arrays.asList(DatastoreUtils.getDataIndexName(ONE, windowStart, windowEnd, indexingWindowOption, 32).split(","));
+        assertEquals(Arrays.asList("1-data-message-2017-02*"), indexNames);
+        assertMatched(indexNames, hourIndexName);
+        assertMatched(indexNames, weekIndexName);
+    }
+
+    @Test
+    public void indexNamesCoverWindowTest() throws Exception {
+        // Every message timestamp in the window must be stored in an index matched by one of the expressions
+        Instant windowStart = utc(2016, 12, 30, 22, 17);
+        Instant windowEnd = utc(2017, 1, 2, 1, 3);
+        for (String indexingWindowOption : Arrays.asList(DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, DatastoreUtils.INDEXING_WINDOW_OPTION_DAY, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK)) {
+            List<String> indexNames = Arrays.asList(DatastoreUtils.getDataIndexName(ONE, windowStart, windowEnd, indexingWindowOption, 100).split(","));
+
+            for (Instant time = windowStart; !time.isAfter(windowEnd); time = time.plus(7, ChronoUnit.MINUTES)) {
+                assertMatched(indexNames, DatastoreUtils.getDataIndexName(ONE, time.toEpochMilli(), indexingWindowOption));
+            }
+            assertMatched(indexNames, DatastoreUtils.getDataIndexName(ONE, windowEnd.toEpochMilli(), indexingWindowOption));
+        }
+    }
+
+    @Test
+    public void timestampRangeTest() {
+        Date start = Date.from(utc(2017, 1, 1, 0, 0));
+        Date end = Date.from(utc(2017, 1, 2, 0, 0));
+
+        TimestampRange timestampRange = TimestampRange.of(new RangePredicateImpl(MessageField.TIMESTAMP, start, end));
+        assertTrue(timestampRange.isBounded());
+        assertEquals(start.toInstant(), timestampRange.getStart());
+        assertEquals(end.toInstant(), timestampRange.getEnd());
+
+        // Same field name used by the REST API
+        assertTrue(TimestampRange.of(new RangePredicateImpl(ChannelInfoField.TIMESTAMP, start, end)).isBounded());
+
+        assertFalse(TimestampRange.of(null).isBounded());
+        assertFalse(TimestampRange.of(new RangePredicateImpl(MessageField.TIMESTAMP, start, null)).isBounded());
+        assertFalse(TimestampRange.of(new RangePredicateImpl(MessageField.RECEIVED_ON, start, end)).isBounded());
+        assertFalse(TimestampRange.of(new MetricPredicateImpl("timestamp", Date.class, start, end)).isBounded());
+    }
+
+    @Test
+    public void timestampRangeCompositionTest() {
+        Date day1 = Date.from(utc(2017, 1, 1, 0, 0));
+        Date day2 = Date.from(utc(2017, 1, 2, 0, 0));
+        Date day3 = Date.from(utc(2017, 1, 3, 0, 0));
+        Date day4 = Date.from(utc(2017, 1, 4, 0, 0));
+
+        // AND intersects, also with half bounded ranges
+        TimestampRange andRange = TimestampRange.of(new AndPredicateImpl(
+                new TermPredicateImpl(MessageField.CLIENT_ID, "client-1"),
+                new RangePredicateImpl(MessageField.TIMESTAMP, day1, null),
+                new RangePredicateImpl(MessageField.TIMESTAMP, null, day3),
+                new RangePredicateImpl(MessageField.TIMESTAMP, day2, day4)));
+        assertEquals(day2.toInstant(), andRange.getStart());
+        assertEquals(day3.toInstant(), andRange.getEnd());
+
+        // OR unites
+        TimestampRange orRange = TimestampRange.of(new OrPredicateImpl(
+                new RangePredicateImpl(MessageField.TIMESTAMP, day3, day4),
+                new AndPredicateImpl(new RangePredicateImpl(MessageField.TIMESTAMP, day1, day2))));
+        assertEquals(day1.toInstant(), orRange.getStart());
+        assertEquals(day4.toInstant(), orRange.getEnd());
+
+        // OR with a branch not restricting the timestamp
+        assertFalse(TimestampRange.of(new OrPredicateImpl(
+                new RangePredicateImpl(MessageField.TIMESTAMP, day1, day2),
+                new TermPredicateImpl(MessageField.CLIENT_ID, "client-1"))).isBounded());
+        assertFalse(TimestampRange.of(new OrPredicateImpl()).isBounded());
+    }
+
+    private static void assertMatched(List<String> indexNames, String indexName) {
+        for (String indexNameExpression : indexNames) {
+            if (indexName.startsWith(indexNameExpression.substring(0, indexNameExpression.length() - 1))) {
+                return;
+            }
+        }
+        fail(indexName + " is not matched by " + indexNames);
+    }
+
+    private static void assertNotMatched(List<String> indexNames, String indexName) {
+        for (String indexNameExpression : indexNames) {
+            if (indexName.startsWith(indexNameExpression.substring(0, indexNameExpression.length() - 1))) {
+                fail(indexName + " is matched by " + indexNameExpression);
+            }
+        }
+    }
+
+    private static Instant utc(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZoneOffset.UTC).toInstant();
+    }
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.utils;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.DataIndexRetention;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class DataIndexRetentionTest extends Assert {
+
+    private static final KapuaId SCOPE_ID = KapuaEid.ONE;
+    private static final KapuaId OTHER_SCOPE_ID = new KapuaEid(BigInteger.valueOf(42));
+
+    private static final Instant NOW = Instant.parse("2022-06-15T12:30:00Z");
+
+    @Test
+    public void groupDataIndexesByScopeTest() throws Exception {
+        String dataIndex = dayIndex(SCOPE_ID, NOW);
+        String otherDataIndex = dayIndex(OTHER_SCOPE_ID, NOW);
+
+        Map<KapuaId, List<String>> dataIndexesByScope = DataIndexRetention.groupDataIndexesByScope(new String[]{dataIndex, " " + otherDataIndex, "other-1-data-message-2022-24", "1-data-channel", ""});
+
+        assertEquals(2, dataIndexesByScope.size());
+        assertEquals(Collections.singletonList(dataIndex), dataIndexesByScope.get(SCOPE_ID));
+        assertEquals(Collections.singletonList(otherDataIndex), dataIndexesByScope.get(OTHER_SCOPE_ID));
+        assertTrue(DataIndexRetention.groupDataIndexesByScope(null).isEmpty());
+    }
+
+    @Test
+    public void getExpiredDataIndexesTest() throws Exception {
+        String todayIndex = dayIndex(SCOPE_ID, NOW);
+        String yesterdayIndex = dayIndex(SCOPE_ID, NOW.minus(1, ChronoUnit.DAYS));
+        String lastWeekIndex = dayIndex(SCOPE_ID, NOW.minus(7, ChronoUnit.DAYS));
+
+        // A TTL of one day expires the data stored before yesterday at the same time: yesterday's index is only partially expired
+        List<String> expiredDataIndexes = DataIndexRetention.getExpiredDataIndexes(Arrays.asList(todayIndex, yesterdayIndex, lastWeekIndex), NOW.minus(1, ChronoUnit.DAYS));
+
+        assertEquals(Collections.singletonList(lastWeekIndex), expiredDataIndexes);
+    }
+
+    private String dayIndex(KapuaId scopeId, Instant timestamp) throws Exception {
+        return DatastoreUtils.getDataIndexName(scopeId, timestamp.toEpochMilli(), DatastoreUtils.INDEXING_WINDOW_OPTION_DAY);
+    }
+}
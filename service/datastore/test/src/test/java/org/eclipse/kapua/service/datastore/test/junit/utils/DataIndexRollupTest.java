@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.test.junit.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.datastore.internal.DataIndexRollup;
+import org.eclipse.kapua.service.datastore.internal.converter.QueryConverterImpl;
+import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
+import org.eclipse.kapua.service.datastore.internal.model.MetricRollupImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricAggregationQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.MetricRollupAggregationQueryImpl;
+import org.eclipse.kapua.service.datastore.internal.model.query.predicate.MetricPredicateImpl;
+import org.eclipse.kapua.service.datastore.model.MetricStatistics;
+import org.eclipse.kapua.service.datastore.model.query.MetricAggregationQuery;
+import org.eclipse.kapua.service.storable.model.query.predicate.AndPredicateImpl;
+import org.eclipse.kapua.service.storable.model.query.predicate.RangePredicateImpl;
+import org.eclipse.kapua.service.storable.model.query.predicate.StorablePredicate;
+import org.eclipse.kapua.service.storable.model.query.predicate.TermPredicateImpl;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Category(JUnitTests.class)
+public class DataIndexRollupTest extends Assert {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final Instant START = Instant.parse("2022-06-01T00:00:00Z");
+    private static final Instant END = Instant.parse("2022-06-02T00:00:00Z");
+    private static final Instant NOW = Instant.parse("2022-06-15T12:30:00Z");
+
+    @Test
+    public void isAnsweredFromRollupsTest() throws Exception {
+        RangePredicateImpl timestampRange = new RangePredicateImpl(MessageField.TIMESTAMP, Date.from(START), Date.from(END));
+        TermPredicateImpl clientIdTerm = new TermPredicateImpl(MessageField.CLIENT_ID, "client-1");
+
+        assertTrue(DataIndexRollup.isAnsweredFromRollups(newQuery(new AndPredicateImpl(timestampRange, clientIdTerm), 3_600_000L), NOW));
+        assertTrue(DataIndexRollup.isAnsweredFromRollups(newQuery(new RangePredicateImpl(MessageField.TIMESTAMP, Date.from(START), Date.from(END.minusMillis(1))), 86_400_000L), NOW));
+
+        // Not rolled up yet
+        assertFalse(DataIndexRollup.isAnsweredFromRollups(newQuery(timestampRange, 3_600_000L), END));
+        // Finer than the rollups
+        assertFalse(DataIndexRollup.isAnsweredFromRollups(newQuery(timestampRange, 60_000L), NOW));
+        // Unbounded
+        assertFalse(DataIndexRollup.isAnsweredFromRollups(newQuery(clientIdTerm, 3_600_000L), NOW));
+        // Not aligned
+        assertFalse(DataIndexRollup.isAnsweredFromRollups(newQuery(new RangePredicateImpl(MessageField.TIMESTAMP, Date.from(START.plus(30, ChronoUnit.MINUTES)), Date.from(END)), 3_600_000L), NOW));
+        // Filtering on metric values
+        assertFalse(DataIndexRollup.isAnsweredFromRollups(newQuery(new AndPredicateImpl(timestampRange, new MetricPredicateImpl("temperature", Double.class, 10.0, null)), 3_600_000L), NOW));
+    }
+
+    @Test
+    public void convertRollupQueryTest() throws Exception {
+        MetricAggregationQuery query = newQuery(new RangePredicateImpl(MessageField.TIMESTAMP, Date.from(START), Date.from(END)), 3_600_000L);
+
+        JsonNode queryNode = new QueryConverterImpl().convertQuery(new MetricRollupAggregationQueryImpl(query));
+
+        // The rollup starting at the upper bound must not be counted
+        JsonNode timestampRangeNode = queryNode.get("query").get("range").get("timestamp");
+        assertTrue(timestampRangeNode.has("lt"));
+        assertFalse(timestampRangeNode.has("lte"));
+        JsonNode metricsNode = queryNode.get("aggregations").get("time_buckets").get("aggregations");
+        assertEquals("metrics.temperature.dbl.count", metricsNode.get("metric_0_count").get("sum").get("field").asText());
+        assertEquals("count", metricsNode.get("message_count").get("sum").get("field").asText());
+    }
+
+    @Test
+    public void convertRollupBucketsTest() throws Exception {
+        JsonNode rollupBucketsNode = OBJECT_MAPPER.readTree("{\"after_key\":{\"client_id\":\"client-1\",\"channel\":\"a/b\",\"timestamp\":1654041600000},\"buckets\":[" +
+                "{\"key\":{\"client_id\":\"client-1\",\"channel\":\"a/b\",\"timestamp\":1654041600000},\"doc_count\":4," +
+                "\"metric_0\":{\"count\":4,\"min\":1.0,\"max\":4.0,\"avg\":2.5,\"sum\":10.0}," +
+                "\"metric_1\":{\"count\":0,\"min\":null,\"max\":null,\"avg\":null,\"sum\":0.0}}]}");
+        Map<String, Class<?>> metricTypes = new LinkedHashMap<>();
+        metricTypes.put("engine.rpm", Integer.class);
+        metricTypes.put("temperature", Double.class);
+
+        List<MetricRollupImpl> metricRollups = DataIndexRollup.convertRollupBuckets(KapuaEid.ONE, metricTypes, rollupBucketsNode);
+
+        assertEquals(1, metricRollups.size());
+        MetricRollupImpl metricRollup = metricRollups.get(0);
+        assertEquals("client-1", metricRollup.getClientId());
+        assertEquals("a/b", metricRollup.getChannel());
+        assertEquals(1654041600000L, metricRollup.getTimestamp().getTime());
+        assertEquals(4, metricRollup.getCount());
+        assertEquals(1, metricRollup.getMetrics().size());
+        MetricStatistics metricStatistics = metricRollup.getMetrics().get("engine$2erpm.int");
+        assertEquals(4, metricStatistics.getCount());
+        assertEquals(1.0, metricStatistics.getMin(), 0.0);
+        assertEquals(10.0, metricStatistics.getSum(), 0.0);
+        // The same time bucket is always stored with the same identifier
+        assertEquals(metricRollup.getId(), DataIndexRollup.convertRollupBuckets(KapuaEid.ONE, metricTypes, rollupBucketsNode).get(0).getId());
+    }
+
+    private MetricAggregationQuery newQuery(StorablePredicate predicate, long interval) {
+        MetricAggregationQuery query = new MetricAggregationQueryImpl(KapuaEid.ONE);
+        query.setPredicate(predicate);
+        query.setInterval(interval);
+        query.addMetric("temperature", Double.class);
+        return query;
+    }
+}
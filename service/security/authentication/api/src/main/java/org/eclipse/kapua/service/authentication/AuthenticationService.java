@@ -53,6 +53,19 @@ public interface AuthenticationService extends KapuaService {
      */
     void authenticate(SessionCredentials sessionCredentials) throws KapuaException;
 
+    /**
+     * Login the provided user login credentials on the system (if the credentials are valid) without creating an {@link AccessToken}.
+     * <p>
+     * The authenticated subject and its session are bound to the current thread
+     * as for {@link #login(LoginCredentials)}, but the session cannot be resumed through an {@link AccessToken} and ends with {@link #logout()}.
+     * It is meant for short-lived sessions (i.e. the broker connections) which would otherwise persist an {@link AccessToken} never used.
+     *
+     * @param loginCredentials The {@link LoginCredentials} to login.
+     * @throws KapuaException an exception is thrown if the credentials are not found on the system, are expired or are disabled
+     * @since 2.0.0
+     */
+    void loginWithoutAccessToken(LoginCredentials loginCredentials) throws KapuaException;
+
     /**
      * Logout the current logged user
      *
@@ -145,37 +145,8 @@ public class AuthenticationServiceShiroImpl implements AuthenticationService {
 
         //
         // Parse login credentials
-        AuthenticationToken shiroAuthenticationToken;
-        String openIDidToken = null;
-        if (loginCredentials instanceof UsernamePasswordCredentials) {
-            UsernamePasswordCredentialsImpl usernamePasswordCredentials = UsernamePasswordCredentialsImpl.parse((UsernamePasswordCredentials) loginCredentials);
-
-            if (Strings.isNullOrEmpty(usernamePasswordCredentials.getUsername()) ||
-                    Strings.isNullOrEmpty(usernamePasswordCredentials.getPassword())) {
-                throw new KapuaAuthenticationException(KapuaAuthenticationErrorCodes.INVALID_LOGIN_CREDENTIALS);
-            }
-
-            shiroAuthenticationToken = usernamePasswordCredentials;
-        } else if (loginCredentials instanceof ApiKeyCredentials) {
-            ApiKeyCredentialsImpl apiKeyCredentials = ApiKeyCredentialsImpl.parse((ApiKeyCredentials) loginCredentials);
-
-            if (Strings.isNullOrEmpty(apiKeyCredentials.getApiKey())) {
-                throw new KapuaAuthenticationException(KapuaAuthenticationErrorCodes.INVALID_LOGIN_CREDENTIALS);
-            }
-
-            shiroAuthenticationToken = apiKeyCredentials;
-        } else if (loginCredentials instanceof JwtCredentials) {
-            JwtCredentialsImpl jwtCredentials = JwtCredentialsImpl.parse((JwtCredentials) loginCredentials);
-            openIDidToken = jwtCredentials.getIdToken();
-
-            if (Strings.isNullOrEmpty(openIDidToken)) {
-                throw new KapuaAuthenticationException(KapuaAuthenticationErrorCodes.INVALID_LOGIN_CREDENTIALS);
-            }
-
-            shiroAuthenticationToken = jwtCredentials;
-        } else {
-            throw new KapuaAuthenticationException(KapuaAuthenticationErrorCodes.INVALID_CREDENTIALS_TYPE_PROVIDED);
-        }
+        AuthenticationToken shiroAuthenticationToken = parseLoginCredentials(loginCredentials);
+        String openIDidToken = shiroAuthenticationToken instanceof JwtCredentials ? ((JwtCredentials) shiroAuthenticationToken).getIdToken() : null;
 
         //
         // Login the user
@@ -213,6 +184,40 @@ public class AuthenticationServiceShiroImpl implements AuthenticationService {
         return accessToken;
     }
 
+    @Override
+    public void loginWithoutAccessToken(LoginCredentials loginCredentials) throws KapuaException {
+        //
+        // Check LoginCredentials
+        if (loginCredentials == null) {
+            throw new KapuaAuthenticationException(KapuaAuthenticationErrorCodes.INVALID_LOGIN_CREDENTIALS);
+        }
+
+        // Check subject
+        checkCurrentSubjectNotAuthenticated();
+
+        //
+        // Parse login credentials
+        AuthenticationToken shiroAuthenticationToken = parseLoginCredentials(loginCredentials);
+
+        //
+        // Login the user
+        Subject currentUser = null;
+        try {
+            // Shiro login
+            currentUser = SecurityUtils.getSubject();
+            currentUser.login(shiroAuthenticationToken);
+
+            // Establish session without the access token
+            Session shiroSession = currentUser.getSession();
+            KapuaSession kapuaSession = new KapuaSession(null, (KapuaEid) shiroSession.getAttribute("scopeId"), (KapuaEid) shiroSession.getAttribute("userId"));
+            establishSession(currentUser, kapuaSession);
+
+            LOG.info("Login for thread '{}' - '{}' - '{}'", Thread.currentThread().getId(), Thread.currentThread().getName(), currentUser);
+        } catch (ShiroException se) {
+            handleTokenLoginException(se, currentUser, shiroAuthenticationToken);
+        }
+    }
+
     @Override
     public void authenticate(SessionCredentials sessionCredentials) throws KapuaException {
         //
@@ -545,17 +550,59 @@ public class AuthenticationServiceShiroImpl implements AuthenticationService {
         return accessToken;
     }
 
+    /**
+     * Parses the given {@link LoginCredentials} into the Shiro {@link AuthenticationToken} to login.
+     *
+     * @param loginCredentials The {@link LoginCredentials} to parse.
+     * @return The Shiro {@link AuthenticationToken}.
+     * @throws KapuaAuthenticationException if the {@link LoginCredentials} are not valid or of an unsupported type.
+     * @since 2.0.0
+     */
+    private AuthenticationToken parseLoginCredentials(LoginCredentials loginCredentials) throws KapuaAuthenticationException {
+        if (loginCredentials instanceof UsernamePasswordCredentials) {
+            UsernamePasswordCredentialsImpl usernamePasswordCredentials = UsernamePasswordCredentialsImpl.parse((UsernamePasswordCredentials) loginCredentials);
+
+            if (Strings.isNullOrEmpty(usernamePasswordCredentials.getUsername()) ||
+                    Strings.isNullOrEmpty(usernamePasswordCredentials.getPassword())) {
+                throw new KapuaAuthenticationException(KapuaAuthenticationErrorCodes.INVALID_LOGIN_CREDENTIALS);
+            }
+
+            return usernamePasswordCredentials;
+        } else if (loginCredentials instanceof ApiKeyCredentials) {
+            ApiKeyCredentialsImpl apiKeyCredentials = ApiKeyCredentialsImpl.parse((ApiKeyCredentials) loginCredentials);
+
+            if (Strings.isNullOrEmpty(apiKeyCredentials.getApiKey())) {
+                throw new KapuaAuthenticationException(KapuaAuthenticationErrorCodes.INVALID_LOGIN_CREDENTIALS);
+            }
+
+            return apiKeyCredentials;
+        } else if (loginCredentials instanceof JwtCredentials) {
+            JwtCredentialsImpl jwtCredentials = JwtCredentialsImpl.parse((JwtCredentials) loginCredentials);
+
+            if (Strings.isNullOrEmpty(jwtCredentials.getIdToken())) {
+                throw new KapuaAuthenticationException(KapuaAuthenticationErrorCodes.INVALID_LOGIN_CREDENTIALS);
+            }
+
+            return jwtCredentials;
+        } else {
+            throw new KapuaAuthenticationException(KapuaAuthenticationErrorCodes.INVALID_CREDENTIALS_TYPE_PROVIDED);
+        }
+    }
+
     private void establishSession(Subject subject, AccessToken accessToken, String openIDidToken) {
-        KapuaSession kapuaSession = new KapuaSession(accessToken, accessToken.getScopeId(), accessToken.getUserId(), openIDidToken);
+        establishSession(subject, new KapuaSession(accessToken, accessToken.getScopeId(), accessToken.getUserId(), openIDidToken));
+    }
+
+    private void establishSession(Subject subject, KapuaSession kapuaSession) {
         KapuaSecurityUtils.setSession(kapuaSession);
 
         Session subjectSession = subject.getSession();
         subjectSession.setAttribute(KapuaSession.KAPUA_SESSION_KEY, kapuaSession);
 
         // Set some logging stuff
-        MDC.put(LoggingMdcKeys.SCOPE_ID, accessToken.getScopeId().toCompactId());
+        MDC.put(LoggingMdcKeys.SCOPE_ID, kapuaSession.getScopeId().toCompactId());
         MDC.put(LoggingMdcKeys.ACCOUNT_NAME, (String) subjectSession.getAttribute(ShiroSessionKeys.ACCOUNT_NAME));
-        MDC.put(LoggingMdcKeys.USER_ID, accessToken.getUserId().toCompactId());
+        MDC.put(LoggingMdcKeys.USER_ID, kapuaSession.getUserId().toCompactId());
         MDC.put(LoggingMdcKeys.USER_NAME, (String) subjectSession.getAttribute(ShiroSessionKeys.USER_NAME));
     }
 
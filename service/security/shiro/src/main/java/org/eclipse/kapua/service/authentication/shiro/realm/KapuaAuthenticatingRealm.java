@@ -184,11 +184,20 @@ public abstract class KapuaAuthenticatingRealm extends AuthenticatingRealm {
     /**
      * Reset the lockout policy of the {@link Credential}.
      * To be used after a succeessful login.
+     * <p>
+     * The {@link Credential} is not updated if there is nothing to reset, so the successful logins don't write anything.
      *
      * @param credential The {@link Credential} to reset.
      * @since 2.0.0
      */
     protected void resetCredentialLockout(Credential credential) {
+        if (credential.getLoginFailures() == 0 &&
+                credential.getFirstLoginFailure() == null &&
+                credential.getLoginFailuresReset() == null &&
+                credential.getLockoutReset() == null) {
+            return;
+        }
+
         CredentialService credentialService = LOCATOR.getService(CredentialService.class);
 
         credential.setFirstLoginFailure(null);
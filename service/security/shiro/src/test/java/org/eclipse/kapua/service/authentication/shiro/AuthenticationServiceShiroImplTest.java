@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.authentication.shiro;
+
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.util.ThreadContext;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.security.KapuaSession;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.account.Account;
+import org.eclipse.kapua.service.authentication.credential.Credential;
+import org.eclipse.kapua.service.authentication.shiro.realm.KapuaAuthenticatingRealm;
+import org.eclipse.kapua.service.authentication.shiro.realm.LoginAuthenticationInfo;
+import org.eclipse.kapua.service.authentication.token.AccessTokenService;
+import org.eclipse.kapua.service.user.User;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.math.BigInteger;
+import java.util.Collections;
+
+@Category(JUnitTests.class)
+public class AuthenticationServiceShiroImplTest extends Assert {
+
+    private static final KapuaEid SCOPE_ID = new KapuaEid(BigInteger.valueOf(2));
+    private static final KapuaEid USER_ID = new KapuaEid(BigInteger.valueOf(42));
+
+    private AccessTokenService accessTokenService;
+    private AuthenticationServiceShiroImpl authenticationService;
+
+    @Before
+    public void setUp() {
+        accessTokenService = Mockito.mock(AccessTokenService.class);
+        ShiroTestLocator.setService(AccessTokenService.class, accessTokenService);
+        authenticationService = new AuthenticationServiceShiroImpl();
+
+        SecurityUtils.setSecurityManager(new DefaultSecurityManager(new TestRealm()));
+    }
+
+    @After
+    public void tearDown() {
+        KapuaSecurityUtils.clearSession();
+        ThreadContext.remove();
+        SecurityUtils.setSecurityManager(null);
+        ShiroTestLocator.clearServices();
+    }
+
+    @Test
+    public void loginWithoutAccessTokenTest() throws Exception {
+        authenticationService.loginWithoutAccessToken(new UsernamePasswordCredentialsImpl("username", "password"));
+
+        assertTrue(SecurityUtils.getSubject().isAuthenticated());
+
+        KapuaSession kapuaSession = KapuaSecurityUtils.getSession();
+        assertNotNull(kapuaSession);
+        assertEquals(SCOPE_ID, kapuaSession.getScopeId());
+        assertEquals(USER_ID, kapuaSession.getUserId());
+        assertNull(kapuaSession.getAccessToken());
+        assertSame(kapuaSession, SecurityUtils.getSubject().getSession().getAttribute(KapuaSession.KAPUA_SESSION_KEY));
+
+        // No access token is created
+        Mockito.verifyZeroInteractions(accessTokenService);
+    }
+
+    @Test
+    public void logoutWithoutAccessTokenTest() throws Exception {
+        authenticationService.loginWithoutAccessToken(new UsernamePasswordCredentialsImpl("username", "password"));
+
+        authenticationService.logout();
+
+        assertFalse(SecurityUtils.getSubject().isAuthenticated());
+        assertNull(KapuaSecurityUtils.getSession());
+
+        // There is no access token to invalidate
+        Mockito.verifyZeroInteractions(accessTokenService);
+    }
+
+    /**
+     * Realm which authenticates any {@link UsernamePasswordCredentialsImpl} and populates the session as the actual realms do.
+     */
+    private static class TestRealm extends KapuaAuthenticatingRealm {
+
+        @Override
+        public boolean supports(AuthenticationToken authenticationToken) {
+            return authenticationToken instanceof UsernamePasswordCredentialsImpl;
+        }
+
+        @Override
+        protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken authenticationToken) {
+            Account account = Mockito.mock(Account.class);
+            Mockito.doReturn(SCOPE_ID).when(account).getId();
+            Mockito.doReturn("account").when(account).getName();
+
+            User user = Mockito.mock(User.class);
+            Mockito.doReturn(USER_ID).when(user).getId();
+            Mockito.doReturn("username").when(user).getName();
+
+            return new LoginAuthenticationInfo(getName(), account, user, Mockito.mock(Credential.class), Collections.emptyMap());
+        }
+
+        @Override
+        protected void assertCredentialsMatch(AuthenticationToken authenticationToken, AuthenticationInfo authenticationInfo) {
+            populateSession(SecurityUtils.getSubject(), (LoginAuthenticationInfo) authenticationInfo);
+        }
+    }
+}
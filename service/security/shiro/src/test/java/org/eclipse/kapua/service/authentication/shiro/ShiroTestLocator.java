@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.authentication.shiro;
+
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.model.KapuaObjectFactory;
+import org.eclipse.kapua.service.KapuaService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link KapuaLocator} for the tests of this module, selected with the surefire configuration.
+ * <p>
+ * The services are registered statically, since the classes under test keep the {@link KapuaLocator} they got when instantiated.
+ * Services which are not registered are located as {@code null}.
+ *
+ * @since 2.0.0
+ */
+public class ShiroTestLocator extends KapuaLocator {
+
+    private static final Map<Class<?>, KapuaService> SERVICES = new HashMap<>();
+
+    /**
+     * Registers the given {@link KapuaService}.
+     *
+     * @param serviceClass The {@link KapuaService} class.
+     * @param service      The {@link KapuaService} to locate.
+     * @param <S>          The {@link KapuaService} type.
+     * @since 2.0.0
+     */
+    public static <S extends KapuaService> void setService(Class<S> serviceClass, S service) {
+        SERVICES.put(serviceClass, service);
+    }
+
+    /**
+     * Removes all the registered {@link KapuaService}s.
+     *
+     * @since 2.0.0
+     */
+    public static void clearServices() {
+        SERVICES.clear();
+    }
+
+    @Override
+    public <S extends KapuaService> S getService(Class<S> serviceClass) {
+        return serviceClass.cast(SERVICES.get(serviceClass));
+    }
+
+    @Override
+    public <F extends KapuaObjectFactory> F getFactory(Class<F> factoryClass) {
+        return null;
+    }
+
+    @Override
+    public List<KapuaService> getServices() {
+        return new ArrayList<>(SERVICES.values());
+    }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2022 Eurotech and/or its affiliates and others
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.authentication.shiro.realm;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.eclipse.kapua.qa.markers.junit.JUnitTests;
+import org.eclipse.kapua.service.authentication.credential.Credential;
+import org.eclipse.kapua.service.authentication.credential.CredentialService;
+import org.eclipse.kapua.service.authentication.shiro.ShiroTestLocator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.util.Date;
+
+@Category(JUnitTests.class)
+public class KapuaAuthenticatingRealmTest extends Assert {
+
+    private CredentialService credentialService;
+    private KapuaAuthenticatingRealm realm;
+
+    @Before
+    public void setUp() {
+        credentialService = Mockito.mock(CredentialService.class);
+        ShiroTestLocator.setService(CredentialService.class, credentialService);
+
+        realm = new KapuaAuthenticatingRealm() {
+
+            @Override
+            protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken authenticationToken) {
+                return null;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        ShiroTestLocator.clearServices();
+    }
+
+    @Test
+    public void resetCredentialLockoutNothingToResetTest() throws Exception {
+        Credential credential = Mockito.mock(Credential.class);
+
+        realm.resetCredentialLockout(credential);
+
+        Mockito.verify(credentialService, Mockito.never()).update(Mockito.any(Credential.class));
+        Mockito.verify(credential, Mockito.never()).setLoginFailures(Mockito.anyInt());
+    }
+
+    @Test
+    public void resetCredentialLockoutLoginFailuresTest() throws Exception {
+        Credential credential = Mockito.mock(Credential.class);
+        Mockito.doReturn(2).when(credential).getLoginFailures();
+
+        realm.resetCredentialLockout(credential);
+
+        Mockito.verify(credential).setLoginFailures(0);
+        Mockito.verify(credential).setFirstLoginFailure(null);
+        Mockito.verify(credentialService).update(credential);
+    }
+
+    @Test
+    public void resetCredentialLockoutLockoutResetTest() throws Exception {
+        Credential credential = Mockito.mock(Credential.class);
+        Mockito.doReturn(new Date()).when(credential).getLockoutReset();
+
+        realm.resetCredentialLockout(credential);
+
+        Mockito.verify(credential).setLockoutReset(null);
+        Mockito.verify(credentialService).update(credential);
+    }
+}